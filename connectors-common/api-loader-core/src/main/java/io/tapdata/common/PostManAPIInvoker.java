@@ -8,6 +8,7 @@ import io.tapdata.common.postman.entity.ApiMap;
 import io.tapdata.common.postman.entity.ApiVariable;
 import io.tapdata.common.postman.enums.PostParam;
 import io.tapdata.common.postman.pageStage.PageStage;
+import io.tapdata.common.postman.pageStage.RequestRateLimiter;
 import io.tapdata.common.postman.pageStage.TapPage;
 import io.tapdata.common.postman.util.ApiMapUtil;
 import io.tapdata.common.support.APIFactory;
@@ -40,6 +41,8 @@ public class PostManAPIInvoker
 
     private PostManAnalysis analysis;
     private Map<String,Object> httpConfig;
+    //shared by pages of all tables, so requestsPerSecond limits the connector rather than every batch read
+    private RequestRateLimiter rateLimiter;
 
     public PostManAPIInvoker analysis(PostManAnalysis analysis) {
         this.analysis = analysis;
@@ -118,7 +121,10 @@ public class PostManAPIInvoker
         }
         APIResponse response = this.analysis.http(uriOrName, method, params);
         if (Objects.nonNull(this.interceptor) && invoker) {
-            response = this.interceptor.intercept(response, uriOrName, method, params);
+            //pages may be fetched by several threads, token is refreshed by one of them at a time
+            synchronized (this.interceptor) {
+                response = this.interceptor.intercept(response, uriOrName, method, params);
+            }
         }
         //System.out.println("DEBUG-INFO: Results obtained from this execution: \n" + toJson(response));
         return response;
@@ -228,10 +234,23 @@ public class PostManAPIInvoker
                 .invoker(this)
                 .tableName(currentTable)
                 .task(task)
+                .pageConcurrency(this.analysis.httpConfigInt(TapPage.PAGE_CONCURRENCY, 1))
+                .rateLimiter(this.rateLimiter())
                 .consumer(consumer);
         stage.page(tapPage);
     }
 
+    private synchronized RequestRateLimiter rateLimiter() {
+        int requestsPerSecond = this.analysis.httpConfigInt(TapPage.REQUESTS_PER_SECOND, 0);
+        if (requestsPerSecond <= 0) {
+            return null;
+        }
+        if (Objects.isNull(this.rateLimiter) || this.rateLimiter.requestsPerSecond() != requestsPerSecond) {
+            this.rateLimiter = RequestRateLimiter.create(requestsPerSecond);
+        }
+        return this.rateLimiter;
+    }
+
     @Override
     public void iterateAllData(String urlOrName, String method, Object offset, APIIterateInterceptor interceptor) {
         if (Objects.isNull(urlOrName)) {
@@ -285,6 +285,16 @@ public class PostManAnalysis {
         }
     }
 
+    public int httpConfigInt(String key, int defaultValue) {
+        if (Objects.nonNull(this.httpConfig) && Objects.nonNull(this.httpConfig.get(key))) {
+            try {
+                return Integer.parseInt(String.valueOf(this.httpConfig.get(key)));
+            } catch (Exception ignored) {
+            }
+        }
+        return defaultValue;
+    }
+
     private OkHttpClient.Builder configHttp(OkHttpClient.Builder builder) {
         if (Objects.nonNull(this.httpConfig)) {
             try {
@@ -4,7 +4,6 @@ import io.tapdata.common.postman.entity.ApiMap;
 import io.tapdata.common.postman.entity.params.Api;
 import io.tapdata.common.postman.enums.PostParam;
 import io.tapdata.entity.error.CoreException;
-import io.tapdata.common.support.APIInvoker;
 import io.tapdata.common.support.core.emun.TapApiTag;
 import io.tapdata.common.support.entitys.APIResponse;
 
@@ -19,7 +18,6 @@ public class FromTo implements PageStage {
     public void page(TapPage tapPage) {
         ApiMap.ApiEntity api = tapPage.api();
         Api requestApi = api.api();
-        APIInvoker invoker = tapPage.invoker();
 
         String apiName = api.name();
         String apiMethod = api.method();
@@ -60,11 +58,11 @@ public class FromTo implements PageStage {
         }
         param.put(fromKeyName,toValue);
         param.put(toKeyName,toValue+pageSize);
-        APIResponse apiResponse = invoker.invoke(apiName, param, apiMethod,true);
+        APIResponse apiResponse = tapPage.invoke(apiName, param, apiMethod);
         Map<String, Object> result = apiResponse.result();
         while (this.accept(result,tapPage,pageResultPath)){
             param.put(fromKeyName,toValue+1);
-            apiResponse = invoker.invoke(apiName, param, apiMethod,true);
+            apiResponse = tapPage.invoke(apiName, param, apiMethod);
             result = apiResponse.result();
         }
     }
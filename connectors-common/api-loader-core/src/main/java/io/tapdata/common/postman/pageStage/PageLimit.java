@@ -1,6 +1,5 @@
 package io.tapdata.common.postman.pageStage;
 
-import io.tapdata.common.support.APIInvoker;
 import io.tapdata.entity.error.CoreException;
 import io.tapdata.entity.event.TapEvent;
 import io.tapdata.common.support.entitys.APIResponse;
@@ -18,7 +17,6 @@ public class PageLimit implements PageStage {
     public void page(TapPage tapPage) {
         ApiMap.ApiEntity api = tapPage.api();
         Api requestApi = api.api();
-        APIInvoker invoker = tapPage.invoker();
         BiConsumer<List<TapEvent>, Object> consumer = tapPage.consumer();
 
         String apiName = api.name();
@@ -60,11 +58,23 @@ public class PageLimit implements PageStage {
         }
         param.put(offsetKeyName,offsetValue);
         param.put(limitKeyName,limitValue);
-        APIResponse apiResponse = invoker.invoke(apiName, param, apiMethod,true);
+        if (tapPage.pageConcurrency() > 1) {
+            final Map<String, Object> firstParam = param;
+            final String offsetName = offsetKeyName;
+            final int firstOffset = offsetValue;
+            final int limit = limitValue;
+            PagePrefetcher.create(tapPage).fetch(this, pageResultPath, page -> {
+                Map<String, Object> pageParam = new HashMap<>(firstParam);
+                pageParam.put(offsetName, firstOffset + page * limit);
+                return pageParam;
+            });
+            return;
+        }
+        APIResponse apiResponse = tapPage.invoke(apiName, param, apiMethod);
         Map<String, Object> result = apiResponse.result();
         while (Objects.nonNull(result) && this.accept(result,tapPage,pageResultPath)){
             param.put(offsetKeyName , offsetValue = (offsetValue + limitValue));
-            apiResponse = invoker.invoke(apiName, param, apiMethod,true);
+            apiResponse = tapPage.invoke(apiName, param, apiMethod);
             result = apiResponse.result();
         }
     }
@@ -1,6 +1,5 @@
 package io.tapdata.common.postman.pageStage;
 
-import io.tapdata.common.support.APIInvoker;
 import io.tapdata.common.support.entitys.APIResponse;
 import io.tapdata.common.postman.entity.ApiMap;
 import io.tapdata.common.postman.entity.params.Api;
@@ -21,13 +20,12 @@ public class PageNone implements PageStage {
     public void page(TapPage tapPage) {
         ApiMap.ApiEntity api = tapPage.api();
         Api requestApi = api.api();
-        APIInvoker invoker = tapPage.invoker();
         BiConsumer<List<TapEvent>, Object> consumer = tapPage.consumer();
 
         String apiName = api.name();
         String apiMethod = api.method();
         Map<String, Object> param = tapPage.apiParam();
-        APIResponse apiResponse = invoker.invoke(apiName, param, apiMethod,true);
+        APIResponse apiResponse = tapPage.invoke(apiName, param, apiMethod);
         int size = tapPage.batchCount();
 
         String pageResultPath = requestApi.pageResultPath();
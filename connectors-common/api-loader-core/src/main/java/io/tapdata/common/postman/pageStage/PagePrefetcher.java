@@ -0,0 +1,95 @@
+package io.tapdata.common.postman.pageStage;
+
+import io.tapdata.common.postman.entity.ApiMap;
+import io.tapdata.common.support.entitys.APIResponse;
+import io.tapdata.entity.error.CoreException;
+import io.tapdata.entity.logger.TapLogger;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * fetch pages of index or offset paging by several requests at the same time, such pages do not depend on each other,
+ * responses are accepted in the order of pages and fetching stops at the first page without data,
+ * so at most pageConcurrency - 1 requests after the last page are wasted
+ */
+public class PagePrefetcher {
+    private static final String TAG = PagePrefetcher.class.getSimpleName();
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    //throttled pages are fetched again after the backoff, which is doubled every time
+    private static final int MAX_THROTTLED_RETRY = 5;
+    private static final long THROTTLED_BACKOFF_MS = 1000L;
+    private final TapPage tapPage;
+    private long throttledBackoffMs = THROTTLED_BACKOFF_MS;
+
+    private PagePrefetcher(TapPage tapPage) {
+        this.tapPage = tapPage;
+    }
+
+    public static PagePrefetcher create(TapPage tapPage) {
+        return new PagePrefetcher(tapPage);
+    }
+
+    /**
+     * @param pageParam params of the page, 0 is the first page
+     */
+    public void fetch(PageStage stage, String pageResultPath, IntFunction<Map<String, Object>> pageParam) {
+        ApiMap.ApiEntity api = tapPage.api();
+        int concurrency = tapPage.pageConcurrency();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        Deque<Future<APIResponse>> pages = new ArrayDeque<>();
+        int nextPage = 0;
+        try {
+            while (tapPage.isAlive()) {
+                while (pages.size() < concurrency) {
+                    Map<String, Object> param = pageParam.apply(nextPage++);
+                    pages.add(executor.submit(() -> this.fetchPage(api.name(), api.method(), param)));
+                }
+                APIResponse apiResponse = pages.poll().get();
+                Map<String, Object> result = Objects.isNull(apiResponse) ? null : apiResponse.result();
+                if (Objects.isNull(result) || !stage.accept(result, tapPage, pageResultPath)) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CoreException(String.format("Interrupted while fetching pages of table [%s]", tapPage.tableName()));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new CoreException(String.format("Failed to fetch pages of table [%s], message: %s", tapPage.tableName(), cause.getMessage()));
+        } finally {
+            pages.forEach(page -> page.cancel(true));
+            executor.shutdownNow();
+        }
+    }
+
+    //requests are started through the rate limiter of the page, which is shared by all tables
+    private APIResponse fetchPage(String apiName, String apiMethod, Map<String, Object> param) throws InterruptedException {
+        long backoff = this.throttledBackoffMs;
+        for (int i = 0; tapPage.isAlive(); i++) {
+            APIResponse apiResponse = tapPage.invoke(apiName, param, apiMethod);
+            if (Objects.isNull(apiResponse) || apiResponse.httpCode() != HTTP_TOO_MANY_REQUESTS) {
+                return apiResponse;
+            }
+            //a throttled page is not the last page, it must not end the reading
+            if (i >= MAX_THROTTLED_RETRY) {
+                throw new CoreException(String.format("Page of table [%s] is still throttled after %s retries", tapPage.tableName(), MAX_THROTTLED_RETRY));
+            }
+            TapLogger.info(TAG, "Page of table [{}] is throttled, fetch it again after {}ms", tapPage.tableName(), backoff);
+            TimeUnit.MILLISECONDS.sleep(backoff);
+            backoff <<= 1;
+        }
+        return null;
+    }
+}
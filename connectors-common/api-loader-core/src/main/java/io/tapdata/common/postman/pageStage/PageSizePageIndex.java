@@ -1,6 +1,5 @@
 package io.tapdata.common.postman.pageStage;
 
-import io.tapdata.common.support.APIInvoker;
 import io.tapdata.common.support.entitys.APIResponse;
 import io.tapdata.common.support.core.emun.TapApiTag;
 import io.tapdata.common.postman.entity.ApiMap;
@@ -19,7 +18,6 @@ public class PageSizePageIndex implements PageStage {
     public void page(TapPage tapPage) {
         ApiMap.ApiEntity api = tapPage.api();
         Api requestApi = api.api();
-        APIInvoker invoker = tapPage.invoker();
 
         String apiName = api.name();
         String apiMethod = api.method();
@@ -59,11 +57,22 @@ public class PageSizePageIndex implements PageStage {
         }
         param.put(pageIndexName,pageIndexValue);
         param.put(pageSizeName,pageSizeValue);
-        APIResponse apiResponse = invoker.invoke(apiName, param, apiMethod,true);
+        if (tapPage.pageConcurrency() > 1) {
+            final Map<String, Object> firstParam = param;
+            final String indexName = pageIndexName;
+            final int firstIndex = pageIndexValue;
+            PagePrefetcher.create(tapPage).fetch(this, pageResultPath, page -> {
+                Map<String, Object> pageParam = new HashMap<>(firstParam);
+                pageParam.put(indexName, firstIndex + page);
+                return pageParam;
+            });
+            return;
+        }
+        APIResponse apiResponse = tapPage.invoke(apiName, param, apiMethod);
         Map<String, Object> result = apiResponse.result();
         while (this.accept(result,tapPage,pageResultPath)){
             param.put(pageIndexName,++pageIndexValue);
-            apiResponse = invoker.invoke(apiName, param, apiMethod,true);
+            apiResponse = tapPage.invoke(apiName, param, apiMethod);
             result = apiResponse.result();
         }
     }
@@ -1,7 +1,6 @@
 package io.tapdata.common.postman.pageStage;
 
 import io.tapdata.common.postman.entity.params.Api;
-import io.tapdata.common.support.APIInvoker;
 import io.tapdata.entity.error.CoreException;
 import io.tapdata.entity.event.TapEvent;
 import io.tapdata.common.support.entitys.APIResponse;
@@ -19,7 +18,6 @@ public class PageToken implements PageStage {
     public void page(TapPage tapPage) {
         ApiMap.ApiEntity api = tapPage.api();
         Api requestApi = api.api();
-        APIInvoker invoker = tapPage.invoker();
         BiConsumer<List<TapEvent>, Object> consumer = tapPage.consumer();
 
         String apiName = api.name();
@@ -70,10 +68,10 @@ public class PageToken implements PageStage {
             param = new HashMap<>();
         }
         param.put(sizeKeyName,sizeValue);
-        APIResponse apiResponse = invoker.invoke(apiName, param, apiMethod,true);
+        APIResponse apiResponse = tapPage.invoke(apiName, param, apiMethod);
         Map<String, Object> result = apiResponse.result();
         while (this.accept(result,tapPage,pageResultPath)){
-            apiResponse = invoker.invoke(apiName, param, apiMethod,true);
+            apiResponse = tapPage.invoke(apiName, param, apiMethod);
             result = apiResponse.result();
             param.put(tokenName, tokenValue = getPageToken(result,tokenName));
             if(!hasNext(result,hasNextName)){
@@ -0,0 +1,46 @@
+package io.tapdata.common.postman.pageStage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * requests are started at most requestsPerSecond times a second, by all tables and threads sharing the limiter
+ */
+public class RequestRateLimiter {
+    private final int requestsPerSecond;
+    private final long requestIntervalMs;
+    private long nextRequestTime;
+
+    private RequestRateLimiter(int requestsPerSecond) {
+        this.requestsPerSecond = requestsPerSecond;
+        this.requestIntervalMs = requestsPerSecond > 0 ? Math.max(1L, 1000L / requestsPerSecond) : 0L;
+    }
+
+    /**
+     * @param requestsPerSecond 0 means no limit
+     */
+    public static RequestRateLimiter create(int requestsPerSecond) {
+        return new RequestRateLimiter(requestsPerSecond);
+    }
+
+    public int requestsPerSecond() {
+        return this.requestsPerSecond;
+    }
+
+    //wait until the next request can be started
+    public void acquire() throws InterruptedException {
+        long waitMs = this.reserve(System.currentTimeMillis());
+        if (waitMs > 0) {
+            TimeUnit.MILLISECONDS.sleep(waitMs);
+        }
+    }
+
+    //time to wait for a request at now, the request after it is started one interval later
+    protected synchronized long reserve(long now) {
+        if (this.requestIntervalMs <= 0) {
+            return 0L;
+        }
+        long requestTime = Math.max(now, this.nextRequestTime);
+        this.nextRequestTime = requestTime + this.requestIntervalMs;
+        return requestTime - now;
+    }
+}
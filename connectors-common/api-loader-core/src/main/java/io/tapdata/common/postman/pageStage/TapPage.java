@@ -1,15 +1,21 @@
 package io.tapdata.common.postman.pageStage;
 
 import io.tapdata.common.postman.entity.ApiMap;
+import io.tapdata.common.support.entitys.APIResponse;
+import io.tapdata.entity.error.CoreException;
 import io.tapdata.entity.event.TapEvent;
 import io.tapdata.common.support.APIInvoker;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
 
 public class TapPage {
+    //keys in the http config of the invoker
+    public static final String PAGE_CONCURRENCY = "pageConcurrency";
+    public static final String REQUESTS_PER_SECOND = "requestsPerSecond";
     private AtomicBoolean task;
     public Boolean isAlive(){
         return task.get();
@@ -26,6 +32,10 @@ public class TapPage {
     private APIInvoker invoker;
     private ApiMap.ApiEntity api;
     private Map<String,Object> apiParam;
+    //pages fetched at the same time, only for paging whose pages do not depend on the former ones
+    private int pageConcurrency = 1;
+    //shared by all tables of the invoker, null means no limit
+    private RequestRateLimiter rateLimiter;
     public static TapPage create(){
         return new TapPage();
     }
@@ -40,6 +50,32 @@ public class TapPage {
     public Map<String,Object> apiParam(){
         return this.apiParam;
     }
+    public TapPage pageConcurrency(int pageConcurrency){
+        this.pageConcurrency = Math.max(1, pageConcurrency);
+        return this;
+    }
+    public int pageConcurrency(){
+        return this.pageConcurrency;
+    }
+    public TapPage rateLimiter(RequestRateLimiter rateLimiter){
+        this.rateLimiter = rateLimiter;
+        return this;
+    }
+    public RequestRateLimiter rateLimiter(){
+        return this.rateLimiter;
+    }
+    //pages of every paging mode are requested by it, so that the rate limit is kept with or without concurrency
+    public APIResponse invoke(String apiName, Map<String, Object> param, String apiMethod){
+        if (Objects.nonNull(this.rateLimiter)) {
+            try {
+                this.rateLimiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CoreException(String.format("Interrupted while waiting to fetch pages of table [%s]", this.tableName));
+            }
+        }
+        return this.invoker.invoke(apiName, param, apiMethod, true);
+    }
     public TapPage batchCount(int batchCount){
         this.batchCount = batchCount;
         return this;
@@ -0,0 +1,162 @@
+package io.tapdata.common.postman.pageStage;
+
+import io.tapdata.common.postman.entity.ApiMap;
+import io.tapdata.common.support.APIInvoker;
+import io.tapdata.common.support.entitys.APIResponse;
+import io.tapdata.entity.error.CoreException;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PagePrefetcherTest {
+
+    APIInvoker invoker;
+    TapPage tapPage;
+    PageStage stage;
+    List<Object> ids;
+
+    @BeforeEach
+    void beforeEach() {
+        invoker = mock(APIInvoker.class);
+        ids = Collections.synchronizedList(new ArrayList<>());
+        tapPage = TapPage.create()
+                .task(new AtomicBoolean(true))
+                .invoker(invoker)
+                .api(ApiMap.ApiEntity.create().name("list").method("GET"))
+                .tableName("t")
+                .batchCount(100)
+                .pageConcurrency(3)
+                .consumer((events, offset) -> events.forEach(event -> ids.add(((TapInsertRecordEvent) event).getAfter().get("id"))));
+        stage = mock(PageStage.class, CALLS_REAL_METHODS);
+    }
+
+    private static Map<String, Object> pageParam(int page) {
+        Map<String, Object> param = new HashMap<>();
+        param.put("page", page);
+        return param;
+    }
+
+    private static APIResponse response(int httpCode, int page, int size) {
+        List<Map<String, Object>> data = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> record = new HashMap<>();
+            record.put("id", page * 10 + i);
+            data.add(record);
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("data", data);
+        return APIResponse.create().httpCode(httpCode).result(result);
+    }
+
+    private PagePrefetcher prefetcher() {
+        PagePrefetcher prefetcher = PagePrefetcher.create(tapPage);
+        ReflectionTestUtils.setField(prefetcher, "throttledBackoffMs", 1L);
+        return prefetcher;
+    }
+
+    @Nested
+    class FetchTest {
+        @Test
+        void testPagesAcceptedInOrder() {
+            when(invoker.invoke(anyString(), anyMap(), anyString(), anyBoolean())).thenAnswer(invocation -> {
+                int page = (int) ((Map<String, Object>) invocation.getArgument(1)).get("page");
+                return response(200, page, page < 4 ? 2 : 0);
+            });
+            prefetcher().fetch(stage, "", PagePrefetcherTest::pageParam);
+            List<Object> expected = new ArrayList<>();
+            for (int page = 0; page < 4; page++) {
+                expected.add(page * 10);
+                expected.add(page * 10 + 1);
+            }
+            Assertions.assertEquals(expected, ids);
+        }
+
+        @Test
+        void testThrottledPageFetchedAgain() {
+            AtomicInteger throttled = new AtomicInteger();
+            when(invoker.invoke(anyString(), anyMap(), anyString(), anyBoolean())).thenAnswer(invocation -> {
+                int page = (int) ((Map<String, Object>) invocation.getArgument(1)).get("page");
+                if (page == 1 && throttled.getAndIncrement() < 2) {
+                    return response(429, page, 0);
+                }
+                return response(200, page, page < 2 ? 1 : 0);
+            });
+            prefetcher().fetch(stage, "", PagePrefetcherTest::pageParam);
+            Assertions.assertEquals(3, throttled.get());
+            Assertions.assertEquals(2, ids.size());
+        }
+
+        @Test
+        void testStillThrottledFails() {
+            AtomicInteger calls = new AtomicInteger();
+            when(invoker.invoke(anyString(), anyMap(), anyString(), anyBoolean())).thenAnswer(invocation -> {
+                int page = (int) ((Map<String, Object>) invocation.getArgument(1)).get("page");
+                if (page == 0) {
+                    calls.incrementAndGet();
+                    return response(429, page, 0);
+                }
+                return response(200, page, 1);
+            });
+            CoreException exception = Assertions.assertThrows(CoreException.class, () -> prefetcher().fetch(stage, "", PagePrefetcherTest::pageParam));
+            Assertions.assertTrue(exception.getMessage().contains("still throttled"));
+            Assertions.assertEquals(6, calls.get());
+            Assertions.assertTrue(ids.isEmpty());
+        }
+
+        @Test
+        void testInterruptPropagated() {
+            CountDownLatch never = new CountDownLatch(1);
+            when(invoker.invoke(anyString(), anyMap(), anyString(), anyBoolean())).thenAnswer(invocation -> {
+                never.await();
+                return null;
+            });
+            Thread.currentThread().interrupt();
+            Assertions.assertThrows(CoreException.class, () -> prefetcher().fetch(stage, "", PagePrefetcherTest::pageParam));
+            Assertions.assertTrue(Thread.interrupted());
+        }
+    }
+
+    @Nested
+    class RateLimitTest {
+        @Test
+        void testSequentialPagesLimited() {
+            tapPage.pageConcurrency(1).rateLimiter(RequestRateLimiter.create(20));
+            when(invoker.invoke(anyString(), anyMap(), anyString(), anyBoolean())).thenReturn(response(200, 0, 1));
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < 5; i++) {
+                tapPage.invoke("list", pageParam(i), "GET");
+            }
+            //the first request starts at once, the other ones are 50ms apart
+            Assertions.assertTrue(System.currentTimeMillis() - start >= 200);
+        }
+
+        @Test
+        void testInterruptedWhileWaiting() {
+            tapPage.rateLimiter(RequestRateLimiter.create(1));
+            when(invoker.invoke(anyString(), anyMap(), anyString(), anyBoolean())).thenReturn(response(200, 0, 1));
+            tapPage.invoke("list", pageParam(0), "GET");
+            Thread.currentThread().interrupt();
+            Assertions.assertThrows(CoreException.class, () -> tapPage.invoke("list", pageParam(1), "GET"));
+            Assertions.assertTrue(Thread.interrupted());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package io.tapdata.common.postman.pageStage;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RequestRateLimiterTest {
+
+    @Test
+    void testRequestsAreSpaced() {
+        RequestRateLimiter limiter = RequestRateLimiter.create(4);
+        Assertions.assertEquals(0, limiter.reserve(1000L));
+        Assertions.assertEquals(250, limiter.reserve(1000L));
+        Assertions.assertEquals(400, limiter.reserve(1100L));
+        //an idle limiter does not save up requests
+        Assertions.assertEquals(0, limiter.reserve(5000L));
+        Assertions.assertEquals(250, limiter.reserve(5000L));
+    }
+
+    @Test
+    void testNoLimit() {
+        RequestRateLimiter limiter = RequestRateLimiter.create(0);
+        Assertions.assertEquals(0, limiter.requestsPerSecond());
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertEquals(0, limiter.reserve(1000L));
+        }
+    }
+
+    @Test
+    void testHighRateKeepsOneMillisecond() {
+        RequestRateLimiter limiter = RequestRateLimiter.create(5000);
+        Assertions.assertEquals(0, limiter.reserve(1000L));
+        Assertions.assertEquals(1, limiter.reserve(1000L));
+    }
+}
@@ -36,6 +36,12 @@ public class FileConfig implements Serializable {
     private int dataStartLine;
     private String writeFilePath;
     private String fileNameExpression;
+    //files are only appended, so changed files are read from the byte where the last read stopped
+    private Boolean appendOnly = false;
+    //files read at the same time by batch read, events are still emitted in the order of files
+    private int batchReadConcurrency = 1;
+    //files larger than it (MB) are split into byte ranges at line boundaries, 0 means no split, only files whose records are always lines are split, such as off-standard csv
+    private int splitFileSize = 0;
 
     public FileConfig load(Map<String, Object> map) {
         assert beanUtils != null;
@@ -211,4 +217,28 @@ public class FileConfig implements Serializable {
     public void setFileNameExpression(String fileNameExpression) {
         this.fileNameExpression = fileNameExpression;
     }
+
+    public Boolean getAppendOnly() {
+        return appendOnly;
+    }
+
+    public void setAppendOnly(Boolean appendOnly) {
+        this.appendOnly = appendOnly;
+    }
+
+    public int getBatchReadConcurrency() {
+        return batchReadConcurrency;
+    }
+
+    public void setBatchReadConcurrency(int batchReadConcurrency) {
+        this.batchReadConcurrency = batchReadConcurrency;
+    }
+
+    public int getSplitFileSize() {
+        return splitFileSize;
+    }
+
+    public void setSplitFileSize(int splitFileSize) {
+        this.splitFileSize = splitFileSize;
+    }
 }
@@ -17,11 +17,15 @@ import io.tapdata.pdk.apis.context.TapConnectionContext;
 import io.tapdata.pdk.apis.context.TapConnectorContext;
 import io.tapdata.pdk.apis.entity.ConnectionOptions;
 import io.tapdata.pdk.apis.entity.TestItem;
+import io.tapdata.storage.RangeFileStorage;
 
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
@@ -36,6 +40,8 @@ public abstract class FileConnector extends ConnectorBase {
     protected ExecutorService executorService;
     protected String firstConnectorId;
     private static final String TAG = FileConnector.class.getSimpleName();
+    //batches of one file not emitted yet, the file reader is blocked when it is full
+    private static final int FILE_QUEUE_SIZE = 4;
 
     protected void initConnection(TapConnectionContext connectionContext) throws Exception {
         isConnectorStarted(connectionContext, connectorContext -> {
@@ -126,6 +132,10 @@ public abstract class FileConnector extends ConnectorBase {
         else {
             fileOffset = (FileOffset) offsetState;
         }
+        if (supportParallelRead()) {
+            batchReadInParallel(fileMap, fileOffset, tapTable, eventBatchSize, eventsOffsetConsumer);
+            return;
+        }
         AtomicReference<List<TapEvent>> tapEvents = new AtomicReference<>(new ArrayList<>());
         readOneFile(fileOffset, tapTable, eventBatchSize, eventsOffsetConsumer, tapEvents);
         fileMap.entrySet().removeIf(v -> v.getValue().getPath().compareTo(fileOffset.getPath()) <= 0);
@@ -143,12 +153,132 @@ public abstract class FileConnector extends ConnectorBase {
         }
     }
 
+    private boolean supportParallelRead() {
+        if (fileConfig.getBatchReadConcurrency() <= 1) {
+            return false;
+        }
+        if (!(storage instanceof RangeFileStorage) || !((RangeFileStorage) storage).supportConcurrentRead()) {
+            TapLogger.info(TAG, "Storage {} can not read files concurrently, batch read files one by one", fileConfig.getProtocol());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * files (and parts of split files) are read by several threads, while events are emitted in the order of files
+     * every batch is emitted with the offset of its own file, so it is resumed the same as reading files one by one
+     */
+    private void batchReadInParallel(Map<String, TapFile> fileMap, FileOffset startOffset, TapTable tapTable, int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) throws Throwable {
+        List<FileOffset> parts = new ArrayList<>();
+        Iterator<TapFile> iterator = fileMap.values().stream()
+                .filter(v -> v.getPath().compareTo(startOffset.getPath()) >= 0)
+                .sorted(Comparator.comparing(TapFile::getPath)).iterator();
+        while (iterator.hasNext()) {
+            TapFile tapFile = iterator.next();
+            FileOffset fileOffset;
+            if (tapFile.getPath().equals(startOffset.getPath())) {
+                fileOffset = startOffset;
+            } else {
+                fileOffset = new FileOffset();
+                fileOffset.setPath(tapFile.getPath());
+                makeFileOffset(fileOffset);
+            }
+            parts.addAll(splitFile(fileOffset, tapFile.getLength()));
+        }
+        int concurrency = fileConfig.getBatchReadConcurrency();
+        TapLogger.info(TAG, "Batch read {} files by {} parts with {} threads", fileMap.size(), parts.size(), concurrency);
+        ExecutorService readExecutor = Executors.newFixedThreadPool(concurrency);
+        Deque<BlockingQueue<FileBatch>> reading = new ArrayDeque<>();
+        Iterator<FileOffset> partIterator = parts.iterator();
+        try {
+            while (isAlive() && (partIterator.hasNext() || !reading.isEmpty())) {
+                //parts are submitted in order, and the window is moved when the first part is finished
+                while (reading.size() < concurrency && partIterator.hasNext()) {
+                    reading.add(readPart(readExecutor, partIterator.next(), tapTable, eventBatchSize));
+                }
+                FileBatch fileBatch = reading.peek().poll(1, TimeUnit.SECONDS);
+                if (null == fileBatch) {
+                    continue;
+                }
+                if (EmptyKit.isNotNull(fileBatch.throwable)) {
+                    throw fileBatch.throwable;
+                }
+                if (EmptyKit.isNotEmpty(fileBatch.events)) {
+                    eventsOffsetConsumer.accept(fileBatch.events, fileBatch.offset);
+                }
+                if (fileBatch.finished) {
+                    reading.poll();
+                }
+            }
+        } finally {
+            readExecutor.shutdownNow();
+        }
+    }
+
+    //byte ranges of a big file, they are read from any byte and aligned to lines by readOneFile
+    private List<FileOffset> splitFile(FileOffset fileOffset, Long length) {
+        long splitSize = fileConfig.getSplitFileSize() * 1024L * 1024L;
+        long start = fileOffset.getDataPosition();
+        //the file has been read to the end by the offset
+        if (start > 0 && EmptyKit.isNotNull(length) && start >= length) {
+            return Collections.emptyList();
+        }
+        if (splitSize <= 0 || !supportSplitRead() || EmptyKit.isNull(length) || length - start <= splitSize) {
+            return Collections.singletonList(fileOffset);
+        }
+        //offset without position resumes by lines, which can not be split
+        FileOffset beginning = new FileOffset();
+        makeFileOffset(beginning);
+        if (start <= 0 && fileOffset.getDataLine() != beginning.getDataLine()) {
+            return Collections.singletonList(fileOffset);
+        }
+        List<FileOffset> parts = new ArrayList<>();
+        for (long position = start; position < length; position += splitSize) {
+            FileOffset part = fileOffset.copy();
+            part.setDataPosition(position);
+            part.setDataEndPosition(Math.min(position + splitSize, length));
+            parts.add(part);
+        }
+        return parts;
+    }
+
+    private BlockingQueue<FileBatch> readPart(ExecutorService readExecutor, FileOffset partOffset, TapTable tapTable, int eventBatchSize) {
+        BlockingQueue<FileBatch> batchQueue = new ArrayBlockingQueue<>(FILE_QUEUE_SIZE);
+        readExecutor.submit(() -> {
+            Thread.currentThread().setName("FileConnector-batchRead-" + partOffset.getPath());
+            try {
+                AtomicReference<List<TapEvent>> tapEvents = new AtomicReference<>(new ArrayList<>());
+                readOneFile(partOffset, tapTable, eventBatchSize, (events, offset) -> offerBatch(batchQueue, new FileBatch(events, ((FileOffset) offset).copy(), null, false)), tapEvents);
+                partOffset.setDataLine(partOffset.getDataLine() + tapEvents.get().size());
+                offerBatch(batchQueue, new FileBatch(tapEvents.get(), partOffset.copy(), null, true));
+            } catch (Throwable e) {
+                offerBatch(batchQueue, new FileBatch(null, null, e, true));
+            }
+        });
+        return batchQueue;
+    }
+
+    private void offerBatch(BlockingQueue<FileBatch> batchQueue, FileBatch fileBatch) {
+        try {
+            while (isAlive() && !batchQueue.offer(fileBatch, 1, TimeUnit.SECONDS)) {
+                TapLogger.debug(TAG, "File {} is waiting for emitting", null == fileBatch.offset ? null : fileBatch.offset.getPath());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     protected void streamRead(TapConnectorContext nodeContext, List<String> tableList, Object offsetState, int recordSize, StreamReadConsumer consumer) throws Throwable {
         TapTable tapTable = nodeContext.getTableMap().get(tableList.get(0));
         FileOffset fileOffset = (FileOffset) offsetState;
         Map<String, TapFile> allFiles = fileOffset.getAllFiles();
         Map<String, TapFile> tempFiles = allFiles.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
         Map<String, TapFile> needReadFiles = new HashMap<>();
+        boolean appendRead = Boolean.TRUE.equals(fileConfig.getAppendOnly()) && supportPositionRead();
+        if (EmptyKit.isNull(fileOffset.getFilePositions())) {
+            fileOffset.setFilePositions(new HashMap<>());
+        }
+        Map<String, Long> filePositions = fileOffset.getFilePositions();
         while (isAlive()) {
             Map<String, TapFile> newFiles = getFilteredFiles();
             AtomicReference<List<TapEvent>> tapEvents = new AtomicReference<>(new ArrayList<>());
@@ -166,10 +296,23 @@ public abstract class FileConnector extends ConnectorBase {
                 Map.Entry<String, TapFile> entry = iterator.next();
                 fileOffset.setPath(entry.getKey());
                 makeFileOffset(fileOffset);
+                Long position = filePositions.get(entry.getKey());
+                //a changed file not longer than the position is rewritten, read it again from the beginning
+                if (appendRead && allFiles.containsKey(entry.getKey()) && EmptyKit.isNotNull(position)
+                        && EmptyKit.isNotNull(entry.getValue().getLength()) && entry.getValue().getLength() > position) {
+                    fileOffset.setDataPosition(position);
+                }
                 consumer.accept(tapEvents.get(), fileOffset);
                 tapEvents.set(new ArrayList<>());
-                readOneFile(fileOffset, tapTable, recordSize, consumer, tapEvents);
+                if (appendRead) {
+                    readAppendingFile(fileOffset, tapTable, recordSize, consumer, tapEvents);
+                } else {
+                    readOneFile(fileOffset, tapTable, recordSize, consumer, tapEvents);
+                }
                 allFiles.put(entry.getKey(), entry.getValue());
+                if (appendRead) {
+                    filePositions.put(entry.getKey(), fileOffset.getDataPosition());
+                }
             }
             if (EmptyKit.isNotEmpty(tapEvents.get())) {
                 fileOffset.setDataLine(fileOffset.getDataLine() + tapEvents.get().size());
@@ -190,6 +333,21 @@ public abstract class FileConnector extends ConnectorBase {
 
     protected void makeFileOffset(FileOffset fileOffset) {
         fileOffset.setDataLine(0);
+        fileOffset.setDataPosition(0);
+    }
+
+    /**
+     * @return true when readOneFile keeps dataPosition of the offset, and can resume from it
+     */
+    protected boolean supportPositionRead() {
+        return false;
+    }
+
+    /**
+     * @return true when readOneFile can read a byte range of the file from dataPosition to dataEndPosition
+     */
+    protected boolean supportSplitRead() {
+        return false;
     }
 
     protected abstract void readOneFile(FileOffset fileOffset,
@@ -198,9 +356,26 @@ public abstract class FileConnector extends ConnectorBase {
                                         BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer,
                                         AtomicReference<List<TapEvent>> tapEvents) throws Exception;
 
+    /**
+     * same as readOneFile, but the file may be still being appended, so the last line without line break is not read
+     * and dataPosition of the offset is kept before it
+     */
+    protected void readAppendingFile(FileOffset fileOffset,
+                                     TapTable tapTable,
+                                     int eventBatchSize,
+                                     BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer,
+                                     AtomicReference<List<TapEvent>> tapEvents) throws Exception {
+        readOneFile(fileOffset, tapTable, eventBatchSize, eventsOffsetConsumer, tapEvents);
+    }
+
     protected Object timestampToStreamOffset(TapConnectorContext connectorContext, Long offsetStartTime) throws Exception {
         FileOffset fileOffset = new FileOffset();
         fileOffset.setAllFiles(getFilteredFiles());
+        if (Boolean.TRUE.equals(fileConfig.getAppendOnly()) && supportPositionRead()) {
+            //files are read to the end by batch read, bytes appended after it are read by stream read
+            fileOffset.setFilePositions(fileOffset.getAllFiles().values().stream().filter(v -> EmptyKit.isNotNull(v.getLength()))
+                    .collect(Collectors.toMap(TapFile::getPath, TapFile::getLength)));
+        }
         return fileOffset;
     }
 
@@ -262,4 +437,18 @@ public abstract class FileConnector extends ConnectorBase {
         });
     }
 
+
+    private static class FileBatch {
+        private final List<TapEvent> events;
+        private final FileOffset offset;
+        private final Throwable throwable;
+        private final boolean finished;
+
+        FileBatch(List<TapEvent> events, FileOffset offset, Throwable throwable, boolean finished) {
+            this.events = events;
+            this.offset = offset;
+            this.throwable = throwable;
+            this.finished = finished;
+        }
+    }
 }
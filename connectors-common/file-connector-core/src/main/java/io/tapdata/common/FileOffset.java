@@ -10,7 +10,13 @@ public class FileOffset implements Serializable {
     private String path;
     private int sheetNum;
     private int dataLine;
+    //byte position of the next data line in the file, 0 means the position is unknown and lines are skipped by dataLine
+    private long dataPosition;
+    //end of the byte range read by one part of a split file, 0 means the end of the file
+    private long dataEndPosition;
     private Map<String, TapFile> allFiles;
+    //byte position where the last read of every file stopped, appended bytes are read from it
+    private Map<String, Long> filePositions;
 
     public FileOffset() {
 
@@ -45,6 +51,22 @@ public class FileOffset implements Serializable {
         this.dataLine = dataLine;
     }
 
+    public long getDataPosition() {
+        return dataPosition;
+    }
+
+    public void setDataPosition(long dataPosition) {
+        this.dataPosition = dataPosition;
+    }
+
+    public long getDataEndPosition() {
+        return dataEndPosition;
+    }
+
+    public void setDataEndPosition(long dataEndPosition) {
+        this.dataEndPosition = dataEndPosition;
+    }
+
     public Map<String, TapFile> getAllFiles() {
         return allFiles;
     }
@@ -52,4 +74,20 @@ public class FileOffset implements Serializable {
     public void setAllFiles(Map<String, TapFile> allFiles) {
         this.allFiles = allFiles;
     }
+
+    public Map<String, Long> getFilePositions() {
+        return filePositions;
+    }
+
+    public void setFilePositions(Map<String, Long> filePositions) {
+        this.filePositions = filePositions;
+    }
+
+    //position of reading only, end of the range is not kept, the offset resumes the rest of the whole file
+    public FileOffset copy() {
+        FileOffset fileOffset = new FileOffset(path, dataLine);
+        fileOffset.setSheetNum(sheetNum);
+        fileOffset.setDataPosition(dataPosition);
+        return fileOffset;
+    }
 }
@@ -0,0 +1,116 @@
+package io.tapdata.common.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * read lines by bytes and keep the byte position of the next line, so that reading can be resumed from the position
+ * only for charsets in which '\n' and '\r' are single bytes never used inside other chars, such as UTF-8, GBK, ISO-8859-1
+ */
+public class PositionLineReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final InputStream inputStream;
+    private final Charset charset;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final ByteArrayOutputStream lineBytes = new ByteArrayOutputStream(256);
+    private int limit;
+    private int offset;
+    //the file will not be appended anymore, so the last line without '\n' is read too
+    private final boolean complete;
+    //byte position in the file of the next line
+    private long position;
+
+    public PositionLineReader(InputStream inputStream, Charset charset, long position) {
+        this(inputStream, charset, position, true);
+    }
+
+    public PositionLineReader(InputStream inputStream, Charset charset, long position, boolean complete) {
+        this.inputStream = inputStream;
+        this.charset = charset;
+        this.position = position;
+        this.complete = complete;
+    }
+
+    public static boolean supportCharset(Charset charset) {
+        byte[] lf = "\n".getBytes(charset);
+        byte[] cr = "\r".getBytes(charset);
+        return lf.length == 1 && lf[0] == '\n' && cr.length == 1 && cr[0] == '\r';
+    }
+
+    /**
+     * @return line without line separator, null at the end of the stream
+     * the last line without '\n' is held back when the file is not complete, it may be still being written
+     */
+    public String readLine() throws IOException {
+        lineBytes.reset();
+        boolean terminated = false;
+        while (!terminated) {
+            if (offset >= limit && !fill()) {
+                break;
+            }
+            int start = offset;
+            while (offset < limit && buffer[offset] != '\n') {
+                offset++;
+            }
+            lineBytes.write(buffer, start, offset - start);
+            if (offset < limit) {
+                offset++;
+                terminated = true;
+            }
+        }
+        if (!terminated && (lineBytes.size() == 0 || !complete)) {
+            return null;
+        }
+        byte[] bytes = lineBytes.toByteArray();
+        position += terminated ? bytes.length + 1 : bytes.length;
+        int length = bytes.length;
+        if (length > 0 && bytes[length - 1] == '\r') {
+            length--;
+        }
+        return new String(bytes, 0, length, charset);
+    }
+
+    /**
+     * skip bytes to the position without decoding them, for storages which can not read from a position
+     */
+    public void skipTo(long target) throws IOException {
+        long remaining = target - position;
+        int buffered = Math.min(limit - offset, (int) Math.max(0, Math.min(remaining, Integer.MAX_VALUE)));
+        offset += buffered;
+        remaining -= buffered;
+        while (remaining > 0) {
+            long skipped = inputStream.skip(remaining);
+            if (skipped <= 0) {
+                if (inputStream.read() < 0) {
+                    throw new IOException("Skip to byte " + target + " failed, stream ends at byte " + (target - remaining));
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+        position = Math.max(position, target);
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    private boolean fill() throws IOException {
+        int read;
+        do {
+            read = inputStream.read(buffer);
+        } while (read == 0);
+        offset = 0;
+        limit = Math.max(read, 0);
+        return read > 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+}
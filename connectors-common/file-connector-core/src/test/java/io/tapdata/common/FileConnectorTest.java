@@ -0,0 +1,81 @@
+package io.tapdata.common;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FileConnectorTest {
+
+    private static final long MB = 1024L * 1024L;
+    FileConnector fileConnector;
+    FileConfig fileConfig;
+
+    @BeforeEach
+    void beforeEach() {
+        fileConnector = mock(FileConnector.class, CALLS_REAL_METHODS);
+        fileConfig = new FileConfig();
+        fileConfig.setSplitFileSize(1);
+        ReflectionTestUtils.setField(fileConnector, "fileConfig", fileConfig);
+        when(fileConnector.supportSplitRead()).thenReturn(true);
+    }
+
+    private FileOffset offset(long dataPosition) {
+        FileOffset fileOffset = new FileOffset();
+        fileOffset.setPath("a.csv");
+        fileConnector.makeFileOffset(fileOffset);
+        fileOffset.setDataPosition(dataPosition);
+        return fileOffset;
+    }
+
+    private List<FileOffset> split(FileOffset fileOffset, Long length) {
+        return ReflectionTestUtils.invokeMethod(fileConnector, "splitFile", fileOffset, length);
+    }
+
+    @Nested
+    class SplitFileTest {
+        @Test
+        void testSplitByRanges() {
+            List<FileOffset> parts = split(offset(0), 2 * MB + 100);
+            Assertions.assertEquals(3, parts.size());
+            Assertions.assertEquals(0, parts.get(0).getDataPosition());
+            Assertions.assertEquals(MB, parts.get(0).getDataEndPosition());
+            Assertions.assertEquals(2 * MB, parts.get(2).getDataPosition());
+            Assertions.assertEquals(2 * MB + 100, parts.get(2).getDataEndPosition());
+        }
+
+        @Test
+        void testSplitFromPosition() {
+            List<FileOffset> parts = split(offset(MB / 2), 2 * MB);
+            Assertions.assertEquals(2, parts.size());
+            Assertions.assertEquals(MB / 2, parts.get(0).getDataPosition());
+            Assertions.assertEquals(3 * MB / 2, parts.get(1).getDataPosition());
+            Assertions.assertEquals(2 * MB, parts.get(1).getDataEndPosition());
+        }
+
+        @Test
+        void testNotSplit() {
+            when(fileConnector.supportSplitRead()).thenReturn(false);
+            Assertions.assertEquals(1, split(offset(0), 10 * MB).size());
+            when(fileConnector.supportSplitRead()).thenReturn(true);
+            Assertions.assertEquals(1, split(offset(0), MB).size());
+            Assertions.assertEquals(1, split(offset(0), null).size());
+            FileOffset byLine = offset(0);
+            byLine.setDataLine(byLine.getDataLine() + 10);
+            Assertions.assertEquals(1, split(byLine, 10 * MB).size());
+        }
+
+        @Test
+        void testReadToTheEnd() {
+            Assertions.assertTrue(split(offset(2 * MB), 2 * MB).isEmpty());
+            Assertions.assertTrue(split(offset(3 * MB), 2 * MB).isEmpty());
+        }
+    }
+}
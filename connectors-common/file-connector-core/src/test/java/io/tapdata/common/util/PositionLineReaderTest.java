@@ -0,0 +1,81 @@
+package io.tapdata.common.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+public class PositionLineReaderTest {
+
+    private PositionLineReader reader(String text, long position, boolean complete) {
+        return new PositionLineReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8, position, complete);
+    }
+
+    @Nested
+    class ReadLineTest {
+        @Test
+        void testPositionOfLines() throws IOException {
+            PositionLineReader reader = reader("a,b\r\n中文\n\nc", 0, true);
+            Assertions.assertEquals("a,b", reader.readLine());
+            Assertions.assertEquals(5, reader.getPosition());
+            Assertions.assertEquals("中文", reader.readLine());
+            Assertions.assertEquals(12, reader.getPosition());
+            Assertions.assertEquals("", reader.readLine());
+            Assertions.assertEquals(13, reader.getPosition());
+            Assertions.assertEquals("c", reader.readLine());
+            Assertions.assertEquals(14, reader.getPosition());
+            Assertions.assertNull(reader.readLine());
+        }
+
+        @Test
+        void testHoldBackUnterminatedLine() throws IOException {
+            PositionLineReader reader = reader("a\nhalf", 10, false);
+            Assertions.assertEquals("a", reader.readLine());
+            Assertions.assertNull(reader.readLine());
+            Assertions.assertEquals(12, reader.getPosition());
+            Assertions.assertNull(reader.readLine());
+            Assertions.assertEquals(12, reader.getPosition());
+        }
+
+        @Test
+        void testResumeHeldBackLine() throws IOException {
+            String text = "a\nhalf";
+            PositionLineReader reader = reader(text, 0, false);
+            Assertions.assertEquals("a", reader.readLine());
+            Assertions.assertNull(reader.readLine());
+            text += "-done\n";
+            PositionLineReader resumed = reader(text.substring((int) reader.getPosition()), reader.getPosition(), false);
+            Assertions.assertEquals("half-done", resumed.readLine());
+            Assertions.assertEquals(text.length(), resumed.getPosition());
+        }
+    }
+
+    @Nested
+    class SkipToTest {
+        @Test
+        void testSkipInBuffer() throws IOException {
+            PositionLineReader reader = reader("head\nline1\nline2\n", 0, true);
+            Assertions.assertEquals("head", reader.readLine());
+            reader.skipTo(11);
+            Assertions.assertEquals("line2", reader.readLine());
+            Assertions.assertEquals(17, reader.getPosition());
+        }
+
+        @Test
+        void testSkipBeyondEnd() {
+            PositionLineReader reader = reader("ab\n", 0, true);
+            Assertions.assertThrows(IOException.class, () -> reader.skipTo(10));
+        }
+    }
+
+    @Test
+    void testSupportCharset() {
+        Assertions.assertTrue(PositionLineReader.supportCharset(StandardCharsets.UTF_8));
+        Assertions.assertTrue(PositionLineReader.supportCharset(Charset.forName("GBK")));
+        Assertions.assertFalse(PositionLineReader.supportCharset(StandardCharsets.UTF_16));
+    }
+}
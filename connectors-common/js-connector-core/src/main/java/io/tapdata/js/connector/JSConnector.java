@@ -59,6 +59,8 @@ public class JSConnector extends ConnectorBase {
     protected final AtomicBoolean isAlive = new AtomicBoolean(true);
 
     public static final Object execLock = new Object();
+    //script contexts writing and batch reading tables in parallel, set by the node config, off by default
+    public static final String SCRIPT_CONTEXT_SIZE = "scriptContextSize";
 
 
     @Override
@@ -71,11 +73,24 @@ public class JSConnector extends ConnectorBase {
                 configMap.putAll(nodeConfig);
             }
             this.instanceScript(connectionContext, configMap);
+            this.javaScripter.contextSize(scriptContextSize(configMap)).warmUp();
         } else {
             this.instanceScript(connectionContext, Optional.ofNullable(connectionContext.getConnectionConfig()).orElse(new DataMap()));
         }
     }
 
+    protected static int scriptContextSize(Map<String, Object> configMap) {
+        Object contextSize = configMap.get(SCRIPT_CONTEXT_SIZE);
+        if (contextSize instanceof Number) {
+            return ((Number) contextSize).intValue();
+        }
+        try {
+            return Objects.isNull(contextSize) ? LoadJavaScripter.DEFAULT_CONTEXT_SIZE : Integer.parseInt(String.valueOf(contextSize).trim());
+        } catch (NumberFormatException e) {
+            return LoadJavaScripter.DEFAULT_CONTEXT_SIZE;
+        }
+    }
+
     @Override
     public void onStop(TapConnectionContext connectionContext) throws Throwable {
         this.isAlive.set(false);
@@ -143,13 +158,13 @@ public class JSConnector extends ConnectorBase {
                     JSAPIResponseInterceptor interceptor = JSAPIResponseInterceptor.create(config).configMap(configMap);
                     interceptor.updateToken(BaseUpdateTokenFunction.create(this.javaScripter, connectionContext));
                     APIFactoryDecorator factory = new APIFactoryDecorator(this.apiFactory).interceptor(interceptor);
-                    this.javaScripter.scriptEngine().put("tapAPI", factory);
+                    this.javaScripter.put("tapAPI", factory);
                     //this.javaScripter.scriptEngine().put("tapCache", this.cacheContext);
-                    this.javaScripter.scriptEngine().put("tapUtil", new JsUtil());
-                    this.javaScripter.scriptEngine().put("nodeIsAlive", isAlive);
-                    this.javaScripter.scriptEngine().put("_tapConfig_", configMap);
-                    this.javaScripter.scriptEngine().put("tapConfig", tapConfig);
-                    this.javaScripter.scriptEngine().put("tapLog",
+                    this.javaScripter.put("tapUtil", new JsUtil());
+                    this.javaScripter.put("nodeIsAlive", isAlive);
+                    this.javaScripter.put("_tapConfig_", configMap);
+                    this.javaScripter.put("tapConfig", tapConfig);
+                    this.javaScripter.put("tapLog",
                             Objects.nonNull(connectionContext) ?
                                     new TapConnectorLog(Optional.ofNullable(connectionContext.getLog()).orElse(new TapLog()))
                                     : new TapLog()
@@ -162,20 +177,20 @@ public class JSConnector extends ConnectorBase {
             JSAPIResponseInterceptor interceptor = JSAPIResponseInterceptor.create(config).configMap(configMap);
             if (Objects.nonNull(connectionContext)) {
                 interceptor.updateToken(BaseUpdateTokenFunction.create(this.javaScripter, connectionContext));
-                this.javaScripter.scriptEngine().put("tapLog", new TapConnectorLog(connectionContext.getLog()));
+                this.javaScripter.put("tapLog", new TapConnectorLog(connectionContext.getLog()));
             }
             Object tapAPI = this.javaScripter.scriptEngine().get("tapAPI");
             if (Objects.isNull(tapAPI) || !(tapAPI instanceof APIFactoryDecorator)) {
                 APIFactoryDecorator factory = new APIFactoryDecorator(this.apiFactory);
-                this.javaScripter.scriptEngine().put("tapAPI", factory.interceptor(interceptor));
+                this.javaScripter.put("tapAPI", factory.interceptor(interceptor));
             } else {
-                this.javaScripter.scriptEngine().put("tapAPI", ((APIFactoryDecorator) tapAPI).interceptor(interceptor));
+                this.javaScripter.put("tapAPI", ((APIFactoryDecorator) tapAPI).interceptor(interceptor));
             }
             Object configMapObj = this.javaScripter.scriptEngine().get("_tapConfig_");
             if (Objects.nonNull(configMapObj) && ((Map<String, Object>) configMapObj).isEmpty() && !configMap.isEmpty()) {
                 ((Map<String, Object>) configMapObj).putAll(configMap);
             } else {
-                this.javaScripter.scriptEngine().put("_tapConfig_", configMap);
+                this.javaScripter.put("_tapConfig_", configMap);
             }
         }
     }
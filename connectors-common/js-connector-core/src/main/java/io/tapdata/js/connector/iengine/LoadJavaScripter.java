@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.jar.JarFile;
 import java.util.stream.Collectors;
@@ -33,12 +34,25 @@ public class LoadJavaScripter {
 
     public static final String NASHORN_ENGINE = "nashorn";
     public static final String GRAAL_ENGINE = "graal.js";
+    //contexts handling tables in parallel, 1 means every function uses this engine
+    public static final int DEFAULT_CONTEXT_SIZE = 1;
+    public static final int MAX_CONTEXT_SIZE = 8;
     private boolean hasLoadBaseJs = false;
     private boolean hasLoadJs = false;
 
     private String jarFilePath;
     private String flooder;
     private ScriptEngine scriptEngine;
+    //scripts evaluated by load, other contexts evaluate them again instead of reading the jar
+    private final List<String> baseScripts = new ArrayList<>();
+    private final List<String> connectorScripts = new ArrayList<>();
+    //java objects put into the engine, such as tapAPI and tapLog, they are put into other contexts too
+    private final Map<String, Object> hostBindings = new ConcurrentHashMap<>();
+    //index -> context, this engine is never one of them, it is shared by other functions under JSConnector.execLock
+    private final Map<Integer, LoadJavaScripter> contexts = new ConcurrentHashMap<>();
+    private int contextSize = DEFAULT_CONTEXT_SIZE;
+    //function name -> whether the loaded scripts define it, cleared when the scripts are reloaded
+    private final Map<String, Boolean> supportedFunctions = new ConcurrentHashMap<>();
 
     public ScriptEngine scriptEngine() {
         return this.scriptEngine;
@@ -58,6 +72,60 @@ public class LoadJavaScripter {
 
     public void reload() {
         this.hasLoadJs = false;
+        this.contexts.clear();
+        this.supportedFunctions.clear();
+    }
+
+    public Map<String, Boolean> supportedFunctions() {
+        return this.supportedFunctions;
+    }
+
+    public LoadJavaScripter contextSize(int contextSize) {
+        this.contextSize = Math.max(1, Math.min(MAX_CONTEXT_SIZE, contextSize));
+        return this;
+    }
+
+    /**
+     * @param key key of the work, such as table id, works of the same key are always handled by the same context
+     * @return context which has the same scripts and java objects as this engine, but can be invoked at the same time with it,
+     * or this engine itself when contexts are not used, which must be locked by JSConnector.execLock
+     */
+    public LoadJavaScripter context(String key) {
+        if (this.contextSize <= 1 || !this.hasLoadJs || Objects.isNull(key)) {
+            return this;
+        }
+        return this.contexts.computeIfAbsent(Math.floorMod(key.hashCode(), this.contextSize), i -> this.fork());
+    }
+
+    //create all contexts before tables are handled, evaluating scripts takes a while
+    public void warmUp() {
+        if (!this.hasLoadJs) {
+            return;
+        }
+        if (this.contextSize <= 1) {
+            return;
+        }
+        for (int index = 0; index < this.contextSize; index++) {
+            this.contexts.computeIfAbsent(index, i -> this.fork());
+        }
+    }
+
+    private LoadJavaScripter fork() {
+        LoadJavaScripter context = new LoadJavaScripter().params(this.jarFilePath, this.flooder).init();
+        try {
+            for (String script : this.baseScripts) {
+                context.scriptEngine.eval(script);
+            }
+            for (String script : this.connectorScripts) {
+                context.scriptEngine.eval(script);
+            }
+        } catch (Exception error) {
+            throw new CoreException("Error java script code, message: " + error.getMessage());
+        }
+        this.hostBindings.forEach(context.scriptEngine::put);
+        context.hasLoadBaseJs = true;
+        context.hasLoadJs = true;
+        return context;
     }
 
     public static LoadJavaScripter loader(String jarFilePath, String flooder) {
@@ -115,6 +183,7 @@ public class LoadJavaScripter {
                         builder.append(ScriptUtil.fileToString(file.getKey())).append("\n\n");
                     }
                     this.scriptEngine.eval(builder.toString());
+                    this.baseScripts.add(builder.toString());
                 }
                 this.hasLoadBaseJs = true;
             } catch (Exception e) {
@@ -122,6 +191,7 @@ public class LoadJavaScripter {
             }
         }
         if (!this.hasLoadJs) {
+            this.connectorScripts.clear();
             try {
                 for (URL url : list) {
                     List<Map.Entry<InputStream, File>> files = this.javaScriptFiles(url);
@@ -133,6 +203,7 @@ public class LoadJavaScripter {
                         builder.append(ScriptUtil.fileToString(file.getKey())).append("\n\n");
                     }
                     this.scriptEngine.eval(builder.toString());
+                    this.connectorScripts.add(builder.toString());
                 }
                 this.hasLoadJs = true;
                 return this.scriptEngine;
@@ -245,6 +316,15 @@ public class LoadJavaScripter {
 
     public void put(String key, Object javaValue) {
         Optional.ofNullable(this.scriptEngine).ifPresent(e -> e.put(key, javaValue));
+        if (Objects.nonNull(javaValue)) {
+            this.hostBindings.put(key, javaValue);
+        }
+        for (LoadJavaScripter context : this.contexts.values()) {
+            //an engine can not be accessed by two threads at the same time
+            synchronized (context) {
+                context.scriptEngine.put(key, javaValue);
+            }
+        }
     }
 
     public void bindingGlobal(String key, Object binder) {
@@ -1,5 +1,6 @@
 package io.tapdata.js.connector.server.function;
 
+import io.tapdata.js.connector.JSConnector;
 import io.tapdata.js.connector.iengine.LoadJavaScripter;
 
 public class FunctionBase {
@@ -23,4 +24,13 @@ public class FunctionBase {
     public LoadJavaScripter javaScripter() {
         return this.javaScripter;
     }
+
+    /**
+     * @param scripter the engine of the connector, or a context of it
+     * @return lock of the scripter, the engine of the connector is shared by all functions and locked by JSConnector.execLock,
+     * except for batch read which runs as long as the reading and was never locked
+     */
+    public Object execLock(LoadJavaScripter scripter) {
+        return scripter == this.javaScripter ? JSConnector.execLock : scripter;
+    }
 }
@@ -16,7 +16,6 @@ import io.tapdata.kit.EmptyKit;
 import io.tapdata.pdk.apis.context.TapConnectorContext;
 import io.tapdata.pdk.apis.functions.connector.source.BatchReadFunction;
 
-import javax.script.ScriptEngine;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -51,24 +50,26 @@ public class JSBatchReadFunction extends FunctionBase implements FunctionSupport
         if (Objects.isNull(table)) {
             throw new CoreException("TapTable cannot not be empty");
         }
-        ScriptEngine scriptEngine = javaScripter.scriptEngine();
+        //tables are read by their own script contexts in parallel
+        LoadJavaScripter scripter = javaScripter.context(table.getId());
         ScriptCore scriptCore = new ScriptCore(new ScriptCoreConfig().ignoreReferenceTime(true));
-        scriptEngine.put("core", scriptCore);
         AtomicReference<Throwable> scriptException = new AtomicReference<>();
         AtomicReference<Object> contextMap = new AtomicReference<>(offset);
         BatchReadSender sender = new BatchReadSender().core(scriptCore);
         AtomicBoolean batchReadFinished = new AtomicBoolean(false);
         Runnable runnable = () -> {
             try {
-                super.javaScripter.invoker(
-                        JSFunctionNames.BatchReadFunction.jsName(),
-                        Optional.ofNullable(context.getConnectionConfig()).orElse(new DataMap()),
-                        Optional.ofNullable(context.getNodeConfig()).orElse(new DataMap()),
-                        contextMap.get(),
-                        table.getId(),
-                        batchCount,
-                        sender
-                );
+                //the engine of the connector is not locked for the whole reading, other functions and a js target would wait on it
+                if (scripter == this.javaScripter) {
+                    scripter.scriptEngine().put("core", scriptCore);
+                    this.invokeBatchRead(scripter, context, contextMap.get(), table, batchCount, sender);
+                    return;
+                }
+                //core is bound just before the invoking, the context may be shared by other tables
+                synchronized (scripter) {
+                    scripter.scriptEngine().put("core", scriptCore);
+                    this.invokeBatchRead(scripter, context, contextMap.get(), table, batchCount, sender);
+                }
             } catch (Exception e) {
                 scriptException.set(e);
             } finally {
@@ -121,6 +122,18 @@ public class JSBatchReadFunction extends FunctionBase implements FunctionSupport
         }
     }
 
+    private void invokeBatchRead(LoadJavaScripter scripter, TapConnectorContext context, Object offset, TapTable table, int batchCount, BatchReadSender sender) {
+        scripter.invoker(
+                JSFunctionNames.BatchReadFunction.jsName(),
+                Optional.ofNullable(context.getConnectionConfig()).orElse(new DataMap()),
+                Optional.ofNullable(context.getNodeConfig()).orElse(new DataMap()),
+                offset,
+                table.getId(),
+                batchCount,
+                sender
+        );
+    }
+
     public static BatchReadFunction create(LoadJavaScripter loadJavaScripter, AtomicBoolean isAlive) {
         return new JSBatchReadFunction().isAlive(isAlive).function(loadJavaScripter);
     }
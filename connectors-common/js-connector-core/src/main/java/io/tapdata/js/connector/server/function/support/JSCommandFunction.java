@@ -119,8 +119,8 @@ public class JSCommandFunction extends FunctionBase implements FunctionSupport<C
         TapConnectionContext contextTemp = new TapConnectionContext(new TapNodeSpecification(), connections, nodes, new TapLog());
         interceptor.updateToken(BaseUpdateTokenFunction.create(this.javaScripter, contextTemp));
         Object tapAPI = this.javaScripter.scriptEngine().get("tapAPI");
-        this.javaScripter.scriptEngine().put("tapAPI", ((APIFactoryDecorator) tapAPI).interceptor(interceptor));
-        this.javaScripter.scriptEngine().put("tapLog", new TapConnectorLog(contextTemp.getLog()));
+        this.javaScripter.put("tapAPI", ((APIFactoryDecorator) tapAPI).interceptor(interceptor));
+        this.javaScripter.put("tapLog", new TapConnectorLog(contextTemp.getLog()));
         try {
             Object invoker;
             synchronized (JSConnector.execLock) {
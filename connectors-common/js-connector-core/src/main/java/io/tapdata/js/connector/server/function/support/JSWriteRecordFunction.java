@@ -6,9 +6,9 @@ import io.tapdata.entity.event.dml.TapInsertRecordEvent;
 import io.tapdata.entity.event.dml.TapRecordEvent;
 import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
 import io.tapdata.entity.logger.TapLogger;
+import io.tapdata.entity.schema.TapField;
 import io.tapdata.entity.schema.TapTable;
 import io.tapdata.entity.utils.DataMap;
-import io.tapdata.js.connector.JSConnector;
 import io.tapdata.js.connector.base.EventTag;
 import io.tapdata.js.connector.base.EventType;
 import io.tapdata.js.connector.iengine.LoadJavaScripter;
@@ -34,7 +34,10 @@ public class JSWriteRecordFunction extends FunctionBase implements FunctionSuppo
     public static final String TAG = JSWriteRecordFunction.class.getSimpleName();
     AtomicBoolean isAlive = new AtomicBoolean(true);
 
-    Map<Integer, Object> writeCache = new ConcurrentHashMap<>();
+    //table id -> written data, js执行出错不需要清除缓存，重试时需要使用
+    Map<String, Map<Integer, Object>> writeCaches = new ConcurrentHashMap<>();
+    //table id -> json of the table passed to js, it is built again only when the table changes
+    Map<String, TableJson> tableJsonCache = new ConcurrentHashMap<>();
 
     public JSWriteRecordFunction isAlive(AtomicBoolean isAlive) {
         this.isAlive = isAlive;
@@ -59,18 +62,36 @@ public class JSWriteRecordFunction extends FunctionBase implements FunctionSuppo
     }
 
     private boolean doNotSupport(JSFunctionNames function) {
-        return !this.javaScripter.functioned(function.jsName());
+        //functions do not change until the scripts are reloaded, so the engine is not evaluated for every record
+        Map<String, Boolean> supportedFunctions = this.javaScripter.supportedFunctions();
+        Boolean supported = supportedFunctions.get(function.jsName());
+        if (null == supported) {
+            synchronized (this.execLock(this.javaScripter)) {
+                supported = this.javaScripter.functioned(function.jsName());
+            }
+            supportedFunctions.put(function.jsName(), supported);
+        }
+        return !supported;
     }
 
-    private synchronized void write(TapConnectorContext context, List<TapRecordEvent> tapRecordEvents, TapTable table, Consumer<WriteListResult<TapRecordEvent>> writeListResultConsumer) throws ScriptException {
+    private void write(TapConnectorContext context, List<TapRecordEvent> tapRecordEvents, TapTable table, Consumer<WriteListResult<TapRecordEvent>> writeListResultConsumer) throws ScriptException {
         if (Objects.isNull(context)) {
             throw new CoreException("TapConnectorContext cannot not be empty.");
         }
         if (Objects.isNull(table)) {
             throw new CoreException("Table lists cannot not be empty.");
         }
-        List<Map<String, Object>> machiningEvents = this.machiningEvents(tapRecordEvents, table.getId());
-        String tableJsonString = new SchemaAccept().tableMap(table);
+        //tables are written by their own script contexts in parallel, events of one table are written in order
+        Map<Integer, Object> writeCache = this.writeCaches.computeIfAbsent(table.getId(), id -> new ConcurrentHashMap<>());
+        synchronized (writeCache) {
+            this.write(context, tapRecordEvents, table, writeCache, writeListResultConsumer);
+        }
+    }
+
+    private void write(TapConnectorContext context, List<TapRecordEvent> tapRecordEvents, TapTable table, Map<Integer, Object> writeCache, Consumer<WriteListResult<TapRecordEvent>> writeListResultConsumer) {
+        LoadJavaScripter scripter = this.javaScripter.context(table.getId());
+        List<Map<String, Object>> machiningEvents = this.machiningEvents(tapRecordEvents, table.getId(), writeCache);
+        String tableJsonString = this.tableJson(table);
 
         if (!this.doSubFunctionNotSupported()) {
             String cacheEventType = null;
@@ -79,7 +100,7 @@ public class JSWriteRecordFunction extends FunctionBase implements FunctionSuppo
                 String cacheEventTypeTemp = String.valueOf(Optional.ofNullable(event.get(EventTag.EVENT_TYPE)).orElse(EventType.insert));
                 if (Objects.isNull(cacheEventType) || !cacheEventType.equals(cacheEventTypeTemp)) {
                     if (!execData.isEmpty()) {
-                        this.execDrop(cacheEventType, context, execData, writeListResultConsumer, tableJsonString);
+                        this.execDrop(scripter, cacheEventType, context, execData, writeCache, writeListResultConsumer, tableJsonString);
                         execData = new ArrayList<>();
                     }
                     cacheEventType = cacheEventTypeTemp;
@@ -87,23 +108,31 @@ public class JSWriteRecordFunction extends FunctionBase implements FunctionSuppo
                 execData.add(event);
             }
             if (!execData.isEmpty()) {
-                this.execDrop(cacheEventType, context, execData, writeListResultConsumer, tableJsonString);
+                this.execDrop(scripter, cacheEventType, context, execData, writeCache, writeListResultConsumer, tableJsonString);
             }
         }
-        this.javaScripter.scriptEngine().put("tapTable", table);
-        this.exec(context, machiningEvents, JSFunctionNames.WriteRecordFunction, writeListResultConsumer, tableJsonString);
-        //js执行出错不需要清除缓存，重试时需要使用
-        this.writeCache = new ConcurrentHashMap<>();
+        this.exec(scripter, table, context, machiningEvents, JSFunctionNames.WriteRecordFunction, writeCache, writeListResultConsumer, tableJsonString);
+        writeCache.clear();
     }
 
-    private void execDrop(String cacheEventType, TapConnectorContext context, List<Map<String, Object>> execData,Consumer<WriteListResult<TapRecordEvent>> consumer, String tableJsonString){
+    protected String tableJson(TapTable table) {
+        int signature = TableJson.signature(table);
+        TableJson tableJson = this.tableJsonCache.get(table.getId());
+        if (Objects.isNull(tableJson) || tableJson.signature != signature) {
+            tableJson = new TableJson(signature, new SchemaAccept().tableMap(table));
+            this.tableJsonCache.put(table.getId(), tableJson);
+        }
+        return tableJson.json;
+    }
+
+    private void execDrop(LoadJavaScripter scripter, String cacheEventType, TapConnectorContext context, List<Map<String, Object>> execData, Map<Integer, Object> writeCache, Consumer<WriteListResult<TapRecordEvent>> consumer, String tableJsonString){
         JSFunctionNames functionName = cacheEventType.equals(EventType.insert) ? JSFunctionNames.InsertRecordFunction : (cacheEventType.equals(EventType.update) ? JSFunctionNames.UpdateRecordFunction : JSFunctionNames.DeleteRecordFunction);
         for (Map<String, Object> execDatum : execData) {
-            this.exec(context, execDatum, functionName, consumer, tableJsonString);
+            this.exec(scripter, null, context, execDatum, functionName, writeCache, consumer, tableJsonString);
         }
     }
 
-    private void exec(TapConnectorContext context, Object execData, JSFunctionNames function,Consumer<WriteListResult<TapRecordEvent>> consumer, String tableJsonString) {
+    private void exec(LoadJavaScripter scripter, TapTable table, TapConnectorContext context, Object execData, JSFunctionNames function, Map<Integer, Object> writeCache, Consumer<WriteListResult<TapRecordEvent>> consumer, String tableJsonString) {
         if (!this.doNotSupport(function)) {
             WriteRecordRender writeResultCollector= data -> {
                 AtomicLong insert = new AtomicLong();
@@ -113,15 +142,15 @@ public class JSWriteRecordFunction extends FunctionBase implements FunctionSuppo
                     if (data instanceof Map) {
                         List<Object> dataList = new ArrayList<>();
                         dataList.add(data);
-                        this.convertData(dataList, insert, update, delete);
+                        this.convertData(dataList, writeCache, insert, update, delete);
                     } else if (data instanceof Collection) {
-                        this.convertData(data, insert, update, delete);
+                        this.convertData(data, writeCache, insert, update, delete);
                     } else if (data.getClass().isArray()) {
                         Object[] dataArr = (Object[]) data;
                         List<Object> list = new ArrayList<>(Arrays.asList(dataArr));
-                        this.convertData(list, insert, update, delete);
+                        this.convertData(list, writeCache, insert, update, delete);
                     } else {
-                        this.convertData(data, insert, update, delete);
+                        this.convertData(data, writeCache, insert, update, delete);
                     }
                     WriteListResult<TapRecordEvent> result = new WriteListResult<>();
                     consumer.accept(result.insertedCount(insert.get()).modifiedCount(update.get()).removedCount(delete.get()));
@@ -130,8 +159,11 @@ public class JSWriteRecordFunction extends FunctionBase implements FunctionSuppo
             try {
                 boolean isWriteRecord = JSFunctionNames.WriteRecordFunction.jsName().equals(function.jsName());
                 Object invoker;
-                synchronized (JSConnector.execLock) {
-                    invoker = super.javaScripter.invoker(
+                synchronized (this.execLock(scripter)) {
+                    if (Objects.nonNull(table)) {
+                        scripter.scriptEngine().put("tapTable", table);
+                    }
+                    invoker = scripter.invoker(
                             function.jsName(),
                             Optional.ofNullable(context.getConnectionConfig()).orElse(new DataMap()),
                             Optional.ofNullable(context.getNodeConfig()).orElse(new DataMap()),
@@ -157,7 +189,7 @@ public class JSWriteRecordFunction extends FunctionBase implements FunctionSuppo
                         AtomicLong insert = new AtomicLong();
                         AtomicLong update = new AtomicLong();
                         AtomicLong delete = new AtomicLong();
-                        this.convertData(list, insert, update, delete);
+                        this.convertData(list, writeCache, insert, update, delete);
                         WriteListResult<TapRecordEvent> result = new WriteListResult<>();
                         consumer.accept(result.insertedCount(insert.get()).modifiedCount(update.get()).removedCount(delete.get()));
                     }
@@ -168,7 +200,7 @@ public class JSWriteRecordFunction extends FunctionBase implements FunctionSuppo
         }
     }
 
-    private void convertData(Object invoker, AtomicLong insert, AtomicLong update, AtomicLong delete) {
+    private void convertData(Object invoker, Map<Integer, Object> writeCache, AtomicLong insert, AtomicLong update, AtomicLong delete) {
         List<Map<String, Object>> succeedData = new ArrayList<>();
         try {
             succeedData = (List<Map<String, Object>>) invoker;
@@ -182,7 +214,7 @@ public class JSWriteRecordFunction extends FunctionBase implements FunctionSuppo
                 String type = eventType instanceof String ? (String)eventType : String.valueOf(eventType);
                 Object data = EventType.delete.equals(type) ? ent.get(EventTag.BEFORE_DATA) : ent.get(EventTag.AFTER_DATA);
                 Integer code = (Optional.ofNullable(data).orElse(new HashMap<>())).hashCode();
-                this.writeCache.put(code, ent);
+                writeCache.put(code, ent);
                 return true;
             }
             return false;
@@ -196,14 +228,14 @@ public class JSWriteRecordFunction extends FunctionBase implements FunctionSuppo
         delete.addAndGet(Objects.isNull(deleteData) ? 0 : deleteData.size());
     }
 
-    private List<Map<String, Object>> machiningEvents(List<TapRecordEvent> tapRecordEvents, final String tableId) {
+    private List<Map<String, Object>> machiningEvents(List<TapRecordEvent> tapRecordEvents, final String tableId, Map<Integer, Object> writeCache) {
         List<Map<String, Object>> events = new ArrayList<>();
         if (Objects.isNull(tapRecordEvents)) return events;
         tapRecordEvents.stream().filter(Objects::nonNull).forEach(tapRecord -> {
             Map<String, Object> event = new HashMap<>();
             if (tapRecord instanceof TapInsertRecordEvent) {
                 Map<String, Object> after = ((TapInsertRecordEvent) tapRecord).getAfter();
-                if (this.hasCached(after)) {
+                if (this.hasCached(after, writeCache)) {
                     return;
                 }
                 event.put(EventTag.EVENT_TYPE, EventType.insert);
@@ -211,7 +243,7 @@ public class JSWriteRecordFunction extends FunctionBase implements FunctionSuppo
                 //insert.incrementAndGet();
             } else if (tapRecord instanceof TapUpdateRecordEvent) {
                 Map<String, Object> after = ((TapUpdateRecordEvent) tapRecord).getAfter();
-                if (this.hasCached(after)) {
+                if (this.hasCached(after, writeCache)) {
                     return;
                 }
                 event.put(EventTag.EVENT_TYPE, EventType.update);
@@ -220,7 +252,7 @@ public class JSWriteRecordFunction extends FunctionBase implements FunctionSuppo
                 //update.incrementAndGet();
             } else if (tapRecord instanceof TapDeleteRecordEvent) {
                 Map<String, Object> before = ((TapDeleteRecordEvent) tapRecord).getBefore();
-                if (this.hasCached(before)) {
+                if (this.hasCached(before, writeCache)) {
                     return;
                 }
                 event.put(EventTag.EVENT_TYPE, EventType.delete);
@@ -234,9 +266,9 @@ public class JSWriteRecordFunction extends FunctionBase implements FunctionSuppo
         return events;
     }
 
-    private boolean hasCached(Map<String, Object> data) {
+    private boolean hasCached(Map<String, Object> data, Map<Integer, Object> writeCache) {
         Integer code = data.hashCode();
-        return Objects.nonNull(this.writeCache.get(code));
+        return Objects.nonNull(writeCache.get(code));
     }
 
     public static JSWriteRecordFunction create(AtomicBoolean isAlive) {
@@ -247,4 +279,38 @@ public class JSWriteRecordFunction extends FunctionBase implements FunctionSuppo
         return this.function(loadJavaScripter);
     }
 
+    static class TableJson {
+        final int signature;
+        final String json;
+
+        TableJson(int signature, String json) {
+            this.signature = signature;
+            this.json = json;
+        }
+
+        //hash of what SchemaAccept.tableMap writes, much cheaper than building the json
+        static int signature(TapTable table) {
+            int signature = Objects.hashCode(table.getId());
+            signature = 31 * signature + Objects.hashCode(table.primaryKeys(true));
+            LinkedHashMap<String, TapField> nameFieldMap = table.getNameFieldMap();
+            if (Objects.isNull(nameFieldMap)) {
+                return signature;
+            }
+            for (Map.Entry<String, TapField> entry : nameFieldMap.entrySet()) {
+                TapField field = entry.getValue();
+                signature = 31 * signature + Objects.hashCode(entry.getKey());
+                if (Objects.isNull(field)) {
+                    continue;
+                }
+                signature = 31 * signature + Objects.hashCode(field.getDataType());
+                signature = 31 * signature + Objects.hashCode(field.getDefaultValue());
+                signature = 31 * signature + Objects.hashCode(field.getNullable());
+                signature = 31 * signature + Objects.hashCode(field.getPrimaryKey());
+                signature = 31 * signature + Objects.hashCode(field.getPrimaryKeyPos());
+                signature = 31 * signature + Objects.hashCode(field.getAutoInc());
+                signature = 31 * signature + Objects.hashCode(field.getComment());
+            }
+            return signature;
+        }
+    }
 }
@@ -0,0 +1,21 @@
+package io.tapdata.js.connector;
+
+import io.tapdata.entity.utils.DataMap;
+import io.tapdata.js.connector.iengine.LoadJavaScripter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class JSConnectorTest {
+
+    @Test
+    void testScriptContextSize() {
+        DataMap configMap = new DataMap();
+        Assertions.assertEquals(LoadJavaScripter.DEFAULT_CONTEXT_SIZE, JSConnector.scriptContextSize(configMap));
+        configMap.put(JSConnector.SCRIPT_CONTEXT_SIZE, 3);
+        Assertions.assertEquals(3, JSConnector.scriptContextSize(configMap));
+        configMap.put(JSConnector.SCRIPT_CONTEXT_SIZE, " 4 ");
+        Assertions.assertEquals(4, JSConnector.scriptContextSize(configMap));
+        configMap.put(JSConnector.SCRIPT_CONTEXT_SIZE, "many");
+        Assertions.assertEquals(LoadJavaScripter.DEFAULT_CONTEXT_SIZE, JSConnector.scriptContextSize(configMap));
+    }
+}
@@ -0,0 +1,73 @@
+package io.tapdata.js.connector.iengine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+
+public class LoadJavaScripterTest {
+
+    LoadJavaScripter scripter;
+    Map<Integer, LoadJavaScripter> contexts;
+
+    @BeforeEach
+    void beforeEach() {
+        scripter = new LoadJavaScripter();
+        ReflectionTestUtils.setField(scripter, "hasLoadJs", true);
+        contexts = (Map<Integer, LoadJavaScripter>) ReflectionTestUtils.getField(scripter, "contexts");
+    }
+
+    @Nested
+    class ContextTest {
+        @Test
+        void testNoContextsByDefault() {
+            Assertions.assertSame(scripter, scripter.context("t1"));
+            scripter.warmUp();
+            Assertions.assertTrue(contexts.isEmpty());
+        }
+
+        @Test
+        void testNoContextsBeforeLoad() {
+            scripter.contextSize(3);
+            ReflectionTestUtils.setField(scripter, "hasLoadJs", false);
+            Assertions.assertSame(scripter, scripter.context("t1"));
+        }
+
+        @Test
+        void testEngineNeverHandedOut() {
+            scripter.contextSize(3);
+            for (int i = 0; i < 3; i++) {
+                contexts.put(i, mock(LoadJavaScripter.class));
+            }
+            for (int i = 0; i < 100; i++) {
+                LoadJavaScripter context = scripter.context("table_" + i);
+                Assertions.assertNotSame(scripter, context);
+                Assertions.assertTrue(contexts.containsValue(context));
+                Assertions.assertSame(context, scripter.context("table_" + i));
+            }
+            Assertions.assertEquals(3, contexts.size());
+        }
+
+        @Test
+        void testReloadClearsSupportedFunctions() {
+            contexts.put(0, mock(LoadJavaScripter.class));
+            scripter.supportedFunctions().put("insert_record", true);
+            scripter.reload();
+            Assertions.assertFalse(scripter.hasLoad());
+            Assertions.assertTrue(contexts.isEmpty());
+            //reloaded scripts may define other functions
+            Assertions.assertTrue(scripter.supportedFunctions().isEmpty());
+        }
+
+        @Test
+        void testContextSizeBounds() {
+            Assertions.assertEquals(1, ReflectionTestUtils.getField(scripter.contextSize(0), "contextSize"));
+            Assertions.assertEquals(LoadJavaScripter.MAX_CONTEXT_SIZE, ReflectionTestUtils.getField(scripter.contextSize(100), "contextSize"));
+        }
+    }
+}
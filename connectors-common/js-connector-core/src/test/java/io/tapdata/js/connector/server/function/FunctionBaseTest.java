@@ -0,0 +1,21 @@
+package io.tapdata.js.connector.server.function;
+
+import io.tapdata.js.connector.JSConnector;
+import io.tapdata.js.connector.iengine.LoadJavaScripter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.Mockito.mock;
+
+public class FunctionBaseTest {
+
+    @Test
+    void testExecLock() {
+        LoadJavaScripter engine = mock(LoadJavaScripter.class);
+        LoadJavaScripter context = mock(LoadJavaScripter.class);
+        FunctionBase functionBase = new FunctionBase().javaScripter(engine);
+        //the engine of the connector is locked by the same lock as other functions, contexts by themselves
+        Assertions.assertSame(JSConnector.execLock, functionBase.execLock(engine));
+        Assertions.assertSame(context, functionBase.execLock(context));
+    }
+}
@@ -0,0 +1,41 @@
+package io.tapdata.js.connector.server.function.support;
+
+import io.tapdata.js.connector.JSConnector;
+import io.tapdata.js.connector.iengine.LoadJavaScripter;
+import io.tapdata.js.connector.server.function.JSFunctionNames;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class JSWriteRecordFunctionTest {
+
+    @Test
+    void testSupportedFunctionsCachedUnderExecLock() {
+        LoadJavaScripter engine = mock(LoadJavaScripter.class);
+        Map<String, Boolean> supportedFunctions = new ConcurrentHashMap<>();
+        AtomicInteger evaluated = new AtomicInteger();
+        when(engine.supportedFunctions()).thenReturn(supportedFunctions);
+        when(engine.functioned(anyString())).thenAnswer(a -> {
+            //the engine of the connector is shared with other functions, so it is evaluated under their lock
+            Assertions.assertTrue(Thread.holdsLock(JSConnector.execLock));
+            evaluated.incrementAndGet();
+            return JSFunctionNames.InsertRecordFunction.jsName().equals(a.getArgument(0));
+        });
+        JSWriteRecordFunction function = new JSWriteRecordFunction();
+        function.javaScripter(engine);
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertFalse((Boolean) ReflectionTestUtils.invokeMethod(function, "doNotSupport", JSFunctionNames.InsertRecordFunction));
+            Assertions.assertTrue((Boolean) ReflectionTestUtils.invokeMethod(function, "doNotSupport", JSFunctionNames.DeleteRecordFunction));
+        }
+        Assertions.assertEquals(2, evaluated.get());
+        Assertions.assertEquals(2, supportedFunctions.size());
+    }
+}
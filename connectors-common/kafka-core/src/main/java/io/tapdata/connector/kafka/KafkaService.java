@@ -42,6 +42,8 @@ import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.TopicPartitionInfo;
 import org.apache.kafka.common.errors.InterruptException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
 import org.apache.kafka.common.header.internals.RecordHeaders;
 
 import javax.script.Invocable;
@@ -50,6 +52,7 @@ import javax.script.ScriptException;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
@@ -63,6 +66,18 @@ public class KafkaService extends AbstractMqService {
     private String connectorId;
     private KafkaProducer<byte[], byte[]> kafkaProducer;
     private static final ScriptFactory scriptFactory = InstanceFactory.instance(ScriptFactory.class, "tapdata"); //script factory
+    private static final int MAX_SCRIPT_ENGINES = 4;
+    //headers of every op are built once and shared by records
+    private static final Map<MqOp, Header> MQ_OP_HEADERS = new EnumMap<>(MqOp.class);
+    private final AtomicReference<ProduceBatch> inflightBatch = new AtomicReference<>();
+
+    static {
+        for (MqOp mqOp : MqOp.values()) {
+            MQ_OP_HEADERS.put(mqOp, new RecordHeader("mqOp", mqOp.getOp().getBytes()));
+        }
+    }
+    private BlockingQueue<ScriptEngine> scriptEngines;
+    private volatile Boolean batchScript;
 
     public KafkaService() {
 
@@ -140,7 +155,11 @@ public class KafkaService extends AbstractMqService {
 
     @Override
     public void init() {
-
+        //compile custom message script once for the task instead of every batch
+        if (mqConfig instanceof KafkaConfig && Boolean.TRUE.equals(((KafkaConfig) mqConfig).getEnableScript())) {
+            scriptEngines = new ArrayBlockingQueue<>(MAX_SCRIPT_ENGINES);
+            scriptEngines.offer(createScriptEngine());
+        }
     }
 
     @Override
@@ -298,11 +317,9 @@ public class KafkaService extends AbstractMqService {
 
     @Override
     public void produce(List<TapRecordEvent> tapRecordEvents, TapTable tapTable, Consumer<WriteListResult<TapRecordEvent>> writeListResultConsumer, Supplier<Boolean> isAlive) {
-        AtomicLong insert = new AtomicLong(0);
-        AtomicLong update = new AtomicLong(0);
-        AtomicLong delete = new AtomicLong(0);
-        WriteListResult<TapRecordEvent> listResult = new WriteListResult<>();
-        CountDownLatch countDownLatch = new CountDownLatch(tapRecordEvents.size());
+        ProduceBatch produceBatch = new ProduceBatch(tapRecordEvents.size(), writeListResultConsumer);
+        Collection<String> primaryKeys = tapTable.primaryKeys(true);
+        int sent = 0;
         try {
             for (TapRecordEvent event : tapRecordEvents) {
                 if (null != isAlive && !isAlive.get()) {
@@ -322,49 +339,29 @@ public class KafkaService extends AbstractMqService {
                     data = new HashMap<>();
                 }
                 byte[] body = jsonParser.toJsonBytes(data, JsonParser.ToJsonFeature.WriteMapNullValue);
-                MqOp finalMqOp = mqOp;
-                Callback callback = (metadata, exception) -> {
-                    try {
-                        if (EmptyKit.isNotNull(exception)) {
-                            listResult.addError(event, exception);
-                        }
-                        switch (finalMqOp) {
-                            case INSERT:
-                                insert.incrementAndGet();
-                                break;
-                            case UPDATE:
-                                update.incrementAndGet();
-                                break;
-                            case DELETE:
-                                delete.incrementAndGet();
-                                break;
-                        }
-                    } finally {
-                        countDownLatch.countDown();
-                    }
-                };
                 ProducerRecord<byte[], byte[]> producerRecord = new ProducerRecord<>(tapTable.getId(),
-                        null, event.getTime(), getKafkaMessageKey(data, tapTable), body,
-                        new RecordHeaders().add("mqOp", mqOp.getOp().getBytes()));
-                kafkaProducer.send(producerRecord, callback);
+                        null, event.getTime(), getKafkaMessageKey(data, primaryKeys), body,
+                        new RecordHeaders(new Header[]{MQ_OP_HEADERS.get(mqOp)}));
+                kafkaProducer.send(producerRecord, produceBatch.callback(event, mqOp));
+                sent++;
             }
         } catch (RejectedExecutionException e) {
             tapLogger.warn("task stopped, some data produce failed!", e);
         } catch (Exception e) {
             tapLogger.error("produce error, or task interrupted!", e);
+        } finally {
+            //events not sent will never be acked
+            produceBatch.skip(tapRecordEvents.size() - sent);
         }
-        try {
-            while (null != isAlive && isAlive.get()) {
-                if (countDownLatch.await(500L, TimeUnit.MILLISECONDS)) {
-                    break;
-                }
+        if (Boolean.TRUE.equals(((KafkaConfig) mqConfig).getKafkaAsyncAck())) {
+            //the batch reports itself when all acks are received, only wait for the previous one to keep one batch in flight
+            ProduceBatch previousBatch = inflightBatch.getAndSet(produceBatch);
+            if (null != previousBatch) {
+                previousBatch.awaitAndReport(isAlive);
             }
-        } catch (InterruptedException e) {
-            tapLogger.error("error occur when await", e);
-        } finally {
-            writeListResultConsumer.accept(listResult.insertedCount(insert.get()).modifiedCount(update.get()).removedCount(delete.get()));
+        } else {
+            produceBatch.awaitAndReport(isAlive);
         }
-//            this.produce(null,tapRecordEvents,tapTable,writeListResultConsumer,isAlive);
     }
 
     @Override
@@ -374,25 +371,18 @@ public class KafkaService extends AbstractMqService {
         AtomicLong delete = new AtomicLong(0);
         WriteListResult<TapRecordEvent> listResult = new WriteListResult<>();
         CountDownLatch countDownLatch = new CountDownLatch(tapRecordEvents.size());
-        ScriptEngine scriptEngine;
-        String script = ((KafkaConfig) mqConfig).getScript();
-        Map<String, Object> record = new HashMap();
-        try {
-            scriptEngine = scriptFactory.create(ScriptFactory.TYPE_JAVASCRIPT,
-                    new ScriptOptions().engineName("graal.js"));
-            String buildInMethod = initBuildInMethod();
-            String scripts = script + System.lineSeparator() + buildInMethod;
-            scriptEngine.eval(scripts);
-        } catch (Exception e) {
-            throw new CoreException("Engine initialization failed!");
-        }
+        ScriptEngine scriptEngine = borrowScriptEngine();
         try {
+            List<Map<String, Object>> records = new ArrayList<>(tapRecordEvents.size());
+            List<MqOp> mqOps = new ArrayList<>(tapRecordEvents.size());
+            List<byte[]> kafkaMessageKeys = new ArrayList<>(tapRecordEvents.size());
+            Collection<String> conditionKeys = tapTable.primaryKeys(true);
             for (TapRecordEvent event : tapRecordEvents) {
                 if (null != isAlive && !isAlive.get()) {
                     break;
                 }
                 Map<String, Object> data;
-                Map<String, Map<String, Object>> allData = new HashMap();
+                Map<String, Map<String, Object>> allData = new HashMap<>();
                 MqOp mqOp = MqOp.INSERT;
                 if (event instanceof TapInsertRecordEvent) {
                     data = ((TapInsertRecordEvent) event).getAfter();
@@ -412,17 +402,24 @@ public class KafkaService extends AbstractMqService {
                 } else {
                     data = new HashMap<>();
                 }
-                byte[] kafkaMessageKey = getKafkaMessageKey(data, tapTable);
+                Map<String, Object> record = new HashMap<>();
                 record.put("data", allData);
-                Map<String, Object> header = new HashMap();
+                Map<String, Object> header = new HashMap<>();
                 header.put("mqOp", mqOp.getOp());
                 record.put("header", header);
-                String op = mqOp.getOp();
-                Collection<String> conditionKeys = tapTable.primaryKeys(true);
+                records.add(record);
+                mqOps.add(mqOp);
+                kafkaMessageKeys.add(getKafkaMessageKey(data, conditionKeys));
+            }
+            List<Object> results = processScript(scriptEngine, records, mqOps, conditionKeys);
+            for (int i = 0; i < results.size(); i++) {
+                TapRecordEvent event = tapRecordEvents.get(i);
+                MqOp mqOp = mqOps.get(i);
+                Object eventObj = results.get(i);
                 RecordHeaders recordHeaders = new RecordHeaders();
                 byte[] body = {};
-                Object eventObj = ObjectUtils.covertData(executeScript(scriptEngine, "process", record, op, conditionKeys));
                 if (null == eventObj) {
+                    countDownLatch.countDown();
                     continue;
                 } else {
                     Map<String, Object> res = (Map<String, Object>) eventObj;
@@ -480,7 +477,7 @@ public class KafkaService extends AbstractMqService {
                     }
                 };
                 ProducerRecord<byte[], byte[]> producerRecord = new ProducerRecord<>(tapTable.getId(),
-                        null, event.getTime(), kafkaMessageKey, body,
+                        null, event.getTime(), kafkaMessageKeys.get(i), body,
                         recordHeaders);
                 kafkaProducer.send(producerRecord, callback);
             }
@@ -488,6 +485,8 @@ public class KafkaService extends AbstractMqService {
             tapLogger.warn("task stopped, some data produce failed!", e);
         } catch (Exception e) {
             tapLogger.error("produce error, or task interrupted!", e);
+        } finally {
+            returnScriptEngine(scriptEngine);
         }
         try {
             while (null != isAlive && isAlive.get()) {
@@ -502,6 +501,67 @@ public class KafkaService extends AbstractMqService {
         }
     }
 
+    /**
+     * script defining processBatch(records, conditionKeys) is called once for the whole batch, op of record is in record.header.mqOp,
+     * it must return an array of the same length, null element means the record is ignored,
+     * otherwise process(record, op, conditionKeys) is called for every record
+     */
+    private List<Object> processScript(ScriptEngine scriptEngine, List<Map<String, Object>> records, List<MqOp> mqOps, Collection<String> conditionKeys) {
+        if (records.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (Boolean.TRUE.equals(batchScript)) {
+            Object batchResult = ObjectUtils.covertData(executeScript(scriptEngine, "processBatch", records, conditionKeys));
+            if (!(batchResult instanceof List) || ((List<?>) batchResult).size() != records.size()) {
+                throw new RuntimeException("processBatch must return an array with the same length of records");
+            }
+            return ((List<?>) batchResult).stream().map(ObjectUtils::covertData).collect(Collectors.toList());
+        }
+        List<Object> results = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            results.add(ObjectUtils.covertData(executeScript(scriptEngine, "process", records.get(i), mqOps.get(i).getOp(), conditionKeys)));
+        }
+        return results;
+    }
+
+    //engines are compiled once and reused by batches, a graal context can not be entered by two threads at the same time
+    private ScriptEngine borrowScriptEngine() {
+        ScriptEngine scriptEngine = null == scriptEngines ? null : scriptEngines.poll();
+        return null == scriptEngine ? createScriptEngine() : scriptEngine;
+    }
+
+    private void returnScriptEngine(ScriptEngine scriptEngine) {
+        if (null == scriptEngines || !scriptEngines.offer(scriptEngine)) {
+            closeScriptEngine(scriptEngine);
+        }
+    }
+
+    private ScriptEngine createScriptEngine() {
+        try {
+            ScriptEngine scriptEngine = scriptFactory.create(ScriptFactory.TYPE_JAVASCRIPT,
+                    new ScriptOptions().engineName("graal.js"));
+            String buildInMethod = initBuildInMethod();
+            String scripts = ((KafkaConfig) mqConfig).getScript() + System.lineSeparator() + buildInMethod;
+            scriptEngine.eval(scripts);
+            if (null == batchScript) {
+                batchScript = Boolean.TRUE.equals(scriptEngine.eval("typeof processBatch === 'function'"));
+            }
+            return scriptEngine;
+        } catch (Exception e) {
+            throw new CoreException("Engine initialization failed!");
+        }
+    }
+
+    private void closeScriptEngine(ScriptEngine scriptEngine) {
+        if (scriptEngine instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) scriptEngine).close();
+            } catch (Exception e) {
+                tapLogger.warn("close script engine failed: {}", e.getMessage());
+            }
+        }
+    }
+
     protected String initBuildInMethod() {
         StringBuilder buildInMethod = new StringBuilder();
         buildInMethod.append("var DateUtil = Java.type(\"com.tapdata.constant.DateUtil\");\n");
@@ -543,11 +603,89 @@ public class KafkaService extends AbstractMqService {
         }
     }
 
-    private byte[] getKafkaMessageKey(Map<String, Object> data, TapTable tapTable) {
-        if (EmptyKit.isEmpty(tapTable.primaryKeys(true))) {
+    private byte[] getKafkaMessageKey(Map<String, Object> data, Collection<String> primaryKeys) {
+        if (EmptyKit.isEmpty(primaryKeys)) {
             return null;
         } else {
-            return jsonParser.toJsonBytes(tapTable.primaryKeys(true).stream().map(key -> String.valueOf(data.get(key))).collect(Collectors.joining("_")));
+            return jsonParser.toJsonBytes(primaryKeys.stream().map(key -> String.valueOf(data.get(key))).collect(Collectors.joining("_")));
+        }
+    }
+
+    /**
+     * acks of one produced batch, the result is reported once when all events are acked (or the task is stopped)
+     */
+    private static class ProduceBatch {
+        private final WriteListResult<TapRecordEvent> listResult = new WriteListResult<>();
+        private final AtomicLong insert = new AtomicLong(0);
+        private final AtomicLong update = new AtomicLong(0);
+        private final AtomicLong delete = new AtomicLong(0);
+        private final AtomicBoolean reported = new AtomicBoolean(false);
+        private final CountDownLatch countDownLatch;
+        private final Consumer<WriteListResult<TapRecordEvent>> writeListResultConsumer;
+
+        ProduceBatch(int size, Consumer<WriteListResult<TapRecordEvent>> writeListResultConsumer) {
+            this.countDownLatch = new CountDownLatch(size);
+            this.writeListResultConsumer = writeListResultConsumer;
+        }
+
+        Callback callback(TapRecordEvent event, MqOp mqOp) {
+            return (metadata, exception) -> {
+                try {
+                    if (EmptyKit.isNotNull(exception)) {
+                        synchronized (listResult) {
+                            listResult.addError(event, exception);
+                        }
+                    }
+                    switch (mqOp) {
+                        case INSERT:
+                            insert.incrementAndGet();
+                            break;
+                        case UPDATE:
+                            update.incrementAndGet();
+                            break;
+                        case DELETE:
+                            delete.incrementAndGet();
+                            break;
+                    }
+                } finally {
+                    countDown();
+                }
+            };
+        }
+
+        void skip(int count) {
+            for (int i = 0; i < count; i++) {
+                countDown();
+            }
+        }
+
+        private void countDown() {
+            countDownLatch.countDown();
+            if (countDownLatch.getCount() == 0) {
+                report();
+            }
+        }
+
+        void awaitAndReport(Supplier<Boolean> isAlive) {
+            try {
+                while (null != isAlive && isAlive.get()) {
+                    if (countDownLatch.await(500L, TimeUnit.MILLISECONDS)) {
+                        break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                report();
+            }
+        }
+
+        void report() {
+            if (reported.compareAndSet(false, true)) {
+                synchronized (listResult) {
+                    writeListResultConsumer.accept(listResult.insertedCount(insert.get()).modifiedCount(update.get()).removedCount(delete.get()));
+                }
+            }
         }
     }
 
@@ -698,6 +836,16 @@ public class KafkaService extends AbstractMqService {
     @Override
     public void close() {
         super.close();
+        if (EmptyKit.isNotNull(kafkaProducer) && EmptyKit.isNotNull(inflightBatch.get())) {
+            kafkaProducer.flush();
+            inflightBatch.getAndSet(null).report();
+        }
+        if (EmptyKit.isNotNull(scriptEngines)) {
+            ScriptEngine scriptEngine;
+            while (null != (scriptEngine = scriptEngines.poll())) {
+                closeScriptEngine(scriptEngine);
+            }
+        }
         if (EmptyKit.isNotNull(kafkaProducer)) {
             kafkaProducer.close();
         }
@@ -113,6 +113,8 @@ public class KafkaConfig extends MqConfig {
     private String kafkaCompressionType = "";
     private String kafkaPartitionKey = "";
     private Boolean kafkaIgnorePushError = false;
+    //report the result of a batch when acked, without blocking the next batch
+    private Boolean kafkaAsyncAck = false;
 
 
     public Set<String> getKafkaRawTopics() {
@@ -347,6 +349,14 @@ public class KafkaConfig extends MqConfig {
         this.kafkaIgnorePushError = kafkaIgnorePushError;
     }
 
+    public Boolean getKafkaAsyncAck() {
+        return kafkaAsyncAck;
+    }
+
+    public void setKafkaAsyncAck(Boolean kafkaAsyncAck) {
+        this.kafkaAsyncAck = kafkaAsyncAck;
+    }
+
     public Boolean getEnableScript() {
         return enableScript;
     }
@@ -14,26 +14,32 @@ import io.tapdata.entity.utils.JsonParser;
 import io.tapdata.pdk.apis.context.TapConnectorContext;
 import io.tapdata.pdk.apis.entity.WriteListResult;
 import io.tapdata.script.factory.script.TapRunScriptEngine;
+import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import javax.script.Invocable;
 import javax.script.ScriptEngine;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class KafkaServiceTest {
@@ -75,6 +81,37 @@ public class KafkaServiceTest {
             kafkaService.produce(connectorContext,tapRecordEvents,tapTable,writeListResultConsumer,isAlive);
             verify(kafkaService).initBuildInMethod();
         }
+        @Test
+        void testProduceReuseEngine() throws Exception {
+            ScriptFactory scriptFactory = mock(ScriptFactory.class);
+            reflectScriptFactory(scriptFactory);
+            when(((KafkaConfig)mqConfig).getEnableScript()).thenReturn(true);
+            ScriptEngine scriptEngine = mock(TapRunScriptEngine.class);
+            when(scriptFactory.create(anyString(),any())).thenReturn(scriptEngine);
+            when(isAlive.get()).thenReturn(false);
+            doCallRealMethod().when(kafkaService).init();
+            doCallRealMethod().when(kafkaService).produce(connectorContext,tapRecordEvents,tapTable,writeListResultConsumer,isAlive);
+            kafkaService.init();
+            kafkaService.produce(connectorContext,tapRecordEvents,tapTable,writeListResultConsumer,isAlive);
+            kafkaService.produce(connectorContext,tapRecordEvents,tapTable,writeListResultConsumer,isAlive);
+            verify(scriptFactory, times(1)).create(anyString(),any());
+            verify(writeListResultConsumer, times(2)).accept(any());
+        }
+        @Test
+        void testProduceBatchScript() throws Exception {
+            ScriptFactory scriptFactory = mock(ScriptFactory.class);
+            reflectScriptFactory(scriptFactory);
+            ScriptEngine scriptEngine = mock(TapRunScriptEngine.class);
+            when(scriptFactory.create(anyString(),any())).thenReturn(scriptEngine);
+            when(scriptEngine.eval("typeof processBatch === 'function'")).thenReturn(true);
+            when(((Invocable) scriptEngine).invokeFunction(eq("processBatch"), any(), any())).thenReturn(Collections.singletonList(null));
+            when(isAlive.get()).thenReturn(true).thenReturn(false);
+            doCallRealMethod().when(kafkaService).produce(connectorContext,tapRecordEvents,tapTable,writeListResultConsumer,isAlive);
+            kafkaService.produce(connectorContext,tapRecordEvents,tapTable,writeListResultConsumer,isAlive);
+            verify((Invocable) scriptEngine, times(1)).invokeFunction(eq("processBatch"), any(), any());
+            verify((Invocable) scriptEngine, never()).invokeFunction(eq("process"), any(), any(), any());
+            verify(kafkaProducer, never()).send(any(), any());
+        }
         private void reflectScriptFactory(ScriptFactory mockScriptFactory) throws NoSuchFieldException, IllegalAccessException {
             Field scriptFactory = KafkaService.class.getDeclaredField("scriptFactory");
             scriptFactory.setAccessible(true);
@@ -85,6 +122,62 @@ public class KafkaServiceTest {
         }
     }
     @Nested
+    class ProduceMethodTest{
+        private TapTable tapTable;
+        private Consumer<WriteListResult<TapRecordEvent>> writeListResultConsumer;
+        private Supplier<Boolean> isAlive;
+        private KafkaProducer<byte[], byte[]> kafkaProducer;
+        private List<Callback> callbacks;
+        KafkaConfig mqConfig;
+        @BeforeEach
+        void buildParam(){
+            kafkaService = mock(KafkaService.class);
+            tapTable = mock(TapTable.class);
+            when(tapTable.getId()).thenReturn("topic");
+            writeListResultConsumer = mock(Consumer.class);
+            isAlive = mock(Supplier.class);
+            when(isAlive.get()).thenReturn(true);
+            mqConfig = mock(KafkaConfig.class);
+            ReflectionTestUtils.setField(kafkaService,"mqConfig",mqConfig);
+            ReflectionTestUtils.setField(kafkaService,"inflightBatch",new AtomicReference<>());
+            kafkaProducer = mock(KafkaProducer.class);
+            ReflectionTestUtils.setField(kafkaService,"kafkaProducer",kafkaProducer);
+            callbacks = new ArrayList<>();
+            when(kafkaProducer.send(any(), any())).thenAnswer(invocation -> {
+                callbacks.add(invocation.getArgument(1));
+                return null;
+            });
+        }
+        private List<TapRecordEvent> events(){
+            List<TapRecordEvent> list = new ArrayList<>();
+            list.add(new TapInsertRecordEvent().init().table("topic").after(Collections.singletonMap("id", 1)));
+            list.add(new TapDeleteRecordEvent().init().table("topic").before(Collections.singletonMap("id", 2)));
+            return list;
+        }
+        @Test
+        void testProduceAsyncAck(){
+            when(mqConfig.getKafkaAsyncAck()).thenReturn(true);
+            doCallRealMethod().when(kafkaService).produce(anyList(),any(TapTable.class),any(Consumer.class),any(Supplier.class));
+            kafkaService.produce(events(),tapTable,writeListResultConsumer,isAlive);
+            verify(kafkaProducer, times(2)).send(any(), any());
+            verify(writeListResultConsumer, never()).accept(any());
+            callbacks.forEach(callback -> callback.onCompletion(null, null));
+            ArgumentCaptor<WriteListResult<TapRecordEvent>> captor = ArgumentCaptor.forClass(WriteListResult.class);
+            verify(writeListResultConsumer, times(1)).accept(captor.capture());
+            assertEquals(1L, captor.getValue().getInsertedCount());
+            assertEquals(1L, captor.getValue().getRemovedCount());
+        }
+        @Test
+        void testProduceStopped(){
+            when(isAlive.get()).thenReturn(true).thenReturn(false);
+            doCallRealMethod().when(kafkaService).produce(anyList(),any(TapTable.class),any(Consumer.class),any(Supplier.class));
+            kafkaService.produce(events(),tapTable,writeListResultConsumer,isAlive);
+            verify(kafkaProducer, times(1)).send(any(), any());
+            callbacks.forEach(callback -> callback.onCompletion(null, null));
+            verify(writeListResultConsumer, times(1)).accept(any());
+        }
+    }
+    @Nested
     class InitBuildInMethodTest{
         @Test
         void testInitBuildInMethod(){
@@ -36,6 +36,9 @@ import java.util.Map;
  */
 public class EventDeserializer {
 
+    // bodies larger than this are read into a new array, so that one huge event does not pin the memory
+    private static final int MAX_REUSED_BODY_LENGTH = 16 * 1024 * 1024;
+
     private final EventHeaderDeserializer eventHeaderDeserializer;
     private final EventDataDeserializer defaultEventDataDeserializer;
     private final Map<EventType, EventDataDeserializer> eventDataDeserializers;
@@ -48,6 +51,8 @@ public class EventDeserializer {
     private EventDataDeserializer tableMapEventDataDeserializer;
     private EventDataDeserializer formatDescEventDataDeserializer;
 
+    private byte[] eventBodyBuffer = new byte[0];
+
     public EventDeserializer() {
         this(new EventHeaderV4Deserializer(), new NullEventDataDeserializer());
     }
@@ -331,6 +336,17 @@ public class EventDeserializer {
             EventDataDeserializer eventDataDeserializer) throws EventDataDeserializationException {
         int eventBodyLength = (int) eventHeader.getDataLength() - checksumLength;
         EventData eventData;
+        if (eventBodyLength >= 0) {
+            // the body is read at once, then deserializers decode values from the array instead of the stream
+            try {
+                byte[] body = eventBodyBuffer(eventBodyLength);
+                inputStream.fill(body, 0, eventBodyLength);
+                inputStream.skip(checksumLength);
+                return eventDataDeserializer.deserialize(new ByteArrayInputStream(body, 0, eventBodyLength));
+            } catch (IOException e) {
+                throw new EventDataDeserializationException(eventHeader, e);
+            }
+        }
         try {
             inputStream.enterBlock(eventBodyLength);
             try {
@@ -345,6 +361,16 @@ public class EventDeserializer {
         return eventData;
     }
 
+    private byte[] eventBodyBuffer(int eventBodyLength) {
+        if (eventBodyLength > MAX_REUSED_BODY_LENGTH) {
+            return new byte[eventBodyLength];
+        }
+        if (eventBodyBuffer.length < eventBodyLength) {
+            eventBodyBuffer = new byte[Math.min(MAX_REUSED_BODY_LENGTH, Math.max(eventBodyLength, eventBodyBuffer.length << 1))];
+        }
+        return eventBodyBuffer;
+    }
+
     public EventDataDeserializer getEventDataDeserializer(EventType eventType) {
         EventDataDeserializer eventDataDeserializer = eventDataDeserializers.get(eventType);
         return eventDataDeserializer != null ? eventDataDeserializer : defaultEventDataDeserializer;
@@ -26,6 +26,9 @@ import java.util.BitSet;
 public class ByteArrayInputStream extends InputStream {
 
     private InputStream inputStream;
+    // bytes of a stream created on an array, read from the array directly instead of by a wrapped stream
+    private byte[] buffer;
+    private int bufferPosition, bufferLimit, bufferMark;
     private int peek = -1;
     private int pos, markPosition;
     private int blockLength = -1;
@@ -37,7 +40,22 @@ public class ByteArrayInputStream extends InputStream {
     }
 
     public ByteArrayInputStream(byte[] bytes) {
-        this(new java.io.ByteArrayInputStream(bytes));
+        this(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Stream on a part of the array, fixed-width values are decoded from the array without reading byte by byte.
+     * The array is not copied, it must not be changed until the stream is consumed.
+     * @param bytes array to read from
+     * @param offset position of the first byte
+     * @param length number of bytes to read
+     */
+    public ByteArrayInputStream(byte[] bytes, int offset, int length) {
+        this.buffer = bytes;
+        this.bufferPosition = offset;
+        this.bufferLimit = offset + length;
+        this.bufferMark = offset;
+        this.pos = 0;
     }
 
     /**
@@ -48,6 +66,13 @@ public class ByteArrayInputStream extends InputStream {
      */
     public int readInteger(int length) throws IOException {
         int result = 0;
+        if (canReadFromBuffer(length)) {
+            for (int i = 0; i < length; ++i) {
+                result |= ((buffer[bufferPosition + i] & 0xFF) << (i << 3));
+            }
+            advanceBuffer(length);
+            return result;
+        }
         for (int i = 0; i < length; ++i) {
             result |= (this.read() << (i << 3));
         }
@@ -62,6 +87,13 @@ public class ByteArrayInputStream extends InputStream {
      */
     public long readLong(int length) throws IOException {
         long result = 0;
+        if (canReadFromBuffer(length)) {
+            for (int i = 0; i < length; ++i) {
+                result |= (((long) (buffer[bufferPosition + i] & 0xFF)) << (i << 3));
+            }
+            advanceBuffer(length);
+            return result;
+        }
         for (int i = 0; i < length; ++i) {
             result |= (((long) this.read()) << (i << 3));
         }
@@ -190,6 +222,9 @@ public class ByteArrayInputStream extends InputStream {
         if (blockLength != -1) {
             return blockLength;
         }
+        if (buffer != null) {
+            return bufferLimit - bufferPosition;
+        }
         return inputStream.available();
     }
 
@@ -202,6 +237,11 @@ public class ByteArrayInputStream extends InputStream {
 
     @Override
     public int read() throws IOException {
+        if (canReadFromBuffer(1)) {
+            int result = buffer[bufferPosition] & 0xFF;
+            advanceBuffer(1);
+            return result;
+        }
         int result;
         if (peek == -1) {
             result = readWithinBlockBoundaries();
@@ -223,9 +263,39 @@ public class ByteArrayInputStream extends InputStream {
             }
             blockLength--;
         }
+        if (buffer != null) {
+            return bufferPosition < bufferLimit ? buffer[bufferPosition++] & 0xFF : -1;
+        }
         return inputStream.read();
     }
 
+    private boolean canReadFromBuffer(int length) {
+        return buffer != null && peek == -1 && bufferLimit - bufferPosition >= length &&
+            (blockLength == -1 || blockLength >= length);
+    }
+
+    private void advanceBuffer(int length) {
+        bufferPosition += length;
+        pos += length;
+        if (blockLength != -1) {
+            blockLength -= length;
+        }
+    }
+
+    private int readFromSource(byte[] b, int off, int len) throws IOException {
+        if (buffer == null) {
+            return inputStream.read(b, off, len);
+        }
+        int available = bufferLimit - bufferPosition;
+        if (available <= 0) {
+            return -1;
+        }
+        int read = Math.min(len, available);
+        System.arraycopy(buffer, bufferPosition, b, off, read);
+        bufferPosition += read;
+        return read;
+    }
+
     @Override
     public int read(byte[] b, int off, int len) throws IOException {
         if (b == null) {
@@ -258,21 +328,39 @@ public class ByteArrayInputStream extends InputStream {
 
     private int readWithinBlockBoundaries(byte[] b, int off, int len) throws IOException {
         if (blockLength == -1) {
-            return inputStream.read(b, off, len);
+            return readFromSource(b, off, len);
         } else if (blockLength == 0) {
             return -1;
         }
 
-        int read = inputStream.read(b, off, Math.min(len, blockLength));
+        int read = readFromSource(b, off, Math.min(len, blockLength));
         if (read > 0) {
             blockLength -= read;
         }
         return read;
     }
 
+    @Override
+    public long skip(long n) throws IOException {
+        if (buffer == null || peek != -1) {
+            return super.skip(n);
+        }
+        long skipOf = Math.min(n, bufferLimit - bufferPosition);
+        if (blockLength != -1) {
+            skipOf = Math.min(skipOf, blockLength);
+        }
+        if (skipOf <= 0) {
+            return 0;
+        }
+        advanceBuffer((int) skipOf);
+        return skipOf;
+    }
+
     @Override
     public void close() throws IOException {
-        inputStream.close();
+        if (inputStream != null) {
+            inputStream.close();
+        }
     }
 
     public void enterBlock(int length) {
@@ -294,17 +382,25 @@ public class ByteArrayInputStream extends InputStream {
     @Override
     public synchronized void mark(int readlimit) {
         markPosition = pos;
+        if (buffer != null) {
+            bufferMark = bufferPosition;
+            return;
+        }
         inputStream.mark(readlimit);
     }
 
     @Override
     public boolean markSupported() {
-        return inputStream.markSupported();
+        return buffer != null || inputStream.markSupported();
     }
 
     @Override
     public synchronized void reset() throws IOException {
         pos = markPosition;
+        if (buffer != null) {
+            bufferPosition = bufferMark;
+            return;
+        }
         inputStream.reset();
     }
 
@@ -327,6 +423,11 @@ public class ByteArrayInputStream extends InputStream {
             }
         }
         pos += (int) skipOf;
+        if (buffer != null) {
+            skipOf = Math.min(skipOf, bufferLimit - bufferPosition);
+            bufferPosition += (int) skipOf;
+            return skipOf;
+        }
         return inputStream.skip(skipOf);
      }
 }
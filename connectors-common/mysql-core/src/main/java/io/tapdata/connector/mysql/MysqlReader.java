@@ -94,6 +94,9 @@ public class MysqlReader implements Closeable {
     private KVReadOnlyMap<TapTable> tapTableMap;
     private DDLParserType ddlParserType = DDLParserType.MYSQL_CCJ_SQL_PARSER;
     private static final int MIN_BATCH_SIZE = 1000;
+    //dml records converted by one task of the convert pool
+    protected static final int CONVERT_CHUNK_SIZE = 64;
+    private ExecutorService convertExecutor;
     private TimeZone timeZone;
     private TimeZone dbTimeZone;
     private final AtomicReference<Throwable> throwableAtomicReference = new AtomicReference<>();
@@ -351,6 +354,12 @@ public class MysqlReader implements Closeable {
                     .append("\n"));
             configStr.append("}");
             tapLogger.info(configStr.toString());
+            int convertThreadSize = Optional.ofNullable(mysqlConfig.getBinlogConvertThreadSize()).orElse(1);
+            //records of the same transaction of _tap_double_active are dropped one by one, they can not be converted in parallel
+            if (convertThreadSize > 1 && !Boolean.TRUE.equals(mysqlConfig.getDoubleActive())) {
+                convertExecutor = Executors.newFixedThreadPool(convertThreadSize);
+                tapLogger.info("Convert binlog records with {} threads", convertThreadSize);
+            }
             embeddedEngine = (EmbeddedEngine) new EmbeddedEngine.BuilderImpl()
                     .using(configuration)
                     .notifying(this::consumeRecords)
@@ -396,6 +405,7 @@ public class MysqlReader implements Closeable {
             }
         } finally {
             Optional.ofNullable(mysqlSchemaHistoryMonitor).ifPresent(ExecutorService::shutdownNow);
+            Optional.ofNullable(convertExecutor).ifPresent(ExecutorService::shutdownNow);
             tapLogger.info("Mysql binlog reader stopped");
         }
     }
@@ -502,23 +512,7 @@ public class MysqlReader implements Closeable {
         if (null != throwableAtomicReference.get()) {
             throw new RuntimeException(throwableAtomicReference.get());
         }
-        List<MysqlStreamEvent> mysqlStreamEvents = new ArrayList<>();
-        for (SourceRecord record : sourceRecords) {
-            if (null == record || null == record.value()) continue;
-            Schema valueSchema = record.valueSchema();
-            if (null != valueSchema.field("op")) {
-                MysqlStreamEvent mysqlStreamEvent = wrapDML(record);
-                Optional.ofNullable(mysqlStreamEvent).ifPresent(mysqlStreamEvents::add);
-            } else if (null != valueSchema.field("ddl")) {
-                mysqlStreamEvents.addAll(Objects.requireNonNull(wrapDDL(record)));
-            } else if ("io.debezium.connector.common.Heartbeat".equals(valueSchema.name())) {
-                Optional.ofNullable((Struct) record.value())
-                        .map(value -> value.getInt64("ts_ms"))
-                        .map(TapSimplify::heartbeatEvent)
-                        .map(heartbeatEvent -> new MysqlStreamEvent(heartbeatEvent, getMysqlStreamOffset(record)))
-                        .ifPresent(mysqlStreamEvents::add);
-            }
-        }
+        List<MysqlStreamEvent> mysqlStreamEvents = convertRecords(sourceRecords);
         if (CollectionUtils.isNotEmpty(mysqlStreamEvents)) {
             List<TapEvent> tapEvents = new ArrayList<>();
             MysqlStreamOffset mysqlStreamOffset = null;
@@ -530,6 +524,86 @@ public class MysqlReader implements Closeable {
         }
     }
 
+    /**
+     * dml records are converted by the convert pool in chunks, ddl and heartbeat records by the engine thread
+     * results are collected by the order of records, so the offset of the batch is still the one of the last record
+     */
+    protected List<MysqlStreamEvent> convertRecords(List<SourceRecord> sourceRecords) {
+        List<MysqlStreamEvent> mysqlStreamEvents = new ArrayList<>();
+        if (null == convertExecutor || sourceRecords.size() < CONVERT_CHUNK_SIZE << 1) {
+            for (SourceRecord record : sourceRecords) {
+                mysqlStreamEvents.addAll(convertRecord(record));
+            }
+            return mysqlStreamEvents;
+        }
+        List<Future<List<MysqlStreamEvent>>> slots = new ArrayList<>();
+        List<SourceRecord> chunk = new ArrayList<>();
+        for (SourceRecord record : sourceRecords) {
+            if (null == record || null == record.value()) continue;
+            if (null != record.valueSchema().field("op")) {
+                chunk.add(record);
+                if (chunk.size() >= CONVERT_CHUNK_SIZE) {
+                    slots.add(submitChunk(chunk));
+                    chunk = new ArrayList<>();
+                }
+                continue;
+            }
+            if (!chunk.isEmpty()) {
+                slots.add(submitChunk(chunk));
+                chunk = new ArrayList<>();
+            }
+            slots.add(CompletableFuture.completedFuture(convertRecord(record)));
+        }
+        if (!chunk.isEmpty()) {
+            slots.add(submitChunk(chunk));
+        }
+        try {
+            for (Future<List<MysqlStreamEvent>> slot : slots) {
+                mysqlStreamEvents.addAll(slot.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            slots.forEach(slot -> slot.cancel(true));
+        }
+        return mysqlStreamEvents;
+    }
+
+    private Future<List<MysqlStreamEvent>> submitChunk(List<SourceRecord> chunk) {
+        return convertExecutor.submit(() -> {
+            List<MysqlStreamEvent> mysqlStreamEvents = new ArrayList<>(chunk.size());
+            for (SourceRecord record : chunk) {
+                Optional.ofNullable(wrapDML(record)).ifPresent(mysqlStreamEvents::add);
+            }
+            return mysqlStreamEvents;
+        });
+    }
+
+    protected List<MysqlStreamEvent> convertRecord(SourceRecord record) {
+        List<MysqlStreamEvent> mysqlStreamEvents = new ArrayList<>();
+        if (null == record || null == record.value()) return mysqlStreamEvents;
+        Schema valueSchema = record.valueSchema();
+        if (null != valueSchema.field("op")) {
+            MysqlStreamEvent mysqlStreamEvent = wrapDML(record);
+            Optional.ofNullable(mysqlStreamEvent).ifPresent(mysqlStreamEvents::add);
+        } else if (null != valueSchema.field("ddl")) {
+            mysqlStreamEvents.addAll(Objects.requireNonNull(wrapDDL(record)));
+        } else if ("io.debezium.connector.common.Heartbeat".equals(valueSchema.name())) {
+            Optional.ofNullable((Struct) record.value())
+                    .map(value -> value.getInt64("ts_ms"))
+                    .map(TapSimplify::heartbeatEvent)
+                    .map(heartbeatEvent -> new MysqlStreamEvent(heartbeatEvent, getMysqlStreamOffset(record)))
+                    .ifPresent(mysqlStreamEvents::add);
+        }
+        return mysqlStreamEvents;
+    }
+
     private void sourceRecordConsumer(SourceRecord record) {
         if (null != throwableAtomicReference.get()) {
             throw new RuntimeException(throwableAtomicReference.get());
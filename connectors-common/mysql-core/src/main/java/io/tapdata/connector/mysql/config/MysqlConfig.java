@@ -160,6 +160,8 @@ public class MysqlConfig extends CommonDbConfig {
     private ArrayList<LinkedHashMap<String, Integer>> availableMasterSlaveAddress;
     private LinkedHashMap<String, Integer> masterNode;
     private Integer maximumQueueSize = 800;
+    //threads converting dml records of one binlog batch, events are still emitted in the order of binlog
+    private Integer binlogConvertThreadSize = 1;
 
     public String getDeploymentMode() {
         return deploymentMode;
@@ -201,4 +203,12 @@ public class MysqlConfig extends CommonDbConfig {
         this.maximumQueueSize = maximumQueueSize;
     }
 
+    public Integer getBinlogConvertThreadSize() {
+        return binlogConvertThreadSize;
+    }
+
+    public void setBinlogConvertThreadSize(Integer binlogConvertThreadSize) {
+        this.binlogConvertThreadSize = binlogConvertThreadSize;
+    }
+
 }
@@ -22,6 +22,7 @@ public class MysqlWriteRecorder extends NormalWriteRecorder {
     public MysqlWriteRecorder(Connection connection, TapTable tapTable, String schema) {
         super(connection, tapTable, schema);
         setEscapeChar('`');
+        maxBindVariables = 65535;
     }
 
     protected void largeInsert(Map<String, Object> after) {
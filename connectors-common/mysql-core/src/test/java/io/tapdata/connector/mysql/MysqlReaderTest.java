@@ -7,6 +7,7 @@ import io.tapdata.connector.mysql.entity.MysqlStreamEvent;
 import io.tapdata.connector.mysql.util.StringCompressUtil;
 import io.tapdata.entity.error.CoreException;
 import io.tapdata.entity.event.ddl.TapDDLEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
 import io.tapdata.entity.event.dml.TapRecordEvent;
 import io.tapdata.entity.logger.Log;
 import io.tapdata.entity.schema.TapField;
@@ -33,12 +34,15 @@ import java.sql.Timestamp;
 import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -174,6 +178,79 @@ public class MysqlReaderTest {
         }
     }
 
+    @Nested
+    class ConvertRecordsTest {
+        private MysqlReader mysqlReader;
+        private ExecutorService convertExecutor;
+
+        @BeforeEach
+        void beforeEach() {
+            mysqlReader = mock(MysqlReader.class);
+            when(mysqlReader.convertRecords(anyList())).thenCallRealMethod();
+            when(mysqlReader.wrapDML(any())).thenAnswer(a -> {
+                SourceRecord record = a.getArgument(0);
+                return new MysqlStreamEvent(new TapInsertRecordEvent().init().table(record.topic()), null);
+            });
+            when(mysqlReader.convertRecord(any())).thenAnswer(a -> {
+                SourceRecord record = a.getArgument(0);
+                return Collections.singletonList(new MysqlStreamEvent(new TapInsertRecordEvent().init().table(record.topic()), null));
+            });
+            convertExecutor = Executors.newFixedThreadPool(4);
+        }
+
+        @AfterEach
+        void afterEach() {
+            convertExecutor.shutdownNow();
+        }
+
+        private List<SourceRecord> records(int size, int ddlIndex) {
+            List<SourceRecord> records = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                SourceRecord record = mock(SourceRecord.class);
+                Schema valueSchema = mock(Schema.class);
+                when(record.value()).thenReturn(mock(Struct.class));
+                when(record.valueSchema()).thenReturn(valueSchema);
+                when(record.topic()).thenReturn(String.valueOf(i));
+                if (i != ddlIndex) {
+                    when(valueSchema.field("op")).thenReturn(mock(Field.class));
+                }
+                records.add(record);
+            }
+            return records;
+        }
+
+        @Test
+        @DisplayName("test records converted in parallel keep the order of binlog")
+        void testParallel() {
+            ReflectionTestUtils.setField(mysqlReader, "convertExecutor", convertExecutor);
+            List<MysqlStreamEvent> events = mysqlReader.convertRecords(records(1000, 300));
+            assertEquals(1000, events.size());
+            for (int i = 0; i < events.size(); i++) {
+                assertEquals(String.valueOf(i), ((TapRecordEvent) events.get(i).getTapEvent()).getTableId());
+            }
+            verify(mysqlReader, times(1)).convertRecord(any());
+            verify(mysqlReader, times(999)).wrapDML(any());
+        }
+
+        @Test
+        @DisplayName("test small batch converted by the engine thread")
+        void testSmallBatch() {
+            ReflectionTestUtils.setField(mysqlReader, "convertExecutor", convertExecutor);
+            List<MysqlStreamEvent> events = mysqlReader.convertRecords(records(10, -1));
+            assertEquals(10, events.size());
+            verify(mysqlReader, times(10)).convertRecord(any());
+        }
+
+        @Test
+        @DisplayName("test error of converting thrown by the engine thread")
+        void testError() {
+            ReflectionTestUtils.setField(mysqlReader, "convertExecutor", convertExecutor);
+            when(mysqlReader.wrapDML(any())).thenThrow(new RuntimeException("convert failed"));
+            RuntimeException e = assertThrows(RuntimeException.class, () -> mysqlReader.convertRecords(records(200, -1)));
+            assertEquals("convert failed", e.getMessage());
+        }
+    }
+
     @Nested
     class WrapHandleDateTimeTest {
 
@@ -14,6 +14,7 @@ import org.postgresql.jdbc.PgSQLXML;
 import org.postgresql.util.PGobject;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Timestamp;
@@ -29,6 +30,8 @@ public class PostgresWriteRecorder extends NormalWriteRecorder {
 
     public PostgresWriteRecorder(Connection connection, TapTable tapTable, String schema) {
         super(connection, tapTable, schema);
+        //parameter count is sent as int16 by pgjdbc before 42.4
+        maxBindVariables = Short.MAX_VALUE;
         oidColumnTypeMap = tapTable.getNameFieldMap().entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, v -> getAlias(StringKit.removeParentheses(v.getValue().getDataType().replace(" array", "")))));
     }
 
@@ -194,37 +197,51 @@ public class PostgresWriteRecorder extends NormalWriteRecorder {
         return value;
     }
 
-    public void addAndCheckCommit(TapRecordEvent recordEvent, WriteListResult<TapRecordEvent> listResult) {
+    //jdbc batch is committed by writer at the end, but copy and multi values are bounded by the limits
+    public void addAndCheckCommit(TapRecordEvent recordEvent, WriteListResult<TapRecordEvent> listResult) throws SQLException {
         batchCacheSize++;
         if (updatePolicy == LOG_ON_NONEXISTS && recordEvent instanceof TapUpdateRecordEvent) {
             batchCache.add(recordEvent);
         }
+        if (fileInput && getBatchCacheBytes() >= batchByteLimit) {
+            executeBatch(listResult);
+        } else if (multiValues && (batchCacheSize >= batchRowLimit || getBatchCacheBytes() >= batchByteLimit)) {
+            executeBatch(listResult);
+        }
     }
 
+    @Override
+    public boolean supportFileInput() {
+        return true;
+    }
+
+    @Override
     public void fileInput() throws SQLException {
         try (ByteBufInputStream byteBufInputStream = new ByteBufInputStream(buffer)) {
-            new CopyManager(connection.unwrap(BaseConnection.class)).copyIn("COPY " + escapeChar + schema + escapeChar + "." + escapeChar + tapTable.getId() + escapeChar + " FROM STDIN DELIMITER ','", byteBufInputStream);
+            new CopyManager(connection.unwrap(BaseConnection.class)).copyIn("COPY " + escapeChar + schema + escapeChar + "." + escapeChar + tapTable.getId() + escapeChar
+                    + " (" + allColumn.stream().map(k -> escapeChar + k + escapeChar).collect(Collectors.joining(", ")) + ") FROM STDIN DELIMITER ','", byteBufInputStream);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
     protected void fileInsert(Map<String, Object> after) {
-        buffer.writeBytes((allColumn.stream().map(v -> parseObject(after.get(v))).collect(Collectors.joining(",")) + "\n").getBytes());
+        buffer.writeBytes((allColumn.stream().map(v -> parseObject(after.get(v))).collect(Collectors.joining(",")) + "\n").getBytes(StandardCharsets.UTF_8));
     }
 
+    //text format of copy: \N is null, backslash must be escaped before the other characters
     private String parseObject(Object value) {
         if (value == null) {
-            return "null";
+            return "\\N";
         }
         if (value instanceof String) {
-            return ((String) value).replace("\n", "\\n").replace("\r", "\\r").replace(",", "\\,");
+            return ((String) value).replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r").replace(",", "\\,");
         }
         if (value instanceof byte[]) {
             throw new UnsupportedOperationException("binary type not supported in file input");
         }
         if (value instanceof PGobject) {
-            return ((PGobject) value).getValue();
+            return parseObject(((PGobject) value).getValue());
         }
         return String.valueOf(value);
     }
@@ -41,12 +41,21 @@ public class CommonDbConfig implements Serializable {
     private Boolean hashSplit = false;
     private int maxSplit = 20;
     private int batchReadThreadSize = 4;
+    private Boolean keysetSplit = false;
+    private int fetchSize = 2000;
+    private Boolean pipelineRead = false;
+    private Long pipelineMemoryCapacity = 64 * 1024 * 1024L;
     private Boolean doubleActive = false;
     private Boolean oldVersionTimezone = false;
     private Boolean createAutoInc = false;
     private long autoIncJumpValue = 1000000L;
     private Boolean applyDefault = false;
     private Integer writeThreadSize = 15;
+    private Integer writeBatchSize = 1000;
+    private Long writeBatchBytes = 16 * 1024 * 1024L;
+    private String bulkInsertMode = "batch";
+    private Boolean coalesceWrite = false;
+    private Integer writeShardSize = 1;
     protected String timezone = "+00:00";
     protected ZoneId zoneId;
     protected Integer zoneOffsetHour;
@@ -273,6 +282,38 @@ public class CommonDbConfig implements Serializable {
         this.batchReadThreadSize = batchReadThreadSize;
     }
 
+    public Boolean getKeysetSplit() {
+        return keysetSplit;
+    }
+
+    public void setKeysetSplit(Boolean keysetSplit) {
+        this.keysetSplit = keysetSplit;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public Boolean getPipelineRead() {
+        return pipelineRead;
+    }
+
+    public void setPipelineRead(Boolean pipelineRead) {
+        this.pipelineRead = pipelineRead;
+    }
+
+    public Long getPipelineMemoryCapacity() {
+        return pipelineMemoryCapacity;
+    }
+
+    public void setPipelineMemoryCapacity(Long pipelineMemoryCapacity) {
+        this.pipelineMemoryCapacity = pipelineMemoryCapacity;
+    }
+
     public Boolean getDoubleActive() {
         return doubleActive;
     }
@@ -321,6 +362,46 @@ public class CommonDbConfig implements Serializable {
         this.writeThreadSize = writeThreadSize;
     }
 
+    public Integer getWriteBatchSize() {
+        return writeBatchSize;
+    }
+
+    public void setWriteBatchSize(Integer writeBatchSize) {
+        this.writeBatchSize = writeBatchSize;
+    }
+
+    public Long getWriteBatchBytes() {
+        return writeBatchBytes;
+    }
+
+    public void setWriteBatchBytes(Long writeBatchBytes) {
+        this.writeBatchBytes = writeBatchBytes;
+    }
+
+    public String getBulkInsertMode() {
+        return bulkInsertMode;
+    }
+
+    public void setBulkInsertMode(String bulkInsertMode) {
+        this.bulkInsertMode = bulkInsertMode;
+    }
+
+    public Boolean getCoalesceWrite() {
+        return coalesceWrite;
+    }
+
+    public void setCoalesceWrite(Boolean coalesceWrite) {
+        this.coalesceWrite = coalesceWrite;
+    }
+
+    public Integer getWriteShardSize() {
+        return writeShardSize;
+    }
+
+    public void setWriteShardSize(Integer writeShardSize) {
+        this.writeShardSize = writeShardSize;
+    }
+
     public String getTimezone() {
         return timezone;
     }
@@ -2,6 +2,7 @@ package io.tapdata.common;
 
 import io.tapdata.base.ConnectorBase;
 import io.tapdata.common.ddl.DDLSqlGenerator;
+import io.tapdata.common.dml.ShardedWriteExecutor;
 import io.tapdata.common.exception.AbstractExceptionCollector;
 import io.tapdata.common.exception.ExceptionCollector;
 import io.tapdata.entity.event.TapEvent;
@@ -26,11 +27,14 @@ import io.tapdata.pdk.apis.entity.TapAdvanceFilter;
 import io.tapdata.pdk.apis.entity.TapFilter;
 import io.tapdata.pdk.apis.functions.connector.target.CreateTableOptions;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -45,6 +49,9 @@ public abstract class CommonDbConnector extends ConnectorBase {
 
     //SQL for Primary key sorting area reading
     private final static String FIND_KEY_FROM_OFFSET = "select * from (select %s, row_number() over (order by %s) as tap__rowno from %s ) a where tap__rowno=%s";
+    //SQL for Primary key chunk boundaries (one scan for all boundaries)
+    private final static String FIND_KEY_BOUNDARIES = "select %s from (select %s, row_number() over (order by %s) as tap__rowno from %s ) a where %s=0 order by %s";
+    private final static String FIND_KEY_MIN_MAX = "select min(%s), max(%s) from %s";
     private final static String wherePattern = "where %s ";
     //offset for Primary key sorting area reading
     private final static Long offsetSize = 1000000L;
@@ -66,6 +73,23 @@ public abstract class CommonDbConnector extends ConnectorBase {
     };
     protected Map<String, Connection> transactionConnectionMap = new ConcurrentHashMap<>();
     protected boolean isTransaction = false;
+    //parallel writer by table and primary key, null means to write by the calling thread
+    protected ShardedWriteExecutor shardedWriteExecutor;
+
+    //writeShardSize is capped by the connection pool, otherwise shards of all write threads wait for each other's connections
+    protected void initShardedWriteExecutor() {
+        if (EmptyKit.isNull(commonDbConfig.getWriteShardSize()) || commonDbConfig.getWriteShardSize() <= 1) {
+            return;
+        }
+        int shardSize = ShardedWriteExecutor.capShardSize(commonDbConfig.getWriteShardSize(), jdbcContext.getMaximumPoolSize(), commonDbConfig.getWriteThreadSize());
+        if (shardSize < commonDbConfig.getWriteShardSize() && EmptyKit.isNotNull(tapLogger)) {
+            tapLogger.warn("Write shard size {} is capped to {} by the connection pool size {}, raise Max Pool Size in extra params for more shards",
+                    commonDbConfig.getWriteShardSize(), shardSize, jdbcContext.getMaximumPoolSize());
+        }
+        if (shardSize > 1) {
+            shardedWriteExecutor = new ShardedWriteExecutor(shardSize);
+        }
+    }
 
     @Override
     public int tableCount(TapConnectionContext connectionContext) throws SQLException {
@@ -214,6 +238,10 @@ public abstract class CommonDbConnector extends ConnectorBase {
         List<String> primaryKeys = new ArrayList<>(tapTable.primaryKeys());
         char escapeChar = commonDbConfig.getEscapeChar();
         String selectClause = getSelectSql(tapTable);
+        if (offsetState instanceof CommonDbSplitOffset || (EmptyKit.isNull(offsetState) && EmptyKit.isNotEmpty(primaryKeys) && Boolean.TRUE.equals(commonDbConfig.getKeysetSplit()))) {
+            batchReadWithKeysetSplit(tapConnectorContext, tapTable, (CommonDbSplitOffset) offsetState, eventBatchSize, eventsOffsetConsumer);
+            return;
+        }
         CommonDbOffset offset = (CommonDbOffset) offsetState;
         if (EmptyKit.isNull(offset)) {
             offset = new CommonDbOffset(new DataMap(), 0L);
@@ -300,6 +328,193 @@ public abstract class CommonDbConnector extends ConnectorBase {
         }
     }
 
+    //Primary key chunking parallel reading, boundaries are computed once and every chunk is read by keyset
+    protected void batchReadWithKeysetSplit(TapConnectorContext tapConnectorContext, TapTable tapTable, CommonDbSplitOffset splitOffset, int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) throws Throwable {
+        List<String> primaryKeys = new ArrayList<>(tapTable.primaryKeys());
+        char escapeChar = commonDbConfig.getEscapeChar();
+        if (EmptyKit.isNull(splitOffset)) {
+            splitOffset = new CommonDbSplitOffset(findPrimaryKeyBoundaries(tapConnectorContext, tapTable, primaryKeys));
+            tapLogger.info("batchRead, table {} is split into {} primary key chunks", tapTable.getId(), splitOffset.getChunks().size());
+        }
+        String selectClause = getSelectSql(tapTable);
+        String orderClause = " order by " + primaryKeys.stream().map(col -> escapeChar + col + escapeChar).collect(Collectors.joining(","));
+        ConcurrentLinkedQueue<Integer> chunkQueue = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < splitOffset.getChunks().size(); i++) {
+            if (!Boolean.TRUE.equals(splitOffset.getChunks().get(i).getFinished())) {
+                chunkQueue.add(i);
+            }
+        }
+        if (chunkQueue.isEmpty()) {
+            return;
+        }
+        final CommonDbSplitOffset finalSplitOffset = splitOffset;
+        int threadSize = Math.max(1, Math.min(commonDbConfig.getBatchReadThreadSize(), chunkQueue.size()));
+        AtomicReference<Throwable> throwable = new AtomicReference<>();
+        CountDownLatch countDownLatch = new CountDownLatch(threadSize);
+        ExecutorService executorService = Executors.newFixedThreadPool(threadSize);
+        try {
+            for (int i = 0; i < threadSize; i++) {
+                executorService.submit(() -> {
+                    try {
+                        Integer chunkIndex;
+                        while (isAlive() && EmptyKit.isNull(throwable.get()) && EmptyKit.isNotNull(chunkIndex = chunkQueue.poll())) {
+                            readPrimaryKeyChunk(selectClause, orderClause, tapTable, primaryKeys, finalSplitOffset, chunkIndex, eventBatchSize, eventsOffsetConsumer);
+                        }
+                    } catch (Throwable e) {
+                        throwable.set(e);
+                    } finally {
+                        countDownLatch.countDown();
+                    }
+                });
+            }
+            try {
+                countDownLatch.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            if (EmptyKit.isNotNull(throwable.get())) {
+                exceptionCollector.collectTerminateByServer(throwable.get());
+                exceptionCollector.collectReadPrivileges("batchReadV3", Collections.emptyList(), throwable.get());
+                exceptionCollector.revealException(throwable.get());
+                throw throwable.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    private void readPrimaryKeyChunk(String selectClause, String orderClause, TapTable tapTable, List<String> primaryKeys, CommonDbSplitOffset splitOffset, int chunkIndex, int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) throws Throwable {
+        CommonDbSplitOffset.Chunk chunk;
+        synchronized (this) {
+            chunk = splitOffset.getChunks().get(chunkIndex);
+        }
+        List<Object> params = new ArrayList<>();
+        List<String> conditions = new ArrayList<>();
+        DataMap from = chunk.getOffset().getColumnValue();
+        if (EmptyKit.isNotEmpty(from)) {
+            conditions.add(buildKeysetCondition(primaryKeys, from, true, false, params));
+        }
+        if (EmptyKit.isNotEmpty(chunk.getUpper())) {
+            conditions.add(buildKeysetCondition(primaryKeys, chunk.getUpper(), false, true, params));
+        }
+        String sql = selectClause + (conditions.isEmpty() ? "" : " " + String.format(wherePattern, String.join(" and ", conditions))) + orderClause;
+        jdbcContext.prepareQuery(sql, params, resultSet -> {
+            try {
+                readResultSet(resultSet, eventBatchSize, (rows, last) -> {
+                    //keep the raw key value before processDataMap, it will be bound as the keyset param when resuming
+                    DataMap lastKey = null;
+                    if (EmptyKit.isNotEmpty(rows)) {
+                        lastKey = new DataMap();
+                        for (String key : primaryKeys) {
+                            lastKey.put(key, rows.get(rows.size() - 1).get(key));
+                        }
+                    }
+                    syncSplitEventSubmit(toInsertEvents(rows, tapTable), splitOffset, chunkIndex, lastKey, last, eventsOffsetConsumer);
+                });
+            } catch (SQLException e) {
+                exceptionCollector.collectTerminateByServer(e);
+                exceptionCollector.collectReadPrivileges("batchReadV3", Collections.emptyList(), e);
+                throw e;
+            }
+        });
+    }
+
+    protected synchronized void syncSplitEventSubmit(List<TapEvent> eventList, CommonDbSplitOffset splitOffset, int chunkIndex, DataMap lastKey, boolean finished, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) {
+        CommonDbSplitOffset.Chunk chunk = splitOffset.getChunks().get(chunkIndex);
+        //the finished marker of a chunk may carry no events, then the last key is not changed
+        if (EmptyKit.isNotNull(lastKey)) {
+            chunk.setOffset(new CommonDbOffset(lastKey, chunk.getOffset().getOffsetSize() + eventList.size()));
+        }
+        chunk.setFinished(finished);
+        eventsOffsetConsumer.accept(eventList, splitOffset.copy());
+    }
+
+    /**
+     * keyset condition of composite primary keys, such as (k1>?) or (k1=? and k2>?)
+     * portable for those databases which do not support row value comparison
+     */
+    protected String buildKeysetCondition(List<String> primaryKeys, DataMap keyValue, boolean greater, boolean inclusive, List<Object> params) {
+        char escapeChar = commonDbConfig.getEscapeChar();
+        List<String> orConditions = new ArrayList<>();
+        for (int i = 0; i < primaryKeys.size(); i++) {
+            StringBuilder andCondition = new StringBuilder("(");
+            for (int j = 0; j < i; j++) {
+                andCondition.append(escapeChar).append(primaryKeys.get(j)).append(escapeChar).append("=? and ");
+                params.add(keyValue.get(primaryKeys.get(j)));
+            }
+            andCondition.append(escapeChar).append(primaryKeys.get(i)).append(escapeChar).append(greater ? ">" : "<");
+            if (inclusive && i == primaryKeys.size() - 1) {
+                andCondition.append("=");
+            }
+            andCondition.append("?)");
+            params.add(keyValue.get(primaryKeys.get(i)));
+            orConditions.add(andCondition.toString());
+        }
+        return "(" + String.join(" or ", orConditions) + ")";
+    }
+
+    /**
+     * find chunk boundaries once, about offsetSize rows per chunk
+     * integer single primary key uses min/max bisection, others use one row_number scan
+     */
+    protected List<DataMap> findPrimaryKeyBoundaries(TapConnectorContext tapConnectorContext, TapTable tapTable, List<String> primaryKeys) throws Throwable {
+        long count = batchCount(tapConnectorContext, tapTable);
+        long chunkCount = Math.max(commonDbConfig.getBatchReadThreadSize(), (count + offsetSize - 1) / offsetSize);
+        if (chunkCount <= 1 || count < chunkCount * BATCH_ADVANCE_READ_LIMIT) {
+            return list();
+        }
+        char escapeChar = commonDbConfig.getEscapeChar();
+        String primaryKeyString = escapeChar + String.join(escapeChar + "," + escapeChar, primaryKeys) + escapeChar;
+        if (primaryKeys.size() == 1) {
+            AtomicReference<Object> min = new AtomicReference<>();
+            AtomicReference<Object> max = new AtomicReference<>();
+            jdbcContext.queryWithNext(String.format(FIND_KEY_MIN_MAX, primaryKeyString, primaryKeyString, getSchemaAndTable(tapTable.getId())), resultSet -> {
+                min.set(resultSet.getObject(1));
+                max.set(resultSet.getObject(2));
+            });
+            BigInteger minValue = toBigInteger(min.get());
+            BigInteger maxValue = toBigInteger(max.get());
+            if (EmptyKit.isNotNull(minValue) && EmptyKit.isNotNull(maxValue)) {
+                List<DataMap> boundaries = list();
+                BigInteger step = maxValue.subtract(minValue).divide(BigInteger.valueOf(chunkCount)).add(BigInteger.ONE);
+                for (BigInteger boundary = minValue.add(step); boundary.compareTo(maxValue) < 0; boundary = boundary.add(step)) {
+                    DataMap dataMap = new DataMap();
+                    dataMap.put(primaryKeys.get(0), boundary.bitLength() < 64 ? (Object) boundary.longValue() : new BigDecimal(boundary));
+                    boundaries.add(dataMap);
+                }
+                return boundaries;
+            }
+        }
+        List<DataMap> boundaries = list();
+        jdbcContext.query(getPrimaryKeyBoundariesSql(tapTable, primaryKeyString, (count + chunkCount - 1) / chunkCount), resultSet -> {
+            List<String> columnNames = DbKit.getColumnsFromResultSet(resultSet);
+            while (isAlive() && resultSet.next()) {
+                boundaries.add(DbKit.getRowFromResultSet(resultSet, columnNames));
+            }
+        });
+        return boundaries;
+    }
+
+    protected String getPrimaryKeyBoundariesSql(TapTable tapTable, String primaryKeyString, long step) {
+        return String.format(FIND_KEY_BOUNDARIES, primaryKeyString, primaryKeyString, primaryKeyString, getSchemaAndTable(tapTable.getId()), getModuloExpression("tap__rowno", step), primaryKeyString);
+    }
+
+    //mod() is not supported by SQL Server, whose connector should return "expression % divisor"
+    protected String getModuloExpression(String expression, long divisor) {
+        return String.format("mod(%s, %s)", expression, divisor);
+    }
+
+    private BigInteger toBigInteger(Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return BigInteger.valueOf(((Number) value).longValue());
+        } else if (value instanceof BigInteger) {
+            return (BigInteger) value;
+        } else if (value instanceof BigDecimal && ((BigDecimal) value).stripTrailingZeros().scale() <= 0) {
+            return ((BigDecimal) value).toBigInteger();
+        }
+        return null;
+    }
+
     private void submitInitialReadEvents(String sql, TapTable tapTable, int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer, Object offset) throws Throwable {
         jdbcContext.query(sql, resultSet -> allOverResultSet(resultSet, tapTable, eventBatchSize, eventsOffsetConsumer, offset));
     }
@@ -309,28 +524,51 @@ public abstract class CommonDbConnector extends ConnectorBase {
     }
 
     private void allOverResultSet(ResultSet resultSet, TapTable tapTable, int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer, Object offset) throws SQLException {
-        List<TapEvent> tapEvents = list();
-        //get all column names
-        List<String> columnNames = DbKit.getColumnsFromResultSet(resultSet);
         try {
-            while (isAlive() && resultSet.next()) {
-                DataMap dataMap = DbKit.getRowFromResultSet(resultSet, columnNames);
-                processDataMap(dataMap, tapTable);
-                tapEvents.add(insertRecordEvent(dataMap, tapTable.getId()));
-                if (tapEvents.size() == eventBatchSize) {
-                    eventsOffsetConsumer.accept(tapEvents, offset);
-                    tapEvents = list();
+            readResultSet(resultSet, eventBatchSize, (rows, last) -> {
+                if (EmptyKit.isNotEmpty(rows)) {
+                    eventsOffsetConsumer.accept(toInsertEvents(rows, tapTable), offset);
                 }
-            }
+            });
         } catch (SQLException e) {
             exceptionCollector.collectTerminateByServer(e);
             exceptionCollector.collectReadPrivileges("batchReadV3", Collections.emptyList(), e);
             throw e;
         }
-        //last events those less than eventBatchSize
-        if (EmptyKit.isNotEmpty(tapEvents)) {
-            eventsOffsetConsumer.accept(tapEvents, offset);
+    }
+
+    /**
+     * read the whole ResultSet by batches of eventBatchSize rows (the last one may be less)
+     * the last batch is always consumed with last=true when ResultSet is read completely, even if it is empty
+     * when pipelineRead is on, JDBC fetching and the consumer (on another thread) overlap
+     */
+    protected void readResultSet(ResultSet resultSet, int eventBatchSize, ResultSetPipeline.RowBatchConsumer consumer) throws SQLException {
+        ResultSetRowDecoder rowDecoder = new ResultSetRowDecoder(resultSet);
+        if (Boolean.TRUE.equals(commonDbConfig.getPipelineRead())) {
+            new ResultSetPipeline(rowDecoder, eventBatchSize, commonDbConfig.getPipelineMemoryCapacity()).read(resultSet, this::isAlive, consumer);
+            return;
+        }
+        List<DataMap> rows = new ArrayList<>(eventBatchSize);
+        while (isAlive() && resultSet.next()) {
+            rows.add(rowDecoder.decode(resultSet));
+            if (rows.size() == eventBatchSize) {
+                consumer.accept(rows, false);
+                rows = new ArrayList<>(eventBatchSize);
+            }
+        }
+        //last rows those less than eventBatchSize, or the finished marker
+        if (EmptyKit.isNotEmpty(rows) || isAlive()) {
+            consumer.accept(rows, isAlive());
+        }
+    }
+
+    protected List<TapEvent> toInsertEvents(List<DataMap> rows, TapTable tapTable) {
+        List<TapEvent> tapEvents = new ArrayList<>(rows.size());
+        for (DataMap dataMap : rows) {
+            processDataMap(dataMap, tapTable);
+            tapEvents.add(insertRecordEvent(dataMap, tapTable.getId()));
         }
+        return tapEvents;
     }
 
     protected void processDataMap(DataMap dataMap, TapTable tapTable) throws RuntimeException {
@@ -569,7 +807,10 @@ public abstract class CommonDbConnector extends ConnectorBase {
     }
 
     protected void batchReadWithoutOffset(TapConnectorContext tapConnectorContext, TapTable tapTable, Object offsetState, int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) throws Throwable {
-        if (Boolean.TRUE.equals(commonDbConfig.getHashSplit())) {
+        //tables with primary key can be read by resumable primary key chunks
+        if (offsetState instanceof CommonDbSplitOffset || (EmptyKit.isNull(offsetState) && Boolean.TRUE.equals(commonDbConfig.getKeysetSplit()) && EmptyKit.isNotEmpty(tapTable.primaryKeys()))) {
+            batchReadWithKeysetSplit(tapConnectorContext, tapTable, (CommonDbSplitOffset) offsetState, eventBatchSize, eventsOffsetConsumer);
+        } else if (Boolean.TRUE.equals(commonDbConfig.getHashSplit())) {
             batchReadWithHashSplit(tapConnectorContext, tapTable, offsetState, eventBatchSize, eventsOffsetConsumer);
         } else {
             batchReadWithoutHashSplit(tapConnectorContext, tapTable, offsetState, eventBatchSize, eventsOffsetConsumer);
@@ -579,29 +820,18 @@ public abstract class CommonDbConnector extends ConnectorBase {
     protected void batchReadWithoutHashSplit(TapConnectorContext tapConnectorContext, TapTable tapTable, Object offsetState, int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) throws Throwable {
         String sql = getBatchReadSelectSql(tapTable);
         jdbcContext.query(sql, resultSet -> {
-            List<TapEvent> tapEvents = list();
-            //get all column names
-            List<String> columnNames = DbKit.getColumnsFromResultSet(resultSet);
             try {
-                while (isAlive() && resultSet.next()) {
-                    DataMap dataMap = DbKit.getRowFromResultSet(resultSet, columnNames);
-                    processDataMap(dataMap, tapTable);
-                    tapEvents.add(insertRecordEvent(dataMap, tapTable.getId()));
-                    if (tapEvents.size() == eventBatchSize) {
-                        eventsOffsetConsumer.accept(tapEvents, new HashMap<>());
-                        tapEvents = list();
+                readResultSet(resultSet, eventBatchSize, (rows, last) -> {
+                    if (EmptyKit.isNotEmpty(rows)) {
+                        eventsOffsetConsumer.accept(toInsertEvents(rows, tapTable), new HashMap<>());
                     }
-                }
+                });
             } catch (SQLException e) {
                 exceptionCollector.collectTerminateByServer(e);
                 exceptionCollector.collectReadPrivileges("batchReadWithoutOffset", Collections.emptyList(), e);
                 exceptionCollector.revealException(e);
                 throw e;
             }
-            //last events those less than eventBatchSize
-            if (EmptyKit.isNotEmpty(tapEvents)) {
-                eventsOffsetConsumer.accept(tapEvents, new HashMap<>());
-            }
         });
     }
 
@@ -631,24 +861,11 @@ public abstract class CommonDbConnector extends ConnectorBase {
                         for (int ii = threadIndex; ii < commonDbConfig.getMaxSplit(); ii += commonDbConfig.getBatchReadThreadSize()) {
                             String splitSql = sql + " WHERE " + getHashSplitModConditions(tapTable, commonDbConfig.getMaxSplit(), ii);
                             tapLogger.info("batchRead, splitSql[{}]: {}", ii + 1, splitSql);
-                            jdbcContext.query(splitSql, resultSet -> {
-                                List<TapEvent> tapEvents = list();
-                                //get all column names
-                                List<String> columnNames = DbKit.getColumnsFromResultSet(resultSet);
-                                while (isAlive() && resultSet.next()) {
-                                    DataMap dataMap = DbKit.getRowFromResultSet(resultSet, columnNames);
-                                    processDataMap(dataMap, tapTable);
-                                    tapEvents.add(insertRecordEvent(dataMap, tapTable.getId()));
-                                    if (tapEvents.size() == eventBatchSize) {
-                                        syncEventSubmit(tapEvents, eventsOffsetConsumer);
-                                        tapEvents = list();
-                                    }
-                                }
-                                //last events those less than eventBatchSize
-                                if (EmptyKit.isNotEmpty(tapEvents)) {
-                                    syncEventSubmit(tapEvents, eventsOffsetConsumer);
+                            jdbcContext.query(splitSql, resultSet -> readResultSet(resultSet, eventBatchSize, (rows, last) -> {
+                                if (EmptyKit.isNotEmpty(rows)) {
+                                    syncEventSubmit(toInsertEvents(rows, tapTable), eventsOffsetConsumer);
                                 }
-                            });
+                            }));
                         }
                     } catch (Exception e) {
                         throwable.set(e);
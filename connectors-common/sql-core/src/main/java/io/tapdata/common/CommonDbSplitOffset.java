@@ -0,0 +1,92 @@
+package io.tapdata.common;
+
+import io.tapdata.entity.utils.DataMap;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * offset for primary key chunking parallel reading
+ * boundaries are computed once, then every chunk keeps its own resumable CommonDbOffset
+ */
+public class CommonDbSplitOffset implements Serializable {
+
+    private List<Chunk> chunks;
+
+    public CommonDbSplitOffset() {
+        this.chunks = new ArrayList<>();
+    }
+
+    /**
+     * @param boundaries ordered primary key values, chunk i is (boundaries[i-1], boundaries[i]]
+     */
+    public CommonDbSplitOffset(List<DataMap> boundaries) {
+        this.chunks = new ArrayList<>();
+        DataMap lower = new DataMap();
+        for (DataMap boundary : boundaries) {
+            chunks.add(new Chunk(boundary, new CommonDbOffset(lower, 0L)));
+            lower = boundary;
+        }
+        chunks.add(new Chunk(null, new CommonDbOffset(lower, 0L)));
+    }
+
+    public CommonDbSplitOffset copy() {
+        CommonDbSplitOffset splitOffset = new CommonDbSplitOffset();
+        for (Chunk chunk : chunks) {
+            Chunk newChunk = new Chunk(chunk.getUpper(), new CommonDbOffset(chunk.getOffset().getColumnValue(), chunk.getOffset().getOffsetSize()));
+            newChunk.setFinished(chunk.getFinished());
+            splitOffset.getChunks().add(newChunk);
+        }
+        return splitOffset;
+    }
+
+    public List<Chunk> getChunks() {
+        return chunks;
+    }
+
+    public void setChunks(List<Chunk> chunks) {
+        this.chunks = chunks;
+    }
+
+    public static class Chunk implements Serializable {
+
+        //upper primary key value (inclusive), null means unbounded
+        private DataMap upper;
+        //columnValue is the last read primary key value (exclusive), offsetSize is the read count
+        private CommonDbOffset offset;
+        private Boolean finished = false;
+
+        public Chunk() {
+        }
+
+        public Chunk(DataMap upper, CommonDbOffset offset) {
+            this.upper = upper;
+            this.offset = offset;
+        }
+
+        public DataMap getUpper() {
+            return upper;
+        }
+
+        public void setUpper(DataMap upper) {
+            this.upper = upper;
+        }
+
+        public CommonDbOffset getOffset() {
+            return offset;
+        }
+
+        public void setOffset(CommonDbOffset offset) {
+            this.offset = offset;
+        }
+
+        public Boolean getFinished() {
+            return finished;
+        }
+
+        public void setFinished(Boolean finished) {
+            this.finished = finished;
+        }
+    }
+}
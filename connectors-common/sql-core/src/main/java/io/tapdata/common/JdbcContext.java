@@ -37,6 +37,10 @@ public abstract class JdbcContext implements AutoCloseable {
         return config;
     }
 
+    public int getMaximumPoolSize() {
+        return hikariDataSource.getMaximumPoolSize();
+    }
+
     /**
      * get sql connection
      *
@@ -72,7 +76,7 @@ public abstract class JdbcContext implements AutoCloseable {
                 Connection connection = getConnection();
                 Statement statement = connection.createStatement()
         ) {
-            statement.setFetchSize(2000); //protected from OM
+            statement.setFetchSize(config.getFetchSize()); //protected from OM
             try (
                     ResultSet resultSet = statement.executeQuery(sql)
             ) {
@@ -89,7 +93,7 @@ public abstract class JdbcContext implements AutoCloseable {
                 Connection connection = getConnection();
                 Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)
         ) {
-            statement.setFetchSize(2000); //protected from OM
+            statement.setFetchSize(config.getFetchSize()); //protected from OM
             try (
                     ResultSet resultSet = statement.executeQuery(sql)
             ) {
@@ -132,7 +136,7 @@ public abstract class JdbcContext implements AutoCloseable {
                 Connection connection = getConnection();
                 PreparedStatement preparedStatement = connection.prepareStatement(prepareSql)
         ) {
-            preparedStatement.setFetchSize(2000);
+            preparedStatement.setFetchSize(config.getFetchSize()); //protected from OM
             int pos = 1;
             for (Object obj : params) {
                 preparedStatement.setObject(pos++, obj);
@@ -1,17 +1,21 @@
 package io.tapdata.common;
 
+import io.tapdata.common.dml.WriteEventCoalescer;
 import io.tapdata.common.exception.AbstractExceptionCollector;
 import io.tapdata.common.exception.ExceptionCollector;
 import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
 import io.tapdata.entity.event.dml.TapInsertRecordEvent;
 import io.tapdata.entity.event.dml.TapRecordEvent;
 import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.logger.TapLogger;
 import io.tapdata.entity.schema.TapTable;
+import io.tapdata.kit.EmptyKit;
 import io.tapdata.pdk.apis.entity.ConnectionOptions;
 import io.tapdata.pdk.apis.entity.WriteListResult;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -21,6 +25,8 @@ import static io.tapdata.entity.simplify.TapSimplify.toJson;
 
 public class RecordWriter {
 
+    private static final String TAG = RecordWriter.class.getSimpleName();
+
     protected WriteRecorder insertRecorder;
     protected String insertPolicy = ConnectionOptions.DML_INSERT_POLICY_UPDATE_ON_EXISTS;
     protected WriteRecorder updateRecorder;
@@ -32,8 +38,10 @@ public class RecordWriter {
     protected ExceptionCollector exceptionCollector = new AbstractExceptionCollector() {
     };
     protected boolean isTransaction = false;
+    protected CommonDbConfig commonDbConfig;
 
     public RecordWriter(JdbcContext jdbcContext, TapTable tapTable) throws SQLException {
+        this.commonDbConfig = jdbcContext.getConfig();
         this.connection = jdbcContext.getConnection();
         this.tapTable = tapTable;
     }
@@ -47,12 +55,19 @@ public class RecordWriter {
     public void write(List<TapRecordEvent> tapRecordEvents, Consumer<WriteListResult<TapRecordEvent>> writeListResultConsumer) throws SQLException {
         //result of these events
         WriteListResult<TapRecordEvent> listResult = new WriteListResult<>();
+        WriteEventCoalescer coalescer = null;
+        boolean succeed = false;
         try {
             insertRecorder.setVersion(version);
             insertRecorder.setInsertPolicy(insertPolicy);
             updateRecorder.setVersion(version);
             updateRecorder.setUpdatePolicy(updatePolicy);
             deleteRecorder.setVersion(version);
+            //fold events of the same key, so that interleaved events become long runs of the same type
+            if (EmptyKit.isNotNull(commonDbConfig) && Boolean.TRUE.equals(commonDbConfig.getCoalesceWrite()) && EmptyKit.isNotEmpty(tapTable.primaryKeys(false))) {
+                coalescer = new WriteEventCoalescer(new ArrayList<>(tapTable.primaryKeys(false)), insertPolicy);
+                tapRecordEvents = coalescer.coalesce(tapRecordEvents);
+            }
             //insert,update,delete events must consecutive, so execute the other two first
             for (TapRecordEvent recordEvent : tapRecordEvents) {
                 if (recordEvent instanceof TapInsertRecordEvent) {
@@ -82,6 +97,7 @@ public class RecordWriter {
             if (!connection.getAutoCommit() && !isTransaction) {
                 connection.commit();
             }
+            succeed = true;
             //release resource
 
         } catch (SQLException e) {
@@ -95,16 +111,22 @@ public class RecordWriter {
             exceptionCollector.collectWriteLength(null, null, errorEvent, e);
             throw e;
         } finally {
+            if (updateRecorder.getStatementReprepares() > 0) {
+                TapLogger.debug(TAG, "Table {} update statement cache hit rate: {}, re-prepared: {}", tapTable.getId(),
+                        updateRecorder.getStatementCacheHitRate(), updateRecorder.getStatementReprepares());
+            }
             insertRecorder.releaseResource();
             updateRecorder.releaseResource();
             deleteRecorder.releaseResource();
             if (!isTransaction) {
                 connection.close();
             }
+            //counts are reported against the input events, the folded ones are written within the event absorbing them
+            boolean countFolded = succeed && null != coalescer;
             writeListResultConsumer.accept(listResult
-                    .insertedCount(insertRecorder.getAtomicLong().get())
-                    .modifiedCount(updateRecorder.getAtomicLong().get())
-                    .removedCount(deleteRecorder.getAtomicLong().get()));
+                    .insertedCount(insertRecorder.getAtomicLong().get() + (countFolded ? coalescer.getFoldedInserts() : 0))
+                    .modifiedCount(updateRecorder.getAtomicLong().get() + (countFolded ? coalescer.getFoldedUpdates() : 0))
+                    .removedCount(deleteRecorder.getAtomicLong().get() + (countFolded ? coalescer.getFoldedDeletes() : 0)));
         }
     }
 
@@ -0,0 +1,172 @@
+package io.tapdata.common;
+
+import io.tapdata.entity.logger.TapLogger;
+import io.tapdata.entity.utils.DataMap;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * bounded producer/consumer pipeline for reading ResultSet
+ * the JDBC thread only drains ResultSet into raw row arrays by the compiled typed getters of ResultSetRowDecoder,
+ * another thread builds DataMaps, runs the consumer (processDataMap, events and the downstream), and samples row width,
+ * so that network round trips of fetching overlap with everything after reading values
+ * fetch size is adjusted by the observed row width to keep fetched and queued rows in the memory budget
+ */
+public class ResultSetPipeline {
+
+    private static final String TAG = ResultSetPipeline.class.getSimpleName();
+    private static final int QUEUE_CAPACITY = 4;
+    private static final int SAMPLE_ROWS = 1000;
+    private static final int MIN_FETCH_SIZE = 100;
+    private static final int MAX_FETCH_SIZE = 20000;
+    private static final RowBatch END = new RowBatch(null, true);
+    //converter threads are shared by all pipelines, idle ones exit after 60 seconds
+    private static final ExecutorService CONVERTER_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "ResultSetPipeline-converter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ResultSetRowDecoder rowDecoder;
+    private final int eventBatchSize;
+    private final long memoryCapacity;
+    //fetch size computed by the converter thread, applied by the JDBC thread, 0 means not computed yet
+    private volatile int adjustedFetchSize;
+
+    public ResultSetPipeline(ResultSetRowDecoder rowDecoder, int eventBatchSize, long memoryCapacity) {
+        this.rowDecoder = rowDecoder;
+        this.eventBatchSize = eventBatchSize;
+        this.memoryCapacity = memoryCapacity;
+    }
+
+    /**
+     * read all rows, consumer is called on the converter thread in the order of ResultSet
+     * returns after the last batch has been consumed, exception of consumer is thrown on the calling thread
+     */
+    public void read(ResultSet resultSet, BooleanSupplier isAlive, RowBatchConsumer consumer) throws SQLException {
+        BlockingQueue<RowBatch> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        Future<?> future = CONVERTER_EXECUTOR.submit(() -> {
+            convert(queue, consumer);
+            return null;
+        });
+        try {
+            List<Object[]> rows = new ArrayList<>(eventBatchSize);
+            boolean fetchSizeAdjusted = false;
+            while (isAlive.getAsBoolean() && !future.isDone() && resultSet.next()) {
+                rows.add(rowDecoder.read(resultSet));
+                if (rows.size() == eventBatchSize) {
+                    put(queue, new RowBatch(rows, false), future);
+                    rows = new ArrayList<>(eventBatchSize);
+                }
+                if (!fetchSizeAdjusted && adjustedFetchSize > 0) {
+                    fetchSizeAdjusted = true;
+                    adjustFetchSize(resultSet, adjustedFetchSize);
+                }
+            }
+            //last rows those less than eventBatchSize, or the finished marker
+            if (!rows.isEmpty() || isAlive.getAsBoolean()) {
+                put(queue, new RowBatch(rows, isAlive.getAsBoolean()), future);
+            }
+            put(queue, END, future);
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("ResultSet pipeline is interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new SQLException(e.getCause());
+        } finally {
+            future.cancel(true);
+        }
+    }
+
+    private void convert(BlockingQueue<RowBatch> queue, RowBatchConsumer consumer) throws InterruptedException {
+        long sampleBytes = 0;
+        int sampleRows = 0;
+        while (true) {
+            RowBatch rowBatch = queue.take();
+            if (rowBatch == END) {
+                return;
+            }
+            List<DataMap> dataMaps = new ArrayList<>(rowBatch.rows.size());
+            for (Object[] row : rowBatch.rows) {
+                if (sampleRows < SAMPLE_ROWS) {
+                    sampleBytes += estimateSize(row);
+                    if (++sampleRows == SAMPLE_ROWS) {
+                        adjustedFetchSize = computeFetchSize(sampleBytes / SAMPLE_ROWS);
+                    }
+                }
+                dataMaps.add(rowDecoder.toDataMap(row));
+            }
+            consumer.accept(dataMaps, rowBatch.last);
+        }
+    }
+
+    //wait for space in queue, but stop waiting once the converter failed
+    private void put(BlockingQueue<RowBatch> queue, RowBatch rowBatch, Future<?> future) throws InterruptedException, ExecutionException {
+        while (!queue.offer(rowBatch, 1, TimeUnit.SECONDS)) {
+            if (future.isDone()) {
+                future.get();
+                return;
+            }
+        }
+    }
+
+    //rows held by pipeline: fetch buffer of driver and QUEUE_CAPACITY + 2 batches (queued, producing and converting)
+    protected int computeFetchSize(long rowBytes) {
+        long queuedBytes = (QUEUE_CAPACITY + 2L) * eventBatchSize * Math.max(rowBytes, 1);
+        long fetchSize = (memoryCapacity - queuedBytes) / Math.max(rowBytes, 1);
+        return (int) Math.max(MIN_FETCH_SIZE, Math.min(MAX_FETCH_SIZE, fetchSize));
+    }
+
+    private void adjustFetchSize(ResultSet resultSet, int fetchSize) {
+        try {
+            resultSet.setFetchSize(fetchSize);
+        } catch (Exception e) {
+            //some drivers do not support changing fetch size of an open ResultSet
+            TapLogger.debug(TAG, "Adjust fetch size to {} failed: {}", fetchSize, e.getMessage());
+        }
+    }
+
+    protected static long estimateSize(Object[] row) {
+        long size = 16L + 8L * row.length;
+        for (Object value : row) {
+            if (value instanceof String) {
+                size += 40 + 2L * ((String) value).length();
+            } else if (value instanceof byte[]) {
+                size += 16 + ((byte[]) value).length;
+            } else if (null != value) {
+                size += 24;
+            }
+        }
+        return size;
+    }
+
+    public interface RowBatchConsumer {
+        /**
+         * @param rows converted rows, empty only for the finished marker
+         * @param last true if ResultSet has been read completely
+         */
+        void accept(List<DataMap> rows, boolean last);
+    }
+
+    private static class RowBatch {
+        private final List<Object[]> rows;
+        private final boolean last;
+
+        private RowBatch(List<Object[]> rows, boolean last) {
+            this.rows = rows;
+            this.last = last;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package io.tapdata.common;
+
+import io.tapdata.entity.logger.TapLogger;
+import io.tapdata.entity.utils.DataMap;
+import io.tapdata.kit.DbKit;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+import static io.tapdata.entity.simplify.TapSimplify.toJson;
+
+/**
+ * row decoder compiled once from ResultSetMetaData
+ * column names and readers are resolved by index, so each row only pays for reading values
+ * (DbKit.getRowFromResultSet checks resultSet.getRow() and looks up getObject for every column of every row)
+ */
+public class ResultSetRowDecoder {
+
+    //placeholder of the column which failed to read, it will not be put into DataMap
+    private static final Object SKIPPED = new Object();
+    private final String[] columnNames;
+    private final ColumnReader[] columnReaders;
+
+    public ResultSetRowDecoder(ResultSet resultSet) throws SQLException {
+        List<String> names = DbKit.getColumnsFromResultSet(resultSet);
+        ResultSetMetaData resultSetMetaData = resultSet.getMetaData();
+        this.columnNames = names.toArray(new String[0]);
+        this.columnReaders = new ColumnReader[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            columnReaders[i] = compileReader(resultSetMetaData.getColumnType(i + 1), columnClassName(resultSetMetaData, i + 1));
+        }
+    }
+
+    private static String columnClassName(ResultSetMetaData resultSetMetaData, int index) {
+        try {
+            return resultSetMetaData.getColumnClassName(index);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * typed getters are only used when the driver reports the same class as the getter returns,
+     * so that the value classes of getObject are kept for processDataMap
+     */
+    protected static ColumnReader compileReader(int sqlType, String className) {
+        switch (sqlType) {
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                if (String.class.getName().equals(className)) {
+                    return ResultSet::getString;
+                }
+                break;
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                if (Integer.class.getName().equals(className)) {
+                    return (resultSet, index) -> nullable(resultSet, resultSet.getInt(index));
+                }
+                break;
+            case Types.BIGINT:
+                if (Long.class.getName().equals(className)) {
+                    return (resultSet, index) -> nullable(resultSet, resultSet.getLong(index));
+                }
+                break;
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                if (Double.class.getName().equals(className)) {
+                    return (resultSet, index) -> nullable(resultSet, resultSet.getDouble(index));
+                }
+                break;
+            case Types.REAL:
+                if (Float.class.getName().equals(className)) {
+                    return (resultSet, index) -> nullable(resultSet, resultSet.getFloat(index));
+                }
+                break;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                if (Boolean.class.getName().equals(className)) {
+                    return (resultSet, index) -> nullable(resultSet, resultSet.getBoolean(index));
+                }
+                break;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                if (BigDecimal.class.getName().equals(className)) {
+                    return ResultSet::getBigDecimal;
+                }
+                break;
+            default:
+                break;
+        }
+        return ResultSet::getObject;
+    }
+
+    private static Object nullable(ResultSet resultSet, Object value) throws SQLException {
+        return resultSet.wasNull() ? null : value;
+    }
+
+    /**
+     * decode current row
+     *
+     * @param resultSet ResultSet which has been moved to a valid row
+     * @return DataMap
+     */
+    public DataMap decode(ResultSet resultSet) {
+        return toDataMap(read(resultSet));
+    }
+
+    /**
+     * read current row into raw values, which can be converted by toDataMap on another thread
+     * the same fault-tolerant behavior as DbKit.getRowFromResultSet, the column which failed to read is skipped
+     *
+     * @param resultSet ResultSet which has been moved to a valid row
+     * @return raw values by column index
+     */
+    public Object[] read(ResultSet resultSet) {
+        Object[] row = new Object[columnNames.length];
+        String errorCol = null;
+        for (int i = 0; i < columnNames.length; i++) {
+            try {
+                row[i] = columnReaders[i].read(resultSet, i + 1);
+            } catch (Exception e) {
+                row[i] = SKIPPED;
+                errorCol = columnNames[i];
+            }
+        }
+        if (null != errorCol) {
+            TapLogger.warn("JDBC ERROR", "row: {}, skip {}", toJson(toDataMap(row)), errorCol);
+        }
+        return row;
+    }
+
+    public DataMap toDataMap(Object[] row) {
+        DataMap dataMap = new DataMap();
+        for (int i = 0; i < columnNames.length; i++) {
+            if (row[i] != SKIPPED) {
+                dataMap.put(columnNames[i], row[i]);
+            }
+        }
+        return dataMap;
+    }
+
+    public String[] getColumnNames() {
+        return columnNames;
+    }
+
+    protected interface ColumnReader {
+        Object read(ResultSet resultSet, int index) throws SQLException;
+    }
+}
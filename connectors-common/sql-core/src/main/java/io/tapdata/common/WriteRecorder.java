@@ -34,6 +34,24 @@ public abstract class WriteRecorder {
     protected List<String> afterKeys;
 
     protected PreparedStatement preparedStatement = null;
+    //update statements by the sorted column set of after (shape), the current one is not in the cache
+    protected String afterShape;
+    protected int statementCacheSize = 16;
+    protected final Map<String, PreparedStatement> statementCache = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+            if (size() > statementCacheSize) {
+                EmptyKit.closeQuietly(eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+    //shapes whose statement has rows in batch, and the pending shape of every row key
+    protected final Set<String> pendingShapes = new HashSet<>();
+    protected final Map<List<Object>, String> pendingKeyShapes = new HashMap<>();
+    protected long statementCacheHits = 0;
+    protected long statementReprepares = 0;
     protected final AtomicLong atomicLong = new AtomicLong(0); //record counter
     protected final List<TapRecordEvent> batchCache = TapSimplify.list(); //event cache
 
@@ -77,11 +95,21 @@ public abstract class WriteRecorder {
             return;
         }
         try {
+            //other shapes are executed first, rows of the same key are never pending in two shapes
+            for (String shape : pendingShapes) {
+                PreparedStatement pendingStatement = statementCache.get(shape);
+                if (!shape.equals(afterShape) && EmptyKit.isNotNull(pendingStatement)) {
+                    pendingStatement.executeBatch();
+                    pendingStatement.clearBatch();
+                }
+            }
             if (preparedStatement != null) {
                 preparedStatement.executeBatch();
                 preparedStatement.clearBatch();
-                batchCache.clear();
             }
+            pendingShapes.clear();
+            pendingKeyShapes.clear();
+            batchCache.clear();
         } catch (SQLException e) {
             Map<TapRecordEvent, Throwable> map = batchCache.stream().collect(Collectors.toMap(Function.identity(), (v) -> e));
             listResult.addErrors(map);
@@ -106,6 +134,25 @@ public abstract class WriteRecorder {
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        statementCache.values().forEach(EmptyKit::closeQuietly);
+        statementCache.clear();
+    }
+
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits;
+    }
+
+    public long getStatementReprepares() {
+        return statementReprepares;
+    }
+
+    public double getStatementCacheHitRate() {
+        long total = statementCacheHits + statementReprepares;
+        return total == 0 ? 1 : (double) statementCacheHits / total;
     }
 
     public void setVersion(String version) {
@@ -137,14 +184,6 @@ public abstract class WriteRecorder {
     }
 
     protected Map<String, Object> getBeforeForUpdate(Map<String, Object> after, Map<String, Object> before, WriteListResult<TapRecordEvent> listResult) throws SQLException {
-        if (EmptyKit.isEmpty(afterKeys)) {
-            afterKeys = new ArrayList<>(after.keySet());
-        }
-        if (!afterKeys.equals(new ArrayList<>(after.keySet()))) {
-            executeBatch(listResult);
-            preparedStatement = null;
-            afterKeys = new ArrayList<>(after.keySet());
-        }
         //in some datasource, before of events is always empty, so before is unreliable
         Map<String, Object> lastBefore = new HashMap<>();
         if (EmptyKit.isEmpty(uniqueCondition)) {
@@ -152,25 +191,66 @@ public abstract class WriteRecorder {
         } else {
             uniqueCondition.forEach(v -> lastBefore.put(v, (EmptyKit.isNotEmpty(before) && before.containsKey(v)) ? before.get(v) : after.get(v)));
         }
+        String shape = String.join(",", getUpdateColumns(after));
+        List<Object> key = new ArrayList<>(lastBefore.values());
+        String pendingShape = pendingKeyShapes.get(key);
+        if (EmptyKit.isNotNull(pendingShape) && !pendingShape.equals(shape)) {
+            //the same row is waiting in another shape, execute all to keep the order
+            executeBatch(listResult);
+        }
+        switchShape(shape, listResult);
+        afterKeys = new ArrayList<>(after.keySet());
+        pendingShapes.add(shape);
+        pendingKeyShapes.put(key, shape);
         return lastBefore;
     }
 
+    //park the current statement with its batch, and take the statement of new shape from cache (null means to prepare)
+    protected void switchShape(String shape, WriteListResult<TapRecordEvent> listResult) throws SQLException {
+        if (shape.equals(afterShape)) {
+            return;
+        }
+        if (EmptyKit.isNotNull(afterShape) && EmptyKit.isNotNull(preparedStatement)) {
+            //eldest statement may be evicted and closed, so nothing can be pending then
+            if (statementCache.size() >= statementCacheSize && !pendingShapes.isEmpty()) {
+                executeBatch(listResult);
+            }
+            statementCache.put(afterShape, preparedStatement);
+        }
+        preparedStatement = statementCache.remove(shape);
+        if (EmptyKit.isNull(preparedStatement)) {
+            if (EmptyKit.isNotNull(afterShape)) {
+                statementReprepares++;
+            }
+        } else {
+            statementCacheHits++;
+        }
+        afterShape = shape;
+    }
+
+    //columns set by the update statement: the changed columns of after in sorted order, which is also the shape of statement
+    protected List<String> getUpdateColumns(Map<String, Object> after) {
+        List<String> updateColumns = after.keySet().stream().filter(updatedColumn::contains).sorted().collect(Collectors.toList());
+        return EmptyKit.isEmpty(updateColumns) ? after.keySet().stream().sorted().collect(Collectors.toList()) : updateColumns;
+    }
+
     protected void justUpdate(Map<String, Object> after, Map<String, Object> before) throws SQLException {
+        List<String> updateColumns = getUpdateColumns(after);
         if (EmptyKit.isNull(preparedStatement)) {
             if (hasPk) {
                 preparedStatement = connection.prepareStatement("UPDATE \"" + schema + "\".\"" + tapTable.getId() + "\" SET " +
-                        updatedColumn.stream().map(k -> "\"" + k + "\"=?").collect(Collectors.joining(", ")) + " WHERE " +
+                        updateColumns.stream().map(k -> "\"" + k + "\"=?").collect(Collectors.joining(", ")) + " WHERE " +
                         before.keySet().stream().map(k -> "\"" + k + "\"=?").collect(Collectors.joining(" AND ")));
             } else {
                 preparedStatement = connection.prepareStatement("UPDATE \"" + schema + "\".\"" + tapTable.getId() + "\" SET " +
-                        updatedColumn.stream().map(k -> "\"" + k + "\"=?").collect(Collectors.joining(", ")) + " WHERE " +
+                        updateColumns.stream().map(k -> "\"" + k + "\"=?").collect(Collectors.joining(", ")) + " WHERE " +
                         before.keySet().stream().map(k -> "(\"" + k + "\"=? OR (\"" + k + "\" IS NULL AND ? IS NULL))")
                                 .collect(Collectors.joining(" AND ")));
             }
         }
         preparedStatement.clearParameters();
         int pos = 1;
-        for (String key : updatedColumn) {
+        for (String key : updateColumns) {
             preparedStatement.setObject(pos++, after.get(key));
         }
         dealNullBefore(before, pos);
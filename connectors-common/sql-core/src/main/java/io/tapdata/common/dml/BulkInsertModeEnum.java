@@ -0,0 +1,19 @@
+package io.tapdata.common.dml;
+
+public enum BulkInsertModeEnum {
+
+    BATCH("batch"), //jdbc addBatch/executeBatch of single-row statements
+    VALUES("values"), //multi-row INSERT ... VALUES (...),(...)
+    COPY("copy"); //file input, such as COPY FROM STDIN of postgres
+
+    private final String modeName;
+
+    BulkInsertModeEnum(String modeName) {
+        this.modeName = modeName;
+    }
+
+    public String getModeName() {
+        return modeName;
+    }
+
+}
@@ -66,12 +66,20 @@ public class NormalRecordWriter {
     public void write(List<TapRecordEvent> tapRecordEvents, Consumer<WriteListResult<TapRecordEvent>> writeListResultConsumer, Supplier<Boolean> isAlive) throws SQLException {
         //result of these events
         WriteListResult<TapRecordEvent> listResult = new WriteListResult<>();
+        WriteEventCoalescer coalescer = null;
+        boolean succeed = false;
         try {
             insertRecorder.setVersion(version);
             insertRecorder.setInsertPolicy(insertPolicy);
-            if (commonDbConfig.getEnableFileInput()) {
+            BulkInsertModeEnum bulkInsertMode = getBulkInsertMode();
+            if (commonDbConfig.getEnableFileInput() || bulkInsertMode == BulkInsertModeEnum.COPY) {
                 insertRecorder.enableFileInput(new PooledByteBufAllocator().directBuffer(commonDbConfig.getBufferCapacity().intValue()));
+            } else if (bulkInsertMode == BulkInsertModeEnum.VALUES) {
+                insertRecorder.enableMultiValues();
             }
+            insertRecorder.setBatchLimit(commonDbConfig.getWriteBatchSize(), commonDbConfig.getWriteBatchBytes());
+            updateRecorder.setBatchLimit(commonDbConfig.getWriteBatchSize(), commonDbConfig.getWriteBatchBytes());
+            deleteRecorder.setBatchLimit(commonDbConfig.getWriteBatchSize(), commonDbConfig.getWriteBatchBytes());
             insertRecorder.setTapLogger(tapLogger);
             updateRecorder.setVersion(version);
             updateRecorder.setUpdatePolicy(updatePolicy);
@@ -84,6 +92,11 @@ public class NormalRecordWriter {
                     statement.execute(upsertDoubleActive());
                 }
             }
+            //fold events of the same key, so that interleaved events become long runs of the same type
+            if (Boolean.TRUE.equals(commonDbConfig.getCoalesceWrite()) && EmptyKit.isNotEmpty(tapTable.primaryKeys(false))) {
+                coalescer = new WriteEventCoalescer(new ArrayList<>(tapTable.primaryKeys(false)), insertPolicy);
+                tapRecordEvents = coalescer.coalesce(tapRecordEvents);
+            }
             //insert,update,delete events must consecutive, so execute the other two first
             for (TapRecordEvent recordEvent : tapRecordEvents) {
                 if (null != isAlive && !isAlive.get()) {
@@ -123,6 +136,7 @@ public class NormalRecordWriter {
             if (!connection.getAutoCommit() && !isTransaction) {
                 connection.commit();
             }
+            succeed = null == isAlive || isAlive.get();
             //release resource
 
         } catch (SQLException e) {
@@ -145,11 +159,22 @@ public class NormalRecordWriter {
             if (!isTransaction) {
                 connection.close();
             }
+            //counts are reported against the input events, the folded ones are written within the event absorbing them
+            boolean countFolded = succeed && null != coalescer;
             writeListResultConsumer.accept(listResult
-                    .insertedCount(insertRecorder.getAtomicLong().get())
-                    .modifiedCount(updateRecorder.getAtomicLong().get())
-                    .removedCount(deleteRecorder.getAtomicLong().get()));
+                    .insertedCount(insertRecorder.getAtomicLong().get() + (countFolded ? coalescer.getFoldedInserts() : 0))
+                    .modifiedCount(updateRecorder.getAtomicLong().get() + (countFolded ? coalescer.getFoldedUpdates() : 0))
+                    .removedCount(deleteRecorder.getAtomicLong().get() + (countFolded ? coalescer.getFoldedDeletes() : 0)));
+        }
+    }
+
+    //checked before any event is cached, otherwise the unsupported file input fails at the first flush
+    protected BulkInsertModeEnum getBulkInsertMode() {
+        BulkInsertModeEnum bulkInsertMode = EmptyKit.isBlank(commonDbConfig.getBulkInsertMode()) ? BulkInsertModeEnum.BATCH : BulkInsertModeEnum.valueOf(commonDbConfig.getBulkInsertMode().toUpperCase());
+        if (bulkInsertMode == BulkInsertModeEnum.COPY && !insertRecorder.supportFileInput()) {
+            throw new IllegalArgumentException("Bulk insert mode copy is not supported by " + insertRecorder.getClass().getSimpleName() + ", please use batch or values");
         }
+        return bulkInsertMode;
     }
 
     public NormalRecordWriter setVersion(String version) {
@@ -51,10 +51,17 @@ public abstract class NormalWriteRecorder {
     protected PreparedStatement preparedStatement = null;
     protected List<String> largeSqlValues;
     protected boolean largeSql = false;
+    protected boolean multiValues = false;
+    protected List<Map<String, Object>> multiValuesCache;
+    protected long multiValuesBytes = 0;
+    //bind variables limit of one statement, SQL Server only allows 2100, recorders of other databases raise it
+    protected int maxBindVariables = 2000;
 
     protected final AtomicLong atomicLong = new AtomicLong(0); //record counter
     protected final List<TapRecordEvent> batchCache = TapSimplify.list(); //event cache
     protected int batchCacheSize = 0;
+    protected int batchRowLimit = 1000;
+    protected long batchByteLimit = 16 * 1024 * 1024L;
     protected Log tapLogger;
 
     public NormalWriteRecorder(Connection connection, TapTable tapTable, String schema) {
@@ -90,6 +97,16 @@ public abstract class NormalWriteRecorder {
         }
     }
 
+    public void enableMultiValues() {
+        this.multiValues = true;
+        this.multiValuesCache = new ArrayList<>();
+    }
+
+    public void setBatchLimit(int batchRowLimit, long batchByteLimit) {
+        this.batchRowLimit = batchRowLimit;
+        this.batchByteLimit = batchByteLimit;
+    }
+
     /**
      * batch write events
      *
@@ -116,6 +133,14 @@ public abstract class NormalWriteRecorder {
             atomicLong.addAndGet(succeed);
             return;
         }
+        if (multiValues && EmptyKit.isNotEmpty(multiValuesCache)) {
+            multiValuesExecute();
+            multiValuesCache.clear();
+            multiValuesBytes = 0;
+            batchCacheSize = 0;
+            atomicLong.addAndGet(succeed);
+            return;
+        }
         try {
             if (preparedStatement != null) {
                 int[] writeResults = preparedStatement.executeBatch();
@@ -141,17 +166,28 @@ public abstract class NormalWriteRecorder {
         atomicLong.addAndGet(succeed);
     }
 
-    //commit when cacheSize >= 1000
+    //commit when cacheSize >= batchRowLimit or cached bytes >= batchByteLimit
     public void addAndCheckCommit(TapRecordEvent recordEvent, WriteListResult<TapRecordEvent> listResult) throws SQLException {
         batchCacheSize++;
         if (updatePolicy == LOG_ON_NONEXISTS && recordEvent instanceof TapUpdateRecordEvent) {
             batchCache.add(recordEvent);
         }
-        if (batchCacheSize >= 1000) {
+        if (batchCacheSize >= batchRowLimit || getBatchCacheBytes() >= batchByteLimit) {
             executeBatch(listResult);
         }
     }
 
+    //only file input and multi values can be measured, jdbc batch is counted by rows
+    protected long getBatchCacheBytes() {
+        if (fileInput) {
+            return buffer.readableBytes();
+        }
+        if (multiValues) {
+            return multiValuesBytes;
+        }
+        return 0;
+    }
+
     public void addBatchCacheSize() {
         batchCacheSize++;
     }
@@ -203,6 +239,9 @@ public abstract class NormalWriteRecorder {
             if (fileInput) {
                 fileInsert(after);
                 return;
+            } else if (multiValues) {
+                multiValuesInsert(after);
+                return;
             } else {
                 justInsert(after);
             }
@@ -235,6 +274,9 @@ public abstract class NormalWriteRecorder {
                     if (fileInput) {
                         fileInsert(after);
                         return;
+                    } else if (multiValues) {
+                        multiValuesInsert(after);
+                        return;
                     } else {
                         justInsert(after);
                     }
@@ -294,6 +336,65 @@ public abstract class NormalWriteRecorder {
         }
     }
 
+    protected void multiValuesInsert(Map<String, Object> after) {
+        multiValuesCache.add(after);
+        for (String key : allColumn) {
+            multiValuesBytes += estimateBytes(after.get(key));
+        }
+    }
+
+    //one statement for the whole cache, unless bind variables exceed the limit of database
+    protected void multiValuesExecute() throws SQLException {
+        int rowsPerStatement = Math.max(1, maxBindVariables / allColumn.size());
+        PreparedStatement current = preparedStatement;
+        try {
+            for (int from = 0; from < multiValuesCache.size(); from += rowsPerStatement) {
+                List<Map<String, Object>> rows = multiValuesCache.subList(from, Math.min(from + rowsPerStatement, multiValuesCache.size()));
+                //only statements of full size are cached, the size of the last one is random
+                String multiValuesKey = "values|" + rows.size();
+                boolean cacheable = rows.size() == rowsPerStatement || rows.size() == batchRowLimit;
+                preparedStatement = cacheable ? preparedStatementMap.get(multiValuesKey) : null;
+                if (EmptyKit.isNull(preparedStatement)) {
+                    preparedStatement = connection.prepareStatement(getMultiValuesInsertSql(rows.size()));
+                    if (cacheable) {
+                        preparedStatementMap.put(multiValuesKey, preparedStatement);
+                    }
+                }
+                try {
+                    preparedStatement.clearParameters();
+                    int pos = 1;
+                    for (Map<String, Object> after : rows) {
+                        for (String key : allColumn) {
+                            setPrepareStatement(pos++, after, key);
+                        }
+                    }
+                    preparedStatement.executeUpdate();
+                } finally {
+                    if (!cacheable) {
+                        EmptyKit.closeQuietly(preparedStatement);
+                    }
+                }
+            }
+        } finally {
+            preparedStatement = current;
+        }
+    }
+
+    protected String getMultiValuesInsertSql(int rows) {
+        return "INSERT INTO " + escapeChar + schema + escapeChar + "." + escapeChar + tapTable.getId() + escapeChar + " ("
+                + allColumn.stream().map(k -> escapeChar + k + escapeChar).collect(Collectors.joining(", ")) + ") VALUES "
+                + StringKit.copyString("(" + StringKit.copyString("?", allColumn.size(), ",") + ")", rows, ",");
+    }
+
+    protected long estimateBytes(Object value) {
+        if (value instanceof String) {
+            return ((String) value).length();
+        } else if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        }
+        return 8;
+    }
+
     protected void fileInsert(Map<String, Object> after) {
         buffer.writeBytes((allColumn.stream().map(v -> String.valueOf(after.get(v))).collect(Collectors.joining(",")) + "\n").getBytes());
     }
@@ -302,6 +403,11 @@ public abstract class NormalWriteRecorder {
         throw new UnsupportedOperationException("fileInput is not supported");
     }
 
+    //recorders which override fileInput
+    public boolean supportFileInput() {
+        return false;
+    }
+
     public void addUpdateBatch(Map<String, Object> after, Map<String, Object> before, WriteListResult<TapRecordEvent> listResult) throws SQLException {
         if (EmptyKit.isEmpty(after)) {
             return;
@@ -0,0 +1,72 @@
+package io.tapdata.common.dml;
+
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.kit.EmptyKit;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * key values of the row which a record event writes, comparable by equals/hashCode
+ * null means the key is missing or changed by the event
+ */
+public class RecordKeyExtractor {
+
+    private final List<String> keys;
+
+    public RecordKeyExtractor(List<String> keys) {
+        this.keys = keys;
+    }
+
+    public List<Object> getKey(TapRecordEvent recordEvent) {
+        if (recordEvent instanceof TapInsertRecordEvent) {
+            return getKey(((TapInsertRecordEvent) recordEvent).getAfter());
+        } else if (recordEvent instanceof TapDeleteRecordEvent) {
+            return getKey(((TapDeleteRecordEvent) recordEvent).getBefore());
+        } else if (recordEvent instanceof TapUpdateRecordEvent) {
+            List<Object> afterKey = getKey(((TapUpdateRecordEvent) recordEvent).getAfter());
+            List<Object> beforeKey = getKey(((TapUpdateRecordEvent) recordEvent).getBefore());
+            if (null == beforeKey) {
+                //in some datasource, before of events is always empty
+                return afterKey;
+            }
+            return beforeKey.equals(afterKey) ? beforeKey : null;
+        }
+        return null;
+    }
+
+    private List<Object> getKey(Map<String, Object> data) {
+        if (EmptyKit.isEmpty(data)) {
+            return null;
+        }
+        List<Object> key = new ArrayList<>(keys.size());
+        for (String k : keys) {
+            if (!data.containsKey(k)) {
+                return null;
+            }
+            key.add(normalize(data.get(k)));
+        }
+        return key;
+    }
+
+    //the same key may be represented by different classes, such as Integer and Long, or byte[]
+    private Object normalize(Object value) {
+        if (value instanceof byte[]) {
+            return ByteBuffer.wrap((byte[]) value);
+        }
+        if (value instanceof Number) {
+            try {
+                return new BigDecimal(value.toString()).stripTrailingZeros();
+            } catch (NumberFormatException e) {
+                return value.toString();
+            }
+        }
+        return value;
+    }
+}
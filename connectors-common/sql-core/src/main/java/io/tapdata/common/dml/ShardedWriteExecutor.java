@@ -0,0 +1,131 @@
+package io.tapdata.common.dml;
+
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.kit.EmptyKit;
+import io.tapdata.pdk.apis.entity.WriteListResult;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * write events of one call by several connections concurrently
+ * events are sharded by table and key, so events of the same row are written in order by one shard
+ * every shard commits by itself, so it must not be used in transaction
+ */
+public class ShardedWriteExecutor implements AutoCloseable {
+
+    //shards are not worth their connections for small batches
+    private static final int MIN_SHARD_ROWS = 100;
+    //the same as the spare connections of the pool over write threads
+    private static final int RESERVED_CONNECTIONS = 5;
+    private final int shardSize;
+    private final ExecutorService executorService;
+
+    public ShardedWriteExecutor(int shardSize) {
+        this.shardSize = shardSize;
+        this.executorService = Executors.newFixedThreadPool(shardSize);
+    }
+
+    /**
+     * @param shardWriter writes one shard by its own RecordWriter (and connection)
+     * @param writeListResultConsumer accepts the aggregate result of all shards once
+     */
+    public void write(List<TapRecordEvent> tapRecordEvents, TapTable tapTable, ShardWriter shardWriter, Consumer<WriteListResult<TapRecordEvent>> writeListResultConsumer) throws SQLException {
+        List<List<TapRecordEvent>> shards = shard(tapRecordEvents, tapTable);
+        if (shards.size() <= 1) {
+            shardWriter.write(tapRecordEvents, writeListResultConsumer);
+            return;
+        }
+        WriteListResult<TapRecordEvent> listResult = new WriteListResult<>();
+        AtomicReference<Throwable> throwable = new AtomicReference<>();
+        CountDownLatch countDownLatch = new CountDownLatch(shards.size());
+        for (List<TapRecordEvent> shard : shards) {
+            executorService.submit(() -> {
+                try {
+                    shardWriter.write(shard, result -> mergeResult(listResult, result));
+                } catch (Throwable e) {
+                    throwable.compareAndSet(null, e);
+                } finally {
+                    countDownLatch.countDown();
+                }
+            });
+        }
+        try {
+            countDownLatch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Sharded write is interrupted", e);
+        }
+        writeListResultConsumer.accept(listResult);
+        if (EmptyKit.isNotNull(throwable.get())) {
+            if (throwable.get() instanceof SQLException) {
+                throw (SQLException) throwable.get();
+            }
+            if (throwable.get() instanceof RuntimeException) {
+                throw (RuntimeException) throwable.get();
+            }
+            throw new SQLException(throwable.get());
+        }
+    }
+
+    /**
+     * every write thread may hold one connection per shard at the same time, and some connections are left for reading and ddl
+     *
+     * @return shard size which the connection pool can afford, 1 means not to shard
+     */
+    public static int capShardSize(int shardSize, int maximumPoolSize, int writeThreadSize) {
+        int affordable = (maximumPoolSize - RESERVED_CONNECTIONS) / Math.max(1, writeThreadSize);
+        return Math.max(1, Math.min(shardSize, affordable));
+    }
+
+    //events keep their original order in every shard, one shard means not to shard
+    protected List<List<TapRecordEvent>> shard(List<TapRecordEvent> tapRecordEvents, TapTable tapTable) {
+        int shards = Math.min(shardSize, (tapRecordEvents.size() + MIN_SHARD_ROWS - 1) / MIN_SHARD_ROWS);
+        List<String> keys = new ArrayList<>(tapTable.primaryKeys(true));
+        if (shards <= 1 || EmptyKit.isEmpty(keys)) {
+            return Collections.singletonList(tapRecordEvents);
+        }
+        RecordKeyExtractor keyExtractor = new RecordKeyExtractor(keys);
+        List<List<TapRecordEvent>> result = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            result.add(new ArrayList<>(tapRecordEvents.size() / shards + 1));
+        }
+        for (TapRecordEvent recordEvent : tapRecordEvents) {
+            List<Object> key = keyExtractor.getKey(recordEvent);
+            if (null == key) {
+                //the event changing key touches two rows, which may be in different shards
+                return Collections.singletonList(tapRecordEvents);
+            }
+            result.get(Math.floorMod(Objects.hash(tapTable.getId(), key), shards)).add(recordEvent);
+        }
+        result.removeIf(List::isEmpty);
+        return result;
+    }
+
+    private synchronized void mergeResult(WriteListResult<TapRecordEvent> listResult, WriteListResult<TapRecordEvent> result) {
+        listResult.incrementInserted(result.getInsertedCount());
+        listResult.incrementModified(result.getModifiedCount());
+        listResult.incrementRemove(result.getRemovedCount());
+        if (EmptyKit.isNotEmpty(result.getErrorMap())) {
+            listResult.addErrors(result.getErrorMap());
+        }
+    }
+
+    @Override
+    public void close() {
+        executorService.shutdownNow();
+    }
+
+    public interface ShardWriter {
+        void write(List<TapRecordEvent> tapRecordEvents, Consumer<WriteListResult<TapRecordEvent>> writeListResultConsumer) throws SQLException;
+    }
+}
@@ -0,0 +1,161 @@
+package io.tapdata.common.dml;
+
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.kit.EmptyKit;
+import io.tapdata.pdk.apis.entity.ConnectionOptions;
+
+import java.util.*;
+
+/**
+ * fold events of the same primary key in one batch, then regroup them into homogeneous batches
+ * insert+update -> insert, update+update -> update, insert+delete -> delete, update+delete -> delete
+ * events of different keys are independent, so only the order of the same key is kept
+ * the event which changes or misses primary key is a barrier, events are never moved across it
+ */
+public class WriteEventCoalescer {
+
+    private final RecordKeyExtractor keyExtractor;
+    private final boolean foldInsertUpdate;
+    //input events absorbed into another event, added back to the result counts
+    private long foldedInserts;
+    private long foldedUpdates;
+    private long foldedDeletes;
+
+    public WriteEventCoalescer(List<String> primaryKeys, String insertPolicy) {
+        this.keyExtractor = new RecordKeyExtractor(primaryKeys);
+        //insert may be ignored when the row exists, then the following update must be kept
+        this.foldInsertUpdate = !ConnectionOptions.DML_INSERT_POLICY_IGNORE_ON_EXISTS.equals(insertPolicy);
+    }
+
+    public List<TapRecordEvent> coalesce(List<TapRecordEvent> tapRecordEvents) {
+        List<TapRecordEvent> result = new ArrayList<>(tapRecordEvents.size());
+        Map<List<Object>, LinkedList<TapRecordEvent>> keyEvents = new LinkedHashMap<>();
+        for (TapRecordEvent recordEvent : tapRecordEvents) {
+            List<Object> key = keyExtractor.getKey(recordEvent);
+            if (null == key) {
+                regroup(keyEvents, result);
+                result.add(recordEvent);
+                continue;
+            }
+            LinkedList<TapRecordEvent> events = keyEvents.computeIfAbsent(key, k -> new LinkedList<>());
+            TapRecordEvent folded = events.isEmpty() ? null : fold(events.getLast(), recordEvent);
+            if (null == folded) {
+                events.add(recordEvent);
+            } else {
+                countFolded(events.getLast(), recordEvent);
+                events.set(events.size() - 1, folded);
+            }
+        }
+        regroup(keyEvents, result);
+        return result;
+    }
+
+    //null means the two events can not be folded
+    protected TapRecordEvent fold(TapRecordEvent previous, TapRecordEvent current) {
+        if (current instanceof TapDeleteRecordEvent) {
+            //delete is kept even after insert, the row may exist before the insert (such as initial sync overlapping cdc)
+            return (previous instanceof TapDeleteRecordEvent) ? null : current;
+        }
+        if (!(current instanceof TapUpdateRecordEvent)) {
+            return null;
+        }
+        TapUpdateRecordEvent updateRecordEvent = (TapUpdateRecordEvent) current;
+        if (previous instanceof TapInsertRecordEvent && foldInsertUpdate) {
+            TapInsertRecordEvent insertRecordEvent = (TapInsertRecordEvent) previous;
+            return copyMetadata(TapInsertRecordEvent.create().init().table(insertRecordEvent.getTableId())
+                    .after(merge(insertRecordEvent.getAfter(), updateRecordEvent.getAfter()))
+                    .referenceTime(updateRecordEvent.getReferenceTime()), previous, current);
+        }
+        if (previous instanceof TapUpdateRecordEvent) {
+            TapUpdateRecordEvent previousUpdate = (TapUpdateRecordEvent) previous;
+            TapUpdateRecordEvent folded = TapUpdateRecordEvent.create().init().table(previousUpdate.getTableId())
+                    .before(previousUpdate.getBefore())
+                    .after(merge(previousUpdate.getAfter(), updateRecordEvent.getAfter()))
+                    .referenceTime(updateRecordEvent.getReferenceTime());
+            //a replace wipes the fields missing in after, so the folded event is a replace if any of them is
+            if (Boolean.TRUE.equals(previousUpdate.getIsReplaceEvent()) || Boolean.TRUE.equals(updateRecordEvent.getIsReplaceEvent())) {
+                folded.setIsReplaceEvent(true);
+            }
+            return copyMetadata(folded, previous, current);
+        }
+        return null;
+    }
+
+    //the folded event stands for the latest one: info (such as sync stage) and exactlyOnceId are taken from it
+    private <E extends TapRecordEvent> E copyMetadata(E folded, TapRecordEvent previous, TapRecordEvent current) {
+        folded.setInfo(merge(previous.getInfo(), current.getInfo()));
+        folded.setExactlyOnceId(current.getExactlyOnceId());
+        if (Boolean.TRUE.equals(previous.getContainsIllegalDate()) || Boolean.TRUE.equals(current.getContainsIllegalDate())) {
+            folded.setContainsIllegalDate(true);
+        }
+        return folded;
+    }
+
+    //the folded event keeps the type of one input, the other input is absorbed
+    private void countFolded(TapRecordEvent previous, TapRecordEvent current) {
+        TapRecordEvent absorbed = (current instanceof TapDeleteRecordEvent) ? previous : current;
+        if (absorbed instanceof TapInsertRecordEvent) {
+            foldedInserts++;
+        } else if (absorbed instanceof TapUpdateRecordEvent) {
+            foldedUpdates++;
+        } else {
+            foldedDeletes++;
+        }
+    }
+
+    public long getFoldedInserts() {
+        return foldedInserts;
+    }
+
+    public long getFoldedUpdates() {
+        return foldedUpdates;
+    }
+
+    public long getFoldedDeletes() {
+        return foldedDeletes;
+    }
+
+    //round by round: the n-th event of every key, deletes first, then inserts and updates
+    private void regroup(Map<List<Object>, LinkedList<TapRecordEvent>> keyEvents, List<TapRecordEvent> result) {
+        List<TapRecordEvent> inserts = new ArrayList<>();
+        List<TapRecordEvent> updates = new ArrayList<>();
+        List<TapRecordEvent> deletes = new ArrayList<>();
+        while (!keyEvents.isEmpty()) {
+            Iterator<LinkedList<TapRecordEvent>> iterator = keyEvents.values().iterator();
+            while (iterator.hasNext()) {
+                LinkedList<TapRecordEvent> events = iterator.next();
+                TapRecordEvent recordEvent = events.poll();
+                if (recordEvent instanceof TapInsertRecordEvent) {
+                    inserts.add(recordEvent);
+                } else if (recordEvent instanceof TapUpdateRecordEvent) {
+                    updates.add(recordEvent);
+                } else {
+                    deletes.add(recordEvent);
+                }
+                if (events.isEmpty()) {
+                    iterator.remove();
+                }
+            }
+            result.addAll(deletes);
+            result.addAll(inserts);
+            result.addAll(updates);
+            deletes.clear();
+            inserts.clear();
+            updates.clear();
+        }
+    }
+
+    private Map<String, Object> merge(Map<String, Object> previous, Map<String, Object> current) {
+        Map<String, Object> merged = new LinkedHashMap<>();
+        if (EmptyKit.isNotNull(previous)) {
+            merged.putAll(previous);
+        }
+        if (EmptyKit.isNotNull(current)) {
+            merged.putAll(current);
+        }
+        return merged;
+    }
+}
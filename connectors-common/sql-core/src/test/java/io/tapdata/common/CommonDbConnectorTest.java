@@ -0,0 +1,216 @@
+package io.tapdata.common;
+
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.logger.Log;
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.utils.DataMap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class CommonDbConnectorTest {
+
+    CommonDbConnector connector;
+    JdbcContext jdbcContext;
+    CommonDbConfig commonDbConfig;
+    TapTable tapTable;
+
+    @BeforeEach
+    void beforeEach() {
+        connector = mock(CommonDbConnector.class, CALLS_REAL_METHODS);
+        jdbcContext = mock(JdbcContext.class);
+        commonDbConfig = new CommonDbConfig();
+        ReflectionTestUtils.setField(connector, "jdbcContext", jdbcContext);
+        ReflectionTestUtils.setField(connector, "commonDbConfig", commonDbConfig);
+        doReturn(true).when(connector).isAlive();
+        tapTable = new TapTable("t");
+        tapTable.add(new TapField("id", "BIGINT").primaryKeyPos(1));
+    }
+
+    @Nested
+    class BuildKeysetConditionTest {
+        @Test
+        void testCompositeKeys() {
+            DataMap keyValue = new DataMap();
+            keyValue.put("a", 1);
+            keyValue.put("b", 2);
+            List<Object> params = new ArrayList<>();
+            String condition = connector.buildKeysetCondition(Arrays.asList("a", "b"), keyValue, true, false, params);
+            Assertions.assertEquals("((\"a\">?) or (\"a\"=? and \"b\">?))", condition);
+            Assertions.assertEquals(Arrays.asList(1, 1, 2), params);
+        }
+
+        @Test
+        void testInclusiveUpper() {
+            DataMap keyValue = new DataMap();
+            keyValue.put("a", 1);
+            keyValue.put("b", 2);
+            List<Object> params = new ArrayList<>();
+            String condition = connector.buildKeysetCondition(Arrays.asList("a", "b"), keyValue, false, true, params);
+            Assertions.assertEquals("((\"a\"<?) or (\"a\"=? and \"b\"<=?))", condition);
+        }
+    }
+
+    @Nested
+    class FindPrimaryKeyBoundariesTest {
+        @Test
+        void testIntegerKeyBisection() throws Throwable {
+            doReturn(4000000L).when(connector).batchCount(any(), any());
+            ResultSet resultSet = mock(ResultSet.class);
+            when(resultSet.getObject(1)).thenReturn(1L);
+            when(resultSet.getObject(2)).thenReturn(4000000L);
+            doAnswer(invocationOnMock -> {
+                ((ResultSetConsumer) invocationOnMock.getArgument(1)).accept(resultSet);
+                return null;
+            }).when(jdbcContext).queryWithNext(anyString(), any());
+            List<DataMap> boundaries = connector.findPrimaryKeyBoundaries(null, tapTable, Collections.singletonList("id"));
+            Assertions.assertEquals(3, boundaries.size());
+            Assertions.assertEquals(1000001L, boundaries.get(0).get("id"));
+            Assertions.assertEquals(3000001L, boundaries.get(2).get("id"));
+        }
+
+        @Test
+        void testSmallTable() throws Throwable {
+            doReturn(100L).when(connector).batchCount(any(), any());
+            Assertions.assertTrue(connector.findPrimaryKeyBoundaries(null, tapTable, Collections.singletonList("id")).isEmpty());
+            verify(jdbcContext, never()).queryWithNext(anyString(), any());
+        }
+
+        @Test
+        void testBoundariesSql() {
+            String sql = connector.getPrimaryKeyBoundariesSql(tapTable, "\"id\"", 10);
+            Assertions.assertEquals("select \"id\" from (select \"id\", row_number() over (order by \"id\") as tap__rowno from \"t\" ) a where mod(tap__rowno, 10)=0 order by \"id\"", sql);
+        }
+    }
+
+    @Nested
+    class BatchReadWithKeysetSplitTest {
+        List<List<TapEvent>> batches;
+        List<CommonDbSplitOffset> offsets;
+
+        @BeforeEach
+        void beforeEach() {
+            batches = new ArrayList<>();
+            offsets = new ArrayList<>();
+        }
+
+        @Test
+        void testExactMultipleOfBatchSize() throws Throwable {
+            mockQuery(1L, 2L, 3L, 4L);
+            connector.batchReadWithKeysetSplit(null, tapTable, new CommonDbSplitOffset(Collections.emptyList()), 2, this::accept);
+            Assertions.assertEquals(3, batches.size());
+            Assertions.assertTrue(batches.get(2).isEmpty());
+            CommonDbSplitOffset.Chunk chunk = offsets.get(2).getChunks().get(0);
+            Assertions.assertTrue(chunk.getFinished());
+            Assertions.assertEquals(4L, chunk.getOffset().getColumnValue().get("id"));
+            Assertions.assertEquals(4L, chunk.getOffset().getOffsetSize());
+            Assertions.assertFalse(offsets.get(1).getChunks().get(0).getFinished());
+        }
+
+        @Test
+        void testEmptyChunk() throws Throwable {
+            mockQuery();
+            connector.batchReadWithKeysetSplit(null, tapTable, new CommonDbSplitOffset(Collections.emptyList()), 2, this::accept);
+            Assertions.assertEquals(1, batches.size());
+            CommonDbSplitOffset.Chunk chunk = offsets.get(0).getChunks().get(0);
+            Assertions.assertTrue(chunk.getFinished());
+            Assertions.assertTrue(chunk.getOffset().getColumnValue().isEmpty());
+        }
+
+        @Test
+        void testFinishedChunkNotRead() throws Throwable {
+            CommonDbSplitOffset splitOffset = new CommonDbSplitOffset(Collections.emptyList());
+            splitOffset.getChunks().get(0).setFinished(true);
+            connector.batchReadWithKeysetSplit(null, tapTable, splitOffset, 2, this::accept);
+            verify(jdbcContext, never()).prepareQuery(anyString(), anyList(), any());
+        }
+
+        private void accept(List<TapEvent> events, Object offset) {
+            batches.add(events);
+            offsets.add((CommonDbSplitOffset) offset);
+        }
+
+        private void mockQuery(Object... ids) throws SQLException {
+            ResultSet resultSet = mockResultSet(ids);
+            doAnswer(invocationOnMock -> {
+                ((ResultSetConsumer) invocationOnMock.getArgument(2)).accept(resultSet);
+                return null;
+            }).when(jdbcContext).prepareQuery(anyString(), anyList(), any());
+        }
+    }
+
+    @Nested
+    class BatchReadWithoutOffsetTest {
+        List<List<TapEvent>> batches;
+
+        @BeforeEach
+        void beforeEach() throws SQLException {
+            batches = Collections.synchronizedList(new ArrayList<>());
+            ReflectionTestUtils.setField(connector, "tapLogger", mock(Log.class));
+            //every query reads a new ResultSet of the same rows
+            doAnswer(invocationOnMock -> {
+                ((ResultSetConsumer) invocationOnMock.getArgument(1)).accept(mockResultSet(1L, 2L, 3L, 4L));
+                return null;
+            }).when(jdbcContext).query(anyString(), any(ResultSetConsumer.class));
+        }
+
+        @Test
+        void testNoEmptyBatchWithoutHashSplit() throws Throwable {
+            connector.batchReadWithoutHashSplit(null, tapTable, null, 2, (events, offset) -> batches.add(events));
+            Assertions.assertEquals(2, batches.size());
+            batches.forEach(events -> Assertions.assertEquals(2, events.size()));
+        }
+
+        @Test
+        void testNoEmptyBatchWithHashSplit() throws Throwable {
+            commonDbConfig.setMaxSplit(3);
+            commonDbConfig.setBatchReadThreadSize(2);
+            doReturn("1=1").when(connector).getHashSplitModConditions(any(TapTable.class), anyInt(), anyInt());
+            connector.batchReadWithHashSplit(null, tapTable, null, 4, (events, offset) -> batches.add(events));
+            Assertions.assertEquals(3, batches.size());
+            batches.forEach(events -> Assertions.assertEquals(4, events.size()));
+        }
+
+        @Test
+        void testEmptyTable() throws Throwable {
+            doAnswer(invocationOnMock -> {
+                ((ResultSetConsumer) invocationOnMock.getArgument(1)).accept(mockResultSet());
+                return null;
+            }).when(jdbcContext).query(anyString(), any(ResultSetConsumer.class));
+            connector.batchReadWithoutHashSplit(null, tapTable, null, 2, (events, offset) -> batches.add(events));
+            Assertions.assertTrue(batches.isEmpty());
+        }
+    }
+
+    private static ResultSet mockResultSet(Object... ids) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnLabel(1)).thenReturn("id");
+        when(metaData.getColumnType(1)).thenReturn(Types.BIGINT);
+        AtomicInteger index = new AtomicInteger();
+        when(resultSet.next()).thenAnswer(invocationOnMock -> index.incrementAndGet() <= ids.length);
+        when(resultSet.getObject(1)).thenAnswer(invocationOnMock -> ids[index.get() - 1]);
+        return resultSet;
+    }
+}
@@ -0,0 +1,46 @@
+package io.tapdata.common;
+
+import io.tapdata.entity.utils.DataMap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class CommonDbSplitOffsetTest {
+
+    @Test
+    void noBoundaryTest() {
+        CommonDbSplitOffset splitOffset = new CommonDbSplitOffset(Collections.emptyList());
+        Assertions.assertEquals(1, splitOffset.getChunks().size());
+        Assertions.assertNull(splitOffset.getChunks().get(0).getUpper());
+        Assertions.assertTrue(splitOffset.getChunks().get(0).getOffset().getColumnValue().isEmpty());
+    }
+
+    @Test
+    void boundariesTest() {
+        DataMap first = new DataMap();
+        first.put("id", 100L);
+        DataMap second = new DataMap();
+        second.put("id", 200L);
+        CommonDbSplitOffset splitOffset = new CommonDbSplitOffset(Arrays.asList(first, second));
+        Assertions.assertEquals(3, splitOffset.getChunks().size());
+        Assertions.assertEquals(first, splitOffset.getChunks().get(0).getUpper());
+        Assertions.assertEquals(first, splitOffset.getChunks().get(1).getOffset().getColumnValue());
+        Assertions.assertEquals(second, splitOffset.getChunks().get(1).getUpper());
+        Assertions.assertEquals(second, splitOffset.getChunks().get(2).getOffset().getColumnValue());
+        Assertions.assertNull(splitOffset.getChunks().get(2).getUpper());
+    }
+
+    @Test
+    void copyTest() {
+        DataMap first = new DataMap();
+        first.put("id", 100L);
+        CommonDbSplitOffset splitOffset = new CommonDbSplitOffset(Collections.singletonList(first));
+        CommonDbSplitOffset copy = splitOffset.copy();
+        splitOffset.getChunks().get(0).setFinished(true);
+        splitOffset.getChunks().get(1).getOffset().setOffsetSize(10L);
+        Assertions.assertFalse(copy.getChunks().get(0).getFinished());
+        Assertions.assertEquals(0L, copy.getChunks().get(1).getOffset().getOffsetSize());
+    }
+}
@@ -0,0 +1,80 @@
+package io.tapdata.common;
+
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.pdk.apis.entity.WriteListResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.tapdata.entity.simplify.TapSimplify.entry;
+import static io.tapdata.entity.simplify.TapSimplify.map;
+import static org.mockito.Mockito.*;
+
+public class RecordWriterTest {
+
+    RecordWriter writer;
+    Connection connection;
+    WriteRecorder insertRecorder;
+    AtomicReference<WriteListResult<TapRecordEvent>> result;
+
+    @BeforeEach
+    void beforeEach() throws SQLException {
+        TapTable tapTable = new TapTable("t");
+        tapTable.add(new TapField("id", "int").primaryKeyPos(1));
+        connection = mock(Connection.class);
+        when(connection.getAutoCommit()).thenReturn(false);
+        CommonDbConfig commonDbConfig = new CommonDbConfig();
+        commonDbConfig.setCoalesceWrite(true);
+        writer = new RecordWriter(connection, tapTable);
+        ReflectionTestUtils.setField(writer, "isTransaction", false);
+        ReflectionTestUtils.setField(writer, "commonDbConfig", commonDbConfig);
+        insertRecorder = mockRecorder(1L);
+        writer.insertRecorder = insertRecorder;
+        writer.updateRecorder = mockRecorder(0L);
+        writer.deleteRecorder = mockRecorder(0L);
+        result = new AtomicReference<>();
+    }
+
+    private static WriteRecorder mockRecorder(long executed) {
+        WriteRecorder recorder = mock(WriteRecorder.class);
+        when(recorder.getAtomicLong()).thenReturn(new AtomicLong(executed));
+        return recorder;
+    }
+
+    private List<TapRecordEvent> events() {
+        return Arrays.asList(
+                new TapInsertRecordEvent().init().after(map(entry("id", 1), entry("a", 1))),
+                new TapUpdateRecordEvent().init().before(map(entry("id", 1))).after(map(entry("id", 1), entry("a", 2))),
+                new TapUpdateRecordEvent().init().before(map(entry("id", 1))).after(map(entry("id", 1), entry("a", 3))));
+    }
+
+    @Test
+    void testFoldedEventsCounted() throws SQLException {
+        writer.write(events(), result::set);
+        verify(insertRecorder, times(1)).addInsertBatch(anyMap());
+        //counted against the input events, as NormalRecordWriter does
+        Assertions.assertEquals(1, result.get().getInsertedCount());
+        Assertions.assertEquals(2, result.get().getModifiedCount());
+        Assertions.assertEquals(0, result.get().getRemovedCount());
+    }
+
+    @Test
+    void testFoldedEventsNotCountedOnFailure() throws SQLException {
+        doThrow(new SQLException("commit failed")).when(connection).commit();
+        Assertions.assertThrows(SQLException.class, () -> writer.write(events(), result::set));
+        Assertions.assertEquals(1, result.get().getInsertedCount());
+        Assertions.assertEquals(0, result.get().getModifiedCount());
+    }
+}
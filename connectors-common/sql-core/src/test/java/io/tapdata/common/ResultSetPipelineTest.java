@@ -0,0 +1,90 @@
+package io.tapdata.common;
+
+import io.tapdata.entity.utils.DataMap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.*;
+
+public class ResultSetPipelineTest {
+
+    ResultSet resultSet;
+    List<List<DataMap>> batches;
+    List<Boolean> lasts;
+
+    @BeforeEach
+    void beforeEach() {
+        batches = new ArrayList<>();
+        lasts = new ArrayList<>();
+    }
+
+    private ResultSetPipeline mockPipeline(int rowCount, int eventBatchSize) throws SQLException {
+        resultSet = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnLabel(1)).thenReturn("id");
+        when(metaData.getColumnType(1)).thenReturn(Types.INTEGER);
+        when(metaData.getColumnClassName(1)).thenReturn("java.lang.Integer");
+        AtomicInteger index = new AtomicInteger();
+        when(resultSet.next()).thenAnswer(invocationOnMock -> index.incrementAndGet() <= rowCount);
+        when(resultSet.getInt(1)).thenAnswer(invocationOnMock -> index.get());
+        return new ResultSetPipeline(new ResultSetRowDecoder(resultSet), eventBatchSize, 64 * 1024 * 1024L);
+    }
+
+    private void accept(List<DataMap> rows, boolean last) {
+        batches.add(rows);
+        lasts.add(last);
+    }
+
+    @Test
+    void testRowsInOrder() throws SQLException {
+        mockPipeline(5, 2).read(resultSet, () -> true, this::accept);
+        Assertions.assertEquals(3, batches.size());
+        Assertions.assertEquals(1, batches.get(0).get(0).get("id"));
+        Assertions.assertEquals(4, batches.get(1).get(1).get("id"));
+        Assertions.assertEquals(5, batches.get(2).get(0).get("id"));
+        Assertions.assertFalse(lasts.get(1));
+        Assertions.assertTrue(lasts.get(2));
+    }
+
+    @Test
+    void testExactMultipleOfBatchSize() throws SQLException {
+        mockPipeline(4, 2).read(resultSet, () -> true, this::accept);
+        Assertions.assertEquals(3, batches.size());
+        Assertions.assertTrue(batches.get(2).isEmpty());
+        Assertions.assertTrue(lasts.get(2));
+    }
+
+    @Test
+    void testNotAlive() throws SQLException {
+        mockPipeline(4, 2).read(resultSet, () -> false, this::accept);
+        Assertions.assertTrue(batches.isEmpty());
+    }
+
+    @Test
+    void testConsumerException() throws SQLException {
+        ResultSetPipeline pipeline = mockPipeline(10, 2);
+        RuntimeException exception = Assertions.assertThrows(RuntimeException.class, () -> pipeline.read(resultSet, () -> true, (rows, last) -> {
+            throw new IllegalStateException("consume failed");
+        }));
+        Assertions.assertEquals("consume failed", exception.getMessage());
+    }
+
+    @Test
+    void testComputeFetchSize() throws SQLException {
+        ResultSetPipeline pipeline = mockPipeline(0, 1000);
+        Assertions.assertEquals(20000, pipeline.computeFetchSize(100));
+        Assertions.assertEquals(100, pipeline.computeFetchSize(10 * 1024 * 1024));
+        Assertions.assertEquals(64L, ResultSetPipeline.estimateSize(new Object[]{1, null, null}));
+    }
+}
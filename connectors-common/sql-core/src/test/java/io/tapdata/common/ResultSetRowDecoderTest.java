@@ -0,0 +1,94 @@
+package io.tapdata.common;
+
+import io.tapdata.entity.utils.DataMap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class ResultSetRowDecoderTest {
+
+    ResultSet resultSet;
+    ResultSetMetaData metaData;
+
+    @BeforeEach
+    void beforeEach() throws SQLException {
+        resultSet = mock(ResultSet.class);
+        metaData = mock(ResultSetMetaData.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+    }
+
+    private void mockColumns(String[] names, int[] types, String[] classNames) throws SQLException {
+        when(metaData.getColumnCount()).thenReturn(names.length);
+        for (int i = 0; i < names.length; i++) {
+            when(metaData.getColumnLabel(i + 1)).thenReturn(names[i]);
+            when(metaData.getColumnType(i + 1)).thenReturn(types[i]);
+            when(metaData.getColumnClassName(i + 1)).thenReturn(classNames[i]);
+        }
+    }
+
+    @Test
+    void testTypedGetters() throws SQLException {
+        mockColumns(new String[]{"id", "name", "price"}, new int[]{Types.BIGINT, Types.VARCHAR, Types.DECIMAL},
+                new String[]{"java.lang.Long", "java.lang.String", "java.math.BigDecimal"});
+        when(resultSet.getLong(1)).thenReturn(7L);
+        when(resultSet.getString(2)).thenReturn("a");
+        when(resultSet.getBigDecimal(3)).thenReturn(BigDecimal.ONE);
+        DataMap dataMap = new ResultSetRowDecoder(resultSet).decode(resultSet);
+        Assertions.assertEquals(7L, dataMap.get("id"));
+        Assertions.assertEquals("a", dataMap.get("name"));
+        Assertions.assertEquals(BigDecimal.ONE, dataMap.get("price"));
+        verify(resultSet, never()).getObject(anyInt());
+    }
+
+    @Test
+    void testUnknownClassName() throws SQLException {
+        mockColumns(new String[]{"flag"}, new int[]{Types.BIT}, new String[]{null});
+        when(resultSet.getObject(1)).thenReturn(new byte[]{1});
+        ResultSetRowDecoder rowDecoder = new ResultSetRowDecoder(resultSet);
+        Object[] row = rowDecoder.read(resultSet);
+        Assertions.assertArrayEquals(new byte[]{1}, (byte[]) row[0]);
+        Assertions.assertArrayEquals(new String[]{"flag"}, rowDecoder.getColumnNames());
+        verify(resultSet, never()).getBoolean(anyInt());
+    }
+
+    @Test
+    void testTypedGetterNull() throws SQLException {
+        mockColumns(new String[]{"id"}, new int[]{Types.INTEGER}, new String[]{"java.lang.Integer"});
+        when(resultSet.getInt(1)).thenReturn(0);
+        when(resultSet.wasNull()).thenReturn(true);
+        DataMap dataMap = new ResultSetRowDecoder(resultSet).decode(resultSet);
+        Assertions.assertTrue(dataMap.containsKey("id"));
+        Assertions.assertNull(dataMap.get("id"));
+    }
+
+    @Test
+    void testOtherClassKeepsGetObject() throws SQLException {
+        //such as unsigned bigint of mysql
+        mockColumns(new String[]{"id"}, new int[]{Types.BIGINT}, new String[]{"java.math.BigInteger"});
+        when(resultSet.getObject(1)).thenReturn(java.math.BigInteger.TEN);
+        DataMap dataMap = new ResultSetRowDecoder(resultSet).decode(resultSet);
+        Assertions.assertEquals(java.math.BigInteger.TEN, dataMap.get("id"));
+        verify(resultSet, never()).getLong(anyInt());
+    }
+
+    @Test
+    void testCharOfOtherClassKeepsGetObject() throws SQLException {
+        //such as CHAR(1) reported as Character, or CHAR FOR BIT DATA as byte[]
+        mockColumns(new String[]{"c", "n"}, new int[]{Types.CHAR, Types.NCHAR}, new String[]{"java.lang.Character", null});
+        when(resultSet.getObject(1)).thenReturn('a');
+        when(resultSet.getObject(2)).thenReturn("b");
+        DataMap dataMap = new ResultSetRowDecoder(resultSet).decode(resultSet);
+        Assertions.assertEquals('a', dataMap.get("c"));
+        Assertions.assertEquals("b", dataMap.get("n"));
+        verify(resultSet, never()).getString(anyInt());
+    }
+}
@@ -0,0 +1,83 @@
+package io.tapdata.common;
+
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.pdk.apis.entity.WriteListResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Map;
+
+import static io.tapdata.entity.simplify.TapSimplify.entry;
+import static io.tapdata.entity.simplify.TapSimplify.map;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class WriteRecorderTest {
+
+    Connection connection;
+    WriteRecorder writeRecorder;
+    WriteListResult<TapRecordEvent> listResult;
+
+    @BeforeEach
+    void beforeEach() throws SQLException {
+        connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocationOnMock -> mock(PreparedStatement.class));
+        TapTable tapTable = new TapTable("t");
+        tapTable.add(new TapField("id", "int").primaryKeyPos(1).pos(1));
+        tapTable.add(new TapField("a", "int").pos(2));
+        tapTable.add(new TapField("b", "int").pos(3));
+        writeRecorder = new WriteRecorder(connection, tapTable, "s") {
+            @Override
+            public void addInsertBatch(Map<String, Object> after) {
+            }
+        };
+        listResult = new WriteListResult<>();
+    }
+
+    private void update(Map<String, Object> after) throws SQLException {
+        writeRecorder.addUpdateBatch(after, null, listResult);
+        writeRecorder.addAndCheckCommit(new TapUpdateRecordEvent().init().after(after), listResult);
+    }
+
+    @Test
+    void testUpdateColumns() {
+        Assertions.assertEquals(Arrays.asList("a", "b"), writeRecorder.getUpdateColumns(map(entry("b", 2), entry("id", 1), entry("a", 1))));
+        Assertions.assertEquals(Arrays.asList("id"), writeRecorder.getUpdateColumns(map(entry("id", 1))));
+    }
+
+    @Test
+    void testStatementByChangedColumns() throws SQLException {
+        update(map(entry("id", 1), entry("a", 1)));
+        update(map(entry("id", 2), entry("b", 2)));
+        update(map(entry("id", 3), entry("a", 3)));
+        update(map(entry("b", 4), entry("id", 4)));
+        verify(connection).prepareStatement("UPDATE \"s\".\"t\" SET \"a\"=? WHERE \"id\"=?");
+        verify(connection).prepareStatement("UPDATE \"s\".\"t\" SET \"b\"=? WHERE \"id\"=?");
+        Assertions.assertEquals(2, writeRecorder.getStatementCacheHits());
+        Assertions.assertEquals(1, writeRecorder.getStatementReprepares());
+    }
+
+    @Test
+    void testSameShapeNoSwitch() throws SQLException {
+        update(map(entry("id", 1), entry("a", 1), entry("b", 1)));
+        update(map(entry("id", 2), entry("b", 2), entry("a", 2)));
+        verify(connection, times(1)).prepareStatement(anyString());
+        Assertions.assertEquals(0, writeRecorder.getStatementReprepares());
+    }
+
+    @Test
+    void testSameKeyInOtherShapeFlushes() throws SQLException {
+        update(map(entry("id", 1), entry("a", 1)));
+        update(map(entry("id", 1), entry("b", 2)));
+        //the first update must be executed before the second one is batched
+        Assertions.assertEquals(1, writeRecorder.getAtomicLong().get());
+    }
+}
@@ -0,0 +1,52 @@
+package io.tapdata.common.dml;
+
+import io.tapdata.common.CommonDbConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.mockito.Mockito.*;
+
+public class NormalRecordWriterTest {
+
+    NormalRecordWriter writer;
+    NormalWriteRecorder insertRecorder;
+    CommonDbConfig commonDbConfig;
+
+    @BeforeEach
+    void beforeEach() {
+        writer = mock(NormalRecordWriter.class);
+        insertRecorder = mock(NormalWriteRecorder.class);
+        commonDbConfig = new CommonDbConfig();
+        ReflectionTestUtils.setField(writer, "insertRecorder", insertRecorder);
+        ReflectionTestUtils.setField(writer, "commonDbConfig", commonDbConfig);
+        doCallRealMethod().when(writer).getBulkInsertMode();
+    }
+
+    @Test
+    void testDefaultMode() {
+        commonDbConfig.setBulkInsertMode(null);
+        Assertions.assertEquals(BulkInsertModeEnum.BATCH, writer.getBulkInsertMode());
+    }
+
+    @Test
+    void testValuesMode() {
+        commonDbConfig.setBulkInsertMode("values");
+        Assertions.assertEquals(BulkInsertModeEnum.VALUES, writer.getBulkInsertMode());
+    }
+
+    @Test
+    void testCopyModeSupported() {
+        commonDbConfig.setBulkInsertMode("copy");
+        when(insertRecorder.supportFileInput()).thenReturn(true);
+        Assertions.assertEquals(BulkInsertModeEnum.COPY, writer.getBulkInsertMode());
+    }
+
+    @Test
+    void testCopyModeNotSupported() {
+        commonDbConfig.setBulkInsertMode("copy");
+        when(insertRecorder.supportFileInput()).thenReturn(false);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> writer.getBulkInsertMode());
+    }
+}
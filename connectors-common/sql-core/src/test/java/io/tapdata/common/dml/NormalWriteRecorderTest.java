@@ -1,20 +1,29 @@
 package io.tapdata.common.dml;
 
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapTable;
 import io.tapdata.pdk.apis.entity.WriteListResult;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static io.tapdata.entity.simplify.TapSimplify.entry;
 import static io.tapdata.entity.simplify.TapSimplify.map;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 public class NormalWriteRecorderTest {
@@ -74,4 +83,53 @@ public class NormalWriteRecorderTest {
             verify(recorder, times(0)).justUpdate(any(), any(), any());
         }
     }
+
+    @Nested
+    class MultiValuesExecuteTest {
+
+        NormalWriteRecorder recorder;
+        Connection connection;
+
+        @BeforeEach
+        void beforeEach() throws SQLException {
+            recorder = mock(NormalWriteRecorder.class);
+            connection = mock(Connection.class);
+            when(connection.prepareStatement(anyString())).thenAnswer(invocationOnMock -> mock(PreparedStatement.class));
+            TapTable tapTable = new TapTable();
+            tapTable.setId("t");
+            ReflectionTestUtils.setField(recorder, "connection", connection);
+            ReflectionTestUtils.setField(recorder, "tapTable", tapTable);
+            ReflectionTestUtils.setField(recorder, "schema", "s");
+            ReflectionTestUtils.setField(recorder, "escapeChar", '"');
+            ReflectionTestUtils.setField(recorder, "allColumn", Arrays.asList("id", "name"));
+            ReflectionTestUtils.setField(recorder, "preparedStatementMap", new HashMap<>());
+            ReflectionTestUtils.setField(recorder, "batchRowLimit", 1000);
+            doCallRealMethod().when(recorder).multiValuesExecute();
+            doCallRealMethod().when(recorder).getMultiValuesInsertSql(anyInt());
+        }
+
+        @Test
+        void testSplitByBindVariables() throws SQLException {
+            ReflectionTestUtils.setField(recorder, "maxBindVariables", 4);
+            List<Map<String, Object>> cache = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                cache.add(map(entry("id", i), entry("name", "n" + i)));
+            }
+            ReflectionTestUtils.setField(recorder, "multiValuesCache", cache);
+            recorder.multiValuesExecute();
+            verify(connection, times(1)).prepareStatement("INSERT INTO \"s\".\"t\" (\"id\", \"name\") VALUES (?,?),(?,?)");
+            verify(connection, times(1)).prepareStatement("INSERT INTO \"s\".\"t\" (\"id\", \"name\") VALUES (?,?)");
+            verify(recorder, times(10)).setPrepareStatement(anyInt(), any(), any());
+        }
+
+        @Test
+        void testDefaultLimitFitsSqlServer() {
+            TapTable tapTable = new TapTable("t");
+            tapTable.add(new TapField("id", "int").primaryKeyPos(1));
+            NormalWriteRecorder normalWriteRecorder = new NormalWriteRecorder(connection, tapTable, "s") {
+            };
+            Assertions.assertTrue((int) ReflectionTestUtils.getField(normalWriteRecorder, "maxBindVariables") <= 2100);
+            Assertions.assertFalse(normalWriteRecorder.supportFileInput());
+        }
+    }
 }
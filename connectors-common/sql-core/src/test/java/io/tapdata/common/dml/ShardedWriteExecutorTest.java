@@ -0,0 +1,122 @@
+package io.tapdata.common.dml;
+
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.pdk.apis.entity.WriteListResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.tapdata.entity.simplify.TapSimplify.entry;
+import static io.tapdata.entity.simplify.TapSimplify.map;
+
+public class ShardedWriteExecutorTest {
+
+    ShardedWriteExecutor executor;
+    TapTable tapTable;
+
+    @BeforeEach
+    void beforeEach() {
+        executor = new ShardedWriteExecutor(4);
+        tapTable = new TapTable("t");
+        tapTable.add(new TapField("id", "int").primaryKeyPos(1));
+    }
+
+    @AfterEach
+    void afterEach() {
+        executor.close();
+    }
+
+    private List<TapRecordEvent> inserts(int count) {
+        List<TapRecordEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new TapInsertRecordEvent().init().after(map(entry("id", i))));
+        }
+        return events;
+    }
+
+    @Nested
+    class CapShardSizeTest {
+        @Test
+        void testCappedByPool() {
+            Assertions.assertEquals(1, ShardedWriteExecutor.capShardSize(8, 20, 15));
+            Assertions.assertEquals(3, ShardedWriteExecutor.capShardSize(8, 20, 5));
+            Assertions.assertEquals(8, ShardedWriteExecutor.capShardSize(8, 100, 5));
+        }
+
+        @Test
+        void testNeverBelowOne() {
+            Assertions.assertEquals(1, ShardedWriteExecutor.capShardSize(4, 3, 0));
+        }
+    }
+
+    @Nested
+    class ShardTest {
+        @Test
+        void testSmallBatchNotSharded() {
+            Assertions.assertEquals(1, executor.shard(inserts(150), tapTable).size());
+        }
+
+        @Test
+        void testSameKeySameShardInOrder() {
+            List<TapRecordEvent> events = inserts(1000);
+            TapRecordEvent update = new TapUpdateRecordEvent().init().before(map(entry("id", 7))).after(map(entry("id", 7), entry("a", 1)));
+            events.add(update);
+            List<List<TapRecordEvent>> shards = executor.shard(events, tapTable);
+            Assertions.assertEquals(4, shards.size());
+            Assertions.assertEquals(1001, shards.stream().mapToInt(List::size).sum());
+            List<TapRecordEvent> shard = shards.stream().filter(s -> s.contains(update)).findFirst().orElseThrow(IllegalStateException::new);
+            Assertions.assertTrue(shard.indexOf(events.get(7)) < shard.indexOf(update));
+        }
+
+        @Test
+        void testKeyChangedNotSharded() {
+            List<TapRecordEvent> events = inserts(1000);
+            events.add(new TapUpdateRecordEvent().init().before(map(entry("id", 1))).after(map(entry("id", 2))));
+            Assertions.assertEquals(1, executor.shard(events, tapTable).size());
+        }
+
+        @Test
+        void testNoKeyNotSharded() {
+            TapTable noKeyTable = new TapTable("n");
+            noKeyTable.add(new TapField("id", "int"));
+            Assertions.assertEquals(1, executor.shard(inserts(1000), noKeyTable).size());
+        }
+    }
+
+    @Nested
+    class WriteTest {
+        @Test
+        void testAggregateResult() throws SQLException {
+            AtomicInteger calls = new AtomicInteger();
+            AtomicReference<WriteListResult<TapRecordEvent>> result = new AtomicReference<>();
+            executor.write(inserts(1000), tapTable, (events, consumer) -> {
+                calls.incrementAndGet();
+                consumer.accept(new WriteListResult<TapRecordEvent>().insertedCount(events.size()));
+            }, result::set);
+            Assertions.assertEquals(4, calls.get());
+            Assertions.assertEquals(1000, result.get().getInsertedCount());
+        }
+
+        @Test
+        void testShardFailure() {
+            AtomicReference<WriteListResult<TapRecordEvent>> result = new AtomicReference<>();
+            SQLException exception = Assertions.assertThrows(SQLException.class, () -> executor.write(inserts(1000), tapTable, (events, consumer) -> {
+                throw new SQLException("shard failed");
+            }, result::set));
+            Assertions.assertEquals("shard failed", exception.getMessage());
+            Assertions.assertNotNull(result.get());
+        }
+    }
+}
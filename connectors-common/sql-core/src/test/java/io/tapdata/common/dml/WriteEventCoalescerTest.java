@@ -0,0 +1,123 @@
+package io.tapdata.common.dml;
+
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.pdk.apis.entity.ConnectionOptions;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static io.tapdata.entity.simplify.TapSimplify.entry;
+import static io.tapdata.entity.simplify.TapSimplify.map;
+
+public class WriteEventCoalescerTest {
+
+    private final WriteEventCoalescer coalescer = new WriteEventCoalescer(Collections.singletonList("id"), ConnectionOptions.DML_INSERT_POLICY_UPDATE_ON_EXISTS);
+
+    private TapRecordEvent insert(Object id, String name) {
+        return new TapInsertRecordEvent().init().after(map(entry("id", id), entry("name", name)));
+    }
+
+    private TapRecordEvent update(Object id, String name) {
+        return new TapUpdateRecordEvent().init().before(map(entry("id", id))).after(map(entry("id", id), entry("name", name)));
+    }
+
+    private TapRecordEvent delete(Object id) {
+        return new TapDeleteRecordEvent().init().before(map(entry("id", id)));
+    }
+
+    @Test
+    void testInsertUpdate() {
+        List<TapRecordEvent> result = coalescer.coalesce(Arrays.asList(insert(1, "a"), update(1, "b"), update(1, "c")));
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertTrue(result.get(0) instanceof TapInsertRecordEvent);
+        Assertions.assertEquals("c", ((TapInsertRecordEvent) result.get(0)).getAfter().get("name"));
+    }
+
+    @Test
+    void testUpdateUpdate() {
+        List<TapRecordEvent> result = coalescer.coalesce(Arrays.asList(update(1, "a"), update(1L, "b")));
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertTrue(result.get(0) instanceof TapUpdateRecordEvent);
+        Assertions.assertEquals("b", ((TapUpdateRecordEvent) result.get(0)).getAfter().get("name"));
+    }
+
+    @Test
+    void testInsertDelete() {
+        List<TapRecordEvent> result = coalescer.coalesce(Arrays.asList(insert(1, "a"), update(1, "b"), delete(1)));
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertTrue(result.get(0) instanceof TapDeleteRecordEvent);
+    }
+
+    @Test
+    void testIgnoreOnExists() {
+        WriteEventCoalescer ignoreCoalescer = new WriteEventCoalescer(Collections.singletonList("id"), ConnectionOptions.DML_INSERT_POLICY_IGNORE_ON_EXISTS);
+        List<TapRecordEvent> result = ignoreCoalescer.coalesce(Arrays.asList(insert(1, "a"), update(1, "b")));
+        Assertions.assertEquals(2, result.size());
+    }
+
+    @Test
+    void testHomogeneousBatches() {
+        List<TapRecordEvent> result = coalescer.coalesce(Arrays.asList(insert(1, "a"), update(2, "b"), insert(3, "c"), delete(4), update(5, "e"), insert(6, "f")));
+        Assertions.assertEquals(6, result.size());
+        Assertions.assertTrue(result.get(0) instanceof TapDeleteRecordEvent);
+        Assertions.assertTrue(result.get(1) instanceof TapInsertRecordEvent);
+        Assertions.assertTrue(result.get(2) instanceof TapInsertRecordEvent);
+        Assertions.assertTrue(result.get(3) instanceof TapInsertRecordEvent);
+        Assertions.assertTrue(result.get(4) instanceof TapUpdateRecordEvent);
+        Assertions.assertTrue(result.get(5) instanceof TapUpdateRecordEvent);
+    }
+
+    @Test
+    void testOrderOfSameKey() {
+        List<TapRecordEvent> result = coalescer.coalesce(Arrays.asList(insert(1, "a"), delete(1), insert(1, "b"), insert(2, "c")));
+        Assertions.assertEquals(3, result.size());
+        Assertions.assertTrue(result.get(0) instanceof TapDeleteRecordEvent);
+        Assertions.assertEquals(2, ((TapInsertRecordEvent) result.get(1)).getAfter().get("id"));
+        Assertions.assertEquals("b", ((TapInsertRecordEvent) result.get(2)).getAfter().get("name"));
+    }
+
+    @Test
+    void testPrimaryKeyChanged() {
+        TapRecordEvent changeKey = new TapUpdateRecordEvent().init().before(map(entry("id", 1))).after(map(entry("id", 2), entry("name", "b")));
+        List<TapRecordEvent> result = coalescer.coalesce(Arrays.asList(insert(1, "a"), changeKey, update(2, "c")));
+        Assertions.assertEquals(3, result.size());
+        Assertions.assertSame(changeKey, result.get(1));
+    }
+
+    @Test
+    void testMetadataKept() {
+        TapRecordEvent insert = insert(1, "a");
+        insert.addInfo(TapRecordEvent.INFO_KEY_SYNC_STAGE, "CDC");
+        TapRecordEvent update = update(1, "b");
+        update.setExactlyOnceId("eo-2");
+        update.addInfo("k", "v");
+        List<TapRecordEvent> result = coalescer.coalesce(Arrays.asList(insert, update));
+        Assertions.assertEquals("eo-2", result.get(0).getExactlyOnceId());
+        Assertions.assertEquals("CDC", result.get(0).getInfo().get(TapRecordEvent.INFO_KEY_SYNC_STAGE));
+        Assertions.assertEquals("v", result.get(0).getInfo().get("k"));
+    }
+
+    @Test
+    void testReplaceKept() {
+        TapUpdateRecordEvent replace = (TapUpdateRecordEvent) update(1, "a");
+        replace.setIsReplaceEvent(true);
+        List<TapRecordEvent> result = coalescer.coalesce(Arrays.asList(replace, update(1, "b")));
+        Assertions.assertTrue(((TapUpdateRecordEvent) result.get(0)).getIsReplaceEvent());
+    }
+
+    @Test
+    void testFoldedCounts() {
+        WriteEventCoalescer countCoalescer = new WriteEventCoalescer(Collections.singletonList("id"), ConnectionOptions.DML_INSERT_POLICY_UPDATE_ON_EXISTS);
+        List<TapRecordEvent> result = countCoalescer.coalesce(Arrays.asList(insert(1, "a"), update(1, "b"), update(1, "c"), update(2, "d"), delete(2), insert(3, "e")));
+        Assertions.assertEquals(3, result.size());
+        Assertions.assertEquals(0, countCoalescer.getFoldedInserts());
+        Assertions.assertEquals(3, countCoalescer.getFoldedUpdates());
+        Assertions.assertEquals(0, countCoalescer.getFoldedDeletes());
+    }
+}
@@ -2,12 +2,15 @@ package io.tapdata.connector.clickhouse;
 
 import io.tapdata.common.CommonDbConnector;
 import io.tapdata.common.SqlExecuteCommandFunction;
+import io.tapdata.common.dml.BulkInsertModeEnum;
 import io.tapdata.connector.clickhouse.bean.ClickhouseColumn;
 import io.tapdata.connector.clickhouse.config.ClickhouseConfig;
 import io.tapdata.connector.clickhouse.ddl.sqlmaker.ClickhouseDDLSqlGenerator;
 import io.tapdata.connector.clickhouse.ddl.sqlmaker.ClickhouseSqlMaker;
 import io.tapdata.connector.clickhouse.dml.ClickhouseBatchWriter;
 import io.tapdata.connector.clickhouse.dml.ClickhouseRecordWriter;
+import io.tapdata.connector.clickhouse.dml.ClickhouseRowBinaryEncoder;
+import io.tapdata.connector.clickhouse.dml.ClickhouseWriteRecorder;
 import io.tapdata.connector.clickhouse.dml.TapTableWriter;
 import io.tapdata.entity.codec.TapCodecsRegistry;
 import io.tapdata.entity.event.ddl.index.TapCreateIndexEvent;
@@ -45,6 +48,7 @@ import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -62,6 +66,9 @@ public class ClickhouseConnector extends CommonDbConnector {
     private ExecutorService executorService;
     private Long lastMergeTime;
     private final Map<String, TapTable> tapTableMap = new ConcurrentHashMap<>();
+    //last tap_version of every table, shared by the write threads
+    private final Map<String, AtomicLong> versionSequenceMap = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, String>> columnTypesMap = new ConcurrentHashMap<>();
     private Map<String, String> dataFormatMap = new HashMap<>();
 
     @Override
@@ -249,10 +256,18 @@ public class ClickhouseConnector extends CommonDbConnector {
         }
         sqlList.add("OPTIMIZE TABLE `" + clickhouseConfig.getDatabase() + "`.`" + tapFieldBaseEvent.getTableId() + "` FINAL");
         jdbcContext.batchExecute(sqlList);
+        columnTypesMap.remove(tapFieldBaseEvent.getTableId());
+    }
+
+    @Override
+    protected void dropTable(TapConnectorContext tapConnectorContext, TapDropTableEvent tapDropTableEvent) throws SQLException {
+        super.dropTable(tapConnectorContext, tapDropTableEvent);
+        columnTypesMap.remove(tapDropTableEvent.getTableId());
     }
 
     protected CreateTableOptions createTableV2(TapConnectorContext tapConnectorContext, TapCreateTableEvent tapCreateTableEvent) throws SQLException {
         TapTable tapTable = tapCreateTableEvent.getTable();
+        columnTypesMap.remove(tapTable.getId());
         CreateTableOptions createTableOptions = new CreateTableOptions();
         if (clickhouseJdbcContext.queryAllTables(Collections.singletonList(tapTable.getId())).size() > 0) {
             createTableOptions.setTableExists(true);
@@ -262,7 +277,7 @@ public class ClickhouseConnector extends CommonDbConnector {
         sql.append(TapTableWriter.sqlQuota(".", clickhouseConfig.getDatabase(), tapTable.getId()));
         sql.append("(").append(commonSqlMaker.buildColumnDefinition(tapTable, true));
         if (clickhouseConfig.getMixFastWrite()) {
-            sql.append(",is_deleted UInt8 DEFAULT 0, delete_time DateTime DEFAULT now()");
+            sql.append(",is_deleted UInt8 DEFAULT 0, delete_time DateTime DEFAULT now(), tap_version UInt64 DEFAULT 0");
         } else {
             sql.setLength(sql.length() - 1);
         }
@@ -271,6 +286,9 @@ public class ClickhouseConnector extends CommonDbConnector {
         Collection<String> primaryKeys = tapTable.primaryKeys(true);
         if (EmptyKit.isNotEmpty(primaryKeys)) {
             sql.append(") ENGINE = ReplacingMergeTree");
+            if (clickhouseConfig.getMixFastWrite()) {
+                sql.append("(tap_version)");
+            }
             sql.append(" PRIMARY KEY (").append(TapTableWriter.sqlQuota(",", primaryKeys)).append(")");
         } else {
             sql.append(") ENGINE = MergeTree");
@@ -319,13 +337,69 @@ public class ClickhouseConnector extends CommonDbConnector {
         if (updateDmlPolicy == null) {
             updateDmlPolicy = ConnectionOptions.DML_UPDATE_POLICY_IGNORE_ON_NON_EXISTS;
         }
-        new ClickhouseRecordWriter(clickhouseJdbcContext, tapTable)
+        ClickhouseRecordWriter clickhouseRecordWriter = new ClickhouseRecordWriter(clickhouseJdbcContext, tapTable)
+                .withVersion(clickhouseConfig.getMixFastWrite() && hasVersionColumn(tapTable.getId()) ? versionSequenceMap.computeIfAbsent(tapTable.getId(), k -> new AtomicLong()) : null);
+        //older servers have no RowBinaryWithDefaults, they keep jdbc batch
+        if ((clickhouseConfig.getEnableFileInput() || BulkInsertModeEnum.COPY.getModeName().equalsIgnoreCase(clickhouseConfig.getBulkInsertMode()))
+                && ClickhouseRowBinaryEncoder.supportDefaults(clickhouseVersion)) {
+            clickhouseRecordWriter.withRowBinary(getColumnTypes(tapTable.getId()), dbTimeZone.toZoneId());
+        }
+        clickhouseRecordWriter
                 .setInsertPolicy(insertDmlPolicy)
                 .setUpdatePolicy(updateDmlPolicy)
                 .setTapLogger(tapLogger)
                 .write(tapRecordEvents, consumer, this::isAlive);
     }
 
+    //RowBinary is positional, so it is encoded by the real column types of server, not the types of model
+    private Map<String, String> getColumnTypes(String tableId) throws SQLException {
+        Map<String, String> columnTypes = columnTypesMap.get(tableId);
+        if (EmptyKit.isNull(columnTypes)) {
+            Map<String, String> types = new HashMap<>();
+            clickhouseJdbcContext.query("SELECT name, type FROM system.columns WHERE database='" + clickhouseConfig.getDatabase()
+                    + "' AND table='" + tableId + "'", resultSet -> {
+                while (resultSet.next()) {
+                    types.put(resultSet.getString("name"), resultSet.getString("type"));
+                }
+            });
+            columnTypes = types;
+            columnTypesMap.put(tableId, columnTypes);
+        }
+        return columnTypes;
+    }
+
+    //tables created by older versions have no version column, ReplacingMergeTree keeps the last inserted row for them
+    private boolean hasVersionColumn(String tableId) throws SQLException {
+        return getColumnTypes(tableId).containsKey(ClickhouseWriteRecorder.VERSION);
+    }
+
+    //FINAL merges the rows of the same key at query time, deleted rows of mix fast write are filtered
+    private String getFinalTable(TapTable tapTable) {
+        if (tapTable.getNameFieldMap().containsKey(ClickhouseWriteRecorder.IS_DELETED)) {
+            return "(SELECT * FROM " + getSchemaAndTable(tapTable.getId()) + " FINAL WHERE " + ClickhouseWriteRecorder.IS_DELETED + " = 0)";
+        }
+        return getSchemaAndTable(tapTable.getId()) + " FINAL";
+    }
+
+    @Override
+    protected String getBatchReadSelectSql(TapTable tapTable) {
+        if (!clickhouseConfig.getFinalRead()) {
+            return super.getBatchReadSelectSql(tapTable);
+        }
+        String columns = tapTable.getNameFieldMap().keySet().stream().map(c -> "`" + c + "`").collect(Collectors.joining(","));
+        return String.format("SELECT %s FROM " + getFinalTable(tapTable), columns);
+    }
+
+    @Override
+    protected long batchCount(TapConnectorContext tapConnectorContext, TapTable tapTable) throws Throwable {
+        if (!clickhouseConfig.getFinalRead()) {
+            return super.batchCount(tapConnectorContext, tapTable);
+        }
+        AtomicLong count = new AtomicLong(0);
+        clickhouseJdbcContext.queryWithNext("SELECT count(1) FROM " + getFinalTable(tapTable), resultSet -> count.set(resultSet.getLong(1)));
+        return count.get();
+    }
+
     private void startMergeThreadIfNeeded(TapConnectorContext tapConnectorContext, TapTable tapTable) {
         if (!tapTableMap.containsKey(tapTable.getId())) {
             tapTableMap.put(tapTable.getId(), tapTable);
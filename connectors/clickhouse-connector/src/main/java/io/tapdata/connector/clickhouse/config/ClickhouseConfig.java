@@ -10,6 +10,7 @@ public class ClickhouseConfig extends CommonDbConfig implements Serializable {
 
     private Integer mergeMinutes = 60;
     private Boolean mixFastWrite = false;
+    private Boolean finalRead = false;
 
     public ClickhouseConfig() {
         setDbType("clickhouse");
@@ -43,4 +44,12 @@ public class ClickhouseConfig extends CommonDbConfig implements Serializable {
         this.mixFastWrite = mixFastWrite;
     }
 
+    public Boolean getFinalRead() {
+        return finalRead;
+    }
+
+    public void setFinalRead(Boolean finalRead) {
+        this.finalRead = finalRead;
+    }
+
 }
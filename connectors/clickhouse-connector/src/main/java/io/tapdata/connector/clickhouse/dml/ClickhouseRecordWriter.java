@@ -1,5 +1,6 @@
 package io.tapdata.connector.clickhouse.dml;
 
+import io.netty.buffer.PooledByteBufAllocator;
 import io.tapdata.common.JdbcContext;
 import io.tapdata.common.dml.NormalRecordWriter;
 import io.tapdata.connector.clickhouse.ClickhouseExceptionCollector;
@@ -13,9 +14,12 @@ import io.tapdata.kit.EmptyKit;
 import io.tapdata.pdk.apis.entity.WriteListResult;
 
 import java.sql.SQLException;
+import java.time.ZoneId;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -23,6 +27,11 @@ import static io.tapdata.entity.simplify.TapSimplify.toJson;
 
 public class ClickhouseRecordWriter extends NormalRecordWriter {
 
+    //last version of the table, null means the table has no version column
+    private AtomicLong versionSequence;
+    private Map<String, String> rowBinaryColumnTypes;
+    private ZoneId rowBinaryZoneId;
+
     public ClickhouseRecordWriter(JdbcContext jdbcContext, TapTable tapTable) throws SQLException {
         super(jdbcContext, tapTable);
         exceptionCollector = new ClickhouseExceptionCollector();
@@ -34,6 +43,22 @@ public class ClickhouseRecordWriter extends NormalRecordWriter {
         deleteRecorder = new ClickhouseWriteRecorder(connection, tapTable, jdbcContext.getConfig().getSchema());
     }
 
+    //table created with version column, every change is appended with an increasing version for ReplacingMergeTree
+    public ClickhouseRecordWriter withVersion(AtomicLong versionSequence) {
+        this.versionSequence = versionSequence;
+        if (EmptyKit.isNotNull(versionSequence) && ((ClickhouseConfig) commonDbConfig).getMixFastWrite()) {
+            ((ClickhouseWriteRecorder) insertRecorder).addVersion();
+        }
+        return this;
+    }
+
+    //inserts are streamed as RowBinary by the column types of server, unsupported types fall back to jdbc batch
+    public ClickhouseRecordWriter withRowBinary(Map<String, String> columnTypes, ZoneId zoneId) {
+        this.rowBinaryColumnTypes = columnTypes;
+        this.rowBinaryZoneId = zoneId;
+        return this;
+    }
+
     public void write(List<TapRecordEvent> tapRecordEvents, Consumer<WriteListResult<TapRecordEvent>> writeListResultConsumer, Supplier<Boolean> isAlive) throws SQLException {
         //result of these events
         WriteListResult<TapRecordEvent> listResult = new WriteListResult<>();
@@ -41,6 +66,11 @@ public class ClickhouseRecordWriter extends NormalRecordWriter {
             insertRecorder.setVersion(version);
             insertRecorder.setInsertPolicy(insertPolicy);
             insertRecorder.setTapLogger(tapLogger);
+            insertRecorder.setBatchLimit(commonDbConfig.getWriteBatchSize(), commonDbConfig.getWriteBatchBytes());
+            if (EmptyKit.isNotNull(rowBinaryColumnTypes)
+                    && !((ClickhouseWriteRecorder) insertRecorder).enableRowBinary(PooledByteBufAllocator.DEFAULT.directBuffer(commonDbConfig.getBufferCapacity().intValue()), rowBinaryColumnTypes, rowBinaryZoneId)) {
+                tapLogger.debug("table {} has columns which can not be encoded as RowBinary, insert by jdbc batch", tapTable.getId());
+            }
             updateRecorder.setVersion(version);
             updateRecorder.setUpdatePolicy(updatePolicy);
             updateRecorder.setTapLogger(tapLogger);
@@ -52,19 +82,24 @@ public class ClickhouseRecordWriter extends NormalRecordWriter {
                     break;
                 }
                 if (((ClickhouseConfig) commonDbConfig).getMixFastWrite()) {
+                    //every change is an insert, no mutation (alter table update/delete) is needed
                     Map<String, Object> data;
                     if (recordEvent instanceof TapInsertRecordEvent) {
-                        data = ((TapInsertRecordEvent) recordEvent).getAfter();
-                        data.put("is_deleted", 0);
+                        data = new HashMap<>(((TapInsertRecordEvent) recordEvent).getAfter());
+                        data.put(ClickhouseWriteRecorder.IS_DELETED, 0);
                     } else if (recordEvent instanceof TapUpdateRecordEvent) {
-                        data = ((TapUpdateRecordEvent) recordEvent).getAfter();
-                        data.put("is_deleted", 0);
+                        data = new HashMap<>(((TapUpdateRecordEvent) recordEvent).getAfter());
+                        data.put(ClickhouseWriteRecorder.IS_DELETED, 0);
                     } else {
-                        data = ((TapDeleteRecordEvent) recordEvent).getBefore();
-                        data.put("is_deleted", 1);
+                        data = new HashMap<>(((TapDeleteRecordEvent) recordEvent).getBefore());
+                        data.put(ClickhouseWriteRecorder.IS_DELETED, 1);
+                    }
+                    if (EmptyKit.isNotNull(versionSequence)) {
+                        data.put(ClickhouseWriteRecorder.VERSION, ClickhouseWriteRecorder.nextVersion(versionSequence, recordEvent.getReferenceTime()));
                     }
                     insertRecorder.addInsertBatch(data, listResult);
                     insertRecorder.addBatchCacheSize();
+                    ((ClickhouseWriteRecorder) insertRecorder).flushIfFull(listResult);
                 } else {
                     if (recordEvent instanceof TapInsertRecordEvent) {
                         updateRecorder.executeBatch(listResult);
@@ -0,0 +1,323 @@
+package io.tapdata.connector.clickhouse.dml;
+
+import io.netty.buffer.ByteBuf;
+import io.tapdata.kit.EmptyKit;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * encode rows into RowBinaryWithDefaults format of clickhouse, column encoders are compiled once by the server column types
+ * types which can not be encoded (Array, Map, Enum, Int128...) make the compile return null, then jdbc batch is used
+ * a missing column, or null of a column which is not Nullable, takes the default expression of the column
+ */
+public class ClickhouseRowBinaryEncoder {
+
+    private static final Pattern DECIMAL_PATTERN = Pattern.compile("Decimal\\((\\d+),\\s*(\\d+)\\)");
+    private static final Pattern SIZED_DECIMAL_PATTERN = Pattern.compile("Decimal(32|64|128|256)\\((\\d+)\\)");
+    private static final Pattern FIXED_STRING_PATTERN = Pattern.compile("FixedString\\((\\d+)\\)");
+    private static final Pattern DATETIME64_PATTERN = Pattern.compile("DateTime64\\((\\d+)(,.*)?\\)");
+    //RowBinaryWithDefaults is supported since 23.3
+    private static final int[] DEFAULTS_SINCE = {23, 3};
+
+    private final List<String> columns;
+    private final ColumnEncoder[] encoders;
+    private final boolean[] nullables;
+
+    private ClickhouseRowBinaryEncoder(List<String> columns, ColumnEncoder[] encoders, boolean[] nullables) {
+        this.columns = columns;
+        this.encoders = encoders;
+        this.nullables = nullables;
+    }
+
+    /**
+     * @param columns     columns in the order of insert statement
+     * @param columnTypes types of columns from system.columns, such as Nullable(Decimal(10, 2))
+     * @param zoneId      zone of LocalDateTime and string values
+     * @return null when some column is missing or its type is not supported
+     */
+    public static ClickhouseRowBinaryEncoder compile(List<String> columns, Map<String, String> columnTypes, ZoneId zoneId) {
+        ColumnEncoder[] encoders = new ColumnEncoder[columns.size()];
+        boolean[] nullables = new boolean[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            String type = columnTypes.get(columns.get(i));
+            if (EmptyKit.isBlank(type)) {
+                return null;
+            }
+            type = unwrap(type.trim(), "LowCardinality(");
+            if (type.startsWith("Nullable(")) {
+                nullables[i] = true;
+                type = unwrap(type, "Nullable(");
+            }
+            encoders[i] = compileColumn(type, zoneId);
+            if (EmptyKit.isNull(encoders[i])) {
+                return null;
+            }
+        }
+        return new ClickhouseRowBinaryEncoder(new ArrayList<>(columns), encoders, nullables);
+    }
+
+    /**
+     * @param clickhouseVersion major.minor of server
+     */
+    public static boolean supportDefaults(String clickhouseVersion) {
+        if (EmptyKit.isBlank(clickhouseVersion)) {
+            return false;
+        }
+        String[] versions = clickhouseVersion.trim().split("\\.");
+        try {
+            int major = Integer.parseInt(versions[0]);
+            int minor = versions.length > 1 ? Integer.parseInt(versions[1]) : 0;
+            return major > DEFAULTS_SINCE[0] || (major == DEFAULTS_SINCE[0] && minor >= DEFAULTS_SINCE[1]);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    //every column starts with a flag: 1 means to use the default expression, 0 means the value follows
+    public void encode(Map<String, Object> row, ByteBuf buffer) {
+        for (int i = 0; i < encoders.length; i++) {
+            String column = columns.get(i);
+            Object value = row.get(column);
+            if (EmptyKit.isNull(value) && (!nullables[i] || !row.containsKey(column))) {
+                buffer.writeByte(1);
+                continue;
+            }
+            buffer.writeByte(0);
+            if (nullables[i]) {
+                if (EmptyKit.isNull(value)) {
+                    buffer.writeByte(1);
+                    continue;
+                }
+                buffer.writeByte(0);
+            }
+            encoders[i].encode(value, buffer);
+        }
+    }
+
+    private static String unwrap(String type, String wrapper) {
+        if (type.startsWith(wrapper) && type.endsWith(")")) {
+            return type.substring(wrapper.length(), type.length() - 1).trim();
+        }
+        return type;
+    }
+
+    private static ColumnEncoder compileColumn(String type, ZoneId zoneId) {
+        switch (type) {
+            case "Int8":
+            case "UInt8":
+                return (value, buffer) -> buffer.writeByte((int) toLong(value));
+            case "Bool":
+                return (value, buffer) -> buffer.writeByte(toBoolean(value) ? 1 : 0);
+            case "Int16":
+            case "UInt16":
+                return (value, buffer) -> buffer.writeShortLE((int) toLong(value));
+            case "Int32":
+            case "UInt32":
+                return (value, buffer) -> buffer.writeIntLE((int) toLong(value));
+            case "Int64":
+            case "UInt64":
+                return (value, buffer) -> buffer.writeLongLE(toLong(value));
+            case "Float32":
+                return (value, buffer) -> buffer.writeFloatLE(EmptyKit.isNull(value) ? 0 : (value instanceof Number ? ((Number) value).floatValue() : Float.parseFloat(value.toString())));
+            case "Float64":
+                return (value, buffer) -> buffer.writeDoubleLE(EmptyKit.isNull(value) ? 0 : (value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble(value.toString())));
+            case "String":
+                return (value, buffer) -> writeString(toBytes(value), buffer);
+            case "UUID":
+                return (value, buffer) -> {
+                    UUID uuid = EmptyKit.isNull(value) ? new UUID(0, 0) : (value instanceof UUID ? (UUID) value : UUID.fromString(value.toString()));
+                    buffer.writeLongLE(uuid.getMostSignificantBits());
+                    buffer.writeLongLE(uuid.getLeastSignificantBits());
+                };
+            case "Date":
+                return (value, buffer) -> buffer.writeShortLE((int) toEpochDay(value, zoneId));
+            case "Date32":
+                return (value, buffer) -> buffer.writeIntLE((int) toEpochDay(value, zoneId));
+            default:
+                break;
+        }
+        if ("DateTime".equals(type) || type.startsWith("DateTime(")) {
+            return (value, buffer) -> buffer.writeIntLE((int) toInstant(value, zoneId).getEpochSecond());
+        }
+        Matcher matcher = DATETIME64_PATTERN.matcher(type);
+        if (matcher.matches()) {
+            int precision = Integer.parseInt(matcher.group(1));
+            long multiplier = BigInteger.TEN.pow(precision).longValue();
+            long divisor = BigInteger.TEN.pow(9 - Math.min(precision, 9)).longValue();
+            return (value, buffer) -> {
+                Instant instant = toInstant(value, zoneId);
+                buffer.writeLongLE(instant.getEpochSecond() * multiplier + instant.getNano() / divisor);
+            };
+        }
+        matcher = FIXED_STRING_PATTERN.matcher(type);
+        if (matcher.matches()) {
+            int length = Integer.parseInt(matcher.group(1));
+            return (value, buffer) -> {
+                byte[] bytes = toBytes(value);
+                if (bytes.length > length) {
+                    throw new IllegalArgumentException("value is too long for FixedString(" + length + "): " + value);
+                }
+                buffer.writeBytes(bytes);
+                buffer.writeZero(length - bytes.length);
+            };
+        }
+        matcher = DECIMAL_PATTERN.matcher(type);
+        if (matcher.matches()) {
+            int precision = Integer.parseInt(matcher.group(1));
+            return decimalEncoder(precision <= 9 ? 4 : precision <= 18 ? 8 : precision <= 38 ? 16 : 32, Integer.parseInt(matcher.group(2)));
+        }
+        matcher = SIZED_DECIMAL_PATTERN.matcher(type);
+        if (matcher.matches()) {
+            return decimalEncoder(Integer.parseInt(matcher.group(1)) / 8, Integer.parseInt(matcher.group(2)));
+        }
+        return null;
+    }
+
+    //two's complement of unscaled value in little endian
+    private static ColumnEncoder decimalEncoder(int width, int scale) {
+        return (value, buffer) -> {
+            BigDecimal decimal = EmptyKit.isNull(value) ? BigDecimal.ZERO : (value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString()));
+            BigInteger unscaled = decimal.setScale(scale, RoundingMode.HALF_UP).unscaledValue();
+            if (width == 4) {
+                buffer.writeIntLE(unscaled.intValue());
+            } else if (width == 8) {
+                buffer.writeLongLE(unscaled.longValue());
+            } else {
+                byte[] bigEndian = unscaled.toByteArray();
+                if (bigEndian.length > width) {
+                    throw new IllegalArgumentException("value is out of range for Decimal of " + width + " bytes: " + value);
+                }
+                for (int i = bigEndian.length - 1; i >= 0; i--) {
+                    buffer.writeByte(bigEndian[i]);
+                }
+                int sign = unscaled.signum() < 0 ? 0xFF : 0;
+                for (int i = bigEndian.length; i < width; i++) {
+                    buffer.writeByte(sign);
+                }
+            }
+        };
+    }
+
+    private static long toLong(Object value) {
+        if (EmptyKit.isNull(value)) {
+            return 0;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+        return new BigDecimal(value.toString()).longValue();
+    }
+
+    private static boolean toBoolean(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof Number) {
+            return new BigDecimal(value.toString()).signum() != 0;
+        }
+        String text = String.valueOf(value).trim();
+        if ("true".equalsIgnoreCase(text) || "1".equals(text)) {
+            return true;
+        }
+        if ("false".equalsIgnoreCase(text) || "0".equals(text)) {
+            return false;
+        }
+        throw new IllegalArgumentException("value can not be written as Bool: " + value);
+    }
+
+    private static byte[] toBytes(Object value) {
+        if (EmptyKit.isNull(value)) {
+            return new byte[0];
+        }
+        if (value instanceof byte[]) {
+            return (byte[]) value;
+        }
+        if (value instanceof ByteBuffer) {
+            ByteBuffer byteBuffer = ((ByteBuffer) value).duplicate();
+            byte[] bytes = new byte[byteBuffer.remaining()];
+            byteBuffer.get(bytes);
+            return bytes;
+        }
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(byte[] bytes, ByteBuf buffer) {
+        long length = bytes.length;
+        while ((length & ~0x7FL) != 0) {
+            buffer.writeByte((int) ((length & 0x7F) | 0x80));
+            length >>>= 7;
+        }
+        buffer.writeByte((int) length);
+        buffer.writeBytes(bytes);
+    }
+
+    private static long toEpochDay(Object value, ZoneId zoneId) {
+        if (EmptyKit.isNull(value)) {
+            return 0;
+        }
+        if (value instanceof LocalDate) {
+            return ((LocalDate) value).toEpochDay();
+        }
+        if (value instanceof java.sql.Date) {
+            return ((java.sql.Date) value).toLocalDate().toEpochDay();
+        }
+        if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).toLocalDate().toEpochDay();
+        }
+        if (value instanceof Date || value instanceof Instant || value instanceof ZonedDateTime) {
+            return toInstant(value, zoneId).atZone(zoneId).toLocalDate().toEpochDay();
+        }
+        String date = value.toString();
+        return LocalDate.parse(date.length() > 10 ? date.substring(0, 10) : date).toEpochDay();
+    }
+
+    private static Instant toInstant(Object value, ZoneId zoneId) {
+        if (EmptyKit.isNull(value)) {
+            return Instant.EPOCH;
+        }
+        if (value instanceof Instant) {
+            return (Instant) value;
+        }
+        if (value instanceof java.sql.Timestamp) {
+            return ((java.sql.Timestamp) value).toInstant();
+        }
+        if (value instanceof java.sql.Date) {
+            return ((java.sql.Date) value).toLocalDate().atStartOfDay(zoneId).toInstant();
+        }
+        if (value instanceof Date) {
+            return ((Date) value).toInstant();
+        }
+        if (value instanceof ZonedDateTime) {
+            return ((ZonedDateTime) value).toInstant();
+        }
+        if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).atZone(zoneId).toInstant();
+        }
+        if (value instanceof LocalDate) {
+            return ((LocalDate) value).atStartOfDay(zoneId).toInstant();
+        }
+        if (value instanceof Number) {
+            return Instant.ofEpochSecond(((Number) value).longValue());
+        }
+        return LocalDateTime.parse(value.toString().trim().replace(' ', 'T')).atZone(zoneId).toInstant();
+    }
+
+    private interface ColumnEncoder {
+        void encode(Object value, ByteBuf buffer);
+    }
+}
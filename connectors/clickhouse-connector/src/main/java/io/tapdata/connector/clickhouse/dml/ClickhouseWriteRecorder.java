@@ -1,5 +1,7 @@
 package io.tapdata.connector.clickhouse.dml;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import io.tapdata.common.dml.NormalWriteRecorder;
 import io.tapdata.connector.clickhouse.config.ClickhouseConfig;
 import io.tapdata.entity.event.dml.TapInsertRecordEvent;
@@ -8,11 +10,15 @@ import io.tapdata.entity.schema.TapTable;
 import io.tapdata.kit.DbKit;
 import io.tapdata.kit.EmptyKit;
 import io.tapdata.pdk.apis.entity.WriteListResult;
+import ru.yandex.clickhouse.ClickHouseStatement;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.ZoneId;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 public class ClickhouseWriteRecorder extends NormalWriteRecorder {
@@ -22,8 +28,38 @@ public class ClickhouseWriteRecorder extends NormalWriteRecorder {
         setEscapeChar('`');
     }
 
+    public static final String IS_DELETED = "is_deleted";
+    public static final String VERSION = "tap_version";
+    private ClickhouseRowBinaryEncoder rowBinaryEncoder;
+
     public void addIsDeleted() {
-        allColumn.add("is_deleted");
+        allColumn.add(IS_DELETED);
+    }
+
+    public void addVersion() {
+        allColumn.add(VERSION);
+    }
+
+    /**
+     * version follows the source order: source time (referenceTime) in microseconds, events of the same millisecond by arrival
+     * initial sync events have no source time, so they are always older than cdc events
+     *
+     * @param lastVersion last version of the table
+     */
+    public static long nextVersion(AtomicLong lastVersion, Long referenceTime) {
+        long sourceVersion = EmptyKit.isNull(referenceTime) ? 0 : referenceTime * 1000;
+        return lastVersion.updateAndGet(v -> Math.max(v + 1, sourceVersion));
+    }
+
+    //insert by RowBinary stream when every column can be encoded, otherwise keep jdbc batch
+    public boolean enableRowBinary(ByteBuf buffer, Map<String, String> columnTypes, ZoneId zoneId) {
+        rowBinaryEncoder = ClickhouseRowBinaryEncoder.compile(allColumn, columnTypes, zoneId);
+        if (EmptyKit.isNull(rowBinaryEncoder)) {
+            buffer.release();
+            return false;
+        }
+        enableFileInput(buffer);
+        return true;
     }
 
     @Override
@@ -31,6 +67,45 @@ public class ClickhouseWriteRecorder extends NormalWriteRecorder {
         if (recordEvent instanceof TapInsertRecordEvent) {
             batchCacheSize++;
         }
+        flushIfFull(listResult);
+    }
+
+    //jdbc batch is executed once in the end, only RowBinary buffer is limited by bytes
+    public void flushIfFull(WriteListResult<TapRecordEvent> listResult) throws SQLException {
+        if (fileInput && buffer.readableBytes() >= batchByteLimit) {
+            executeBatch(listResult);
+        }
+    }
+
+    @Override
+    public void addInsertBatch(Map<String, Object> after, WriteListResult<TapRecordEvent> listResult) throws SQLException {
+        //there is no unique constraint in clickhouse, every insert policy is appending
+        if (fileInput) {
+            if (EmptyKit.isNotEmpty(after)) {
+                fileInsert(after);
+            }
+            return;
+        }
+        super.addInsertBatch(after, listResult);
+    }
+
+    @Override
+    protected void fileInsert(Map<String, Object> after) {
+        rowBinaryEncoder.encode(after, buffer);
+    }
+
+    @Override
+    public boolean supportFileInput() {
+        return true;
+    }
+
+    @Override
+    protected void fileInput() throws SQLException {
+        String sql = "INSERT INTO " + escapeChar + schema + escapeChar + "." + escapeChar + tapTable.getId() + escapeChar + " (" +
+                allColumn.stream().map(k -> escapeChar + k + escapeChar).collect(Collectors.joining(",")) + ") FORMAT RowBinaryWithDefaults";
+        try (Statement statement = connection.createStatement()) {
+            statement.unwrap(ClickHouseStatement.class).sendStreamSQL(new ByteBufInputStream(buffer), sql);
+        }
     }
 
     @Override
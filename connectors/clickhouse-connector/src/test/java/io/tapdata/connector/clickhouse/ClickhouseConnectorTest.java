@@ -17,9 +17,16 @@ import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
 import ru.yandex.clickhouse.except.ClickHouseUnknownException;
 
+import io.tapdata.entity.event.ddl.table.TapDropTableEvent;
+
+import java.sql.ResultSet;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 import java.sql.SQLException;
 
@@ -66,4 +73,32 @@ class ClickhouseConnectorTest {
         Assertions.assertTrue(total_rows == actualData.getNumOfRows());
 
     }
+
+    @Test
+    void testVersionColumnRefreshedAfterDropTable() throws SQLException {
+        ClickhouseConnector clickhouseConnector = new ClickhouseConnector();
+        ClickhouseJdbcContext clickhouseJdbcContext = mock(ClickhouseJdbcContext.class);
+        ReflectionTestUtils.setField(clickhouseConnector, "clickhouseJdbcContext", clickhouseJdbcContext);
+        ReflectionTestUtils.setField(clickhouseConnector, "jdbcContext", clickhouseJdbcContext);
+        ReflectionTestUtils.setField(clickhouseConnector, "clickhouseConfig", new ClickhouseConfig());
+        AtomicBoolean withVersion = new AtomicBoolean(false);
+        doAnswer(invocationOnMock -> {
+            ResultSet resultSet = mock(ResultSet.class);
+            when(resultSet.next()).thenReturn(true, withVersion.get(), false);
+            when(resultSet.getString("name")).thenReturn("id", "tap_version");
+            when(resultSet.getString("type")).thenReturn("Int32", "UInt64");
+            ((ResultSetConsumer) invocationOnMock.getArgument(1)).accept(resultSet);
+            return null;
+        }).when(clickhouseJdbcContext).query(anyString(), any(ResultSetConsumer.class));
+        Boolean before = ReflectionTestUtils.invokeMethod(clickhouseConnector, "hasVersionColumn", "t");
+        Assertions.assertFalse(before);
+        //the table is recreated with version column
+        withVersion.set(true);
+        when(clickhouseJdbcContext.queryAllTables(anyList())).thenReturn(Collections.singletonList(new DataMap()));
+        TapDropTableEvent dropTableEvent = new TapDropTableEvent();
+        dropTableEvent.setTableId("t");
+        ReflectionTestUtils.invokeMethod(clickhouseConnector, "dropTable", mock(TapConnectorContext.class), dropTableEvent);
+        Boolean after = ReflectionTestUtils.invokeMethod(clickhouseConnector, "hasVersionColumn", "t");
+        Assertions.assertTrue(after);
+    }
 }
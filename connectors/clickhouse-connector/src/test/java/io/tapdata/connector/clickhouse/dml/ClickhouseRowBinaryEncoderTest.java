@@ -0,0 +1,212 @@
+package io.tapdata.connector.clickhouse.dml;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+public class ClickhouseRowBinaryEncoderTest {
+
+    private static final ZoneId UTC = ZoneOffset.UTC;
+
+    //encode one column, the flag of RowBinaryWithDefaults is checked and skipped
+    private ByteBuf encode(String type, Object value) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("c", value);
+        ByteBuf buffer = Unpooled.buffer();
+        ClickhouseRowBinaryEncoder.compile(Collections.singletonList("c"), Collections.singletonMap("c", type), UTC).encode(row, buffer);
+        Assertions.assertEquals(0, buffer.readByte());
+        return buffer;
+    }
+
+    private static String readString(ByteBuf buffer) {
+        long length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.readByte();
+            length |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        byte[] bytes = new byte[(int) length];
+        buffer.readBytes(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static BigInteger readLittleEndian(ByteBuf buffer, int width) {
+        byte[] bigEndian = new byte[width];
+        for (int i = width - 1; i >= 0; i--) {
+            bigEndian[i] = buffer.readByte();
+        }
+        return new BigInteger(bigEndian);
+    }
+
+    @Nested
+    class NumberTest {
+        @Test
+        void testIntegers() {
+            Assertions.assertEquals(-3, encode("Int8", -3).readByte());
+            Assertions.assertEquals(300, encode("UInt16", 300).readShortLE());
+            Assertions.assertEquals(-70000, encode("Int32", "-70000").readIntLE());
+            Assertions.assertEquals(Long.MAX_VALUE, encode("Int64", Long.MAX_VALUE).readLongLE());
+        }
+
+        @Test
+        void testFloats() {
+            Assertions.assertEquals(1.5f, encode("Float32", 1.5d).readFloatLE());
+            Assertions.assertEquals(2.25d, encode("Float64", "2.25").readDoubleLE());
+        }
+
+        @Test
+        void testDecimals() {
+            Assertions.assertEquals(12346, encode("Decimal(10, 2)", new BigDecimal("123.456")).readLongLE());
+            Assertions.assertEquals(-1234, encode("Decimal32(2)", "-12.34").readIntLE());
+            Assertions.assertEquals(new BigInteger("-123456789012345678901234"), readLittleEndian(encode("Decimal(38, 4)", new BigDecimal("-12345678901234567890.1234")), 16));
+        }
+    }
+
+    @Nested
+    class BoolTest {
+        @Test
+        void testBool() {
+            Assertions.assertEquals(1, encode("Bool", true).readByte());
+            Assertions.assertEquals(1, encode("Bool", "true").readByte());
+            Assertions.assertEquals(0, encode("Bool", "FALSE").readByte());
+            Assertions.assertEquals(1, encode("Bool", 1).readByte());
+            Assertions.assertEquals(0, encode("Bool", new BigDecimal("0.0")).readByte());
+        }
+
+        @Test
+        void testInvalidBool() {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> encode("Bool", "yes please"));
+        }
+    }
+
+    @Nested
+    class TextTest {
+        @Test
+        void testString() {
+            Assertions.assertEquals("中文abc", readString(encode("String", "中文abc")));
+            Assertions.assertEquals("x", readString(encode("LowCardinality(String)", "x")));
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < 300; i++) {
+                builder.append('a');
+            }
+            Assertions.assertEquals(builder.toString(), readString(encode("String", builder.toString())));
+        }
+
+        @Test
+        void testFixedString() {
+            ByteBuf buffer = encode("FixedString(4)", "ab");
+            Assertions.assertEquals(4, buffer.readableBytes());
+            Assertions.assertEquals('a', buffer.readByte());
+            Assertions.assertThrows(IllegalArgumentException.class, () -> encode("FixedString(1)", "ab"));
+        }
+
+        @Test
+        void testUuid() {
+            UUID uuid = UUID.randomUUID();
+            ByteBuf buffer = encode("UUID", uuid.toString());
+            Assertions.assertEquals(uuid, new UUID(buffer.readLongLE(), buffer.readLongLE()));
+        }
+    }
+
+    @Nested
+    class TimeTest {
+        @Test
+        void testDate() {
+            Assertions.assertEquals(LocalDate.of(2024, 1, 2).toEpochDay(), encode("Date", LocalDate.of(2024, 1, 2)).readShortLE());
+            Assertions.assertEquals(LocalDate.of(1960, 1, 2).toEpochDay(), encode("Date32", "1960-01-02").readIntLE());
+        }
+
+        @Test
+        void testDateTime() {
+            LocalDateTime dateTime = LocalDateTime.of(2024, 1, 2, 3, 4, 5, 123456789);
+            Assertions.assertEquals(dateTime.toEpochSecond(ZoneOffset.UTC), encode("DateTime('UTC')", dateTime).readIntLE());
+            Assertions.assertEquals(dateTime.toEpochSecond(ZoneOffset.UTC) * 1000 + 123, encode("DateTime64(3)", dateTime).readLongLE());
+            Assertions.assertEquals(dateTime.toEpochSecond(ZoneOffset.UTC) * 1000000 + 123456, encode("DateTime64(6, 'UTC')", "2024-01-02 03:04:05.123456789").readLongLE());
+        }
+    }
+
+    @Nested
+    class DefaultTest {
+        ClickhouseRowBinaryEncoder encoder;
+
+        private ByteBuf encodeRow(Map<String, Object> row) {
+            Map<String, String> columnTypes = new HashMap<>();
+            columnTypes.put("a", "Int32");
+            columnTypes.put("b", "Nullable(Int32)");
+            encoder = ClickhouseRowBinaryEncoder.compile(java.util.Arrays.asList("a", "b"), columnTypes, UTC);
+            ByteBuf buffer = Unpooled.buffer();
+            encoder.encode(row, buffer);
+            return buffer;
+        }
+
+        @Test
+        void testNullOfNotNullableUsesDefault() {
+            Map<String, Object> row = new HashMap<>();
+            row.put("a", null);
+            row.put("b", null);
+            ByteBuf buffer = encodeRow(row);
+            //a: default, b: value follows and it is null
+            Assertions.assertEquals(1, buffer.readByte());
+            Assertions.assertEquals(0, buffer.readByte());
+            Assertions.assertEquals(1, buffer.readByte());
+            Assertions.assertEquals(0, buffer.readableBytes());
+        }
+
+        @Test
+        void testMissingColumnUsesDefault() {
+            Map<String, Object> row = new HashMap<>();
+            row.put("a", 5);
+            ByteBuf buffer = encodeRow(row);
+            Assertions.assertEquals(0, buffer.readByte());
+            Assertions.assertEquals(5, buffer.readIntLE());
+            Assertions.assertEquals(1, buffer.readByte());
+            Assertions.assertEquals(0, buffer.readableBytes());
+        }
+
+        @Test
+        void testNullableValue() {
+            Map<String, Object> row = new HashMap<>();
+            row.put("a", 1);
+            row.put("b", 2);
+            ByteBuf buffer = encodeRow(row);
+            buffer.skipBytes(5);
+            Assertions.assertEquals(0, buffer.readByte());
+            Assertions.assertEquals(0, buffer.readByte());
+            Assertions.assertEquals(2, buffer.readIntLE());
+        }
+    }
+
+    @Nested
+    class CompileTest {
+        @Test
+        void testUnsupported() {
+            Assertions.assertNull(ClickhouseRowBinaryEncoder.compile(Collections.singletonList("c"), Collections.singletonMap("c", "Array(Int32)"), UTC));
+            Assertions.assertNull(ClickhouseRowBinaryEncoder.compile(Collections.singletonList("c"), Collections.emptyMap(), UTC));
+        }
+
+        @Test
+        void testSupportDefaults() {
+            Assertions.assertTrue(ClickhouseRowBinaryEncoder.supportDefaults("23.3"));
+            Assertions.assertTrue(ClickhouseRowBinaryEncoder.supportDefaults("23.10"));
+            Assertions.assertTrue(ClickhouseRowBinaryEncoder.supportDefaults("24.1"));
+            Assertions.assertFalse(ClickhouseRowBinaryEncoder.supportDefaults("22.8"));
+            Assertions.assertFalse(ClickhouseRowBinaryEncoder.supportDefaults(null));
+        }
+    }
+}
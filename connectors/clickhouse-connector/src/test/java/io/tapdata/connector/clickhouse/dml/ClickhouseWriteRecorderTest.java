@@ -0,0 +1,43 @@
+package io.tapdata.connector.clickhouse.dml;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ClickhouseWriteRecorderTest {
+
+    @Nested
+    class NextVersionTest {
+        @Test
+        void testFollowSourceTime() {
+            AtomicLong lastVersion = new AtomicLong();
+            Assertions.assertEquals(1000000L, ClickhouseWriteRecorder.nextVersion(lastVersion, 1000L));
+            Assertions.assertEquals(2000000L, ClickhouseWriteRecorder.nextVersion(lastVersion, 2000L));
+        }
+
+        @Test
+        void testSameMillisecondByArrival() {
+            AtomicLong lastVersion = new AtomicLong();
+            long first = ClickhouseWriteRecorder.nextVersion(lastVersion, 1000L);
+            long second = ClickhouseWriteRecorder.nextVersion(lastVersion, 1000L);
+            Assertions.assertEquals(first + 1, second);
+        }
+
+        @Test
+        void testInitialSyncOlderThanCdc() {
+            AtomicLong lastVersion = new AtomicLong();
+            long initial = ClickhouseWriteRecorder.nextVersion(lastVersion, null);
+            long cdc = ClickhouseWriteRecorder.nextVersion(lastVersion, 1000L);
+            Assertions.assertEquals(1L, initial);
+            Assertions.assertTrue(cdc > initial);
+        }
+
+        @Test
+        void testReplayIsDeterministic() {
+            //a restarted task replays the same source events, the versions do not depend on the wall clock
+            Assertions.assertEquals(ClickhouseWriteRecorder.nextVersion(new AtomicLong(), 1234L), ClickhouseWriteRecorder.nextVersion(new AtomicLong(), 1234L));
+        }
+    }
+}
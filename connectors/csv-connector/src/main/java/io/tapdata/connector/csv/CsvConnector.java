@@ -1,5 +1,6 @@
 package io.tapdata.connector.csv;
 
+import com.opencsv.CSVParser;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
 import com.opencsv.CustomCsvParser;
@@ -7,6 +8,7 @@ import io.tapdata.common.FileConnector;
 import io.tapdata.common.FileOffset;
 import io.tapdata.common.FileSchema;
 import io.tapdata.common.util.MatchUtil;
+import io.tapdata.common.util.PositionLineReader;
 import io.tapdata.connector.csv.config.CsvConfig;
 import io.tapdata.connector.csv.writer.DateCsvRecordWriter;
 import io.tapdata.connector.csv.writer.RecordCsvRecordWriter;
@@ -26,11 +28,13 @@ import io.tapdata.pdk.apis.context.TapConnectionContext;
 import io.tapdata.pdk.apis.context.TapConnectorContext;
 import io.tapdata.pdk.apis.entity.WriteListResult;
 import io.tapdata.pdk.apis.functions.ConnectorFunctions;
+import io.tapdata.storage.RangeFileStorage;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -56,6 +60,20 @@ public class CsvConnector extends FileConnector {
     @Override
     protected void makeFileOffset(FileOffset fileOffset) {
         fileOffset.setDataLine(fileConfig.getDataStartLine());
+        fileOffset.setDataPosition(0);
+    }
+
+    //only append-only files are read by position, others are read by opencsv and resumed by lines as before
+    @Override
+    protected boolean supportPositionRead() {
+        return Boolean.TRUE.equals(fileConfig.getAppendOnly()) && PositionLineReader.supportCharset(Charset.forName(fileConfig.getFileEncoding()));
+    }
+
+    //quoted fields of standard csv may contain line breaks, so a record can not be found from any byte
+    //only off-standard csv, whose records are always lines, is split
+    @Override
+    protected boolean supportSplitRead() {
+        return ((CsvConfig) fileConfig).getOffStandard() && PositionLineReader.supportCharset(Charset.forName(fileConfig.getFileEncoding()));
     }
 
     @Override
@@ -112,13 +130,184 @@ public class CsvConnector extends FileConnector {
                                int eventBatchSize,
                                BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer,
                                AtomicReference<List<TapEvent>> tapEvents) throws Exception {
-        if (((CsvConfig) fileConfig).getOffStandard()) {
+        //offsets with byte positions can only be resumed by position
+        if (supportPositionRead() || fileOffset.getDataPosition() > 0 || fileOffset.getDataEndPosition() > 0) {
+            readCsvByPosition(fileOffset, tapTable, eventBatchSize, eventsOffsetConsumer, tapEvents, ((CsvConfig) fileConfig).getOffStandard(), true);
+        } else if (((CsvConfig) fileConfig).getOffStandard()) {
             readOffStandardCsv(fileOffset, tapTable, eventBatchSize, eventsOffsetConsumer, tapEvents);
         } else {
             readStandardCsv(fileOffset, tapTable, eventBatchSize, eventsOffsetConsumer, tapEvents);
         }
     }
 
+    @Override
+    protected void readAppendingFile(FileOffset fileOffset,
+                                     TapTable tapTable,
+                                     int eventBatchSize,
+                                     BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer,
+                                     AtomicReference<List<TapEvent>> tapEvents) throws Exception {
+        readCsvByPosition(fileOffset, tapTable, eventBatchSize, eventsOffsetConsumer, tapEvents, ((CsvConfig) fileConfig).getOffStandard(), false);
+    }
+
+    /**
+     * read lines by bytes and keep dataPosition of the offset at the end of the last emitted record
+     * with dataPosition, headers are read from the head of the file, and records from the position by ranged read
+     * with dataEndPosition, only records whose first byte is before it are read, as a part of a split file
+     * without complete, the last record which is not terminated by a line break is left to the next read
+     */
+    private void readCsvByPosition(FileOffset fileOffset,
+                                   TapTable tapTable,
+                                   int eventBatchSize,
+                                   BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer,
+                                   AtomicReference<List<TapEvent>> tapEvents,
+                                   boolean offStandard,
+                                   boolean complete) throws Exception {
+        Map<String, String> dataTypeMap = tapTable.getNameFieldMap().entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, v -> v.getValue().getDataType()));
+        TapFile tapFile = storage.getFile(fileOffset.getPath());
+        long dataPosition = fileOffset.getDataPosition();
+        //the file has been read to the end by the offset
+        if (dataPosition > 0 && EmptyKit.isNotNull(tapFile.getLength()) && dataPosition >= tapFile.getLength()) {
+            return;
+        }
+        long lastModified = tapFile.getLastModified();
+        Charset charset = Charset.forName(fileConfig.getFileEncoding());
+        CSVParser csvParser = new CustomCsvParser(((CsvConfig) fileConfig).getSeparator().charAt(0));
+        CsvRecordReader recordReader = offStandard ? reader -> offStandardFilter.filter(reader.readLine()) : reader -> readCsvRecord(reader, csvParser, complete);
+        //off-standard csv skips raw lines, which may not match the line expression
+        CsvRecordReader skipReader = offStandard ? reader -> (null == reader.readLine() ? null : new String[0]) : recordReader;
+        //a part of a split file starts at any byte, the line across its start belongs to the previous part
+        boolean alignLine = dataPosition > 0 && fileOffset.getDataEndPosition() > 0;
+        long readPosition = alignLine ? dataPosition - 1 : dataPosition;
+        boolean rangeRead = readPosition > 0 && storage instanceof RangeFileStorage;
+        AtomicReference<String[]> headers = new AtomicReference<>();
+        storage.readFile(fileOffset.getPath(), is -> {
+            try (
+                    PositionLineReader reader = new PositionLineReader(is, charset, 0, complete)
+            ) {
+                int skip = 0;
+                if (EmptyKit.isNotBlank(fileConfig.getHeader())) {
+                    headers.set(fileConfig.getHeader().split(","));
+                } else if (fileConfig.getHeaderLine() > 0) {
+                    skip = fileConfig.getHeaderLine() - 1;
+                    skipRecords(reader, skipReader, skip);
+                    headers.set(recordReader.read(reader));
+                } else {
+                    skip = fileConfig.getDataStartLine() - 1;
+                    skipRecords(reader, skipReader, skip);
+                    String[] data = recordReader.read(reader);
+                    String[] columns = new String[data.length];
+                    for (int j = 0; j < columns.length; j++) {
+                        columns[j] = "column" + (j + 1);
+                    }
+                    headers.set(columns);
+                }
+                if (rangeRead || EmptyKit.isEmpty(headers.get())) {
+                    return;
+                }
+                if (dataPosition > 0) {
+                    reader.skipTo(readPosition);
+                    if (alignLine && reader.getPosition() == readPosition) {
+                        reader.readLine();
+                    }
+                } else {
+                    //lines before headers are counted into dataLine by off-standard csv only
+                    skipRecords(reader, skipReader, fileOffset.getDataLine() - 2 - (offStandard ? skip : 0));
+                }
+                readCsvRecords(reader, recordReader, headers.get(), dataTypeMap, lastModified, fileOffset, tapTable, eventBatchSize, eventsOffsetConsumer, tapEvents);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        if (rangeRead && EmptyKit.isNotEmpty(headers.get())) {
+            ((RangeFileStorage) storage).readFile(fileOffset.getPath(), readPosition, is -> {
+                try (
+                        PositionLineReader reader = new PositionLineReader(is, charset, readPosition, complete)
+                ) {
+                    if (alignLine) {
+                        reader.readLine();
+                    }
+                    readCsvRecords(reader, recordReader, headers.get(), dataTypeMap, lastModified, fileOffset, tapTable, eventBatchSize, eventsOffsetConsumer, tapEvents);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        }
+    }
+
+    private void readCsvRecords(PositionLineReader reader,
+                                CsvRecordReader recordReader,
+                                String[] headers,
+                                Map<String, String> dataTypeMap,
+                                long lastModified,
+                                FileOffset fileOffset,
+                                TapTable tapTable,
+                                int eventBatchSize,
+                                BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer,
+                                AtomicReference<List<TapEvent>> tapEvents) throws IOException {
+        String[] data;
+        int blankSkip = 0;
+        long endPosition = fileOffset.getDataEndPosition();
+        //lines of a record held back at the end are consumed, so the position is kept at the end of the last record
+        long recordEnd = reader.getPosition();
+        while (isAlive() && (endPosition <= 0 || reader.getPosition() < endPosition) && (data = recordReader.read(reader)) != null) {
+            recordEnd = reader.getPosition();
+            Map<String, Object> after = new HashMap<>();
+            putIntoMap(after, headers, data, dataTypeMap);
+            if (after.entrySet().stream().allMatch(v -> EmptyKit.isNull(v.getValue()))) {
+                blankSkip++;
+                continue;
+            }
+            tapEvents.get().add(insertRecordEvent(after, tapTable.getId()).referenceTime(lastModified));
+            if (tapEvents.get().size() == eventBatchSize) {
+                fileOffset.setDataLine(fileOffset.getDataLine() + eventBatchSize + blankSkip);
+                fileOffset.setDataPosition(recordEnd);
+                blankSkip = 0;
+                eventsOffsetConsumer.accept(tapEvents.get(), fileOffset);
+                tapEvents.set(list());
+            }
+        }
+        //records left are emitted with this offset by the caller
+        fileOffset.setDataPosition(recordEnd);
+    }
+
+    private void skipRecords(PositionLineReader reader, CsvRecordReader recordReader, int skip) throws IOException {
+        while (skip > 0 && null != recordReader.read(reader)) {
+            skip--;
+        }
+    }
+
+    //same as CSVReader.readNext, lines are joined until the quoted field is closed
+    //a record unterminated at the end of a file being appended is held back, and the rest of it is read next time
+    private String[] readCsvRecord(PositionLineReader reader, CSVParser csvParser, boolean complete) throws IOException {
+        String[] record = null;
+        do {
+            String line = reader.readLine();
+            if (null == line) {
+                if (csvParser.isPending()) {
+                    if (!complete) {
+                        return null;
+                    }
+                    throw new IOException("Unterminated quoted field at the end of file");
+                }
+                return record;
+            }
+            String[] fields = csvParser.parseLineMulti(line);
+            if (null == record) {
+                record = fields;
+            } else {
+                String[] joined = new String[record.length + fields.length];
+                System.arraycopy(record, 0, joined, 0, record.length);
+                System.arraycopy(fields, 0, joined, record.length, fields.length);
+                record = joined;
+            }
+        } while (csvParser.isPending());
+        return record;
+    }
+
+    private interface CsvRecordReader {
+        String[] read(PositionLineReader reader) throws IOException;
+    }
+
     private void readStandardCsv(FileOffset fileOffset,
                                  TapTable tapTable,
                                  int eventBatchSize,
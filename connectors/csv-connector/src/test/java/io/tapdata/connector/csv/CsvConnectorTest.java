@@ -0,0 +1,125 @@
+package io.tapdata.connector.csv;
+
+import com.opencsv.CSVParser;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.CustomCsvParser;
+import io.tapdata.common.util.PositionLineReader;
+import io.tapdata.connector.csv.config.CsvConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CsvConnectorTest {
+
+    CsvConnector csvConnector;
+    CsvConfig csvConfig;
+
+    @BeforeEach
+    void beforeEach() {
+        csvConnector = new CsvConnector();
+        csvConfig = new CsvConfig();
+        csvConfig.setFileEncoding("UTF-8");
+        ReflectionTestUtils.setField(csvConnector, "fileConfig", csvConfig);
+    }
+
+    private List<String[]> readByOpenCsv(String text) throws Exception {
+        List<String[]> records = new ArrayList<>();
+        try (
+                CSVReader csvReader = new CSVReaderBuilder(new StringReader(text)).withCSVParser(new CustomCsvParser(',')).build()
+        ) {
+            String[] record;
+            while ((record = csvReader.readNext()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    private List<String[]> readByPosition(PositionLineReader reader, boolean complete) {
+        CSVParser csvParser = new CustomCsvParser(',');
+        List<String[]> records = new ArrayList<>();
+        String[] record;
+        while ((record = ReflectionTestUtils.invokeMethod(csvConnector, "readCsvRecord", reader, csvParser, complete)) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    private PositionLineReader reader(String text, boolean complete) {
+        return new PositionLineReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8, 0, complete);
+    }
+
+    private void assertParity(String text) throws Exception {
+        List<String[]> expected = readByOpenCsv(text);
+        List<String[]> actual = readByPosition(reader(text, true), true);
+        Assertions.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assertions.assertArrayEquals(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Nested
+    class ReadCsvRecordTest {
+        @Test
+        void testSimpleLines() throws Exception {
+            assertParity("id,name\n1,a\r\n2,中文\n\n3,c");
+        }
+
+        @Test
+        void testQuotedFields() throws Exception {
+            assertParity("1,\"a,b\",\"say \"\"hi\"\"\"\n2,\"\",x\n");
+        }
+
+        @Test
+        void testMultiLineQuotedFields() throws Exception {
+            assertParity("1,\"line1\nline2\r\nline3\",end\n2,\"\n\",x\n3,last");
+        }
+
+        @Test
+        void testUnterminatedQuoteOfCompleteFile() {
+            String text = "1,a\n2,\"open\nnever closed";
+            Assertions.assertThrows(IOException.class, () -> readByOpenCsv(text));
+            Assertions.assertThrows(RuntimeException.class, () -> readByPosition(reader(text, true), true));
+        }
+
+        @Test
+        void testHoldBackOfAppendingFile() {
+            PositionLineReader reader = reader("1,a\n2,\"open\nstill", false);
+            List<String[]> records = readByPosition(reader, false);
+            Assertions.assertEquals(1, records.size());
+            Assertions.assertArrayEquals(new String[]{"1", "a"}, records.get(0));
+        }
+    }
+
+    @Nested
+    class SupportReadTest {
+        @Test
+        void testOnlyAppendOnly() {
+            Assertions.assertFalse(csvConnector.supportPositionRead());
+            csvConfig.setAppendOnly(true);
+            Assertions.assertTrue(csvConnector.supportPositionRead());
+            csvConfig.setFileEncoding("UTF-16");
+            Assertions.assertFalse(csvConnector.supportPositionRead());
+        }
+
+        @Test
+        void testSplitOnlyOffStandard() {
+            csvConfig.setOffStandard(false);
+            Assertions.assertFalse(csvConnector.supportSplitRead());
+            csvConfig.setOffStandard(true);
+            Assertions.assertTrue(csvConnector.supportSplitRead());
+            csvConfig.setFileEncoding("UTF-16");
+            Assertions.assertFalse(csvConnector.supportSplitRead());
+        }
+    }
+}
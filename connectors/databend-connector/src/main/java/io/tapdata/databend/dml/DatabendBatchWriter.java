@@ -1,6 +1,9 @@
 package io.tapdata.databend.dml;
 
+import io.tapdata.common.CommonDbConfig;
+import io.tapdata.common.dml.BulkInsertModeEnum;
 import io.tapdata.databend.DatabendJdbcContext;
+import io.tapdata.databend.config.DatabendConfig;
 import io.tapdata.databend.util.JdbcUtil;
 import io.tapdata.entity.event.dml.TapRecordEvent;
 import io.tapdata.entity.logger.TapLogger;
@@ -34,6 +37,10 @@ public class DatabendBatchWriter implements IPartitionsWriter<DatabendJdbcContex
             TapTableWriter writer = writerMap.get(partition);
             if (null == writer) {
                 writer = new TapTableWriter(connectorTag, jdbcContext.getConnection(), jdbcContext.getConfig().getDatabase(), isRunning, insertPolicy, updatePolicy);
+                CommonDbConfig config = jdbcContext.getConfig();
+                if (Boolean.TRUE.equals(config.getEnableFileInput()) || BulkInsertModeEnum.COPY.getModeName().equalsIgnoreCase(config.getBulkInsertMode())) {
+                    writer.streamLoad(new DatabendStreamLoader((DatabendConfig) config), config.getWriteBatchSize(), config.getWriteBatchBytes());
+                }
                 writerMap.put(partition, writer);
             }
             return writer;
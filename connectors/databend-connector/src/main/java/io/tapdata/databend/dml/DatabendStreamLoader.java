@@ -0,0 +1,95 @@
+package io.tapdata.databend.dml;
+
+import io.tapdata.databend.config.DatabendConfig;
+import io.tapdata.entity.logger.TapLogger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static io.tapdata.entity.simplify.TapSimplify.fromJson;
+
+/**
+ * load NDJSON rows by streaming load api of databend, one http request for a batch instead of binding every row
+ * the api is served by the same http handler as jdbc (port 8000 by default)
+ */
+public class DatabendStreamLoader {
+
+    private static final String TAG = DatabendStreamLoader.class.getSimpleName();
+    private static final String STREAMING_LOAD_PATH = "/v1/streaming_load";
+    private final String loadUrl;
+    private final String authorization;
+    private final String database;
+
+    public DatabendStreamLoader(DatabendConfig databendConfig) {
+        this.loadUrl = (Boolean.TRUE.equals(databendConfig.getUseSSL()) ? "https://" : "http://") + databendConfig.getHost() + ":" + databendConfig.getPort() + STREAMING_LOAD_PATH;
+        String password = null == databendConfig.getPassword() ? "" : databendConfig.getPassword();
+        this.authorization = "Basic " + Base64.getEncoder().encodeToString((databendConfig.getUser() + ":" + password).getBytes(StandardCharsets.UTF_8));
+        this.database = databendConfig.getDatabase();
+    }
+
+    public void load(String tableId, List<String> columns, ByteArrayOutputStream ndjson) throws SQLException {
+        String insertSql = "INSERT INTO " + TapTableWriter.sqlQuota(".", database, tableId) + " (" +
+                columns.stream().map(TapTableWriter::sqlQuota).collect(Collectors.joining(",")) + ") FILE_FORMAT = (type = NDJSON)";
+        String boundary = "----tapdata" + UUID.randomUUID().toString().replace("-", "");
+        HttpURLConnection httpConnection = null;
+        try {
+            httpConnection = (HttpURLConnection) new URL(loadUrl).openConnection();
+            httpConnection.setRequestMethod("PUT");
+            httpConnection.setDoOutput(true);
+            httpConnection.setRequestProperty("Authorization", authorization);
+            httpConnection.setRequestProperty("insert_sql", insertSql);
+            httpConnection.setRequestProperty("Content-Type", "multipart/form-data; boundary=" + boundary);
+            byte[] head = ("--" + boundary + "\r\nContent-Disposition: form-data; name=\"upload\"; filename=\"" + tableId + ".ndjson\"\r\n" +
+                    "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.UTF_8);
+            byte[] tail = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8);
+            httpConnection.setFixedLengthStreamingMode((long) head.length + ndjson.size() + tail.length);
+            try (OutputStream outputStream = httpConnection.getOutputStream()) {
+                outputStream.write(head);
+                ndjson.writeTo(outputStream);
+                outputStream.write(tail);
+            }
+            int statusCode = httpConnection.getResponseCode();
+            String response = readResponse(statusCode < 400 ? httpConnection.getInputStream() : httpConnection.getErrorStream());
+            if (statusCode != HttpURLConnection.HTTP_OK) {
+                throw new SQLException("Stream load " + tableId + " failed, http status: " + statusCode + ", response: " + response);
+            }
+            Object result = fromJson(response);
+            if (result instanceof Map && null != ((Map<?, ?>) result).get("error")) {
+                throw new SQLException("Stream load " + tableId + " failed, response: " + response);
+            }
+            TapLogger.debug(TAG, "Stream load {} succeed, response: {}", tableId, response);
+        } catch (IOException e) {
+            throw new SQLException("Stream load " + tableId + " failed: " + e.getMessage(), e);
+        } finally {
+            if (null != httpConnection) {
+                httpConnection.disconnect();
+            }
+        }
+    }
+
+    private String readResponse(InputStream inputStream) throws IOException {
+        if (null == inputStream) {
+            return "";
+        }
+        try (InputStream in = inputStream) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] bytes = new byte[4096];
+            int length;
+            while ((length = in.read(bytes)) != -1) {
+                outputStream.write(bytes, 0, length);
+            }
+            return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
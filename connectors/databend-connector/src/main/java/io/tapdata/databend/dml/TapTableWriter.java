@@ -11,13 +11,14 @@ import io.tapdata.entity.schema.TapTable;
 import io.tapdata.pdk.apis.entity.WriteListResult;
 import org.apache.commons.collections4.CollectionUtils;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
-import java.util.Collection;
-import java.util.LinkedHashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 import java.util.function.Supplier;
 
+import static io.tapdata.entity.simplify.TapSimplify.toJson;
+
 /**
  * @author <a href="mailto:hantmac@outlook.com">hantmac</a>
  * @version v1.0 2023/01/30 16:46 Create
@@ -40,6 +41,11 @@ public class TapTableWriter implements IWriter<TapRecordEvent, WriteListResult<T
     protected int batchCounts = 0;
     protected int batchLimit = 1000;
     protected boolean optimizeTable = true;
+    protected DatabendStreamLoader streamLoader;
+    protected final ByteArrayOutputStream streamBuffer = new ByteArrayOutputStream();
+    protected long streamBufferLimit;
+    protected String streamTableId;
+    protected List<String> streamColumns;
 
     public TapTableWriter(String connectorTag, Connection connection, String database, Supplier<Boolean> isRunning, String insertPolicy, String updatePolicy) {
         this.connectorTag = connectorTag;
@@ -50,6 +56,14 @@ public class TapTableWriter implements IWriter<TapRecordEvent, WriteListResult<T
         this.updatePolicy = updatePolicy;
     }
 
+    //inserts are loaded as NDJSON by streaming load, updates and deletes are still executed by jdbc
+    public TapTableWriter streamLoad(DatabendStreamLoader streamLoader, int batchLimit, long streamBufferLimit) {
+        this.streamLoader = streamLoader;
+        this.batchLimit = batchLimit;
+        this.streamBufferLimit = streamBufferLimit;
+        return this;
+    }
+
     public void optimizeTable(TapTable tapTable) throws SQLException {
         if (optimizeTable) {
             try (Statement s = connection.createStatement()) {
@@ -86,6 +100,14 @@ public class TapTableWriter implements IWriter<TapRecordEvent, WriteListResult<T
                 } else if (insertRecordEvent.getAfter().isEmpty()) {
                     throw new RuntimeException("Record event after data is empty: " + insertRecordEvent);
                 }
+                if (null != streamLoader) {
+                    lastStatement = null;
+                    doStreamInsert(tapTable, insertRecordEvent.getAfter());
+                    if (streamBuffer.size() >= streamBufferLimit) {
+                        summit(writeListResult);
+                    }
+                    break;
+                }
                 lastStatement = getInsertStatement(tapTable, statementKey, insertRecordEvent.getAfter());
                 doInsert(insertRecordEvent.getAfter());
                 break;
@@ -125,9 +147,19 @@ public class TapTableWriter implements IWriter<TapRecordEvent, WriteListResult<T
 
     @Override
     public void summit(WriteListResult<TapRecordEvent> result) throws Exception {
-        if (batchCounts > 0 && null != lastStatementType && null != lastStatementKey && null != lastStatement) {
+        boolean streamInsert = Type.Insert == lastStatementType && null != streamLoader;
+        if (batchCounts > 0 && null != lastStatementType && null != lastStatementKey && (null != lastStatement || streamInsert)) {
             for (int i = 1; i < 4 && isRunning.get(); i++) {
                 try {
+                    if (streamInsert) {
+                        //the load is not idempotent, never run it again after success
+                        try {
+                            streamLoader.load(streamTableId, streamColumns, streamBuffer);
+                        } finally {
+                            streamBuffer.reset();
+                        }
+                        break;
+                    }
                     switch (lastStatementType) {
                         case Insert:
                             lastStatement.executeBatch();
@@ -223,6 +255,30 @@ public class TapTableWriter implements IWriter<TapRecordEvent, WriteListResult<T
         lastStatement.addBatch();
     }
 
+    protected void doStreamInsert(TapTable tapTable, Map<String, Object> afterData) {
+        //same statement key means the same table and columns, they are kept until summit
+        if (streamBuffer.size() == 0) {
+            streamTableId = tapTable.getId();
+            streamColumns = new ArrayList<>(afterData.keySet());
+        }
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (String field : streamColumns) {
+            Object value = afterData.get(field);
+            //formatted as jdbc does, or they are serialized as epoch millis
+            if (value instanceof Timestamp || value instanceof java.sql.Date) {
+                value = value.toString();
+            } else if (value instanceof java.util.Date) {
+                value = new Timestamp(((java.util.Date) value).getTime()).toString();
+            } else if (value instanceof java.time.temporal.Temporal) {
+                value = value.toString();
+            }
+            row.put(field, value);
+        }
+        byte[] line = toJson(row).getBytes(StandardCharsets.UTF_8);
+        streamBuffer.write(line, 0, line.length);
+        streamBuffer.write('\n');
+    }
+
     protected void doUpdate(LinkedHashSet<String> uniqueCondition, TapUpdateRecordEvent event) throws Exception {
         // Not all sources can provide Before data and need to be compatible
         Map<String, Object> beforeData = event.getBefore();
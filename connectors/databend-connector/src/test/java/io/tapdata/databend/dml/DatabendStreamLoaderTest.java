@@ -0,0 +1,134 @@
+package io.tapdata.databend.dml;
+
+import com.sun.net.httpserver.HttpServer;
+import io.tapdata.databend.config.DatabendConfig;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.pdk.apis.entity.ConnectionOptions;
+import io.tapdata.pdk.apis.entity.WriteListResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.tapdata.entity.simplify.TapSimplify.entry;
+import static io.tapdata.entity.simplify.TapSimplify.map;
+
+public class DatabendStreamLoaderTest {
+
+    HttpServer httpServer;
+    DatabendStreamLoader streamLoader;
+    AtomicReference<String> insertSql;
+    AtomicReference<String> authorization;
+    AtomicReference<String> body;
+    AtomicInteger status;
+    AtomicReference<String> response;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        insertSql = new AtomicReference<>();
+        authorization = new AtomicReference<>();
+        body = new AtomicReference<>();
+        status = new AtomicInteger(200);
+        response = new AtomicReference<>("{\"id\":\"1\",\"stats\":{\"rows\":2,\"bytes\":30}}");
+        httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        httpServer.createContext("/v1/streaming_load", exchange -> {
+            insertSql.set(exchange.getRequestHeaders().getFirst("insert_sql"));
+            authorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+            body.set(read(exchange.getRequestBody()));
+            byte[] bytes = response.get().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status.get(), bytes.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(bytes);
+            }
+        });
+        httpServer.start();
+        DatabendConfig databendConfig = new DatabendConfig();
+        databendConfig.setHost("127.0.0.1");
+        databendConfig.setPort(httpServer.getAddress().getPort());
+        databendConfig.setUser("root");
+        databendConfig.setPassword("pwd");
+        databendConfig.setDatabase("db");
+        streamLoader = new DatabendStreamLoader(databendConfig);
+    }
+
+    @AfterEach
+    void afterEach() {
+        httpServer.stop(0);
+    }
+
+    private static String read(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] bytes = new byte[4096];
+        int length;
+        while ((length = inputStream.read(bytes)) != -1) {
+            outputStream.write(bytes, 0, length);
+        }
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private ByteArrayOutputStream ndjson(String... lines) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        for (String line : lines) {
+            outputStream.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        return outputStream;
+    }
+
+    @Test
+    void testLoad() throws Exception {
+        streamLoader.load("t", Arrays.asList("id", "name"), ndjson("{\"id\":1,\"name\":\"a\"}", "{\"id\":2,\"name\":\"中文\"}"));
+        Assertions.assertEquals("INSERT INTO `db`.`t` (`id`,`name`) FILE_FORMAT = (type = NDJSON)", insertSql.get());
+        Assertions.assertEquals("Basic " + Base64.getEncoder().encodeToString("root:pwd".getBytes(StandardCharsets.UTF_8)), authorization.get());
+        Assertions.assertTrue(body.get().contains("filename=\"t.ndjson\""));
+        Assertions.assertTrue(body.get().contains("{\"id\":1,\"name\":\"a\"}\n{\"id\":2,\"name\":\"中文\"}\n"));
+    }
+
+    @Test
+    void testHttpError() {
+        status.set(400);
+        response.set("{\"error\":{\"code\":\"400\",\"message\":\"bad data\"}}");
+        SQLException exception = Assertions.assertThrows(SQLException.class, () -> streamLoader.load("t", Arrays.asList("id"), ndjson("{\"id\":1}")));
+        Assertions.assertTrue(exception.getMessage().contains("bad data"));
+    }
+
+    @Test
+    void testErrorInResponse() {
+        response.set("{\"error\":\"column id is not nullable\"}");
+        SQLException exception = Assertions.assertThrows(SQLException.class, () -> streamLoader.load("t", Arrays.asList("id"), ndjson("{\"id\":null}")));
+        Assertions.assertTrue(exception.getMessage().contains("not nullable"));
+    }
+
+    @Test
+    void testRoundTripByTableWriter() throws Exception {
+        TapTable tapTable = new TapTable("t");
+        tapTable.add(new TapField("id", "INT").primaryKeyPos(1));
+        tapTable.add(new TapField("ts", "TIMESTAMP"));
+        TapTableWriter tableWriter = new TapTableWriter("databend", null, "db", () -> true,
+                ConnectionOptions.DML_INSERT_POLICY_UPDATE_ON_EXISTS, ConnectionOptions.DML_UPDATE_POLICY_IGNORE_ON_NON_EXISTS)
+                .streamLoad(streamLoader, 1000, 1024 * 1024L);
+        WriteListResult<TapRecordEvent> listResult = new WriteListResult<>();
+        tableWriter.addBath(tapTable, new TapInsertRecordEvent().init().table("t").after(map(entry("id", 1), entry("ts", LocalDateTime.of(2024, 1, 2, 3, 4, 5)))), listResult);
+        tableWriter.addBath(tapTable, new TapInsertRecordEvent().init().table("t").after(map(entry("id", 2), entry("ts", Timestamp.valueOf("2024-01-02 03:04:05.1")))), listResult);
+        tableWriter.summit(listResult);
+        Assertions.assertEquals("INSERT INTO `db`.`t` (`id`,`ts`) FILE_FORMAT = (type = NDJSON)", insertSql.get());
+        Assertions.assertTrue(body.get().contains("{\"id\":1,\"ts\":\"2024-01-02T03:04:05\"}\n{\"id\":2,\"ts\":\"2024-01-02 03:04:05.1\"}\n"));
+        Assertions.assertEquals(2, listResult.getInsertedCount());
+    }
+}
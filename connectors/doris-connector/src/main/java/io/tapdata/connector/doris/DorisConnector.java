@@ -4,6 +4,7 @@ import io.tapdata.common.CommonDbConnector;
 import io.tapdata.common.SqlExecuteCommandFunction;
 import io.tapdata.connector.doris.bean.DorisConfig;
 import io.tapdata.connector.doris.ddl.DorisDDLSqlGenerator;
+import io.tapdata.connector.doris.streamload.DirectBufferPool;
 import io.tapdata.connector.doris.streamload.DorisStreamLoader;
 import io.tapdata.connector.doris.streamload.DorisTableType;
 import io.tapdata.connector.doris.streamload.HttpUtil;
@@ -44,7 +45,10 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -58,6 +62,9 @@ public class DorisConnector extends CommonDbConnector {
     private DorisJdbcContext dorisJdbcContext;
     private DorisConfig dorisConfig;
     private final Map<String, DorisStreamLoader> dorisStreamLoaderMap = new ConcurrentHashMap<>();
+    //shared by stream loaders of all write threads, bound the direct memory and concurrent loads of the connector
+    private DirectBufferPool loadBufferPool;
+    private ExecutorService loadExecutorService;
 
 
     @Override
@@ -186,7 +193,13 @@ public class DorisConnector extends CommonDbConnector {
             } else {
                 httpClient = new HttpUtil().getHttpClient();
             }
-            DorisStreamLoader dorisStreamLoader = new DorisStreamLoader(context, httpClient);
+            synchronized (this) {
+                if (null == loadBufferPool) {
+                    loadBufferPool = new DirectBufferPool(DorisStreamLoader.bufferSize(dorisConfig), dorisConfig.getLoadBufferCount());
+                    loadExecutorService = Executors.newCachedThreadPool();
+                }
+            }
+            DorisStreamLoader dorisStreamLoader = new DorisStreamLoader(context, httpClient, loadBufferPool, loadExecutorService);
             dorisStreamLoaderMap.put(threadName, dorisStreamLoader);
         }
         return dorisStreamLoaderMap.get(threadName);
@@ -347,6 +360,8 @@ public class DorisConnector extends CommonDbConnector {
                 }
             }
         });
+        Optional.ofNullable(loadExecutorService).ifPresent(ExecutorService::shutdownNow);
+        Optional.ofNullable(loadBufferPool).ifPresent(DirectBufferPool::clear);
         EmptyKit.closeQuietly(dorisJdbcContext);
     }
 
@@ -27,6 +27,10 @@ public class DorisConfig extends CommonDbConfig {
     private Boolean useHTTPS =false;
 
     private Integer backendNum;
+    private Integer streamLoadConcurrency = 2;
+    private Integer loadBufferCount = 8;
+    private Integer flushRowLimit = 500000;
+    private Long flushIntervalMs = 5000L;
 
     //customize
     public DorisConfig() {
@@ -125,6 +129,38 @@ public class DorisConfig extends CommonDbConfig {
         this.backendNum = backendNum;
     }
 
+    public Integer getStreamLoadConcurrency() {
+        return streamLoadConcurrency;
+    }
+
+    public void setStreamLoadConcurrency(Integer streamLoadConcurrency) {
+        this.streamLoadConcurrency = streamLoadConcurrency;
+    }
+
+    public Integer getLoadBufferCount() {
+        return loadBufferCount;
+    }
+
+    public void setLoadBufferCount(Integer loadBufferCount) {
+        this.loadBufferCount = loadBufferCount;
+    }
+
+    public Integer getFlushRowLimit() {
+        return flushRowLimit;
+    }
+
+    public void setFlushRowLimit(Integer flushRowLimit) {
+        this.flushRowLimit = flushRowLimit;
+    }
+
+    public Long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    public void setFlushIntervalMs(Long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
     public Boolean getUseHTTPS() {
         return useHTTPS;
     }
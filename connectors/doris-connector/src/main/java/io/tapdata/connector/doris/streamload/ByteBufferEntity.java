@@ -0,0 +1,68 @@
+package io.tapdata.connector.doris.streamload;
+
+import org.apache.http.entity.AbstractHttpEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * repeatable entity over a flipped (direct) buffer, so that the body can be sent again when fe redirects to be
+ */
+public class ByteBufferEntity extends AbstractHttpEntity {
+
+    private final ByteBuffer buffer;
+
+    public ByteBufferEntity(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public InputStream getContent() {
+        ByteBuffer content = buffer.duplicate();
+        return new InputStream() {
+            @Override
+            public int read() {
+                return content.hasRemaining() ? content.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (!content.hasRemaining()) {
+                    return -1;
+                }
+                int length = Math.min(len, content.remaining());
+                content.get(b, off, length);
+                return length;
+            }
+        };
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        ByteBuffer content = buffer.duplicate();
+        WritableByteChannel channel = Channels.newChannel(outputStream);
+        while (content.hasRemaining()) {
+            channel.write(content);
+        }
+        outputStream.flush();
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+}
@@ -0,0 +1,62 @@
+package io.tapdata.connector.doris.streamload;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * direct buffers shared by all stream loaders of one connector, at most bufferCount buffers are allocated
+ * when all buffers are in use, acquire waits until some load is finished and returns null after the timeout
+ */
+public class DirectBufferPool {
+
+    private final int bufferSize;
+    private final int bufferCount;
+    private final AtomicInteger allocated = new AtomicInteger(0);
+    private final BlockingQueue<ByteBuffer> idleBuffers;
+
+    public DirectBufferPool(int bufferSize, int bufferCount) {
+        this.bufferSize = bufferSize;
+        this.bufferCount = Math.max(1, bufferCount);
+        this.idleBuffers = new ArrayBlockingQueue<>(this.bufferCount);
+    }
+
+    /**
+     * @return a cleared buffer, null if none is released in timeoutMs
+     */
+    public ByteBuffer acquire(long timeoutMs) throws InterruptedException {
+        ByteBuffer buffer = idleBuffers.poll();
+        if (null != buffer) {
+            return buffer;
+        }
+        if (allocated.incrementAndGet() <= bufferCount) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        allocated.decrementAndGet();
+        return timeoutMs <= 0 ? null : idleBuffers.poll(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    //buffers not allocated by this pool (oversized records) are dropped
+    public void release(ByteBuffer buffer) {
+        if (null == buffer || !buffer.isDirect() || buffer.capacity() != bufferSize) {
+            return;
+        }
+        buffer.clear();
+        idleBuffers.offer(buffer);
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public int getBufferCount() {
+        return bufferCount;
+    }
+
+    public void clear() {
+        idleBuffers.clear();
+        allocated.set(0);
+    }
+}
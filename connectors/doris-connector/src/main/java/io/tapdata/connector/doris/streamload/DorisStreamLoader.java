@@ -1,7 +1,7 @@
 package io.tapdata.connector.doris.streamload;
 
-import cn.hutool.http.HttpInputStream;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.tapdata.common.dml.RecordKeyExtractor;
 import io.tapdata.connector.doris.DorisJdbcContext;
 import io.tapdata.connector.doris.bean.DorisConfig;
 import io.tapdata.connector.doris.streamload.exception.DorisRetryableException;
@@ -20,21 +20,25 @@ import org.apache.commons.collections4.CollectionUtils;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPut;
-import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.util.EntityUtils;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.net.URI;
+import java.nio.ByteBuffer;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 
 import static io.tapdata.base.ConnectorBase.writeListResult;
 
 /**
+ * events are routed to lanes by primary key, every lane serializes into its own buffer and keeps one stream load in flight
+ * so serialization overlaps with uploads, and lanes of one table load concurrently without reordering the same key
+ * a lane is flushed by bytes (buffer is full), rows or age, all loads are finished before the results are returned
+ * the age of every lane is checked after each event, so a lane receiving no more events is still flushed in time
+ *
  * @author jarad
  * @date 7/14/22
  */
@@ -45,38 +49,55 @@ public class DorisStreamLoader {
     private static final String HTTPS_LOAD_URL_PATTERN = "https://%s/api/%s/%s/_stream_load";
     private static final String HTTP_LOAD_URL_PATTERN = "http://%s/api/%s/%s/_stream_load";
     private static final String LABEL_PREFIX_PATTERN = "tapdata_%s_%s";
+    private static final long BUFFER_ACQUIRE_TIMEOUT_MS = 60000L;
 
     private final DorisConfig dorisConfig;
     private final CloseableHttpClient httpClient;
-    private final RecordStream recordStream;
+    private final DirectBufferPool bufferPool;
+    private final ExecutorService loadExecutor;
+    private final boolean ownLoadResource;
+    private final LoadLane[] lanes;
+    private final int flushRowLimit;
+    private final long flushIntervalMs;
 
-    private boolean loadBatchFirstRecord;
-    private AtomicInteger lastEventFlag;
-    private final AtomicReference<Set<String>> dataColumns;
     private MessageSerializer messageSerializer;
     private TapTable tapTable;
-    private final Metrics metrics;
 
     public DorisStreamLoader(DorisJdbcContext dorisJdbcContext, CloseableHttpClient httpClient) {
+        this(dorisJdbcContext, httpClient, null, null);
+    }
+
+    /**
+     * @param bufferPool   shared by the loaders of all write threads, null to use a private pool
+     * @param loadExecutor runs stream loads of all lanes, null to use a private executor
+     */
+    public DorisStreamLoader(DorisJdbcContext dorisJdbcContext, CloseableHttpClient httpClient, DirectBufferPool bufferPool, ExecutorService loadExecutor) {
         this.dorisConfig = (DorisConfig) dorisJdbcContext.getConfig();
         this.httpClient = httpClient;
+        this.ownLoadResource = null == bufferPool || null == loadExecutor;
+        this.bufferPool = null == bufferPool ? new DirectBufferPool(bufferSize(dorisConfig), Constants.CACHE_BUFFER_COUNT) : bufferPool;
+        this.loadExecutor = null == loadExecutor ? Executors.newCachedThreadPool() : loadExecutor;
+        int concurrency = null == dorisConfig.getStreamLoadConcurrency() ? 1 : Math.max(1, dorisConfig.getStreamLoadConcurrency());
+        this.lanes = new LoadLane[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            lanes[i] = new LoadLane();
+        }
+        this.flushRowLimit = null == dorisConfig.getFlushRowLimit() ? Integer.MAX_VALUE : dorisConfig.getFlushRowLimit();
+        this.flushIntervalMs = null == dorisConfig.getFlushIntervalMs() ? Long.MAX_VALUE : dorisConfig.getFlushIntervalMs();
+        initMessageSerializer();
+    }
+
+    public static int bufferSize(DorisConfig dorisConfig) {
         Integer writeByteBufferCapacity = dorisConfig.getWriteByteBufferCapacity();
         if (null == writeByteBufferCapacity) {
-            writeByteBufferCapacity = Constants.CACHE_BUFFER_SIZE;
-        } else {
-            writeByteBufferCapacity = writeByteBufferCapacity * 1024;
+            return Constants.CACHE_BUFFER_SIZE;
         }
-        this.recordStream = new RecordStream(writeByteBufferCapacity, Constants.CACHE_BUFFER_COUNT);
-        this.loadBatchFirstRecord = true;
-        this.lastEventFlag = new AtomicInteger(0);
-        this.dataColumns = new AtomicReference<>();
-        initMessageSerializer();
-        this.metrics = new Metrics();
+        return writeByteBufferCapacity * 1024;
     }
 
     private void initMessageSerializer() {
         DorisConfig.WriteFormat writeFormat = dorisConfig.getWriteFormatEnum();
-        TapLogger.info(TAG, "Doris stream load run with {} format", writeFormat);
+        TapLogger.info(TAG, "Doris stream load run with {} format, {} lanes", writeFormat, lanes.length);
         switch (writeFormat) {
             case csv:
                 messageSerializer = new CsvSerializer();
@@ -93,40 +114,111 @@ public class DorisStreamLoader {
             WriteListResult<TapRecordEvent> listResult = writeListResult();
             this.tapTable = table;
             boolean isAgg = DorisTableType.Aggregate.toString().equals(dorisConfig.getUniqueKeyType());
-            for (TapRecordEvent tapRecordEvent : tapRecordEvents) {
+            int[] laneIndexes = routeLanes(tapRecordEvents, table);
+            for (int i = 0; i < tapRecordEvents.size(); i++) {
+                TapRecordEvent tapRecordEvent = tapRecordEvents.get(i);
+                LoadLane lane = lanes[laneIndexes[i]];
                 byte[] bytes = messageSerializer.serialize(table, tapRecordEvent, isAgg);
-                if (needFlush(tapRecordEvent, bytes.length, isAgg)) {
-                    flush(table, listResult);
+                if (needFlush(lane, tapRecordEvent, bytes.length, isAgg)) {
+                    flush(lane, table, listResult);
+                }
+                if (lane.lastEventFlag == 0) {
+                    startLoad(lane, tapRecordEvent, bytes.length, table, listResult);
                 }
-                if (lastEventFlag.get() == 0) {
-                    startLoad(tapRecordEvent);
+                writeRecord(lane, bytes);
+                lane.metrics.increase(tapRecordEvent);
+                if (lane.rows >= flushRowLimit) {
+                    flush(lane, table, listResult);
                 }
-                writeRecord(bytes);
-                metrics.increase(tapRecordEvent);
+                flushExpiredLanes(System.currentTimeMillis(), table, listResult);
             }
             flush(table, listResult);
             writeListResultConsumer.accept(listResult);
         } catch (Throwable e) {
-            recordStream.init();
+            resetLanes();
             throw e;
         }
     }
 
-    public void writeRecord(byte[] record) throws IOException {
-        if (loadBatchFirstRecord) {
-            loadBatchFirstRecord = false;
+    //the same key is always in the same lane, events changing key (or without key) are written by one lane
+    protected int[] routeLanes(List<TapRecordEvent> tapRecordEvents, TapTable table) {
+        int[] laneIndexes = new int[tapRecordEvents.size()];
+        if (lanes.length <= 1) {
+            return laneIndexes;
+        }
+        Collection<String> primaryKeys = table.primaryKeys(true);
+        if (CollectionUtils.isEmpty(primaryKeys)) {
+            for (int i = 0; i < laneIndexes.length; i++) {
+                laneIndexes[i] = i % lanes.length;
+            }
+            return laneIndexes;
+        }
+        RecordKeyExtractor keyExtractor = new RecordKeyExtractor(new ArrayList<>(primaryKeys));
+        for (int i = 0; i < laneIndexes.length; i++) {
+            List<Object> key = keyExtractor.getKey(tapRecordEvents.get(i));
+            if (null == key) {
+                return new int[tapRecordEvents.size()];
+            }
+            laneIndexes[i] = Math.floorMod(key.hashCode(), lanes.length);
+        }
+        return laneIndexes;
+    }
+
+    private void writeRecord(LoadLane lane, byte[] record) {
+        if (lane.loadBatchFirstRecord) {
+            lane.loadBatchFirstRecord = false;
         } else {
-            recordStream.write(messageSerializer.lineEnd());
+            lane.buffer.put(messageSerializer.lineEnd());
+        }
+        lane.buffer.put(record);
+        lane.rows++;
+    }
+
+    //lanes started earlier than flushIntervalMs are loaded, including lanes receiving no more events of this batch
+    protected void flushExpiredLanes(long now, TapTable table, WriteListResult<TapRecordEvent> listResult) throws DorisRetryableException {
+        for (LoadLane lane : lanes) {
+            if (lane.lastEventFlag > 0 && now - lane.startTime >= flushIntervalMs) {
+                flush(lane, table, listResult);
+            }
         }
-        recordStream.write(record);
     }
 
-    public void startLoad(final TapRecordEvent recordEvent) throws IOException {
-        recordStream.startInput();
-        recordStream.write(messageSerializer.batchStart());
-        lastEventFlag.set(OperationType.getOperationFlag(recordEvent));
-        dataColumns.set(getDataColumns(recordEvent));
-        loadBatchFirstRecord = true;
+    private void startLoad(LoadLane lane, final TapRecordEvent recordEvent, int length, TapTable table, WriteListResult<TapRecordEvent> listResult) throws InterruptedException, DorisRetryableException {
+        int required = messageSerializer.batchStart().length + length + messageSerializer.batchEnd().length;
+        if (bufferPool.getBufferSize() < required) {
+            //a record larger than the pooled buffer is loaded alone
+            lane.buffer = ByteBuffer.allocate(required);
+        } else {
+            lane.buffer = acquireBuffer(lane, table, listResult);
+        }
+        lane.buffer.put(messageSerializer.batchStart());
+        lane.lastEventFlag = OperationType.getOperationFlag(recordEvent);
+        lane.dataColumns = getDataColumns(recordEvent);
+        lane.loadBatchFirstRecord = true;
+        lane.rows = 0;
+        lane.startTime = System.currentTimeMillis();
+    }
+
+    //when the pool is exhausted, the other lanes of this loader are loaded first so their buffers come back
+    protected ByteBuffer acquireBuffer(LoadLane lane, TapTable table, WriteListResult<TapRecordEvent> listResult) throws InterruptedException, DorisRetryableException {
+        ByteBuffer buffer = bufferPool.acquire(0);
+        if (null != buffer) {
+            return buffer;
+        }
+        for (LoadLane other : lanes) {
+            if (other != lane) {
+                flush(other, table, listResult);
+            }
+        }
+        for (LoadLane other : lanes) {
+            waitLoad(other, listResult);
+        }
+        buffer = bufferPool.acquire(BUFFER_ACQUIRE_TIMEOUT_MS);
+        if (null == buffer) {
+            throw new DorisRuntimeException(String.format("No stream load buffer is released in %s ms, all %s buffers are in use, please increase loadBufferCount",
+                    BUFFER_ACQUIRE_TIMEOUT_MS, bufferPool.getBufferCount()));
+        }
+        return buffer;
     }
 
     private Set<String> getDataColumns(TapRecordEvent recordEvent) {
@@ -140,7 +232,7 @@ public class DorisStreamLoader {
         return Collections.emptySet();
     }
 
-    public RespContent put(final TapTable table) throws StreamLoadException, DorisRetryableException {
+    public RespContent put(final TapTable table, ByteBuffer content, Set<String> dataColumns) throws StreamLoadException, DorisRetryableException {
         DorisConfig.WriteFormat writeFormat = dorisConfig.getWriteFormatEnum();
         try {
             final String loadUrl = buildLoadUrl(dorisConfig.getDorisHttp(), dorisConfig.getDatabase(), table.getId());
@@ -148,15 +240,15 @@ public class DorisStreamLoader {
 
             String label = prefix + "-" + UUID.randomUUID();
             List<String> columns = new ArrayList<>();
-            for (String col : tapTable.getNameFieldMap().keySet()) {
-                if (dataColumns.get().contains(col) || DorisTableType.Aggregate.toString().equals(dorisConfig.getUniqueKeyType())) {
+            for (String col : table.getNameFieldMap().keySet()) {
+                if (dataColumns.contains(col) || DorisTableType.Aggregate.toString().equals(dorisConfig.getUniqueKeyType())) {
                     columns.add("`" + col + "`");
                 }
             }
             // add the DORIS_DELETE_SIGN at the end of the column
             columns.add(Constants.DORIS_DELETE_SIGN);
             HttpPutBuilder putBuilder = new HttpPutBuilder();
-            InputStreamEntity entity = new InputStreamEntity(recordStream, recordStream.getContentLength());
+            ByteBufferEntity entity = new ByteBufferEntity(content);
             entity.setContentEncoding("UTF-8");
             entity.setContentType("application/json");
             putBuilder.setUrl(loadUrl)
@@ -209,39 +301,93 @@ public class DorisStreamLoader {
         return respContent;
     }
 
-    public RespContent flush(TapTable table) throws DorisRetryableException {
-        return flush(table, null);
+    public void flush(TapTable table) throws DorisRetryableException {
+        flush(table, null);
+    }
+
+    //flush every lane and wait until all loads are finished
+    public void flush(TapTable table, WriteListResult<TapRecordEvent> listResult) throws DorisRetryableException {
+        for (LoadLane lane : lanes) {
+            flush(lane, table, listResult);
+        }
+        for (LoadLane lane : lanes) {
+            waitLoad(lane, listResult);
+        }
+    }
+
+    //the previous load of this lane must be finished first, the same key must be loaded in order
+    private void flush(LoadLane lane, TapTable table, WriteListResult<TapRecordEvent> listResult) throws DorisRetryableException {
+        // the stream is not started yet, no load to submit
+        if (lane.lastEventFlag == 0) {
+            return;
+        }
+        lane.buffer.put(messageSerializer.batchEnd());
+        lane.buffer.flip();
+        waitLoad(lane, listResult);
+        ByteBuffer content = lane.buffer;
+        Set<String> dataColumns = lane.dataColumns;
+        lane.loadingMetrics = lane.metrics;
+        lane.loadFuture = loadExecutor.submit(() -> {
+            try {
+                return put(table, content, dataColumns);
+            } finally {
+                bufferPool.release(content);
+            }
+        });
+        lane.metrics = new Metrics();
+        lane.buffer = null;
+        lane.lastEventFlag = 0;
     }
 
-    public RespContent flush(TapTable table, WriteListResult<TapRecordEvent> listResult) throws DorisRetryableException {
-        // the stream is not started yet, no response to get
-        if (lastEventFlag.get() == 0) {
-            return null;
+    private void waitLoad(LoadLane lane, WriteListResult<TapRecordEvent> listResult) throws DorisRetryableException {
+        if (null == lane.loadFuture) {
+            return;
         }
         try {
-            recordStream.write(messageSerializer.batchEnd());
-            recordStream.endInput();
-            RespContent respContent = put(table);
+            RespContent respContent = lane.loadFuture.get();
             TapLogger.info(TAG, "Execute stream load response: " + respContent);
             if (null != listResult) {
-                metrics.writeIntoResultList(listResult);
-                metrics.clear();
+                lane.loadingMetrics.writeIntoResultList(listResult);
             }
-            return respContent;
-        } catch (DorisRetryableException e) {
-            throw e;
-        } catch (Exception e) {
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DorisRetryableException) {
+                throw (DorisRetryableException) e.getCause();
+            }
+            throw new DorisRuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             throw new DorisRuntimeException(e);
         } finally {
-            lastEventFlag.set(0);
-            recordStream.setContentLength(0L);
+            lane.loadFuture = null;
+            lane.loadingMetrics = null;
+        }
+    }
+
+    //drop the unfinished batches after failure, the whole events will be retried
+    private void resetLanes() {
+        for (LoadLane lane : lanes) {
+            if (null != lane.loadFuture) {
+                try {
+                    lane.loadFuture.get();
+                } catch (Exception ignored) {
+                }
+                lane.loadFuture = null;
+            }
+            bufferPool.release(lane.buffer);
+            lane.buffer = null;
+            lane.lastEventFlag = 0;
+            lane.metrics.clear();
         }
     }
 
     public void shutdown() {
         try {
-//            this.stopLoad();
+            resetLanes();
             this.httpClient.close();
+            if (ownLoadResource) {
+                loadExecutor.shutdownNow();
+                bufferPool.clear();
+            }
         } catch (Exception ignored) {
         }
     }
@@ -257,16 +403,16 @@ public class DorisStreamLoader {
         return String.format(LABEL_PREFIX_PATTERN, Thread.currentThread().getId(), tableName);
     }
 
-    protected boolean needFlush(TapRecordEvent recordEvent, int length, boolean noNeed) {
-        int lastEventType = lastEventFlag.get();
-        return lastEventType > 0 && !getDataColumns(recordEvent).equals(dataColumns.get()) && !noNeed
-                || !recordStream.canWrite(length);
+    protected boolean needFlush(LoadLane lane, TapRecordEvent recordEvent, int length, boolean noNeed) {
+        return lane.lastEventFlag > 0 && !getDataColumns(recordEvent).equals(lane.dataColumns) && !noNeed
+                || !canWrite(lane, length);
     }
 
-    private void stopLoad() throws DorisRetryableException {
-        if (null != tapTable) {
-            flush(tapTable);
+    private boolean canWrite(LoadLane lane, int length) {
+        if (null == lane.buffer) {
+            return true;
         }
+        return lane.buffer.remaining() > length + messageSerializer.lineEnd().length + messageSerializer.batchEnd().length;
     }
 
     public enum OperationType {
@@ -295,6 +441,18 @@ public class DorisStreamLoader {
         }
     }
 
+    static class LoadLane {
+        ByteBuffer buffer;
+        int lastEventFlag;
+        Set<String> dataColumns;
+        boolean loadBatchFirstRecord;
+        int rows;
+        long startTime;
+        Metrics metrics = new Metrics();
+        Future<RespContent> loadFuture;
+        Metrics loadingMetrics;
+    }
+
     private static class Metrics {
         private long insert = 0L;
         private long update = 0L;
@@ -24,9 +24,13 @@ import java.util.concurrent.TimeUnit;
 public class HttpUtil {
     public static final int CONNECT_TIMEOUT = 5000;
     public static final int READ_TIMEOUT = 300000;
+    //lanes of stream loader put concurrently, the default 2 connections per route would serialize them
+    public static final int MAX_CONNECTIONS = 64;
     public static final String TAG = HttpUtil.class.getSimpleName();
     private final HttpClientBuilder httpClientBuilder = HttpClients
             .custom()
+            .setMaxConnPerRoute(MAX_CONNECTIONS)
+            .setMaxConnTotal(MAX_CONNECTIONS)
             .setRedirectStrategy(new DefaultRedirectStrategy() {
                 @Override
                 protected boolean isRedirectable(String method) {
@@ -44,7 +48,9 @@ public class HttpUtil {
                     .loadTrustMaterial(instance)
                     .build();
             HostnameVerifier hostnameVerifier = NoopHostnameVerifier.INSTANCE;
-            HttpClientBuilder custom = HttpClients.custom();
+            HttpClientBuilder custom = HttpClients.custom()
+                    .setMaxConnPerRoute(MAX_CONNECTIONS)
+                    .setMaxConnTotal(MAX_CONNECTIONS);
             custom.setSSLContext(sslContext);
             custom.setSSLHostnameVerifier(hostnameVerifier);
             custom.setRedirectStrategy(new LaxRedirectStrategy() {
@@ -0,0 +1,42 @@
+package io.tapdata.connector.doris.streamload;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+public class DirectBufferPoolTest {
+
+    @Test
+    void testBoundedByCount() throws InterruptedException {
+        DirectBufferPool pool = new DirectBufferPool(16, 2);
+        ByteBuffer first = pool.acquire(0);
+        ByteBuffer second = pool.acquire(0);
+        Assertions.assertTrue(first.isDirect());
+        Assertions.assertTrue(second.isDirect());
+        Assertions.assertNull(pool.acquire(0));
+        Assertions.assertNull(pool.acquire(10));
+    }
+
+    @Test
+    void testReleasedBufferReused() throws InterruptedException {
+        DirectBufferPool pool = new DirectBufferPool(16, 1);
+        ByteBuffer buffer = pool.acquire(0);
+        buffer.put((byte) 1);
+        new Thread(() -> pool.release(buffer)).start();
+        ByteBuffer reused = pool.acquire(5000);
+        Assertions.assertSame(buffer, reused);
+        Assertions.assertEquals(0, reused.position());
+    }
+
+    @Test
+    void testForeignBufferNotPooled() throws InterruptedException {
+        DirectBufferPool pool = new DirectBufferPool(16, 1);
+        ByteBuffer buffer = pool.acquire(0);
+        pool.release(ByteBuffer.allocate(16));
+        pool.release(ByteBuffer.allocateDirect(32));
+        Assertions.assertNull(pool.acquire(0));
+        pool.release(buffer);
+        Assertions.assertSame(buffer, pool.acquire(0));
+    }
+}
@@ -1,14 +1,26 @@
 package io.tapdata.connector.doris.streamload;
 
 import io.tapdata.connector.doris.bean.DorisConfig;
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
 import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapTable;
 import org.junit.jupiter.api.*;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import static io.tapdata.entity.simplify.TapSimplify.entry;
+import static io.tapdata.entity.simplify.TapSimplify.map;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -18,58 +30,178 @@ public class DorisStreamLoaderTest {
     class NeedFlushTest {
 
         DorisStreamLoader dorisStreamLoader;
-        RecordStream recordStream;
+        DorisStreamLoader.LoadLane lane;
 
         @BeforeEach
         void setup() {
             dorisStreamLoader = mock(DorisStreamLoader.class);
-            doCallRealMethod().when(dorisStreamLoader).needFlush(any(), anyInt(), anyBoolean());
-            recordStream = mock(RecordStream.class);
+            doCallRealMethod().when(dorisStreamLoader).needFlush(any(), any(), anyInt(), anyBoolean());
+            ReflectionTestUtils.setField(dorisStreamLoader, "messageSerializer", new JsonSerializer());
+            lane = new DorisStreamLoader.LoadLane();
+            lane.buffer = ByteBuffer.allocate(1024);
         }
 
         @Test
         void testReachLastEvent() {
-            ReflectionTestUtils.setField(dorisStreamLoader, "lastEventFlag", new AtomicInteger(0));
-            ReflectionTestUtils.setField(dorisStreamLoader, "recordStream", recordStream);
-            when(recordStream.canWrite(anyInt())).thenReturn(true);
-            Assertions.assertFalse(dorisStreamLoader.needFlush(new TapInsertRecordEvent().init().after(Collections.emptyMap()), 1, false));
+            lane.lastEventFlag = 0;
+            lane.buffer = null;
+            Assertions.assertFalse(dorisStreamLoader.needFlush(lane, new TapInsertRecordEvent().init().after(Collections.emptyMap()), 1, false));
         }
 
         @Test
         void testCannotWrite() {
-            ReflectionTestUtils.setField(dorisStreamLoader, "lastEventFlag", new AtomicInteger(0));
-            ReflectionTestUtils.setField(dorisStreamLoader, "recordStream", recordStream);
-            when(recordStream.canWrite(anyInt())).thenReturn(false);
-            Assertions.assertTrue(dorisStreamLoader.needFlush(new TapInsertRecordEvent().init().after(Collections.emptyMap()), 1, false));
+            lane.lastEventFlag = 0;
+            lane.buffer = ByteBuffer.allocate(1);
+            Assertions.assertTrue(dorisStreamLoader.needFlush(lane, new TapInsertRecordEvent().init().after(Collections.emptyMap()), 1, false));
         }
 
         @Test
         void testNoAgg1() {
-            ReflectionTestUtils.setField(dorisStreamLoader, "lastEventFlag", new AtomicInteger(1));
-            ReflectionTestUtils.setField(dorisStreamLoader, "recordStream", recordStream);
-            ReflectionTestUtils.setField(dorisStreamLoader, "dataColumns", new AtomicReference<>(Collections.emptySet()));
-            when(recordStream.canWrite(anyInt())).thenReturn(true);
-            Assertions.assertFalse(dorisStreamLoader.needFlush(new TapInsertRecordEvent().init().after(Collections.emptyMap()), 1, false));
+            lane.lastEventFlag = 1;
+            lane.dataColumns = Collections.emptySet();
+            Assertions.assertFalse(dorisStreamLoader.needFlush(lane, new TapInsertRecordEvent().init().after(Collections.emptyMap()), 1, false));
         }
 
         @Test
         void testNoAgg2() {
-            ReflectionTestUtils.setField(dorisStreamLoader, "lastEventFlag", new AtomicInteger(1));
-            ReflectionTestUtils.setField(dorisStreamLoader, "recordStream", recordStream);
-            ReflectionTestUtils.setField(dorisStreamLoader, "dataColumns", new AtomicReference<>(Collections.singleton("id")));
-            when(recordStream.canWrite(anyInt())).thenReturn(true);
-            Assertions.assertTrue(dorisStreamLoader.needFlush(new TapInsertRecordEvent().init().after(Collections.emptyMap()), 1, false));
+            lane.lastEventFlag = 1;
+            lane.dataColumns = Collections.singleton("id");
+            Assertions.assertTrue(dorisStreamLoader.needFlush(lane, new TapInsertRecordEvent().init().after(Collections.emptyMap()), 1, false));
         }
 
         @Test
         void testIsAgg() {
-            ReflectionTestUtils.setField(dorisStreamLoader, "lastEventFlag", new AtomicInteger(1));
-            ReflectionTestUtils.setField(dorisStreamLoader, "recordStream", recordStream);
-            ReflectionTestUtils.setField(dorisStreamLoader, "dataColumns", new AtomicReference<>(Collections.singleton("id")));
-            when(recordStream.canWrite(anyInt())).thenReturn(true);
-            Assertions.assertFalse(dorisStreamLoader.needFlush(new TapInsertRecordEvent().init().after(Collections.emptyMap()), 1, true));
+            lane.lastEventFlag = 1;
+            lane.dataColumns = Collections.singleton("id");
+            Assertions.assertFalse(dorisStreamLoader.needFlush(lane, new TapInsertRecordEvent().init().after(Collections.emptyMap()), 1, true));
         }
     }
+
+    @Nested
+    class RouteLanesTest {
+
+        DorisStreamLoader dorisStreamLoader;
+        TapTable tapTable;
+
+        @BeforeEach
+        void setup() {
+            dorisStreamLoader = mock(DorisStreamLoader.class);
+            doCallRealMethod().when(dorisStreamLoader).routeLanes(any(), any());
+            ReflectionTestUtils.setField(dorisStreamLoader, "lanes", new DorisStreamLoader.LoadLane[4]);
+            tapTable = new TapTable("test");
+            tapTable.add(new TapField("id", "INT").primaryKeyPos(1));
+            tapTable.add(new TapField("name", "VARCHAR(10)"));
+        }
+
+        @Test
+        void testSameKeySameLane() {
+            List<TapRecordEvent> events = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                events.add(new TapInsertRecordEvent().init().after(map(entry("id", i), entry("name", "a"))));
+            }
+            events.add(new TapDeleteRecordEvent().init().before(map(entry("id", 7))));
+            int[] laneIndexes = dorisStreamLoader.routeLanes(events, tapTable);
+            Assertions.assertEquals(laneIndexes[7], laneIndexes[20]);
+            Assertions.assertTrue(Arrays.stream(laneIndexes).distinct().count() > 1);
+        }
+
+        @Test
+        void testKeyChangedInOneLane() {
+            List<TapRecordEvent> events = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                events.add(new TapInsertRecordEvent().init().after(map(entry("id", i), entry("name", "a"))));
+            }
+            events.add(new TapUpdateRecordEvent().init().before(map(entry("id", 1))).after(map(entry("id", 100), entry("name", "b"))));
+            int[] laneIndexes = dorisStreamLoader.routeLanes(events, tapTable);
+            Assertions.assertTrue(Arrays.stream(laneIndexes).allMatch(i -> i == 0));
+        }
+    }
+
+    @Nested
+    class FlushExpiredLanesTest {
+
+        DorisStreamLoader dorisStreamLoader;
+        ExecutorService loadExecutor;
+        DorisStreamLoader.LoadLane idleLane;
+        DorisStreamLoader.LoadLane freshLane;
+
+        @BeforeEach
+        void setup() throws Exception {
+            dorisStreamLoader = mock(DorisStreamLoader.class);
+            doCallRealMethod().when(dorisStreamLoader).flushExpiredLanes(anyLong(), any(), any());
+            loadExecutor = mock(ExecutorService.class);
+            idleLane = startedLane(1000L);
+            freshLane = startedLane(9000L);
+            ReflectionTestUtils.setField(dorisStreamLoader, "messageSerializer", new JsonSerializer());
+            ReflectionTestUtils.setField(dorisStreamLoader, "loadExecutor", loadExecutor);
+            ReflectionTestUtils.setField(dorisStreamLoader, "lanes", new DorisStreamLoader.LoadLane[]{idleLane, freshLane});
+            ReflectionTestUtils.setField(dorisStreamLoader, "flushIntervalMs", 5000L);
+        }
+
+        private DorisStreamLoader.LoadLane startedLane(long startTime) {
+            DorisStreamLoader.LoadLane lane = new DorisStreamLoader.LoadLane();
+            lane.buffer = ByteBuffer.allocate(16);
+            lane.lastEventFlag = 1;
+            lane.startTime = startTime;
+            return lane;
+        }
+
+        @Test
+        void testIdleLaneFlushed() throws Exception {
+            dorisStreamLoader.flushExpiredLanes(10000L, new TapTable("test"), null);
+            Assertions.assertEquals(0, idleLane.lastEventFlag);
+            Assertions.assertNull(idleLane.buffer);
+            Assertions.assertEquals(1, freshLane.lastEventFlag);
+            verify(loadExecutor, times(1)).submit(any(Callable.class));
+        }
+
+        @Test
+        void testNotStartedLaneSkipped() throws Exception {
+            idleLane.lastEventFlag = 0;
+            dorisStreamLoader.flushExpiredLanes(10000L, new TapTable("test"), null);
+            verify(loadExecutor, never()).submit(any(Callable.class));
+        }
+    }
+
+    @Nested
+    class AcquireBufferTest {
+
+        DorisStreamLoader dorisStreamLoader;
+        DirectBufferPool bufferPool;
+        ExecutorService loadExecutor;
+
+        @BeforeEach
+        void setup() throws Exception {
+            dorisStreamLoader = mock(DorisStreamLoader.class);
+            doCallRealMethod().when(dorisStreamLoader).acquireBuffer(any(), any(), any());
+            bufferPool = new DirectBufferPool(16, 1);
+            loadExecutor = Executors.newSingleThreadExecutor();
+            ReflectionTestUtils.setField(dorisStreamLoader, "messageSerializer", new JsonSerializer());
+            ReflectionTestUtils.setField(dorisStreamLoader, "loadExecutor", loadExecutor);
+            ReflectionTestUtils.setField(dorisStreamLoader, "bufferPool", bufferPool);
+        }
+
+        @AfterEach
+        void afterEach() {
+            loadExecutor.shutdownNow();
+        }
+
+        @Test
+        void testOtherLanesLoadedWhenExhausted() throws Exception {
+            DorisStreamLoader.LoadLane lane = new DorisStreamLoader.LoadLane();
+            DorisStreamLoader.LoadLane filling = new DorisStreamLoader.LoadLane();
+            filling.buffer = bufferPool.acquire(0);
+            filling.lastEventFlag = 1;
+            ByteBuffer held = filling.buffer;
+            ReflectionTestUtils.setField(dorisStreamLoader, "lanes", new DorisStreamLoader.LoadLane[]{lane, filling});
+            ByteBuffer buffer = dorisStreamLoader.acquireBuffer(lane, new TapTable("test"), null);
+            Assertions.assertSame(held, buffer);
+            Assertions.assertTrue(buffer.isDirect());
+            Assertions.assertEquals(0, filling.lastEventFlag);
+            verify(dorisStreamLoader, times(1)).put(any(), any(), any());
+        }
+    }
+
     @Nested
     class TestBuildLoadUrl{
         DorisStreamLoader dorisStreamLoader;
@@ -0,0 +1,52 @@
+package io.tapdata.connector.elasticsearch;
+
+import java.io.Serializable;
+import java.util.StringJoiner;
+import java.util.TreeSet;
+
+/**
+ * offset of an index read by sliced scroll, scroll contexts expire, so only finished slices are kept
+ * slices not finished are read again from the beginning when resumed, documents are written by _id by targets
+ */
+public class ElasticsearchBatchOffset implements Serializable {
+
+    private static final long serialVersionUID = -6254271853290215632L;
+    private int sliceCount;
+    private TreeSet<Integer> finishedSlices = new TreeSet<>();
+
+    public ElasticsearchBatchOffset() {}
+
+    public ElasticsearchBatchOffset(int sliceCount) {
+        this.sliceCount = sliceCount;
+    }
+
+    public int getSliceCount() {
+        return sliceCount;
+    }
+
+    public void setSliceCount(int sliceCount) {
+        this.sliceCount = sliceCount;
+    }
+
+    public TreeSet<Integer> getFinishedSlices() {
+        return finishedSlices;
+    }
+
+    public void setFinishedSlices(TreeSet<Integer> finishedSlices) {
+        this.finishedSlices = finishedSlices;
+    }
+
+    public ElasticsearchBatchOffset copy() {
+        ElasticsearchBatchOffset batchOffset = new ElasticsearchBatchOffset(sliceCount);
+        batchOffset.setFinishedSlices(new TreeSet<>(finishedSlices));
+        return batchOffset;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", ElasticsearchBatchOffset.class.getSimpleName() + "[", "]")
+                .add("sliceCount=" + sliceCount)
+                .add("finishedSlices=" + finishedSlices)
+                .toString();
+    }
+}
@@ -0,0 +1,198 @@
+package io.tapdata.connector.elasticsearch;
+
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.logger.Log;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.kit.EmptyKit;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.core.CountRequest;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.slice.SliceBuilder;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import static io.tapdata.base.ConnectorBase.insertRecordEvent;
+
+/**
+ * read an index by sliced scroll sorted by _doc, every slice is scrolled by its own thread
+ * hits are converted from the source bytes of the response to insert events, with _id of the document
+ */
+public class ElasticsearchBatchReader {
+
+    private static final String ID = "_id";
+    //indices smaller than it are read by one scroll
+    protected static final long MIN_SLICE_COUNT = 100000L;
+    //size of a page is limited by index.max_result_window
+    private static final int MAX_PAGE_SIZE = 10000;
+    //batches of slices not emitted yet, slice readers are blocked when it is full
+    private static final int SLICE_QUEUE_SIZE = 16;
+    private static final TimeValue SCROLL_KEEP_ALIVE = TimeValue.timeValueMinutes(5);
+
+    private Log log;
+    private final RestHighLevelClient client;
+    private final TapTable tapTable;
+    private final String index;
+    private final int slices;
+    private final Supplier<Boolean> isAlive;
+
+    public ElasticsearchBatchReader(ElasticsearchHttpContext httpContext, TapTable tapTable, Supplier<Boolean> isAlive) {
+        this.client = httpContext.getElasticsearchClient();
+        this.tapTable = tapTable;
+        this.index = tapTable.getId().toLowerCase();
+        Integer batchReadSlices = httpContext.getElasticsearchConfig().getBatchReadSlices();
+        this.slices = EmptyKit.isNull(batchReadSlices) || batchReadSlices < 1 ? 1 : batchReadSlices;
+        this.isAlive = isAlive;
+    }
+
+    public ElasticsearchBatchReader log(Log log) {
+        this.log = log;
+        return this;
+    }
+
+    public long count() throws IOException {
+        return client.count(new CountRequest(index), RequestOptions.DEFAULT).getCount();
+    }
+
+    public void read(Object offsetState, int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) throws Throwable {
+        ElasticsearchBatchOffset batchOffset;
+        if (offsetState instanceof ElasticsearchBatchOffset) {
+            batchOffset = (ElasticsearchBatchOffset) offsetState;
+            log.info("Resume batch read of {}, slices not finished are read again: {}", index, batchOffset);
+        } else {
+            batchOffset = new ElasticsearchBatchOffset(slices > 1 && count() >= MIN_SLICE_COUNT ? slices : 1);
+        }
+        int sliceCount = batchOffset.getSliceCount();
+        List<Integer> unfinished = new ArrayList<>();
+        for (int i = 0; i < sliceCount; i++) {
+            if (!batchOffset.getFinishedSlices().contains(i)) {
+                unfinished.add(i);
+            }
+        }
+        if (unfinished.isEmpty()) {
+            return;
+        }
+        log.info("Batch read {} by {} slices in parallel", index, unfinished.size());
+        int pageSize = Math.min(eventBatchSize > 0 ? eventBatchSize : MAX_PAGE_SIZE, MAX_PAGE_SIZE);
+        BlockingQueue<SliceBatch> batchQueue = new ArrayBlockingQueue<>(SLICE_QUEUE_SIZE);
+        AtomicReference<Throwable> throwable = new AtomicReference<>();
+        ExecutorService sliceExecutor = Executors.newFixedThreadPool(unfinished.size());
+        try {
+            for (Integer slice : unfinished) {
+                sliceExecutor.submit(() -> {
+                    Thread.currentThread().setName("ElasticsearchBatchReader-" + index + "-" + slice);
+                    try {
+                        readSlice(slice, sliceCount, pageSize, batchQueue);
+                    } catch (Throwable e) {
+                        throwable.compareAndSet(null, e);
+                    }
+                });
+            }
+            int running = unfinished.size();
+            while (isAlive.get() && running > 0) {
+                if (EmptyKit.isNotNull(throwable.get())) {
+                    throw throwable.get();
+                }
+                SliceBatch sliceBatch = batchQueue.poll(1, TimeUnit.SECONDS);
+                if (null == sliceBatch) {
+                    continue;
+                }
+                if (sliceBatch.finished) {
+                    batchOffset.getFinishedSlices().add(sliceBatch.slice);
+                    running--;
+                }
+                if (!sliceBatch.events.isEmpty()) {
+                    eventsOffsetConsumer.accept(sliceBatch.events, batchOffset.copy());
+                }
+            }
+        } finally {
+            sliceExecutor.shutdownNow();
+        }
+    }
+
+    protected SearchRequest sliceRequest(int slice, int sliceCount, int pageSize) {
+        SearchSourceBuilder sourceBuilder = new SearchSourceBuilder()
+                .query(QueryBuilders.matchAllQuery())
+                .size(pageSize)
+                .sort("_doc");
+        if (sliceCount > 1) {
+            sourceBuilder.slice(new SliceBuilder(slice, sliceCount));
+        }
+        return new SearchRequest(index).source(sourceBuilder).scroll(SCROLL_KEEP_ALIVE);
+    }
+
+    protected void readSlice(int slice, int sliceCount, int pageSize, BlockingQueue<SliceBatch> batchQueue) throws IOException, InterruptedException {
+        SearchResponse response = client.search(sliceRequest(slice, sliceCount, pageSize), RequestOptions.DEFAULT);
+        String scrollId = response.getScrollId();
+        try {
+            while (isAlive.get()) {
+                SearchHit[] hits = response.getHits().getHits();
+                if (hits.length == 0) {
+                    offerBatch(batchQueue, new SliceBatch(slice, Collections.emptyList(), true));
+                    return;
+                }
+                List<TapEvent> events = new ArrayList<>(hits.length);
+                for (SearchHit hit : hits) {
+                    events.add(insertRecordEvent(hitToMap(hit), tapTable.getId()));
+                }
+                offerBatch(batchQueue, new SliceBatch(slice, events, false));
+                response = client.scroll(new SearchScrollRequest(scrollId).scroll(SCROLL_KEEP_ALIVE), RequestOptions.DEFAULT);
+                scrollId = response.getScrollId();
+            }
+        } finally {
+            clearScroll(scrollId);
+        }
+    }
+
+    protected static Map<String, Object> hitToMap(SearchHit hit) {
+        Map<String, Object> after = hit.getSourceAsMap();
+        if (null == after) {
+            after = new HashMap<>();
+        }
+        after.putIfAbsent(ID, hit.getId());
+        return after;
+    }
+
+    private void clearScroll(String scrollId) {
+        if (EmptyKit.isBlank(scrollId)) {
+            return;
+        }
+        try {
+            ClearScrollRequest clearScrollRequest = new ClearScrollRequest();
+            clearScrollRequest.addScrollId(scrollId);
+            client.clearScroll(clearScrollRequest, RequestOptions.DEFAULT);
+        } catch (Exception e) {
+            log.debug("Clear scroll of {} failed, it expires in {}: {}", index, SCROLL_KEEP_ALIVE, e.getMessage());
+        }
+    }
+
+    private void offerBatch(BlockingQueue<SliceBatch> batchQueue, SliceBatch sliceBatch) throws InterruptedException {
+        while (isAlive.get() && !batchQueue.offer(sliceBatch, 1, TimeUnit.SECONDS)) {
+            log.debug("Slice {} of {} is waiting for emitting", sliceBatch.slice, index);
+        }
+    }
+
+    protected static class SliceBatch {
+        private final int slice;
+        private final List<TapEvent> events;
+        private final boolean finished;
+
+        SliceBatch(int slice, List<TapEvent> events, boolean finished) {
+            this.slice = slice;
+            this.events = events;
+            this.finished = finished;
+        }
+    }
+}
@@ -20,6 +20,10 @@ public class ElasticsearchConfig {
     private Integer shardsNumber = 1;
     private Integer replicasNumber = 1;
     private Integer fieldsLimit = 1000;
+    //slices of an index read in parallel by batch read, small indices are read by one scroll
+    private Integer batchReadSlices = 4;
+    //bulk requests of one write in flight at the same time, events are split by _id so that they keep order
+    private Integer bulkConcurrency = 1;
     private String fieldsMappingMode;
     private boolean sslValidate;
     private boolean validateCA;
@@ -109,6 +113,22 @@ public class ElasticsearchConfig {
         this.fieldsLimit = fieldsLimit;
     }
 
+    public Integer getBatchReadSlices() {
+        return batchReadSlices;
+    }
+
+    public void setBatchReadSlices(Integer batchReadSlices) {
+        this.batchReadSlices = batchReadSlices;
+    }
+
+    public Integer getBulkConcurrency() {
+        return bulkConcurrency;
+    }
+
+    public void setBulkConcurrency(Integer bulkConcurrency) {
+        this.bulkConcurrency = bulkConcurrency;
+    }
+
     public FieldsMappingMode getFieldsMappingModeEnum() {
         return FieldsMappingMode.fromString(fieldsMappingMode);
     }
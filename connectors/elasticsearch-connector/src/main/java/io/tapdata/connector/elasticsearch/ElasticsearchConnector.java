@@ -4,6 +4,7 @@ import com.google.common.collect.Lists;
 import io.tapdata.base.ConnectorBase;
 import io.tapdata.connector.elasticsearch.cons.FieldsMappingMode;
 import io.tapdata.entity.codec.TapCodecsRegistry;
+import io.tapdata.entity.event.TapEvent;
 import io.tapdata.entity.event.ddl.table.TapClearTableEvent;
 import io.tapdata.entity.event.ddl.table.TapCreateTableEvent;
 import io.tapdata.entity.event.ddl.table.TapDropTableEvent;
@@ -42,6 +43,9 @@ import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -52,6 +56,7 @@ public class ElasticsearchConnector extends ConnectorBase {
     private ElasticsearchHttpContext elasticsearchHttpContext;
     private ElasticsearchConfig elasticsearchConfig;
     private String elasticsearchVersion;
+    private ExecutorService writeExecutor;
     private static final String TAG = ElasticsearchConnector.class.getSimpleName();
 
     private ElasticsearchExceptionCollector exceptionCollector;
@@ -114,6 +119,7 @@ public class ElasticsearchConnector extends ConnectorBase {
 
     @Override
     public void onStop(TapConnectionContext connectionContext) throws Throwable {
+        Optional.ofNullable(writeExecutor).ifPresent(ExecutorService::shutdown);
         elasticsearchHttpContext.finish();
     }
 
@@ -125,6 +131,8 @@ public class ElasticsearchConnector extends ConnectorBase {
         connectorFunctions.supportClearTable(this::clearTable);
         connectorFunctions.supportDropTable(this::dropTable);
         connectorFunctions.supportQueryByFilter(this::queryByFilter);
+        connectorFunctions.supportBatchCount(this::batchCount);
+        connectorFunctions.supportBatchRead(this::batchRead);
 
         codecRegistry.registerFromTapValue(TapRawValue.class, "text", tapRawValue -> {
             if (tapRawValue != null && tapRawValue.getValue() != null) return tapRawValue.getValue().toString();
@@ -206,13 +214,28 @@ public class ElasticsearchConnector extends ConnectorBase {
     }
 
     private void writeRecord(TapConnectorContext connectorContext, List<TapRecordEvent> tapRecordEvents, TapTable tapTable, Consumer<WriteListResult<TapRecordEvent>> writeListResultConsumer) throws Throwable {
+        int bulkConcurrency = Optional.ofNullable(elasticsearchConfig.getBulkConcurrency()).orElse(1);
+        if (bulkConcurrency > 1 && null == writeExecutor) {
+            writeExecutor = Executors.newFixedThreadPool(bulkConcurrency);
+        }
         new ElasticsearchRecordWriter(elasticsearchHttpContext, tapTable,
                 connectorContext.getConnectorCapabilities().getCapabilityAlternative(ConnectionOptions.DML_INSERT_POLICY),
                 connectorContext.getConnectorCapabilities().getCapabilityAlternative(ConnectionOptions.DML_UPDATE_POLICY))
                 .log(connectorContext.getLog())
+                .concurrency(writeExecutor, bulkConcurrency)
                 .write(tapRecordEvents, writeListResultConsumer);
     }
 
+    private long batchCount(TapConnectorContext connectorContext, TapTable tapTable) throws Throwable {
+        return new ElasticsearchBatchReader(elasticsearchHttpContext, tapTable, this::isAlive).count();
+    }
+
+    private void batchRead(TapConnectorContext connectorContext, TapTable tapTable, Object offsetState, int eventBatchSize, BiConsumer<List<TapEvent>, Object> eventsOffsetConsumer) throws Throwable {
+        new ElasticsearchBatchReader(elasticsearchHttpContext, tapTable, this::isAlive)
+                .log(connectorContext.getLog())
+                .read(offsetState, eventBatchSize, eventsOffsetConsumer);
+    }
+
     protected void createTable(TapConnectorContext tapConnectorContext, TapCreateTableEvent tapCreateTableEvent) throws Throwable {
         TapTable tapTable = tapCreateTableEvent.getTable();
         try{
@@ -10,6 +10,8 @@ import io.tapdata.kit.EmptyKit;
 import io.tapdata.pdk.apis.entity.ConnectionOptions;
 import io.tapdata.pdk.apis.entity.WriteListResult;
 import org.apache.commons.lang3.StringUtils;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BackoffPolicy;
 import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
@@ -18,23 +20,41 @@ import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.rest.RestStatus;
 
-import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 
 import static io.tapdata.base.ConnectorBase.toJson;
 
 public class ElasticsearchRecordWriter {
 
+    //bulk requests are cut by actions and bytes, big bulks are slow and more likely to be rejected as a whole
+    private static final int MAX_BULK_ACTIONS = 1000;
+    private static final long MAX_BULK_BYTES = 10 * 1024 * 1024L;
+    //batches smaller than it are written by one lane
+    private static final int MIN_LANE_EVENTS = 100;
+    //items rejected by full write queues of nodes (429) are sent again after the backoff
+    private static final BackoffPolicy REJECTED_BACKOFF = BackoffPolicy.exponentialBackoff(TimeValue.timeValueMillis(100), 6);
+    // ES will check and limit the size of id smaller than 512 bytes
+    private static final int MAX_ID_BYTES = 512;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     private Log log;
     private String insertPolicy = ConnectionOptions.DML_INSERT_POLICY_UPDATE_ON_EXISTS;
     private String updatePolicy = ConnectionOptions.DML_UPDATE_POLICY_IGNORE_ON_NON_EXISTS;
     private String version;
     private RestHighLevelClient client;
     private final TapTable tapTable;
+    private final String index;
+    private ExecutorService writeExecutor;
+    private int concurrency = 1;
     private List<String> uniqueCondition;
     private boolean hasPk = false;
     private WriteListResult<TapRecordEvent> listResult;
@@ -45,6 +65,7 @@ public class ElasticsearchRecordWriter {
     public ElasticsearchRecordWriter(ElasticsearchHttpContext httpContext, TapTable tapTable, String insertPolicy, String updatePolicy) throws Throwable {
         this.client = httpContext.getElasticsearchClient();
         this.tapTable = tapTable;
+        this.index = tapTable.getId().toLowerCase();
         this.exceptionCollector = new ElasticsearchExceptionCollector();
         analyzeTable();
         if (StringUtils.isNotBlank(insertPolicy)) {
@@ -69,72 +90,170 @@ public class ElasticsearchRecordWriter {
 
     public void write(List<TapRecordEvent> tapRecordEvents, Consumer<WriteListResult<TapRecordEvent>> writeListResultConsumer) throws Throwable {
         //result of these events
-        listResult = new WriteListResult<>();
+        listResult = new WriteListResult<>(0L, 0L, 0L, new HashMap<>());
         try{
-            BulkRequest bulkRequest = new BulkRequest();
+            List<BulkItem> items = new ArrayList<>(tapRecordEvents.size());
 //        bulkRequest.setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE);
             for (TapRecordEvent recordEvent : tapRecordEvents) {
                 if (recordEvent instanceof TapInsertRecordEvent) {
                     if (ConnectionOptions.DML_INSERT_POLICY_JUST_INSERT.equals(insertPolicy)) {
-                        bulkRequest.add(insertDocument(recordEvent));
+                        items.add(new BulkItem(recordEvent, insertDocument(recordEvent)));
                     } else if (ConnectionOptions.DML_INSERT_POLICY_UPDATE_ON_EXISTS.equals(insertPolicy)) {
-                        bulkRequest.add(upsertDocument(recordEvent));
+                        items.add(new BulkItem(recordEvent, upsertDocument(recordEvent)));
                     } else if (ConnectionOptions.DML_INSERT_POLICY_IGNORE_ON_EXISTS.equals(insertPolicy)) {
                          throw new RuntimeException("Unsupported insert policy: " + insertPolicy);
                     }
                 } else if (recordEvent instanceof TapUpdateRecordEvent) {
                     if (ConnectionOptions.DML_UPDATE_POLICY_IGNORE_ON_NON_EXISTS.equals(updatePolicy)) {
-                        bulkRequest.add(updateDocument(recordEvent));
+                        items.add(new BulkItem(recordEvent, updateDocument(recordEvent)));
                     } else if (ConnectionOptions.DML_UPDATE_POLICY_INSERT_ON_NON_EXISTS.equals(updatePolicy)) {
-                        bulkRequest.add(upsertDocument(recordEvent));
+                        items.add(new BulkItem(recordEvent, upsertDocument(recordEvent)));
                     }
                 } else if (recordEvent instanceof TapDeleteRecordEvent) {
-                    bulkRequest.add(deleteDocument(recordEvent));
+                    items.add(new BulkItem(recordEvent, deleteDocument(recordEvent)));
+                }
+            }
+            List<List<BulkItem>> lanes = splitLanes(items);
+            if (lanes.size() <= 1) {
+                writeLane(items, listResult);
+            } else {
+                writeLanes(lanes);
+            }
+            writeListResultConsumer.accept(listResult);
+        }catch (Throwable t){
+            log.warn("{}: {}", t.getMessage(), toJson(t.getStackTrace()));
+            TapRecordEvent errorEvent = null;
+            if(listResult.getErrorMap() != null){
+                 errorEvent = listResult.getErrorMap().keySet().stream().findFirst().orElse(null);
+            }
+            exceptionCollector.collectTerminateByServer(t);
+            exceptionCollector.collectWritePrivileges("writeRecord", Collections.emptyList(), t);
+            if(errorEvent != null){
+                exceptionCollector.collectWriteType(null, null, errorEvent, t);
+                exceptionCollector.collectWriteLength(null,null,errorEvent,t);
+            }
+            throw new RuntimeException(t);
+        }
+
+    }
+
+    //documents of the same id are in the same lane, so that they are written in the order of events
+    protected List<List<BulkItem>> splitLanes(List<BulkItem> items) {
+        if (null == writeExecutor || concurrency <= 1 || items.size() < MIN_LANE_EVENTS) {
+            return Collections.singletonList(items);
+        }
+        List<List<BulkItem>> lanes = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            lanes.add(new ArrayList<>());
+        }
+        for (BulkItem item : items) {
+            lanes.get(Math.floorMod(item.request.id().hashCode(), concurrency)).add(item);
+        }
+        lanes.removeIf(List::isEmpty);
+        return lanes;
+    }
+
+    private void writeLanes(List<List<BulkItem>> lanes) throws Throwable {
+        List<Future<?>> futures = new ArrayList<>();
+        for (List<BulkItem> lane : lanes) {
+            futures.add(writeExecutor.submit(() -> {
+                WriteListResult<TapRecordEvent> laneResult = new WriteListResult<>(0L, 0L, 0L, new HashMap<>());
+                writeLane(lane, laneResult);
+                synchronized (listResult) {
+                    listResult.incrementInserted(laneResult.getInsertedCount());
+                    listResult.incrementModified(laneResult.getModifiedCount());
+                    listResult.incrementRemove(laneResult.getRemovedCount());
+                    if (!laneResult.getErrorMap().isEmpty()) {
+                        listResult.addErrors(laneResult.getErrorMap());
+                    }
+                }
+                return null;
+            }));
+        }
+        Throwable throwable = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (null == throwable) {
+                    throwable = e.getCause();
                 }
             }
+        }
+        if (null != throwable) {
+            throw throwable;
+        }
+    }
+
+    private void writeLane(List<BulkItem> items, WriteListResult<TapRecordEvent> laneResult) throws Throwable {
+        int from = 0;
+        while (from < items.size()) {
+            BulkRequest bulkRequest = new BulkRequest();
+            List<BulkItem> bulkItems = new ArrayList<>();
+            while (from < items.size() && bulkRequest.numberOfActions() < MAX_BULK_ACTIONS && bulkRequest.estimatedSizeInBytes() < MAX_BULK_BYTES) {
+                BulkItem item = items.get(from++);
+                bulkRequest.add(item.request);
+                bulkItems.add(item);
+            }
+            bulk(bulkRequest, bulkItems, laneResult);
+        }
+    }
+
+    private void bulk(BulkRequest bulkRequest, List<BulkItem> bulkItems, WriteListResult<TapRecordEvent> laneResult) throws Throwable {
+        Iterator<TimeValue> backoff = REJECTED_BACKOFF.iterator();
+        while (true) {
             BulkResponse bulkResponse = client.bulk(bulkRequest, RequestOptions.DEFAULT);
-            long insertCount = 0L;
-            long updateCount = 0L;
-            long deleteCount = 0L;
+            List<BulkItem> rejectedItems = new ArrayList<>();
+            Throwable rejectedCause = null;
             for (BulkItemResponse bulkItemResponse : bulkResponse) {
+                BulkItem item = bulkItems.get(bulkItemResponse.getItemId());
                 if (bulkItemResponse.isFailed()) {
                     BulkItemResponse.Failure failure = bulkItemResponse.getFailure();
-                    throw failure.getCause();
+                    if (failure.getStatus() != RestStatus.TOO_MANY_REQUESTS) {
+                        //other failures are not fixed by sending again, the write fails as before
+                        laneResult.addError(item.event, failure.getCause());
+                        throw failure.getCause();
+                    }
+                    rejectedItems.add(item);
+                    rejectedCause = failure.getCause();
+                    continue;
                 }
                 switch (bulkItemResponse.getOpType()) {
                     case INDEX:
                     case CREATE:
-                            insertCount++;
+                        laneResult.incrementInserted(1);
                         break;
                     case UPDATE:
-                            updateCount++;
+                        laneResult.incrementModified(1);
                         break;
                     case DELETE:
-                            deleteCount++;
+                        laneResult.incrementRemove(1);
                         break;
                     default:
                         break;
                 }
             }
-            writeListResultConsumer.accept(listResult
-                    .insertedCount(insertCount)
-                    .modifiedCount(updateCount)
-                    .removedCount(deleteCount));
-        }catch (Throwable t){
-            log.warn("{}: {}", t.getMessage(), toJson(t.getStackTrace()));
-            TapRecordEvent errorEvent = null;
-            if(listResult.getErrorMap() != null){
-                 errorEvent = listResult.getErrorMap().keySet().stream().findFirst().orElse(null);
+            if (rejectedItems.isEmpty()) {
+                return;
             }
-            exceptionCollector.collectTerminateByServer(t);
-            exceptionCollector.collectWritePrivileges("writeRecord", Collections.emptyList(), t);
-            if(errorEvent != null){
-                exceptionCollector.collectWriteType(null, null, errorEvent, t);
-                exceptionCollector.collectWriteLength(null,null,errorEvent,t);
+            if (!backoff.hasNext()) {
+                throw new RuntimeException(rejectedItems.size() + " items of bulk to " + index + " are still rejected after retries", rejectedCause);
             }
-            throw new RuntimeException(t);
+            TimeValue delay = backoff.next();
+            log.debug("{} items of bulk to {} are rejected, retry them after {}", rejectedItems.size(), index, delay);
+            Thread.sleep(delay.millis());
+            bulkRequest = new BulkRequest();
+            for (BulkItem item : rejectedItems) {
+                bulkRequest.add(item.request);
+            }
+            bulkItems = rejectedItems;
         }
+    }
 
+    public ElasticsearchRecordWriter concurrency(ExecutorService writeExecutor, int concurrency) {
+        this.writeExecutor = writeExecutor;
+        this.concurrency = concurrency;
+        return this;
     }
 
     public ElasticsearchRecordWriter setVersion(String version) {
@@ -155,15 +274,15 @@ public class ElasticsearchRecordWriter {
     private IndexRequest insertDocument(TapRecordEvent recordEvent) {
         TapInsertRecordEvent insertRecordEvent = (TapInsertRecordEvent) recordEvent;
         Map<String, Object> value = insertRecordEvent.getAfter();
-        String id = getId(value).toString();
-        return new IndexRequest(tapTable.getId().toLowerCase()).id(id).source(value);
+        String id = getId(value);
+        return new IndexRequest(index).id(id).source(value);
     }
 
     private UpdateRequest updateDocument(TapRecordEvent recordEvent) {
         TapUpdateRecordEvent updateRecordEvent = (TapUpdateRecordEvent) recordEvent;
         Map<String, Object> value = updateRecordEvent.getAfter();
-        String id = getId(value).toString();
-        return new UpdateRequest(tapTable.getId().toLowerCase(), id).retryOnConflict(3).doc(value);
+        String id = getId(value);
+        return new UpdateRequest(index, id).retryOnConflict(3).doc(value);
     }
 
     private UpdateRequest upsertDocument(TapRecordEvent recordEvent) {
@@ -172,59 +291,66 @@ public class ElasticsearchRecordWriter {
         if (recordEvent instanceof TapInsertRecordEvent) {
             TapInsertRecordEvent tapInsertRecordEvent = (TapInsertRecordEvent) recordEvent;
             value = tapInsertRecordEvent.getAfter();
-            id = getId(value).toString();
+            id = getId(value);
         } else if (recordEvent instanceof TapUpdateRecordEvent) {
             TapUpdateRecordEvent tapUpdateRecordEvent = (TapUpdateRecordEvent) recordEvent;
             value = tapUpdateRecordEvent.getAfter();
             Map<String, Object> before = tapUpdateRecordEvent.getBefore();
             if (null != before) {
-                id = getId(before).toString();
+                id = getId(before);
                 if (StringUtils.isBlank(id)) {
-                    id = getId(value).toString();
+                    id = getId(value);
                 }
             } else {
-                id = getId(value).toString();
+                id = getId(value);
             }
         } else {
             throw new RuntimeException("Unsupported record event type: " + recordEvent.getClass().getName());
         }
-        return new UpdateRequest(tapTable.getId().toLowerCase(), id).retryOnConflict(3).doc(value).docAsUpsert(true);
+        return new UpdateRequest(index, id).retryOnConflict(3).doc(value).docAsUpsert(true);
     }
 
     private DeleteRequest deleteDocument(TapRecordEvent recordEvent) {
         TapDeleteRecordEvent deleteRecordEvent = (TapDeleteRecordEvent) recordEvent;
         Map<String, Object> value = deleteRecordEvent.getBefore();
-        String id = getId(value).toString();
-        return new DeleteRequest(tapTable.getId().toLowerCase(), id);
+        String id = getId(value);
+        return new DeleteRequest(index, id);
     }
 
-    private StringBuilder getId(Map<String, Object> value) {
-        StringBuilder ids = new StringBuilder();
-        ids.append(tapTable.getId().toLowerCase()).append("_");
+    private String getId(Map<String, Object> value) {
+        StringBuilder ids = new StringBuilder(64);
+        ids.append(index).append('_');
         if (EmptyKit.isNotEmpty(uniqueCondition)) {
             for (String condition : uniqueCondition) {
-                ids.append(object2String(value.get(condition))).append("_");
+                ids.append(object2String(value.get(condition))).append('_');
             }
         }
-
-        // ES will check and limit the size of id smaller than 512 bytes
-        // hash id using "SHA-256" if teh size exceeds 512 bytes
-        String idsStr = ids.toString();
-        if (idsStr.getBytes(StandardCharsets.UTF_8).length > 512) {
-            byte[] hash = md.digest(idsStr.getBytes(StandardCharsets.UTF_8));
-
-            // convert hash into hex string
-            BigInteger number = new BigInteger(1, hash);
-            // Convert message digest into hex value
-            StringBuilder hex = new StringBuilder(number.toString(16));
-            while (hex.length() < 32) {
-                hex.insert(0, '0');
-            }
-            ids = hex;
+        value.remove("_id");
+        String id = ids.toString();
+        //a char takes at most 3 bytes in UTF-8, short ids are not encoded to be checked
+        if (id.length() * 3 <= MAX_ID_BYTES) {
+            return id;
+        }
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_ID_BYTES) {
+            return id;
         }
+        // hash id using "SHA-256" if the size exceeds 512 bytes
+        return hashId(md.digest(bytes));
+    }
 
-        value.remove("_id");
-        return ids;
+    //same as the hex of BigInteger(1, hash) padded to 32 chars, so ids of documents written before do not change
+    protected static String hashId(byte[] hash) {
+        char[] hex = new char[hash.length << 1];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i << 1] = HEX_DIGITS[(hash[i] >> 4) & 0xF];
+            hex[(i << 1) + 1] = HEX_DIGITS[hash[i] & 0xF];
+        }
+        int start = 0;
+        while (start < hex.length - 32 && hex[start] == '0') {
+            start++;
+        }
+        return new String(hex, start, hex.length - start);
     }
 
     private String object2String(Object object) {
@@ -241,4 +367,14 @@ public class ElasticsearchRecordWriter {
         this.log = log;
         return this;
     }
+
+    protected static class BulkItem {
+        final TapRecordEvent event;
+        final DocWriteRequest<?> request;
+
+        BulkItem(TapRecordEvent event, DocWriteRequest<?> request) {
+            this.event = event;
+            this.request = request;
+        }
+    }
 }
@@ -0,0 +1,74 @@
+package io.tapdata.connector.elasticsearch;
+
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.search.SearchHit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class ElasticsearchBatchReaderTest {
+    private ElasticsearchBatchReader batchReader;
+    @BeforeEach
+    void beforeEach(){
+        batchReader = mock(ElasticsearchBatchReader.class);
+        ReflectionTestUtils.setField(batchReader,"index","test");
+        when(batchReader.sliceRequest(anyInt(),anyInt(),anyInt())).thenCallRealMethod();
+    }
+    @Nested
+    class SliceRequestTest{
+        @Test
+        void testSliced(){
+            SearchRequest request = batchReader.sliceRequest(1,4,1000);
+            assertArrayEquals(new String[]{"test"},request.indices());
+            assertNotNull(request.scroll());
+            assertEquals(1000,request.source().size());
+            assertEquals(1,request.source().slice().getId());
+            assertEquals(4,request.source().slice().getMax());
+        }
+        @Test
+        void testOneSlice(){
+            SearchRequest request = batchReader.sliceRequest(0,1,1000);
+            assertNull(request.source().slice());
+        }
+    }
+    @Nested
+    class HitToMapTest{
+        @Test
+        void testWithId(){
+            SearchHit hit = mock(SearchHit.class);
+            Map<String,Object> source = new HashMap<>();
+            source.put("name","a");
+            when(hit.getSourceAsMap()).thenReturn(source);
+            when(hit.getId()).thenReturn("id1");
+            Map<String,Object> after = ElasticsearchBatchReader.hitToMap(hit);
+            assertEquals("a",after.get("name"));
+            assertEquals("id1",after.get("_id"));
+        }
+        @Test
+        void testWithoutSource(){
+            SearchHit hit = mock(SearchHit.class);
+            when(hit.getId()).thenReturn("id1");
+            assertEquals("id1",ElasticsearchBatchReader.hitToMap(hit).get("_id"));
+        }
+    }
+    @Nested
+    class OffsetTest{
+        @Test
+        void testCopy(){
+            ElasticsearchBatchOffset batchOffset = new ElasticsearchBatchOffset(4);
+            batchOffset.getFinishedSlices().add(2);
+            ElasticsearchBatchOffset copy = batchOffset.copy();
+            batchOffset.getFinishedSlices().add(3);
+            assertEquals(4,copy.getSliceCount());
+            assertEquals(1,copy.getFinishedSlices().size());
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package io.tapdata.connector.elasticsearch;
+
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.logger.Log;
+import io.tapdata.pdk.apis.entity.WriteListResult;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class ElasticsearchRecordWriterTest {
+    private ElasticsearchRecordWriter recordWriter;
+    @BeforeEach
+    void beforeEach(){
+        recordWriter = mock(ElasticsearchRecordWriter.class);
+        ReflectionTestUtils.setField(recordWriter,"writeExecutor",mock(ExecutorService.class));
+        ReflectionTestUtils.setField(recordWriter,"concurrency",4);
+        when(recordWriter.splitLanes(anyList())).thenCallRealMethod();
+    }
+    @Nested
+    class HashIdTest{
+        @Test
+        void testSameAsBigInteger() throws Exception {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            for (int i = 0; i < 2000; i++) {
+                byte[] hash = md.digest(("id_" + i).getBytes(StandardCharsets.UTF_8));
+                StringBuilder expected = new StringBuilder(new BigInteger(1, hash).toString(16));
+                while (expected.length() < 32) {
+                    expected.insert(0, "0");
+                }
+                assertEquals(expected.toString(), ElasticsearchRecordWriter.hashId(hash));
+            }
+        }
+        @Test
+        void testLeadingZeros(){
+            byte[] hash = new byte[32];
+            hash[31] = 1;
+            assertEquals("00000000000000000000000000000001", ElasticsearchRecordWriter.hashId(hash));
+        }
+    }
+    @Nested
+    class SplitLanesTest{
+        @Test
+        void testSameIdInSameLane(){
+            List<ElasticsearchRecordWriter.BulkItem> items = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                items.add(new ElasticsearchRecordWriter.BulkItem(new TapInsertRecordEvent(), new IndexRequest("test").id("test_" + (i % 50) + "_")));
+            }
+            List<List<ElasticsearchRecordWriter.BulkItem>> lanes = recordWriter.splitLanes(items);
+            assertTrue(lanes.size() > 1 && lanes.size() <= 4);
+            assertEquals(400, lanes.stream().mapToInt(List::size).sum());
+            for (int i = 0; i < 50; i++) {
+                String id = "test_" + i + "_";
+                assertEquals(1, lanes.stream().filter(lane -> lane.stream().anyMatch(item -> id.equals(item.request.id()))).count());
+            }
+        }
+        @Test
+        void testSmallBatch(){
+            List<ElasticsearchRecordWriter.BulkItem> items = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                items.add(new ElasticsearchRecordWriter.BulkItem(new TapInsertRecordEvent(), new IndexRequest("test").id("test_" + i + "_")));
+            }
+            assertEquals(1, recordWriter.splitLanes(items).size());
+        }
+    }
+    @Nested
+    class BulkTest{
+        RestHighLevelClient client;
+        WriteListResult<TapRecordEvent> laneResult;
+        List<ElasticsearchRecordWriter.BulkItem> items;
+        BulkRequest bulkRequest;
+        @BeforeEach
+        void beforeEach(){
+            client = mock(RestHighLevelClient.class);
+            ReflectionTestUtils.setField(recordWriter,"client",client);
+            ReflectionTestUtils.setField(recordWriter,"log",mock(Log.class));
+            ReflectionTestUtils.setField(recordWriter,"index","test");
+            laneResult = new WriteListResult<>(0L, 0L, 0L, new HashMap<>());
+            items = new ArrayList<>();
+            bulkRequest = new BulkRequest();
+            for (int i = 0; i < 2; i++) {
+                ElasticsearchRecordWriter.BulkItem item = new ElasticsearchRecordWriter.BulkItem(new TapInsertRecordEvent(), new IndexRequest("test").id("test_" + i + "_"));
+                items.add(item);
+                bulkRequest.add(item.request);
+            }
+        }
+        private BulkItemResponse success(int itemId){
+            BulkItemResponse itemResponse = mock(BulkItemResponse.class);
+            when(itemResponse.getItemId()).thenReturn(itemId);
+            when(itemResponse.getOpType()).thenReturn(DocWriteRequest.OpType.INDEX);
+            return itemResponse;
+        }
+        private BulkItemResponse failure(int itemId, RestStatus status, Exception cause){
+            BulkItemResponse itemResponse = mock(BulkItemResponse.class);
+            BulkItemResponse.Failure failure = mock(BulkItemResponse.Failure.class);
+            when(failure.getStatus()).thenReturn(status);
+            when(failure.getCause()).thenReturn(cause);
+            when(itemResponse.getItemId()).thenReturn(itemId);
+            when(itemResponse.isFailed()).thenReturn(true);
+            when(itemResponse.getFailure()).thenReturn(failure);
+            return itemResponse;
+        }
+        private BulkResponse response(BulkItemResponse... itemResponses){
+            BulkResponse bulkResponse = mock(BulkResponse.class);
+            when(bulkResponse.iterator()).thenAnswer(invocationOnMock -> Arrays.asList(itemResponses).iterator());
+            return bulkResponse;
+        }
+        private void bulk() {
+            ReflectionTestUtils.invokeMethod(recordWriter, "bulk", bulkRequest, items, laneResult);
+        }
+        @Test
+        void testRetryRejectedItems() throws Exception {
+            List<Integer> actions = new ArrayList<>();
+            when(client.bulk(any(BulkRequest.class), any(RequestOptions.class))).thenAnswer(invocationOnMock -> {
+                actions.add(((BulkRequest) invocationOnMock.getArgument(0)).numberOfActions());
+                if (actions.size() == 1) {
+                    return response(success(0), failure(1, RestStatus.TOO_MANY_REQUESTS, new RuntimeException("rejected")));
+                }
+                return response(success(0));
+            });
+            bulk();
+            //only the rejected item is sent again
+            assertEquals(Arrays.asList(2, 1), actions);
+            assertEquals(2L, laneResult.getInsertedCount());
+            assertTrue(laneResult.getErrorMap().isEmpty());
+        }
+        @Test
+        void testStillRejectedAfterRetries() throws Exception {
+            when(client.bulk(any(BulkRequest.class), any(RequestOptions.class))).thenAnswer(invocationOnMock ->
+                    response(success(0), failure(1, RestStatus.TOO_MANY_REQUESTS, new RuntimeException("rejected"))));
+            RuntimeException exception = assertThrows(RuntimeException.class, this::bulk);
+            assertEquals("rejected", exception.getCause().getMessage());
+            verify(client, times(7)).bulk(any(BulkRequest.class), any(RequestOptions.class));
+        }
+        @Test
+        void testFailOnOtherErrors() throws Exception {
+            RuntimeException cause = new RuntimeException("mapper_parsing_exception");
+            when(client.bulk(any(BulkRequest.class), any(RequestOptions.class))).thenAnswer(invocationOnMock ->
+                    response(failure(0, RestStatus.BAD_REQUEST, cause), success(1)));
+            assertSame(cause, assertThrows(RuntimeException.class, this::bulk));
+            verify(client, times(1)).bulk(any(BulkRequest.class), any(RequestOptions.class));
+            assertTrue(laneResult.getErrorMap().containsKey(items.get(0).event));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package io.tapdata.mongodb;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * offset of a collection read by _id ranges in parallel, every range keeps the last _id it has emitted
+ */
+public class MongoSplitBatchOffset implements Serializable {
+
+    private static final long serialVersionUID = 3586730315427845127L;
+    private List<Range> ranges = new ArrayList<>();
+
+    public MongoSplitBatchOffset() {}
+
+    public MongoSplitBatchOffset(List<Range> ranges) {
+        this.ranges = ranges;
+    }
+
+    public List<Range> getRanges() {
+        return ranges;
+    }
+
+    public void setRanges(List<Range> ranges) {
+        this.ranges = ranges;
+    }
+
+    public MongoSplitBatchOffset copy() {
+        List<Range> copyRanges = new ArrayList<>();
+        ranges.forEach(range -> copyRanges.add(range.copy()));
+        return new MongoSplitBatchOffset(copyRanges);
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", MongoSplitBatchOffset.class.getSimpleName() + "[", "]")
+                .add("ranges=" + ranges)
+                .toString();
+    }
+
+    public static class Range implements Serializable {
+
+        private static final long serialVersionUID = -2480113725139446378L;
+        //type alias of _id used by $type, such as objectId, string, number
+        private String idType;
+        //documents whose _id is not of idType, they are not covered by the bounds
+        private boolean others;
+        //inclusive, null means no lower bound
+        private MongoBatchOffset min;
+        //exclusive, null means no upper bound
+        private MongoBatchOffset max;
+        //last _id emitted, null means the range is not started
+        private MongoBatchOffset offset;
+        private boolean finished;
+
+        public Range() {}
+
+        public Range(String idType, boolean others, MongoBatchOffset min, MongoBatchOffset max) {
+            this.idType = idType;
+            this.others = others;
+            this.min = min;
+            this.max = max;
+        }
+
+        public Range copy() {
+            Range range = new Range(idType, others, min, max);
+            range.setOffset(offset);
+            range.setFinished(finished);
+            return range;
+        }
+
+        public String getIdType() {
+            return idType;
+        }
+
+        public void setIdType(String idType) {
+            this.idType = idType;
+        }
+
+        public boolean isOthers() {
+            return others;
+        }
+
+        public void setOthers(boolean others) {
+            this.others = others;
+        }
+
+        public MongoBatchOffset getMin() {
+            return min;
+        }
+
+        public void setMin(MongoBatchOffset min) {
+            this.min = min;
+        }
+
+        public MongoBatchOffset getMax() {
+            return max;
+        }
+
+        public void setMax(MongoBatchOffset max) {
+            this.max = max;
+        }
+
+        public MongoBatchOffset getOffset() {
+            return offset;
+        }
+
+        public void setOffset(MongoBatchOffset offset) {
+            this.offset = offset;
+        }
+
+        public boolean isFinished() {
+            return finished;
+        }
+
+        public void setFinished(boolean finished) {
+            this.finished = finished;
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", Range.class.getSimpleName() + "[", "]")
+                    .add("idType='" + idType + "'")
+                    .add("others=" + others)
+                    .add("min=" + min)
+                    .add("max=" + max)
+                    .add("offset=" + offset)
+                    .add("finished=" + finished)
+                    .toString();
+        }
+    }
+}
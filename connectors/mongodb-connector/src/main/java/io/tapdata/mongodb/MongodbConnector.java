@@ -30,6 +30,7 @@ import io.tapdata.mongodb.entity.MongoCdcOffset;
 import io.tapdata.mongodb.entity.MongodbConfig;
 import io.tapdata.mongodb.entity.ReadParam;
 import io.tapdata.mongodb.reader.MongodbOpLogStreamV3Reader;
+import io.tapdata.mongodb.reader.MongodbShardV4StreamReader;
 import io.tapdata.mongodb.reader.MongodbStreamReader;
 import io.tapdata.mongodb.reader.MongodbV4StreamReader;
 import io.tapdata.mongodb.reader.StreamWithOpLogCollection;
@@ -1593,7 +1594,9 @@ public class MongodbConnector extends ConnectorBase {
 				mongodbStreamReader = createStreamReader();
 			}
 			mongodbStreamReader.onStart(mongoConfig);
-			doStreamRead(mongodbStreamReader, connectorContext, tableList, mongoCdcOffset.getCdcOffset(), eventBatchSize, consumer);
+			//the shard reader keeps the oplog offset in the offsets of shards
+			Object cdcOffset = mongodbStreamReader instanceof MongodbShardV4StreamReader ? mongoCdcOffset : mongoCdcOffset.getCdcOffset();
+			doStreamRead(mongodbStreamReader, connectorContext, tableList, cdcOffset, eventBatchSize, consumer);
 		}
 	}
 
@@ -1657,7 +1660,9 @@ public class MongodbConnector extends ConnectorBase {
 		MongodbStreamReader mongodbStreamReader = null;
 		try {
 			final int version = MongodbUtil.getVersion(mongoClient, mongoConfig.getDatabase());
-			if (version >= 4) {
+			if (version >= 4 && mongoConfig.isShardChangeStream()) {
+				mongodbStreamReader = new MongodbShardV4StreamReader().setPreImage(mongoConfig.getPreImage());
+			} else if (version >= 4) {
 				mongodbStreamReader = new MongodbV4StreamReader().setPreImage(mongoConfig.getPreImage());
 			} else {
 				mongodbStreamReader = new MongodbV3StreamReader();
@@ -10,6 +10,7 @@ import io.tapdata.entity.logger.Log;
 import io.tapdata.entity.schema.TapTable;
 import io.tapdata.kit.EmptyKit;
 import io.tapdata.mongodb.MongoBatchOffset;
+import io.tapdata.mongodb.MongoSplitBatchOffset;
 import io.tapdata.mongodb.MongodbConnector;
 import io.tapdata.mongodb.MongodbExceptionCollector;
 import io.tapdata.mongodb.entity.MongodbConfig;
@@ -55,6 +56,9 @@ public class MongoBatchReader {
     protected Bson sort;
 
     public static MongoBatchReader of(ReadParam param) {
+        if (param.getMongoConfig().isSplitBatchRead() || param.getOffset() instanceof MongoSplitBatchOffset) {
+            return new MongoSplitBatchReader(param);
+        }
         return new MongoBatchReader(param);
     }
 
@@ -0,0 +1,282 @@
+package io.tapdata.mongodb.batch;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.kit.EmptyKit;
+import io.tapdata.mongodb.MongoBatchOffset;
+import io.tapdata.mongodb.MongoSplitBatchOffset;
+import io.tapdata.mongodb.MongodbConnector;
+import io.tapdata.mongodb.entity.ReadParam;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonValue;
+import org.bson.ByteBufNIO;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.conversions.Bson;
+import org.bson.io.ByteBufferBsonInput;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.mongodb.client.model.Filters.*;
+import static io.tapdata.base.ConnectorBase.insertRecordEvent;
+import static io.tapdata.base.ConnectorBase.list;
+
+/**
+ * read a big collection by _id ranges in parallel, boundaries of ranges are picked from sorted $sample of _id
+ * every range is read by its own cursor sorted by _id, so it can be resumed from the last _id it has emitted
+ * comparison of _id only matches one type bracket, documents with _id of other types are read by one more range
+ */
+public class MongoSplitBatchReader extends MongoBatchReader {
+
+    private static final String ID = MongodbConnector.COLLECTION_ID_FIELD;
+    //collections smaller than it are read by one cursor
+    protected static final long MIN_SPLIT_COUNT = 100000L;
+    //more samples make ranges more even
+    private static final int SAMPLES_PER_RANGE = 20;
+    //batches of ranges not emitted yet, range readers are blocked when it is full
+    private static final int RANGE_QUEUE_SIZE = 16;
+    protected final int rangeCount;
+
+    public MongoSplitBatchReader(ReadParam param) {
+        super(param);
+        this.rangeCount = mongoConfig.getBatchReadThreadSize();
+    }
+
+    @Override
+    public void batchReadCollection(ReadParam param) {
+        MongoCollection<RawBsonDocument> collection = param.getRawCollection().collectRawCollection(table.getId());
+        MongoSplitBatchOffset splitOffset = null;
+        try {
+            if (offset instanceof MongoSplitBatchOffset) {
+                splitOffset = (MongoSplitBatchOffset) offset;
+                connectorContext.getLog().info("Resume batch read of {} by {} ranges", table.getId(), splitOffset.getRanges().size());
+            } else if (canSplit() && collection.estimatedDocumentCount() >= MIN_SPLIT_COUNT) {
+                splitOffset = splitBySamples(sampleIds(collection));
+            }
+        } catch (Exception e) {
+            doException(e);
+            return;
+        }
+        if (null == splitOffset) {
+            super.batchReadCollection(param);
+            return;
+        }
+        batchReadRanges(collection, splitOffset);
+    }
+
+    //oplog is sorted by $natural, and cursors without timeout need a session refreshed all the time
+    protected boolean canSplit() {
+        return rangeCount > 1 && ID.equals(offsetKey) && !mongoConfig.isNoCursorTimeout();
+    }
+
+    protected List<BsonValue> sampleIds(MongoCollection<RawBsonDocument> collection) {
+        List<BsonValue> samples = new ArrayList<>();
+        try (MongoCursor<RawBsonDocument> cursor = collection.aggregate(Arrays.asList(
+                Aggregates.sample(rangeCount * SAMPLES_PER_RANGE),
+                Aggregates.project(Projections.include(ID)),
+                Aggregates.sort(Sorts.ascending(ID)))).allowDiskUse(true).iterator()) {
+            while (cursor.hasNext()) {
+                samples.add(cursor.next().get(ID));
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * @param samples sorted _id of sampled documents
+     * @return null when samples are not enough or their types are mixed, then the collection is read by one cursor
+     */
+    protected MongoSplitBatchOffset splitBySamples(List<BsonValue> samples) {
+        if (EmptyKit.isEmpty(samples) || samples.size() < rangeCount) {
+            return null;
+        }
+        String idType = idType(samples.get(0));
+        if (null == idType || samples.stream().anyMatch(sample -> !idType.equals(idType(sample)))) {
+            return null;
+        }
+        List<Object> bounds = new ArrayList<>();
+        int step = samples.size() / rangeCount;
+        for (int i = 1; i < rangeCount; i++) {
+            Object bound = idValue(samples.get(i * step));
+            if (bounds.isEmpty() || !bounds.get(bounds.size() - 1).equals(bound)) {
+                bounds.add(bound);
+            }
+        }
+        List<MongoSplitBatchOffset.Range> ranges = new ArrayList<>();
+        MongoBatchOffset min = null;
+        for (Object bound : bounds) {
+            MongoBatchOffset max = new MongoBatchOffset(ID, bound);
+            ranges.add(new MongoSplitBatchOffset.Range(idType, false, min, max));
+            min = max;
+        }
+        ranges.add(new MongoSplitBatchOffset.Range(idType, false, min, null));
+        ranges.add(new MongoSplitBatchOffset.Range(idType, true, null, null));
+        return new MongoSplitBatchOffset(ranges);
+    }
+
+    protected Bson rangeFilter(MongoSplitBatchOffset.Range range) {
+        if (range.isOthers()) {
+            //not sorted in one type bracket, so it is read again from the beginning when resumed
+            return not(type(ID, range.getIdType()));
+        }
+        List<Bson> filters = new ArrayList<>();
+        filters.add(type(ID, range.getIdType()));
+        if (null != range.getOffset()) {
+            filters.add(gt(ID, range.getOffset().value()));
+        } else if (null != range.getMin()) {
+            filters.add(gte(ID, range.getMin().value()));
+        }
+        if (null != range.getMax()) {
+            filters.add(lt(ID, range.getMax().value()));
+        }
+        return and(filters);
+    }
+
+    protected void batchReadRanges(MongoCollection<RawBsonDocument> collection, MongoSplitBatchOffset splitOffset) {
+        List<MongoSplitBatchOffset.Range> ranges = splitOffset.getRanges();
+        int unfinished = (int) ranges.stream().filter(range -> !range.isFinished()).count();
+        if (unfinished == 0) {
+            return;
+        }
+        connectorContext.getLog().info("Batch read {} by {} ranges in parallel: {}", table.getId(), unfinished, ranges);
+        BlockingQueue<RangeBatch> batchQueue = new ArrayBlockingQueue<>(RANGE_QUEUE_SIZE);
+        AtomicReference<Exception> throwable = new AtomicReference<>();
+        ExecutorService rangeExecutor = Executors.newFixedThreadPool(Math.min(unfinished, rangeCount));
+        try {
+            for (int i = 0; i < ranges.size(); i++) {
+                if (ranges.get(i).isFinished()) {
+                    continue;
+                }
+                int index = i;
+                Bson filter = rangeFilter(ranges.get(i));
+                rangeExecutor.submit(() -> {
+                    Thread.currentThread().setName("MongoSplitBatchReader-" + table.getId() + "-" + index);
+                    try {
+                        readRange(collection, index, filter, batchQueue);
+                    } catch (Exception e) {
+                        throwable.compareAndSet(null, e);
+                    }
+                });
+            }
+            while (checkAlive.getAsBoolean() && unfinished > 0) {
+                if (EmptyKit.isNotNull(throwable.get())) {
+                    throw throwable.get();
+                }
+                RangeBatch rangeBatch = batchQueue.poll(1, TimeUnit.SECONDS);
+                if (null == rangeBatch) {
+                    continue;
+                }
+                MongoSplitBatchOffset.Range range = ranges.get(rangeBatch.index);
+                if (null != rangeBatch.lastId && !range.isOthers()) {
+                    range.setOffset(new MongoBatchOffset(ID, rangeBatch.lastId));
+                }
+                if (rangeBatch.finished) {
+                    range.setFinished(true);
+                    unfinished--;
+                }
+                if (!rangeBatch.events.isEmpty()) {
+                    tapReadOffsetConsumer.accept(rangeBatch.events, splitOffset.copy());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            doException(e);
+        } finally {
+            rangeExecutor.shutdownNow();
+        }
+    }
+
+    protected void readRange(MongoCollection<RawBsonDocument> collection, int index, Bson filter, BlockingQueue<RangeBatch> batchQueue) throws InterruptedException {
+        DocumentCodec codec = new DocumentCodec();
+        DecoderContext decoderContext = DecoderContext.builder().build();
+        int batchSize = eventBatchSize > 0 ? eventBatchSize : DEFAULT_BATCH_SIZE;
+        FindIterable<RawBsonDocument> findIterable = collection.find(filter).sort(sort).batchSize(batchSize);
+        try (MongoCursor<RawBsonDocument> cursor = findIterable.iterator()) {
+            List<TapEvent> events = list();
+            Object lastId = null;
+            while (checkAlive.getAsBoolean()) {
+                if (!cursor.hasNext()) {
+                    offerBatch(batchQueue, new RangeBatch(index, events, lastId, true));
+                    return;
+                }
+                Document document;
+                try (BsonBinaryReader reader = new BsonBinaryReader(new ByteBufferBsonInput(new ByteBufNIO(cursor.next().getByteBuffer().asNIO())))) {
+                    document = codec.decode(reader, decoderContext);
+                }
+                lastId = document.get(ID);
+                events.add(insertRecordEvent(convert(document), table.getId()));
+                if (events.size() >= batchSize) {
+                    offerBatch(batchQueue, new RangeBatch(index, events, lastId, false));
+                    events = list();
+                }
+            }
+        }
+    }
+
+    private void offerBatch(BlockingQueue<RangeBatch> batchQueue, RangeBatch rangeBatch) throws InterruptedException {
+        while (checkAlive.getAsBoolean() && !batchQueue.offer(rangeBatch, 1, TimeUnit.SECONDS)) {
+            connectorContext.getLog().debug("Range {} of {} is waiting for emitting", rangeBatch.index, table.getId());
+        }
+    }
+
+    //_id types which can be compared in one type bracket
+    protected static String idType(BsonValue value) {
+        switch (value.getBsonType()) {
+            case OBJECT_ID:
+                return "objectId";
+            case STRING:
+                return "string";
+            case INT32:
+            case INT64:
+            case DOUBLE:
+                return "number";
+            default:
+                return null;
+        }
+    }
+
+    protected static Object idValue(BsonValue value) {
+        switch (value.getBsonType()) {
+            case OBJECT_ID:
+                return value.asObjectId().getValue();
+            case STRING:
+                return value.asString().getValue();
+            case INT32:
+                return value.asInt32().getValue();
+            case INT64:
+                return value.asInt64().getValue();
+            default:
+                return value.asDouble().getValue();
+        }
+    }
+
+    protected static class RangeBatch {
+        private final int index;
+        private final List<TapEvent> events;
+        private final Object lastId;
+        private final boolean finished;
+
+        RangeBatch(int index, List<TapEvent> events, Object lastId, boolean finished) {
+            this.index = index;
+            this.events = events;
+            this.lastId = lastId;
+            this.finished = finished;
+        }
+    }
+}
@@ -6,6 +6,8 @@ import java.util.Map;
 public class MongoCdcOffset {
     private Object opLogOffset;
     private Object cdcOffset;
+    //resume token (or start time in seconds) of every shard, when change streams are opened on shards
+    private Map<String, Object> shardCdcOffset;
 
     public MongoCdcOffset() {
     }
@@ -15,6 +17,11 @@ public class MongoCdcOffset {
         this.cdcOffset = cdcOffset;
     }
 
+    public MongoCdcOffset(Object opLogOffset, Object cdcOffset, Map<String, Object> shardCdcOffset) {
+        this(opLogOffset, cdcOffset);
+        this.shardCdcOffset = shardCdcOffset;
+    }
+
     public Object getOpLogOffset() {
         return opLogOffset;
     }
@@ -31,14 +38,25 @@ public class MongoCdcOffset {
         this.cdcOffset = cdcOffset;
     }
 
+    public Map<String, Object> getShardCdcOffset() {
+        return shardCdcOffset;
+    }
+
+    public void setShardCdcOffset(Map<String, Object> shardCdcOffset) {
+        this.shardCdcOffset = shardCdcOffset;
+    }
+
     protected static final String OP_LOG_OFFSET = "opLogOffset";
     protected static final String CDC_OFFSET = "cdcOffset";
+    protected static final String SHARD_CDC_OFFSET = "shardCdcOffset";
     protected static final String MONGO_CDC_OFFSET_FLAG = "mongo_cdc_offset_flag";
     public static MongoCdcOffset fromOffset(Object mongoOffset) {
         if (mongoOffset instanceof Map) {
             Map<String, Object> offset = (Map<String, Object>) mongoOffset;
             if (offset.containsKey(MONGO_CDC_OFFSET_FLAG) && Boolean.TRUE.equals(offset.get(MONGO_CDC_OFFSET_FLAG))) {
-                return new MongoCdcOffset(offset.get(OP_LOG_OFFSET), offset.get(CDC_OFFSET));
+                Object shardCdcOffset = offset.get(SHARD_CDC_OFFSET);
+                return new MongoCdcOffset(offset.get(OP_LOG_OFFSET), offset.get(CDC_OFFSET),
+                        shardCdcOffset instanceof Map ? new HashMap<>((Map<String, Object>) shardCdcOffset) : null);
             }
             return new MongoCdcOffset(null, mongoOffset);
         }
@@ -52,6 +70,9 @@ public class MongoCdcOffset {
         Map<String, Object> offset = new HashMap<>();
         offset.put(OP_LOG_OFFSET, opLogOffset);
         offset.put(CDC_OFFSET, cdcOffset);
+        if (null != shardCdcOffset) {
+            offset.put(SHARD_CDC_OFFSET, shardCdcOffset);
+        }
         offset.put(MONGO_CDC_OFFSET_FLAG, true);
         return offset;
     }
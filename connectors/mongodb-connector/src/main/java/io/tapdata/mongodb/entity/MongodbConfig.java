@@ -54,6 +54,12 @@ public class MongodbConfig extends CommonDbConfig {
 
 	private boolean timeSeriesCollection;
 	private String writeConcern = "w1";
+	//open change stream on every shard instead of mongos
+	private boolean shardChangeStream = false;
+	//split _id of big collections into batchReadThreadSize ranges, and read them by cursors in parallel
+	private boolean splitBatchRead = false;
+	//write models of a batch are partitioned by key, and partitions are written by bulk writes in parallel
+	private int bulkWriteConcurrency = 1;
 
 	public boolean isSyncIndex() {
 		return syncIndex;
@@ -269,4 +275,28 @@ public class MongodbConfig extends CommonDbConfig {
 	public void setWriteConcern(String writeConcern) {
 		this.writeConcern = writeConcern;
 	}
+
+	public boolean isShardChangeStream() {
+		return shardChangeStream;
+	}
+
+	public void setShardChangeStream(boolean shardChangeStream) {
+		this.shardChangeStream = shardChangeStream;
+	}
+
+	public boolean isSplitBatchRead() {
+		return splitBatchRead;
+	}
+
+	public void setSplitBatchRead(boolean splitBatchRead) {
+		this.splitBatchRead = splitBatchRead;
+	}
+
+	public int getBulkWriteConcurrency() {
+		return bulkWriteConcurrency;
+	}
+
+	public void setBulkWriteConcurrency(int bulkWriteConcurrency) {
+		this.bulkWriteConcurrency = bulkWriteConcurrency;
+	}
 }
@@ -0,0 +1,292 @@
+package io.tapdata.mongodb.reader;
+
+import com.mongodb.client.MongoClient;
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.logger.TapLogger;
+import io.tapdata.kit.EmptyKit;
+import io.tapdata.mongodb.MongodbUtil;
+import io.tapdata.mongodb.entity.MongoCdcOffset;
+import io.tapdata.mongodb.entity.MongodbConfig;
+import io.tapdata.pdk.apis.consumer.StreamReadConsumer;
+import io.tapdata.pdk.apis.context.TapConnectorContext;
+import org.bson.BsonDocument;
+import org.bson.BsonTimestamp;
+import org.bson.BsonValue;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * open one change stream on every shard directly instead of one through mongos, which is the bottleneck of big clusters
+ * a document lives in one shard (migration events are not shown on streams of shards), so events of the same document keep their order,
+ * events of shards are merged by cluster time up to the lowest watermark of all shards, idle shards move their watermark by post batch resume tokens
+ * offset is MongoCdcOffset with the resume token of every shard, and the oplog offset it was started from
+ */
+public class MongodbShardV4StreamReader implements MongodbStreamReader {
+
+    public static final String TAG = MongodbShardV4StreamReader.class.getSimpleName();
+    //batches of shards not merged yet, shard readers are blocked when it is full
+    private static final int SHARD_QUEUE_SIZE = 64;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private MongodbConfig mongodbConfig;
+    private boolean isPreImage;
+    private Map<String, String> shardsURI;
+    //reads through mongos when the cluster is not sharded, or the offset is a resume token of mongos
+    private MongodbV4StreamReader routerReader;
+    private final Map<String, MongodbV4StreamReader> shardReaders = new ConcurrentHashMap<>();
+    private ExecutorService shardExecutor;
+
+    public MongodbShardV4StreamReader setPreImage(boolean isPreImage) {
+        this.isPreImage = isPreImage;
+        return this;
+    }
+
+    @Override
+    public void onStart(MongodbConfig mongodbConfig) {
+        this.mongodbConfig = mongodbConfig;
+        running.compareAndSet(false, true);
+        if (null == routerReader) {
+            routerReader = new MongodbV4StreamReader().setPreImage(isPreImage);
+        }
+        routerReader.onStart(mongodbConfig);
+        if (null == shardsURI) {
+            try (MongoClient mongoClient = MongodbUtil.createMongoClient(mongodbConfig)) {
+                shardsURI = MongodbUtil.nodesURI(mongoClient, mongodbConfig.getUri());
+            }
+        }
+    }
+
+    @Override
+    public void read(TapConnectorContext connectorContext, List<String> tableList, Object offset, int eventBatchSize, StreamReadConsumer consumer) throws Exception {
+        Object opLogOffset = null;
+        if (offset instanceof MongoCdcOffset) {
+            MongoCdcOffset mongoCdcOffset = (MongoCdcOffset) offset;
+            opLogOffset = mongoCdcOffset.getOpLogOffset();
+            offset = null == mongoCdcOffset.getShardCdcOffset() ? mongoCdcOffset.getCdcOffset() : mongoCdcOffset.getShardCdcOffset();
+        }
+        Map<String, Object> shardOffsets = shardOffsets(offset);
+        if (null == shardOffsets) {
+            routerReader.read(connectorContext, tableList, offset, eventBatchSize, consumer);
+            return;
+        }
+        routerReader.openChangeStreamPreAndPostImages(tableList);
+        TapLogger.info(TAG, "Read change streams of {} shards: {}", shardsURI.size(), shardsURI.keySet());
+        BlockingQueue<ShardBatch> batchQueue = new ArrayBlockingQueue<>(SHARD_QUEUE_SIZE);
+        AtomicReference<Exception> throwable = new AtomicReference<>();
+        Map<String, ShardState> shardStates = new HashMap<>();
+        shardExecutor = Executors.newFixedThreadPool(shardsURI.size());
+        for (Map.Entry<String, String> entry : shardsURI.entrySet()) {
+            String shard = entry.getKey();
+            shardStates.put(shard, new ShardState(shardOffsets.get(shard)));
+            MongodbConfig shardConfig = (MongodbConfig) mongodbConfig.copy();
+            shardConfig.setIsUri(true);
+            shardConfig.setUri(entry.getValue());
+            MongodbV4StreamReader shardReader = new MongodbV4StreamReader().setPreImage(isPreImage).skipOpenPreImage()
+                    .offsetEventConsumer(offsetEvents -> {
+                        if (offsetEvents.isEmpty()) {
+                            return;
+                        }
+                        ShardBatch shardBatch = new ShardBatch(shard, offsetEvents);
+                        try {
+                            while (running.get() && !batchQueue.offer(shardBatch, 1, TimeUnit.SECONDS)) {
+                                TapLogger.debug(TAG, "Shard {} is waiting for merging", shard);
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    });
+            shardReader.onStart(shardConfig);
+            shardReaders.put(shard, shardReader);
+            List<String> shardTableList = new ArrayList<>(tableList);
+            shardExecutor.submit(() -> {
+                Thread.currentThread().setName("MongodbShardV4StreamReader-" + shard);
+                try {
+                    shardReader.read(connectorContext, shardTableList, shardOffsets.get(shard), eventBatchSize, StreamReadConsumer.create((events, shardOffset) -> {
+                    }));
+                } catch (Exception e) {
+                    throwable.compareAndSet(null, e);
+                }
+            });
+        }
+        consumer.streamReadStarted();
+        try {
+            while (running.get()) {
+                if (EmptyKit.isNotNull(throwable.get())) {
+                    throw throwable.get();
+                }
+                ShardBatch shardBatch = batchQueue.poll(1, TimeUnit.SECONDS);
+                if (null == shardBatch) {
+                    continue;
+                }
+                List<ShardBatch> shardBatches = new ArrayList<>();
+                shardBatches.add(shardBatch);
+                batchQueue.drainTo(shardBatches);
+                for (ShardBatch batch : shardBatches) {
+                    shardStates.get(batch.shard).add(batch.offsetEvents);
+                }
+                List<TapEvent> events = merge(shardStates);
+                if (null != events) {
+                    Map<String, Object> offsets = new HashMap<>();
+                    shardStates.forEach((shard, state) -> offsets.put(shard, state.offset));
+                    consumer.accept(events, new MongoCdcOffset(opLogOffset, null, offsets).toOffset());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            shardExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * take events of all shards up to the lowest watermark, no shard can deliver an event earlier than that any more,
+     * the offset of a shard moves to the last event (or idle resume token) taken from it
+     *
+     * @return events in order of cluster time, null if no offset moves
+     */
+    protected List<TapEvent> merge(Map<String, ShardState> shardStates) {
+        BsonTimestamp lowWatermark = null;
+        for (ShardState state : shardStates.values()) {
+            if (null == state.watermark) {
+                return null;
+            }
+            if (null == lowWatermark || state.watermark.compareTo(lowWatermark) < 0) {
+                lowWatermark = state.watermark;
+            }
+        }
+        if (null == lowWatermark) {
+            return null;
+        }
+        boolean moved = false;
+        List<MongodbV4StreamReader.OffsetEvent> ready = new ArrayList<>();
+        for (ShardState state : shardStates.values()) {
+            while (!state.pending.isEmpty()) {
+                BsonTimestamp clusterTime = clusterTime(state.pending.peek());
+                if (null != clusterTime && clusterTime.compareTo(lowWatermark) > 0) {
+                    break;
+                }
+                MongodbV4StreamReader.OffsetEvent offsetEvent = state.pending.poll();
+                state.offset = offsetEvent.getOffset();
+                moved = true;
+                if (null != offsetEvent.getEvent()) {
+                    ready.add(offsetEvent);
+                }
+            }
+        }
+        if (!moved) {
+            return null;
+        }
+        //stable sort, events of one shard are already in order of cluster time
+        ready.sort(Comparator.comparing(MongodbShardV4StreamReader::clusterTime, Comparator.nullsFirst(Comparator.naturalOrder())));
+        List<TapEvent> events = new ArrayList<>(ready.size());
+        ready.forEach(offsetEvent -> events.add(offsetEvent.getEvent()));
+        return events;
+    }
+
+    /**
+     * @return start offset of every shard, null means to read through mongos
+     */
+    protected Map<String, Object> shardOffsets(Object offset) {
+        if (null == shardsURI || shardsURI.size() <= 1) {
+            return null;
+        }
+        if (offset instanceof BsonDocument) {
+            TapLogger.info(TAG, "Offset is a resume token of mongos, keep reading change stream through mongos");
+            return null;
+        }
+        Map<String, Object> shardOffsets = new HashMap<>();
+        if (offset instanceof Map) {
+            shardOffsets.putAll((Map<String, Object>) offset);
+            shardsURI.keySet().stream().filter(shard -> !shardOffsets.containsKey(shard))
+                    .forEach(shard -> TapLogger.warn(TAG, "Shard {} has no offset, read its change stream from now", shard));
+        } else {
+            //all shards start at the same time, so no event is lost between them
+            Object startOffset = null == offset ? routerReader.streamOffset(null) : offset;
+            shardsURI.keySet().forEach(shard -> shardOffsets.put(shard, startOffset));
+        }
+        return shardOffsets;
+    }
+
+    private static BsonTimestamp clusterTime(MongodbV4StreamReader.OffsetEvent offsetEvent) {
+        return null == offsetEvent.getClusterTime() ? clusterTime(offsetEvent.getOffset()) : offsetEvent.getClusterTime();
+    }
+
+    /**
+     * cluster time of a start offset: seconds of a start time, or the time encoded in a resume token,
+     * whose key string begins with the type byte 0x82 followed by seconds and increment in big endian
+     */
+    protected static BsonTimestamp clusterTime(Object offset) {
+        if (offset instanceof Integer) {
+            return new BsonTimestamp((Integer) offset, 0);
+        }
+        if (!(offset instanceof BsonDocument)) {
+            return null;
+        }
+        BsonValue data = ((BsonDocument) offset).get("_data");
+        if (null == data || !data.isString()) {
+            return null;
+        }
+        String keyString = data.asString().getValue();
+        if (keyString.length() < 18 || !keyString.startsWith("82")) {
+            return null;
+        }
+        try {
+            return new BsonTimestamp((int) Long.parseLong(keyString.substring(2, 10), 16), (int) Long.parseLong(keyString.substring(10, 18), 16));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public Object streamOffset(Long offsetStartTime) {
+        return routerReader.streamOffset(offsetStartTime);
+    }
+
+    @Override
+    public void onDestroy() {
+        running.compareAndSet(true, false);
+        shardReaders.values().forEach(MongodbV4StreamReader::onDestroy);
+        shardReaders.clear();
+        if (null != routerReader) {
+            routerReader.onDestroy();
+        }
+        if (null != shardExecutor) {
+            shardExecutor.shutdownNow();
+        }
+    }
+
+    static class ShardBatch {
+        private final String shard;
+        private final List<MongodbV4StreamReader.OffsetEvent> offsetEvents;
+
+        ShardBatch(String shard, List<MongodbV4StreamReader.OffsetEvent> offsetEvents) {
+            this.shard = shard;
+            this.offsetEvents = offsetEvents;
+        }
+    }
+
+    //events of a shard not merged yet, the watermark is the latest cluster time the shard has reached
+    static class ShardState {
+        private final Deque<MongodbV4StreamReader.OffsetEvent> pending = new ArrayDeque<>();
+        private BsonTimestamp watermark;
+        private Object offset;
+
+        ShardState(Object startOffset) {
+            this.offset = startOffset;
+            this.watermark = clusterTime(startOffset);
+        }
+
+        void add(List<MongodbV4StreamReader.OffsetEvent> offsetEvents) {
+            for (MongodbV4StreamReader.OffsetEvent offsetEvent : offsetEvents) {
+                pending.add(offsetEvent);
+                BsonTimestamp clusterTime = clusterTime(offsetEvent);
+                if (null != clusterTime && (null == watermark || clusterTime.compareTo(watermark) > 0)) {
+                    watermark = clusterTime;
+                }
+            }
+        }
+    }
+}
@@ -8,8 +8,6 @@ import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.model.Aggregates;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.changestream.*;
-import io.tapdata.common.concurrent.ConcurrentProcessor;
-import io.tapdata.common.concurrent.TapExecutors;
 import io.tapdata.entity.event.TapEvent;
 import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
 import io.tapdata.entity.event.dml.TapInsertRecordEvent;
@@ -36,9 +34,10 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import static io.tapdata.base.ConnectorBase.*;
 import static java.util.Collections.singletonList;
@@ -50,6 +49,12 @@ import static java.util.Collections.singletonList;
 public class MongodbV4StreamReader implements MongodbStreamReader {
 
     public static final String TAG = MongodbV4StreamReader.class.getSimpleName();
+    //getMore waits on server at most this time when there is no change, so an idle stream does not spin
+    private static final long MAX_AWAIT_TIME_MS = 1000L;
+    private static final int DECODE_THREADS = 8;
+    //decoding batches not taken by consumer, reader is blocked when it is full
+    private static final int DECODE_QUEUE_SIZE = 32;
+    private static final int MIN_DECODE_CHUNK = 64;
 
     private final AtomicBoolean running = new AtomicBoolean(false);
     private MongoClient mongoClient;
@@ -57,18 +62,34 @@ public class MongodbV4StreamReader implements MongodbStreamReader {
     private MongodbConfig mongodbConfig;
     private KVMap<Object> globalStateMap;
     private boolean isPreImage;
+    private boolean openPreImage = true;
     private DocumentCodec codec;
     private DecoderContext decoderContext;
     private ConnectionString connectionString;
-    private ConcurrentProcessor<ChangeStreamDocument<RawBsonDocument>, OffsetEvent> concurrentProcessor;
+    private ExecutorService decodeExecutor;
     private MongodbExceptionCollector mongodbExceptionCollector;
     private String dropTransactionId;
+    //set by MongodbShardV4StreamReader, which merges decoded events of shards by itself
+    private Consumer<List<OffsetEvent>> offsetEventConsumer;
 
     public MongodbV4StreamReader setPreImage(boolean isPreImage) {
         this.isPreImage = isPreImage;
         return this;
     }
 
+    //streams of shards are opened on shards directly, collMod must be run through mongos
+    MongodbV4StreamReader skipOpenPreImage() {
+        this.openPreImage = false;
+        return this;
+    }
+
+    //events are handed over with their own resume tokens and cluster times instead of batched into the consumer,
+    //an idle fetch hands over the post batch resume token, so the offset of a quiet stream still moves forward
+    MongodbV4StreamReader offsetEventConsumer(Consumer<List<OffsetEvent>> offsetEventConsumer) {
+        this.offsetEventConsumer = offsetEventConsumer;
+        return this;
+    }
+
     public MongodbV4StreamReader() {
         this.mongodbExceptionCollector = new MongodbExceptionCollector();
     }
@@ -83,7 +104,11 @@ public class MongodbV4StreamReader implements MongodbStreamReader {
         running.compareAndSet(false, true);
         codec = new DocumentCodec();
         decoderContext = DecoderContext.builder().build();
-        concurrentProcessor = TapExecutors.createSimple(8, 32, "MongodbV4StreamReader-Processor");
+        decodeExecutor = Executors.newFixedThreadPool(DECODE_THREADS, r -> {
+            Thread thread = new Thread(r, "MongodbV4StreamReader-Decoder");
+            thread.setDaemon(true);
+            return thread;
+        });
         connectionString = new ConnectionString(mongodbConfig.getUri());
     }
 
@@ -121,51 +146,67 @@ public class MongodbV4StreamReader implements MongodbStreamReader {
             if (isPreImage) {
                 changeStream.fullDocumentBeforeChange(fullDocumentBeforeChangeOption);
             }
+            changeStream.batchSize(eventBatchSize).maxAwaitTime(MAX_AWAIT_TIME_MS, TimeUnit.MILLISECONDS);
             consumer.streamReadStarted();
             AtomicReference<Exception> throwableAtomicReference = new AtomicReference<>();
+            AtomicBoolean reading = new AtomicBoolean(true);
+            BlockingQueue<Future<List<OffsetEvent>>> decodeQueue = new ArrayBlockingQueue<>(DECODE_QUEUE_SIZE);
             try (final MongoChangeStreamCursor<ChangeStreamDocument<RawBsonDocument>> streamCursor = changeStream.cursor()) {
                 Thread t = new Thread(() -> {
                     List<TapEvent> events = list();
-                    OffsetEvent lastOffsetEvent = null;
-                    while (running.get()) {
+                    Object lastOffset = null;
+                    while (running.get() && reading.get()) {
                         try {
-                            OffsetEvent event = concurrentProcessor.get(2, TimeUnit.SECONDS);
-                            if (EmptyKit.isNotNull(event)) {
-                                lastOffsetEvent = event;
-                                events.add(event.getEvent());
-                                if (events.size() >= eventBatchSize) {
-                                    consumer.accept(events, event.getOffset());
-                                    events = new ArrayList<>();
-                                }
-                            } else {
-                                if (events.size() > 0) {
-                                    consumer.accept(events, lastOffsetEvent.getOffset());
-                                    events = new ArrayList<>();
+                            Future<List<OffsetEvent>> future = decodeQueue.poll(2, TimeUnit.SECONDS);
+                            if (EmptyKit.isNotNull(future) && null != offsetEventConsumer) {
+                                offsetEventConsumer.accept(future.get());
+                            } else if (EmptyKit.isNotNull(future)) {
+                                for (OffsetEvent event : future.get()) {
+                                    lastOffset = event.getOffset();
+                                    events.add(event.getEvent());
+                                    if (events.size() >= eventBatchSize) {
+                                        consumer.accept(events, lastOffset);
+                                        events = new ArrayList<>();
+                                    }
                                 }
                             }
+                            if (decodeQueue.isEmpty() && !events.isEmpty()) {
+                                consumer.accept(events, lastOffset);
+                                events = new ArrayList<>();
+                            }
+                        } catch (ExecutionException e) {
+                            throwableAtomicReference.set(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+                            break;
                         } catch (Exception e) {
                             throwableAtomicReference.set(e);
+                            break;
                         }
                     }
                 });
                 t.setName("MongodbV4StreamReader-Consumer");
                 t.start();
+                BsonDocument idleResumeToken = null;
                 while (running.get()) {
                     if (EmptyKit.isNotNull(throwableAtomicReference.get())) {
                         throw throwableAtomicReference.get();
                     }
-                    ChangeStreamDocument<RawBsonDocument> event = streamCursor.tryNext();
-                    if (event == null) {
+                    List<ChangeStreamDocument<RawBsonDocument>> documents = fetchBatch(streamCursor, eventBatchSize);
+                    if (documents.isEmpty()) {
+                        BsonDocument resumeToken = null == offsetEventConsumer ? null : streamCursor.getResumeToken();
+                        if (null != resumeToken && !resumeToken.equals(idleResumeToken)) {
+                            idleResumeToken = resumeToken;
+                            //queued after the events fetched before, so it is never taken ahead of them
+                            offerDecoded(decodeQueue, CompletableFuture.completedFuture(singletonList(new OffsetEvent(null, resumeToken))), throwableAtomicReference);
+                        }
                         continue;
                     }
-                    concurrentProcessor.runAsync(event, e -> {
-                        try {
-                            return emit(e);
-                        } catch (Exception er) {
-                            throwableAtomicReference.set(er);
-                            return null;
-                        }
-                    });
+                    //events are filtered in order, then decoded in chunks concurrently, and consumed in the same order
+                    documents.removeIf(this::dropByDoubleActive);
+                    int chunkSize = Math.max(MIN_DECODE_CHUNK, (documents.size() + DECODE_THREADS - 1) / DECODE_THREADS);
+                    for (int i = 0; i < documents.size(); i += chunkSize) {
+                        List<ChangeStreamDocument<RawBsonDocument>> chunk = documents.subList(i, Math.min(i + chunkSize, documents.size()));
+                        offerDecoded(decodeQueue, decodeExecutor.submit(() -> decode(chunk)), throwableAtomicReference);
+                    }
                 }
             } catch (Exception throwable) {
                 if (!running.get()) {
@@ -192,18 +233,83 @@ public class MongodbV4StreamReader implements MongodbStreamReader {
                 //TapLogger.debug(TAG, "Read change stream from {}, failed {}, error {}", MongodbUtil.maskUriPassword(mongodbConfig.getUri()), throwable.getMessage(), getStackString(throwable));
                 //}
             } finally {
-                concurrentProcessor.close();
+                reading.set(false);
+                decodeExecutor.shutdownNow();
+            }
+        }
+    }
+
+    private void offerDecoded(BlockingQueue<Future<List<OffsetEvent>>> decodeQueue, Future<List<OffsetEvent>> future, AtomicReference<Exception> throwableAtomicReference) throws Exception {
+        while (!decodeQueue.offer(future, 1, TimeUnit.SECONDS)) {
+            if (EmptyKit.isNotNull(throwableAtomicReference.get())) {
+                throw throwableAtomicReference.get();
+            }
+            if (!running.get()) {
+                break;
             }
         }
     }
 
+    /**
+     * wait at most maxAwaitTime for the first change, then take the changes already fetched without another round trip
+     */
+    protected List<ChangeStreamDocument<RawBsonDocument>> fetchBatch(MongoChangeStreamCursor<ChangeStreamDocument<RawBsonDocument>> streamCursor, int eventBatchSize) {
+        List<ChangeStreamDocument<RawBsonDocument>> documents = new ArrayList<>();
+        ChangeStreamDocument<RawBsonDocument> event = streamCursor.tryNext();
+        if (null == event) {
+            return documents;
+        }
+        documents.add(event);
+        while (documents.size() < eventBatchSize && streamCursor.available() > 0) {
+            documents.add(streamCursor.next());
+        }
+        return documents;
+    }
+
+    private List<OffsetEvent> decode(List<ChangeStreamDocument<RawBsonDocument>> documents) {
+        List<OffsetEvent> offsetEvents = new ArrayList<>(documents.size());
+        for (ChangeStreamDocument<RawBsonDocument> document : documents) {
+            OffsetEvent offsetEvent = emit(document);
+            if (null != offsetEvent) {
+                offsetEvents.add(offsetEvent);
+            }
+        }
+        return offsetEvents;
+    }
+
+    //双活情形下，需要过滤_tap_double_active记录的同事务数据，依赖事件顺序，所以不能放在并发解析中
+    protected boolean dropByDoubleActive(ChangeStreamDocument<RawBsonDocument> event) {
+        BsonDocument transactionDocument = event.getLsid();
+        if (!Boolean.TRUE.equals(mongodbConfig.getDoubleActive()) || EmptyKit.isNull(transactionDocument) || null == event.getNamespace()) {
+            return false;
+        }
+        String transactionId = transactionDocument.getBinary("id").asUuid().toString();
+        if ("_tap_double_active".equals(event.getNamespace().getCollectionName())) {
+            dropTransactionId = transactionId;
+            return true;
+        }
+        if (null != dropTransactionId) {
+            if (dropTransactionId.equals(transactionId)) {
+                return true;
+            }
+            dropTransactionId = null;
+        }
+        return false;
+    }
+
     static class OffsetEvent {
         private final Object offset;
         private final TapEvent event;
+        private final BsonTimestamp clusterTime;
 
         public OffsetEvent(TapEvent event, Object offset) {
+            this(event, offset, null);
+        }
+
+        public OffsetEvent(TapEvent event, Object offset, BsonTimestamp clusterTime) {
             this.offset = offset;
             this.event = event;
+            this.clusterTime = clusterTime;
         }
 
         public Object getOffset() {
@@ -213,6 +319,10 @@ public class MongodbV4StreamReader implements MongodbStreamReader {
         public TapEvent getEvent() {
             return event;
         }
+
+        public BsonTimestamp getClusterTime() {
+            return clusterTime;
+        }
     }
 
     private OffsetEvent emit(ChangeStreamDocument<RawBsonDocument> event) {
@@ -224,23 +334,6 @@ public class MongodbV4StreamReader implements MongodbStreamReader {
         if (collectionName == null) {
             return null;
         }
-        BsonDocument transactionDocument = event.getLsid();
-        //双活情形下，需要过滤_tap_double_active记录的同事务数据
-        if (Boolean.TRUE.equals(mongodbConfig.getDoubleActive()) && EmptyKit.isNotNull(transactionDocument)) {
-            String transactionId = transactionDocument.getBinary("id").asUuid().toString();
-            if ("_tap_double_active".equals(collectionName)) {
-                dropTransactionId = transactionId;
-                return null;
-            } else {
-                if (null != dropTransactionId) {
-                    if (dropTransactionId.equals(transactionId)) {
-                        return null;
-                    } else {
-                        dropTransactionId = null;
-                    }
-                }
-            }
-        }
         OffsetEvent offsetEvent = null;
         OperationType operationType = event.getOperationType();
         Document fullDocumentBeforeChange = null;
@@ -272,7 +365,7 @@ public class MongodbV4StreamReader implements MongodbStreamReader {
                     }
 
                     recordEvent.setReferenceTime((long) (event.getClusterTime().getTime()) * 1000);
-                    offsetEvent = new OffsetEvent(recordEvent, event.getResumeToken());
+                    offsetEvent = new OffsetEvent(recordEvent, event.getResumeToken(), event.getClusterTime());
                 } else {
                     TapLogger.warn(TAG, "Document key is null, failed to delete. {}", event);
                 }
@@ -289,7 +382,7 @@ public class MongodbV4StreamReader implements MongodbStreamReader {
                     after.putAll(fullDocument);
                     TapInsertRecordEvent recordEvent = insertRecordEvent(after, collectionName);
                     recordEvent.setReferenceTime((long) (event.getClusterTime().getTime()) * 1000);
-                    offsetEvent = new OffsetEvent(recordEvent, event.getResumeToken());
+                    offsetEvent = new OffsetEvent(recordEvent, event.getResumeToken(), event.getClusterTime());
                 } else if (operationType == OperationType.UPDATE || operationType == OperationType.REPLACE) {
                     DataMap before = new DataMap();
                     DataMap after = new DataMap();
@@ -336,7 +429,7 @@ public class MongodbV4StreamReader implements MongodbStreamReader {
 //							recordEvent.setInfo(info);
                         recordEvent.setReferenceTime((long) (event.getClusterTime().getTime()) * 1000);
                         recordEvent.setIsReplaceEvent(operationType.equals(OperationType.REPLACE));
-                        offsetEvent = new OffsetEvent(recordEvent, event.getResumeToken());
+                        offsetEvent = new OffsetEvent(recordEvent, event.getResumeToken(), event.getClusterTime());
                     } else {
                         throw new RuntimeException(String.format("Document key is null, failed to update. %s", event));
                     }
@@ -365,7 +458,7 @@ public class MongodbV4StreamReader implements MongodbStreamReader {
     }
 
     protected void openChangeStreamPreAndPostImages(List<String> tableList) {
-        if (isPreImage) {
+        if (isPreImage && openPreImage) {
             for (String tableName : tableList) {
                 try {
                     openChangeStream(tableName);
@@ -31,8 +31,13 @@ import io.tapdata.utils.AppType;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.MapUtils;
 import org.bson.Document;
+import org.bson.conversions.Bson;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
@@ -46,6 +51,8 @@ import static io.tapdata.base.ConnectorBase.writeListResult;
 public class MongodbWriter {
 
 	public static final String TAG = MongodbV4StreamReader.class.getSimpleName();
+	//partitions smaller than it are not worth a thread
+	private static final int MIN_PARTITION_SIZE = 100;
 	protected MongoClient mongoClient;
 	private MongoDatabase mongoDatabase;
 	private KVMap<Object> globalStateMap;
@@ -57,6 +64,7 @@ public class MongodbWriter {
 	private final Map<String,Set<String>> shardKeyMap;
 	private String insertPolicy;
 	private String updatePolicy;
+	private ExecutorService writeExecutor;
 
 	public MongodbWriter(KVMap<Object> globalStateMap, MongodbConfig mongodbConfig, MongoClient mongoClient, Log tapLogger, Map<String,Set<String>> shardKeyMap) {
 		this.globalStateMap = globalStateMap;
@@ -126,10 +134,26 @@ public class MongodbWriter {
 			throw new RuntimeException("Bulk write data failed, write model list is empty, received record size: " + tapRecordEvents.size());
 		}
 
-		BulkWriteOptions bulkWriteOptions;
+		List<WritePartition> partitions = null;
+		if (null == session && tapRecordEvents.stream().noneMatch(e -> MapUtils.isNotEmpty(e.getInfo()) && e.getInfo().containsKey(MergeInfo.EVENT_INFO_KEY))) {
+			partitions = partitionWriteModels(bulkWriteModel.getWriteModels(), pks);
+		}
+		if (null == partitions) {
+			bulkWrite(collection, bulkWriteModel, buildBulkWriteOptions(bulkWriteModel), session);
+		} else {
+			bulkWritePartitions(collection, table.getId(), bulkWriteModel.isAllInsert(), partitions);
+		}
+
+		//Need to tell incremental engine the write result
+		writeListResultConsumer.accept(writeListResult
+				.insertedCount(inserted.get())
+				.modifiedCount(updated.get())
+				.removedCount(deleted.get()));
+	}
+
+	private void bulkWrite(MongoCollection<Document> collection, BulkWriteModel bulkWriteModel, BulkWriteOptions bulkWriteOptions, ClientSession session) {
 		AtomicReference<RuntimeException> mongoBulkWriteException = new AtomicReference<>();
 		while (!bulkWriteModel.isEmpty()) {
-			bulkWriteOptions = buildBulkWriteOptions(bulkWriteModel);
 			try {
 				List<WriteModel<Document>> writeModels = bulkWriteModel.getWriteModels();
 				if (EmptyKit.isNotNull(session)) {
@@ -149,12 +173,100 @@ public class MongodbWriter {
 				}
 			}
 		}
+	}
 
-		//Need to tell incremental engine the write result
-		writeListResultConsumer.accept(writeListResult
-				.insertedCount(inserted.get())
-				.modifiedCount(updated.get())
-				.removedCount(deleted.get()));
+	/**
+	 * partition write models by the hash of their primary key values, models of one key are kept in one partition in order
+	 *
+	 * @return null when the batch is too small or some model has no key, then it is written by one bulk write
+	 */
+	protected List<WritePartition> partitionWriteModels(List<WriteModel<Document>> writeModels, Collection<String> pks) {
+		int concurrency = mongodbConfig.getBulkWriteConcurrency();
+		if (concurrency <= 1 || writeModels.size() < concurrency * MIN_PARTITION_SIZE) {
+			return null;
+		}
+		List<WritePartition> partitions = new ArrayList<>();
+		for (int i = 0; i < concurrency; i++) {
+			partitions.add(new WritePartition());
+		}
+		for (int i = 0; i < writeModels.size(); i++) {
+			WriteModel<Document> writeModel = writeModels.get(i);
+			Object key;
+			if (CollectionUtils.isEmpty(pks)) {
+				//only inserts are written without primary keys
+				if (!(writeModel instanceof InsertOneModel)) {
+					return null;
+				}
+				key = i;
+			} else {
+				key = partitionKey(writeModel, pks);
+				if (null == key) {
+					return null;
+				}
+			}
+			partitions.get(Math.floorMod(key.hashCode(), concurrency)).add(key, writeModel);
+		}
+		partitions.removeIf(partition -> partition.writeModels.isEmpty());
+		return partitions;
+	}
+
+	protected List<Object> partitionKey(WriteModel<Document> writeModel, Collection<String> pks) {
+		Bson keyDocument = null;
+		if (writeModel instanceof InsertOneModel) {
+			keyDocument = ((InsertOneModel<Document>) writeModel).getDocument();
+		} else if (writeModel instanceof UpdateManyModel) {
+			keyDocument = ((UpdateManyModel<Document>) writeModel).getFilter();
+		} else if (writeModel instanceof UpdateOneModel) {
+			keyDocument = ((UpdateOneModel<Document>) writeModel).getFilter();
+		} else if (writeModel instanceof ReplaceOneModel) {
+			keyDocument = ((ReplaceOneModel<Document>) writeModel).getFilter();
+		} else if (writeModel instanceof DeleteOneModel) {
+			keyDocument = ((DeleteOneModel<Document>) writeModel).getFilter();
+		}
+		if (!(keyDocument instanceof Document)) {
+			return null;
+		}
+		List<Object> key = new ArrayList<>();
+		for (String pk : pks) {
+			if (!((Document) keyDocument).containsKey(pk)) {
+				return null;
+			}
+			key.add(((Document) keyDocument).get(pk));
+		}
+		return key;
+	}
+
+	private void bulkWritePartitions(MongoCollection<Document> collection, String tableId, boolean allInsert, List<WritePartition> partitions) throws Throwable {
+		if (null == writeExecutor) {
+			writeExecutor = Executors.newFixedThreadPool(mongodbConfig.getBulkWriteConcurrency());
+		}
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < partitions.size(); i++) {
+			WritePartition partition = partitions.get(i);
+			int index = i;
+			futures.add(writeExecutor.submit(() -> {
+				long start = System.currentTimeMillis();
+				boolean ordered = !allInsert && partition.ordered;
+				BulkWriteModel partitionModel = new BulkWriteModel(allInsert);
+				partition.writeModels.forEach(partitionModel::addAnyOpModel);
+				bulkWrite(collection, partitionModel, new BulkWriteOptions().ordered(ordered), null);
+				tapLogger.debug("Bulk write partition {}/{} of {}: {} models, ordered: {}, cost {} ms",
+						index + 1, partitions.size(), tableId, partition.writeModels.size(), ordered, System.currentTimeMillis() - start);
+			}));
+		}
+		Throwable throwable = null;
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				if (null == throwable) {
+					throwable = e.getCause();
+				}
+			}
+		}
+		if (null != throwable) {
+			throw throwable;
+		}
 	}
 
 	protected void removeOidIfNeed(List<TapRecordEvent> tapRecordEvents, Collection<String> pks) {
@@ -431,6 +543,9 @@ public class MongodbWriter {
 	}
 
 	public void onDestroy() {
+		if (null != writeExecutor) {
+			writeExecutor.shutdownNow();
+		}
 		if (mongoClient != null) {
 			mongoClient.close();
 		}
@@ -463,4 +578,25 @@ public class MongodbWriter {
 		return this;
 	}
 
+	protected static class WritePartition {
+		private final List<WriteModel<Document>> writeModels = new ArrayList<>();
+		private final Set<Object> keys = new HashSet<>();
+		//unordered bulk write may reorder models, so it is only used when every key appears once
+		private boolean ordered;
+
+		private void add(Object key, WriteModel<Document> writeModel) {
+			if (!keys.add(key)) {
+				ordered = true;
+			}
+			writeModels.add(writeModel);
+		}
+
+		public List<WriteModel<Document>> getWriteModels() {
+			return writeModels;
+		}
+
+		public boolean isOrdered() {
+			return ordered;
+		}
+	}
 }
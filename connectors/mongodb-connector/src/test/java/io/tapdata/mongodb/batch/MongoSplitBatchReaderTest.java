@@ -0,0 +1,98 @@
+package io.tapdata.mongodb.batch;
+
+import io.tapdata.mongodb.MongoBatchOffset;
+import io.tapdata.mongodb.MongoSplitBatchOffset;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
+
+class MongoSplitBatchReaderTest {
+	MongoSplitBatchReader reader;
+	@BeforeEach
+	void setUp() {
+		reader = mock(MongoSplitBatchReader.class);
+		ReflectionTestUtils.setField(reader, "rangeCount", 4);
+		doCallRealMethod().when(reader).splitBySamples(anyList());
+		doCallRealMethod().when(reader).rangeFilter(any());
+	}
+
+	@Nested
+	class SplitBySamplesTest {
+		@Test
+		void testSplitObjectId() {
+			List<BsonValue> samples = new ArrayList<>();
+			for (int i = 0; i < 80; i++) {
+				samples.add(new BsonObjectId(new ObjectId(1700000000 + i, i)));
+			}
+			MongoSplitBatchOffset splitOffset = reader.splitBySamples(samples);
+			List<MongoSplitBatchOffset.Range> ranges = splitOffset.getRanges();
+			assertEquals(5, ranges.size());
+			assertNull(ranges.get(0).getMin());
+			assertEquals(samples.get(20).asObjectId().getValue(), ranges.get(0).getMax().value());
+			assertEquals(ranges.get(0).getMax(), ranges.get(1).getMin());
+			assertEquals(samples.get(60).asObjectId().getValue(), ranges.get(3).getMin().value());
+			assertNull(ranges.get(3).getMax());
+			assertTrue(ranges.get(4).isOthers());
+			ranges.forEach(range -> assertEquals("objectId", range.getIdType()));
+		}
+		@Test
+		void testDuplicateBounds() {
+			List<BsonValue> samples = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				samples.add(new BsonInt32(i < 7 ? 1 : 2));
+			}
+			List<MongoSplitBatchOffset.Range> ranges = reader.splitBySamples(samples).getRanges();
+			assertEquals(3, ranges.size());
+			assertEquals(1, ranges.get(0).getMax().value());
+			assertEquals("number", ranges.get(0).getIdType());
+		}
+		@Test
+		void testMixedTypes() {
+			assertNull(reader.splitBySamples(Arrays.asList(new BsonInt32(1), new BsonInt32(2), new BsonString("a"), new BsonString("b"))));
+		}
+		@Test
+		void testNotEnoughSamples() {
+			assertNull(reader.splitBySamples(Arrays.asList(new BsonInt32(1), new BsonInt32(2))));
+		}
+	}
+
+	@Nested
+	class RangeFilterTest {
+		@Test
+		void testRange() {
+			MongoSplitBatchOffset.Range range = new MongoSplitBatchOffset.Range("number", false, new MongoBatchOffset("_id", 10), new MongoBatchOffset("_id", 20));
+			BsonDocument filter = reader.rangeFilter(range).toBsonDocument();
+			assertEquals("{\"$and\": [{\"_id\": {\"$type\": \"number\"}}, {\"_id\": {\"$gte\": 10}}, {\"_id\": {\"$lt\": 20}}]}", filter.toJson());
+		}
+		@Test
+		void testResumeRange() {
+			MongoSplitBatchOffset.Range range = new MongoSplitBatchOffset.Range("number", false, new MongoBatchOffset("_id", 10), null);
+			range.setOffset(new MongoBatchOffset("_id", 15));
+			BsonDocument filter = reader.rangeFilter(range).toBsonDocument();
+			assertEquals("{\"$and\": [{\"_id\": {\"$type\": \"number\"}}, {\"_id\": {\"$gt\": 15}}]}", filter.toJson());
+		}
+		@Test
+		void testOthers() {
+			MongoSplitBatchOffset.Range range = new MongoSplitBatchOffset.Range("objectId", true, null, null);
+			BsonDocument filter = reader.rangeFilter(range).toBsonDocument();
+			assertEquals("{\"_id\": {\"$not\": {\"$type\": \"objectId\"}}}", filter.toJson());
+		}
+	}
+}
@@ -61,4 +61,15 @@ class MongoCdcOffsetTest {
             Assertions.assertEquals(map, mongoCdcOffset.getCdcOffset());
         }
     }
-}
\ No newline at end of file
+    @Test
+    void testShardCdcOffset() {
+        Map<String, Object> shardCdcOffset = new HashMap<>();
+        shardCdcOffset.put("rs0", 1);
+        shardCdcOffset.put("rs1", 2);
+        Object offset = new MongoCdcOffset(null, null, shardCdcOffset).toOffset();
+        MongoCdcOffset mongoCdcOffset = MongoCdcOffset.fromOffset(offset);
+        Assertions.assertEquals(shardCdcOffset, mongoCdcOffset.getShardCdcOffset());
+        Assertions.assertNull(mongoCdcOffset.getCdcOffset());
+        Assertions.assertNull(MongoCdcOffset.fromOffset(new MongoCdcOffset(0, 0).toOffset()).getShardCdcOffset());
+    }
+}
@@ -0,0 +1,167 @@
+package io.tapdata.mongodb.reader;
+
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.mongodb.entity.MongoCdcOffset;
+import io.tapdata.pdk.apis.consumer.StreamReadConsumer;
+import io.tapdata.pdk.apis.context.TapConnectorContext;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonTimestamp;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MongodbShardV4StreamReaderTest {
+	@Nested
+	class ShardOffsetsTest {
+		MongodbShardV4StreamReader reader;
+		MongodbV4StreamReader routerReader;
+		@BeforeEach
+		void setUp() {
+			reader = new MongodbShardV4StreamReader();
+			routerReader = mock(MongodbV4StreamReader.class);
+			Map<String, String> shardsURI = new HashMap<>();
+			shardsURI.put("rs0", "mongodb://rs0/test");
+			shardsURI.put("rs1", "mongodb://rs1/test");
+			ReflectionTestUtils.setField(reader, "shardsURI", shardsURI);
+			ReflectionTestUtils.setField(reader, "routerReader", routerReader);
+		}
+		@Test
+		void testNotSharded() {
+			ReflectionTestUtils.setField(reader, "shardsURI", Collections.singletonMap("rs0", "mongodb://rs0/test"));
+			assertNull(reader.shardOffsets(100));
+		}
+		@Test
+		void testRouterResumeToken() {
+			assertNull(reader.shardOffsets(new BsonDocument("_data", new BsonString("82"))));
+		}
+		@Test
+		void testStartTime() {
+			Map<String, Object> shardOffsets = reader.shardOffsets(100);
+			assertEquals(100, shardOffsets.get("rs0"));
+			assertEquals(100, shardOffsets.get("rs1"));
+		}
+		@Test
+		void testNullOffset() {
+			when(routerReader.streamOffset(null)).thenReturn(200);
+			Map<String, Object> shardOffsets = reader.shardOffsets(null);
+			assertEquals(200, shardOffsets.get("rs0"));
+			assertEquals(200, shardOffsets.get("rs1"));
+		}
+		@Test
+		void testShardOffsets() {
+			BsonDocument token = new BsonDocument("_data", new BsonString("82"));
+			Map<String, Object> offset = new HashMap<>();
+			offset.put("rs0", token);
+			Map<String, Object> shardOffsets = reader.shardOffsets(offset);
+			assertEquals(token, shardOffsets.get("rs0"));
+			assertNull(shardOffsets.get("rs1"));
+		}
+	}
+
+	@Nested
+	class ReadTest {
+		@Test
+		void testRouterReadGetsCdcOffset() throws Exception {
+			MongodbShardV4StreamReader reader = new MongodbShardV4StreamReader();
+			MongodbV4StreamReader routerReader = mock(MongodbV4StreamReader.class);
+			ReflectionTestUtils.setField(reader, "shardsURI", Collections.singletonMap("rs0", "mongodb://rs0/test"));
+			ReflectionTestUtils.setField(reader, "routerReader", routerReader);
+			List<String> tableList = new ArrayList<>();
+			reader.read(mock(TapConnectorContext.class), tableList, new MongoCdcOffset("oplog", 100), 100, mock(StreamReadConsumer.class));
+			verify(routerReader).read(any(), eq(tableList), eq(100), anyInt(), any());
+		}
+	}
+
+	@Nested
+	class ClusterTimeTest {
+		@Test
+		void testResumeToken() {
+			BsonDocument token = new BsonDocument("_data", new BsonString("8265A1B2C3000000052B022C0100296E5A1004"));
+			assertEquals(new BsonTimestamp(0x65A1B2C3, 5), MongodbShardV4StreamReader.clusterTime(token));
+		}
+		@Test
+		void testStartTime() {
+			assertEquals(new BsonTimestamp(100, 0), MongodbShardV4StreamReader.clusterTime(100));
+		}
+		@Test
+		void testUnknown() {
+			assertNull(MongodbShardV4StreamReader.clusterTime(new BsonDocument("_data", new BsonString("82"))));
+			assertNull(MongodbShardV4StreamReader.clusterTime(null));
+		}
+	}
+
+	@Nested
+	class MergeTest {
+		MongodbShardV4StreamReader reader;
+		Map<String, MongodbShardV4StreamReader.ShardState> shardStates;
+		MongodbShardV4StreamReader.ShardState rs0;
+		MongodbShardV4StreamReader.ShardState rs1;
+		@BeforeEach
+		void setUp() {
+			reader = new MongodbShardV4StreamReader();
+			rs0 = new MongodbShardV4StreamReader.ShardState(10);
+			rs1 = new MongodbShardV4StreamReader.ShardState(10);
+			shardStates = new HashMap<>();
+			shardStates.put("rs0", rs0);
+			shardStates.put("rs1", rs1);
+		}
+		MongodbV4StreamReader.OffsetEvent event(String id, int time) {
+			return new MongodbV4StreamReader.OffsetEvent(new TapInsertRecordEvent().init().table(id), id, new BsonTimestamp(time, 0));
+		}
+		MongodbV4StreamReader.OffsetEvent idle(int time) {
+			return new MongodbV4StreamReader.OffsetEvent(null, time);
+		}
+		List<String> tables(List<TapEvent> events) {
+			List<String> tables = new ArrayList<>();
+			events.forEach(event -> tables.add(((TapInsertRecordEvent) event).getTableId()));
+			return tables;
+		}
+		@Test
+		void testHoldUntilOtherShardReaches() {
+			rs0.add(Arrays.asList(event("a", 12), event("b", 15)));
+			assertNull(reader.merge(shardStates));
+			rs1.add(Collections.singletonList(event("c", 13)));
+			assertEquals(Arrays.asList("a", "c"), tables(reader.merge(shardStates)));
+			assertEquals("a", ReflectionTestUtils.getField(rs0, "offset"));
+			assertEquals("c", ReflectionTestUtils.getField(rs1, "offset"));
+		}
+		@Test
+		void testIdleShardMovesWatermark() {
+			rs0.add(Collections.singletonList(event("a", 12)));
+			rs1.add(Collections.singletonList(idle(20)));
+			assertEquals(Collections.singletonList("a"), tables(reader.merge(shardStates)));
+			//the idle token of rs1 is after the watermark of rs0, it is taken when rs0 reaches it
+			assertEquals(10, ReflectionTestUtils.getField(rs1, "offset"));
+			rs0.add(Collections.singletonList(idle(21)));
+			assertTrue(reader.merge(shardStates).isEmpty());
+			assertEquals(20, ReflectionTestUtils.getField(rs1, "offset"));
+			assertEquals("a", ReflectionTestUtils.getField(rs0, "offset"));
+		}
+		@Test
+		void testSortedByClusterTime() {
+			rs0.add(Arrays.asList(event("a", 12), event("b", 14), idle(30)));
+			rs1.add(Arrays.asList(event("c", 11), event("d", 13), idle(30)));
+			assertEquals(Arrays.asList("c", "a", "d", "b"), tables(reader.merge(shardStates)));
+		}
+	}
+}
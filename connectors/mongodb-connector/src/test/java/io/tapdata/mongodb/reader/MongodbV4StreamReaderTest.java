@@ -1,17 +1,27 @@
 package io.tapdata.mongodb.reader;
 
 import com.mongodb.MongoException;
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.MongoChangeStreamCursor;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import io.tapdata.mongodb.entity.MongodbConfig;
+import org.bson.BsonBinary;
+import org.bson.BsonDocument;
 import org.bson.Document;
+import org.bson.RawBsonDocument;
 import org.junit.jupiter.api.*;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Arrays;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 /**
@@ -78,4 +88,60 @@ class MongodbV4StreamReaderTest {
 		}
 
 	}
-}
\ No newline at end of file
+	@Nested
+	class FetchBatchTest{
+		MongodbV4StreamReader mongodbV4StreamReader;
+		MongoChangeStreamCursor<ChangeStreamDocument<RawBsonDocument>> streamCursor;
+		@BeforeEach
+		void setUp(){
+			mongodbV4StreamReader = new MongodbV4StreamReader();
+			streamCursor = mock(MongoChangeStreamCursor.class);
+		}
+		@Test
+		void testNoChange(){
+			when(streamCursor.tryNext()).thenReturn(null);
+			assertTrue(mongodbV4StreamReader.fetchBatch(streamCursor, 10).isEmpty());
+			verify(streamCursor, never()).next();
+		}
+		@Test
+		void testTakeFetched(){
+			ChangeStreamDocument<RawBsonDocument> document = mock(ChangeStreamDocument.class);
+			when(streamCursor.tryNext()).thenReturn(document);
+			when(streamCursor.available()).thenReturn(5, 4, 3, 2, 1, 0);
+			when(streamCursor.next()).thenReturn(document);
+			assertEquals(3, mongodbV4StreamReader.fetchBatch(streamCursor, 3).size());
+			assertEquals(4, mongodbV4StreamReader.fetchBatch(streamCursor, 10).size());
+		}
+	}
+	@Nested
+	class DropByDoubleActiveTest{
+		MongodbV4StreamReader mongodbV4StreamReader;
+		MongodbConfig mongodbConfig;
+		@BeforeEach
+		void setUp(){
+			mongodbV4StreamReader = new MongodbV4StreamReader();
+			mongodbConfig = mock(MongodbConfig.class);
+			when(mongodbConfig.getDoubleActive()).thenReturn(true);
+			ReflectionTestUtils.setField(mongodbV4StreamReader, "mongodbConfig", mongodbConfig);
+		}
+		private ChangeStreamDocument<RawBsonDocument> document(String collection, UUID transactionId){
+			ChangeStreamDocument<RawBsonDocument> document = mock(ChangeStreamDocument.class);
+			when(document.getNamespace()).thenReturn(new MongoNamespace("db", collection));
+			when(document.getLsid()).thenReturn(new BsonDocument("id", new BsonBinary(transactionId)));
+			return document;
+		}
+		@Test
+		void testDropSameTransaction(){
+			UUID transactionId = UUID.randomUUID();
+			assertTrue(mongodbV4StreamReader.dropByDoubleActive(document("_tap_double_active", transactionId)));
+			assertTrue(mongodbV4StreamReader.dropByDoubleActive(document("test", transactionId)));
+			assertFalse(mongodbV4StreamReader.dropByDoubleActive(document("test", UUID.randomUUID())));
+			assertFalse(mongodbV4StreamReader.dropByDoubleActive(document("test", transactionId)));
+		}
+		@Test
+		void testNotDoubleActive(){
+			when(mongodbConfig.getDoubleActive()).thenReturn(false);
+			assertFalse(mongodbV4StreamReader.dropByDoubleActive(document("_tap_double_active", UUID.randomUUID())));
+		}
+	}
+}
@@ -1,6 +1,8 @@
 package io.tapdata.mongodb.writer;
 
 import com.mongodb.client.MongoClient;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.InsertOneModel;
 import com.mongodb.client.model.UpdateManyModel;
 import com.mongodb.client.model.UpdateOneModel;
 import com.mongodb.client.model.UpdateOptions;
@@ -305,4 +307,65 @@ class MongodbWriterTest {
 			assertTrue(update.containsKey("$unset"));
 		}
 	}
-}
\ No newline at end of file
+
+	@Nested
+	@DisplayName("Method partitionWriteModels test")
+	class partitionWriteModelsTest {
+
+		@BeforeEach
+		void setUp() {
+			mongodbConfig.setBulkWriteConcurrency(4);
+		}
+
+		@Test
+		@DisplayName("test models of one key are in one partition in order")
+		void test1() {
+			List<WriteModel<Document>> writeModels = new ArrayList<>();
+			for (int i = 0; i < 400; i++) {
+				writeModels.add(new UpdateManyModel<>(new Document("id", i), new Document("$set", new Document("f1", i)), new UpdateOptions().upsert(true)));
+			}
+			writeModels.add(new DeleteOneModel<>(new Document("id", 1)));
+			List<MongodbWriter.WritePartition> partitions = mongodbWriter.partitionWriteModels(writeModels, Collections.singletonList("id"));
+			assertEquals(4, partitions.size());
+			assertEquals(401, partitions.stream().mapToInt(partition -> partition.getWriteModels().size()).sum());
+			MongodbWriter.WritePartition partition = partitions.stream().filter(p -> p.getWriteModels().contains(writeModels.get(1))).findFirst().get();
+			assertTrue(partition.getWriteModels().indexOf(writeModels.get(1)) < partition.getWriteModels().indexOf(writeModels.get(400)));
+			assertTrue(partition.isOrdered());
+			assertEquals(1, partitions.stream().filter(MongodbWriter.WritePartition::isOrdered).count());
+		}
+
+		@Test
+		@DisplayName("test small batch is not partitioned")
+		void test2() {
+			List<WriteModel<Document>> writeModels = new ArrayList<>();
+			writeModels.add(new DeleteOneModel<>(new Document("id", 1)));
+			assertNull(mongodbWriter.partitionWriteModels(writeModels, Collections.singletonList("id")));
+		}
+
+		@Test
+		@DisplayName("test model without primary key is not partitioned")
+		void test3() {
+			List<WriteModel<Document>> writeModels = new ArrayList<>();
+			for (int i = 0; i < 400; i++) {
+				writeModels.add(new DeleteOneModel<>(new Document("id", i)));
+			}
+			writeModels.add(new DeleteOneModel<>(new Document("_id", 1)));
+			assertNull(mongodbWriter.partitionWriteModels(writeModels, Collections.singletonList("id")));
+		}
+
+		@Test
+		@DisplayName("test inserts without primary keys")
+		void test4() {
+			List<WriteModel<Document>> writeModels = new ArrayList<>();
+			for (int i = 0; i < 400; i++) {
+				writeModels.add(new InsertOneModel<>(new Document("f1", i)));
+			}
+			List<MongodbWriter.WritePartition> partitions = mongodbWriter.partitionWriteModels(writeModels, Collections.emptyList());
+			assertEquals(4, partitions.size());
+			partitions.forEach(partition -> {
+				assertEquals(100, partition.getWriteModels().size());
+				assertFalse(partition.isOrdered());
+			});
+		}
+	}
+}
@@ -128,6 +128,7 @@ public class MysqlConnector extends CommonDbConnector {
                 }
             }
             this.mysqlWriter = new MysqlSqlBatchWriter(mysqlJdbcContext, this::isAlive);
+            initShardedWriteExecutor();
             this.mysqlReader = new MysqlReader(mysqlJdbcContext, tapLogger, this::isAlive);
             this.dbTimeZone = mysqlJdbcContext.queryTimeZone();
             if (mysqlConfig.getOldVersionTimezone()) {
@@ -370,6 +371,8 @@ public class MysqlConnector extends CommonDbConnector {
                 ((TapConnectorContext) connectionContext).setStateMap(stateMap);
             }
         }
+        EmptyKit.closeQuietly(shardedWriteExecutor);
+        shardedWriteExecutor = null;
         try {
             Optional.ofNullable(this.mysqlReader).ifPresent(MysqlReader::close);
         } catch (Exception ignored) {
@@ -497,7 +500,16 @@ public class MysqlConnector extends CommonDbConnector {
                     .setUpdatePolicy(updateDmlPolicy)
                     .setTapLogger(tapLogger)
                     .write(tapRecordEvents, consumer, this::isAlive);
-        }else{
+        } else if (EmptyKit.isNotNull(shardedWriteExecutor)) {
+            //every shard writes by its own connection and commits by itself
+            final String insertPolicy = insertDmlPolicy;
+            final String updatePolicy = updateDmlPolicy;
+            shardedWriteExecutor.write(tapRecordEvents, tapTable, (events, shardConsumer) -> new MysqlRecordWriter(mysqlJdbcContext, tapTable)
+                    .setInsertPolicy(insertPolicy)
+                    .setUpdatePolicy(updatePolicy)
+                    .setTapLogger(tapLogger)
+                    .write(events, shardConsumer, this::isAlive), consumer);
+        } else {
             new MysqlRecordWriter(mysqlJdbcContext, tapTable)
                     .setInsertPolicy(insertDmlPolicy)
                     .setUpdatePolicy(updateDmlPolicy)
@@ -339,6 +339,7 @@ public class PostgresConnector extends CommonDbConnector {
                 cdcRunner.closeCdcRunner();
             }
         });
+        EmptyKit.closeQuietly(shardedWriteExecutor);
         EmptyKit.closeQuietly(postgresTest);
         EmptyKit.closeQuietly(postgresJdbcContext);
     }
@@ -367,6 +368,7 @@ public class PostgresConnector extends CommonDbConnector {
         postgresTest.withPostgresVersion(postgresVersion);
         ddlSqlGenerator = new PostgresDDLSqlGenerator();
         tapLogger = connectionContext.getLog();
+        initShardedWriteExecutor();
         fieldDDLHandlers = new BiClassHandlers<>();
         fieldDDLHandlers.register(TapNewFieldEvent.class, this::newField);
         fieldDDLHandlers.register(TapAlterFieldAttributesEvent.class, this::alterFieldAttr);
@@ -418,6 +420,20 @@ public class PostgresConnector extends CommonDbConnector {
         if (updateDmlPolicy == null) {
             updateDmlPolicy = ConnectionOptions.DML_UPDATE_POLICY_IGNORE_ON_NON_EXISTS;
         }
+        boolean autoIncWrite = postgresConfig.getCreateAutoInc() && postgresVersion.compareTo("100000") >= 0 && EmptyKit.isNotEmpty(autoIncFields)
+                && "CDC".equals(tapRecordEvents.get(0).getInfo().get(TapRecordEvent.INFO_KEY_SYNC_STAGE));
+        //every shard writes by its own connection and commits by itself
+        if (!isTransaction && !autoIncWrite && EmptyKit.isNotNull(shardedWriteExecutor)) {
+            final String version = hasUniqueIndex ? postgresVersion : "90500";
+            final String insertPolicy = insertDmlPolicy;
+            final String updatePolicy = updateDmlPolicy;
+            shardedWriteExecutor.write(tapRecordEvents, tapTable, (events, consumer) -> new PostgresRecordWriter(postgresJdbcContext, tapTable, version)
+                    .setInsertPolicy(insertPolicy)
+                    .setUpdatePolicy(updatePolicy)
+                    .setTapLogger(tapLogger)
+                    .write(events, consumer, this::isAlive), writeListResultConsumer);
+            return;
+        }
         NormalRecordWriter postgresRecordWriter;
         if (isTransaction) {
             String threadName = Thread.currentThread().getName();
@@ -438,8 +454,7 @@ public class PostgresConnector extends CommonDbConnector {
                     .setUpdatePolicy(updateDmlPolicy)
                     .setTapLogger(tapLogger);
         }
-        if (postgresConfig.getCreateAutoInc() && postgresVersion.compareTo("100000") >= 0 && EmptyKit.isNotEmpty(autoIncFields)
-                && "CDC".equals(tapRecordEvents.get(0).getInfo().get(TapRecordEvent.INFO_KEY_SYNC_STAGE))) {
+        if (autoIncWrite) {
             postgresRecordWriter.setAutoIncFields(autoIncFields);
             postgresRecordWriter.write(tapRecordEvents, writeListResultConsumer, this::isAlive);
             if (EmptyKit.isNotEmpty(postgresRecordWriter.getAutoIncMap())) {
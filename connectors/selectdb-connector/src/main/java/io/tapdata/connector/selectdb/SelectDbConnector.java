@@ -71,6 +71,9 @@ public class SelectDbConnector extends CommonDbConnector {
         this.copyIntoUtils = new CopyIntoUtils(connectorContext,false);
         this.selectDbContext = new SelectDbContext(connectorContext);
         this.selectDbConfig = new SelectDbConfig().load(connectorContext.getConnectionConfig());
+        isConnectorStarted(connectorContext, tapConnectorContext -> Optional.ofNullable(tapConnectorContext.getNodeConfig())
+                .map(nodeConfig -> nodeConfig.getInteger("loadConcurrency"))
+                .ifPresent(selectDbConfig::setLoadConcurrency));
         this.commonDbConfig = this.selectDbConfig;
         this.selectDbTest = new SelectDbTest(selectDbConfig, testItem -> {
         },copyIntoUtils).initContext();
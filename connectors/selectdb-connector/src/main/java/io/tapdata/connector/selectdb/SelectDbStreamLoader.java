@@ -2,6 +2,7 @@ package io.tapdata.connector.selectdb;
 
 import cn.hutool.core.lang.Assert;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.tapdata.common.dml.RecordKeyExtractor;
 import io.tapdata.connector.selectdb.config.SelectDbConfig;
 import io.tapdata.connector.selectdb.exception.SelectDbErrorCodes;
 import io.tapdata.connector.selectdb.exception.SelectDbRunTimeException;
@@ -48,6 +49,8 @@ public class SelectDbStreamLoader extends Throwable {
     private static final String LOAD_URL_PATTERN = "http://%s/api/%s/%s/_stream_load";
     private static final String LABEL_PREFIX_PATTERN = "tapdata_%s_%s";
     private static final int MAX_FLUSH_BATCH_SIZE = 10000;
+    //lanes are not worth their uploads for small batches
+    private static final int MIN_LANE_SIZE = 1000;
     private int size;
     private AtomicInteger lastEventFlag;
     private RecordStream recordStream;
@@ -67,6 +70,7 @@ public class SelectDbStreamLoader extends Throwable {
 
     public void shutdown() {
         this.stopLoad();
+        Optional.ofNullable(executorService).ifPresent(ExecutorService::shutdownNow);
     }
 
     private void stopLoad() {
@@ -80,14 +84,84 @@ public class SelectDbStreamLoader extends Throwable {
         this.size = 0;
         this.lastEventFlag = new AtomicInteger(0);
         this.selectDbContext = selectDbContext;
-        this.executorService = new ThreadPoolExecutor(1, 1,
+        int concurrency = Math.max(1, selectDbConfig.getLoadConcurrency());
+        this.executorService = new ThreadPoolExecutor(concurrency, concurrency,
                 0L, TimeUnit.MILLISECONDS, new LinkedBlockingDeque<>());
         this.loadBatchFirstRecord = true;
     }
 
-    public  WriteListResult<TapRecordEvent> writeRecord(TapConnectorContext connectorContext, final List<TapRecordEvent> tapRecordEvents, final TapTable table,boolean copyIntoKey) throws IOException {
+    public WriteListResult<TapRecordEvent> writeRecord(TapConnectorContext connectorContext, final List<TapRecordEvent> tapRecordEvents, final TapTable table, boolean copyIntoKey) throws IOException {
         TapLogger.info(TAG, "batch events length is: {}", tapRecordEvents.size());
         WriteListResult<TapRecordEvent> listResult = new WriteListResult<>(0L, 0L, 0L, new HashMap<>());
+        List<List<TapRecordEvent>> lanes = splitLanes(tapRecordEvents, table);
+        if (lanes.size() <= 1) {
+            writeLane(connectorContext, tapRecordEvents, table, copyIntoKey, listResult);
+            return listResult;
+        }
+        //lanes hold different keys, so they can be copied in any order
+        List<Future<?>> futures = new ArrayList<>();
+        for (List<TapRecordEvent> lane : lanes) {
+            futures.add(executorService.submit(() -> {
+                WriteListResult<TapRecordEvent> laneResult = new WriteListResult<>(0L, 0L, 0L, new HashMap<>());
+                writeLane(connectorContext, lane, table, copyIntoKey, laneResult);
+                synchronized (listResult) {
+                    listResult.incrementInserted(laneResult.getInsertedCount());
+                    listResult.incrementModified(laneResult.getModifiedCount());
+                    listResult.incrementRemove(laneResult.getRemovedCount());
+                    if (!laneResult.getErrorMap().isEmpty()) {
+                        listResult.addErrors(laneResult.getErrorMap());
+                    }
+                }
+                return null;
+            }));
+        }
+        Throwable throwable = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (null == throwable) {
+                    throwable = e.getCause();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SelectDbRunTimeException(e);
+            }
+        }
+        if (throwable instanceof CoreException) {
+            throw (CoreException) throwable;
+        } else if (throwable instanceof IOException) {
+            throw (IOException) throwable;
+        } else if (null != throwable) {
+            throw new SelectDbRunTimeException(throwable);
+        }
+        return listResult;
+    }
+
+    //the same key is always in the same lane, events changing key (or without key) are written by one lane
+    protected List<List<TapRecordEvent>> splitLanes(List<TapRecordEvent> tapRecordEvents, TapTable table) {
+        int concurrency = Math.min(Math.max(1, selectDbConfig.getLoadConcurrency()), (tapRecordEvents.size() + MIN_LANE_SIZE - 1) / MIN_LANE_SIZE);
+        Collection<String> primaryKeys = table.primaryKeys(true);
+        if (concurrency <= 1 || primaryKeys.isEmpty()) {
+            return Collections.singletonList(tapRecordEvents);
+        }
+        RecordKeyExtractor keyExtractor = new RecordKeyExtractor(new ArrayList<>(primaryKeys));
+        List<List<TapRecordEvent>> lanes = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            lanes.add(new ArrayList<>());
+        }
+        for (TapRecordEvent tapRecordEvent : tapRecordEvents) {
+            List<Object> key = keyExtractor.getKey(tapRecordEvent);
+            if (null == key) {
+                return Collections.singletonList(tapRecordEvents);
+            }
+            lanes.get(Math.floorMod(key.hashCode(), concurrency)).add(tapRecordEvent);
+        }
+        lanes.removeIf(List::isEmpty);
+        return lanes;
+    }
+
+    private void writeLane(TapConnectorContext connectorContext, final List<TapRecordEvent> tapRecordEvents, final TapTable table, boolean copyIntoKey, WriteListResult<TapRecordEvent> listResult) throws IOException {
         List<Map<String, Object>> records = new ArrayList<>();
         ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
         DataOutputStream dataOutputStream = new DataOutputStream(byteArrayOutputStream);
@@ -127,7 +201,6 @@ public class SelectDbStreamLoader extends Throwable {
         }else{
             throw new CoreException(SelectDbErrorCodes.ERROR_SDB_COPY_INTO_NETWORK,"ErrorMsg: "+ baseResponse.getMsg()+",Code: "+baseResponse.getCode());
         }
-        return listResult;
     }
 
     private volatile boolean isStop;
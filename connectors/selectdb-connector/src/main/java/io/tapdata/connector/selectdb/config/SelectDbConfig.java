@@ -23,6 +23,8 @@ public class SelectDbConfig extends CommonDbConfig implements Serializable {
     private String selectDbHttp;
     private Boolean closeNotNull = true;
     private int retryCount = 30;
+    //events are split by key into lanes, which are uploaded and copied concurrently
+    private int loadConcurrency = 1;
 
     public SelectDbConfig selectDbHttp(String selectDbHttp) {
         this.selectDbHttp = selectDbHttp;
@@ -2,7 +2,9 @@ package io.tapdata.connector.tidb.cdc.process.analyse;
 
 import io.tapdata.entity.error.CoreException;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStreamReader;
@@ -27,6 +29,52 @@ public class NormalFileReader {
         }
     }
 
+    /**
+     * read lines from a byte position of a file which may be still being appended
+     *
+     * @param position byte position to read from
+     * @param complete the file will not be appended anymore, so the last line without '\n' is read too
+     * @return byte position after the last line read, reading can be resumed from it
+     */
+    public long readLineByLine(File file, long position, boolean complete, ReadConsumer<String> consumer, BooleanSupplier alive) {
+        try (FileInputStream inputStream = new FileInputStream(file)) {
+            long skipped = 0;
+            while (skipped < position) {
+                long n = inputStream.skip(position - skipped);
+                if (n <= 0) break;
+                skipped += n;
+            }
+            position = skipped;
+            BufferedInputStream bufferedStream = new BufferedInputStream(inputStream, 64 * 1024);
+            ByteArrayOutputStream lineBytes = new ByteArrayOutputStream(1024);
+            int b;
+            while (alive.getAsBoolean() && (b = bufferedStream.read()) >= 0) {
+                if (b != '\n') {
+                    lineBytes.write(b);
+                    continue;
+                }
+                position += lineBytes.size() + 1;
+                acceptLine(lineBytes, consumer);
+            }
+            if (complete && alive.getAsBoolean() && lineBytes.size() > 0) {
+                position += lineBytes.size();
+                acceptLine(lineBytes, consumer);
+            }
+            return position;
+        } catch (Exception e) {
+            throw new CoreException(0, e, "Monitor can not handle cdc data line, msg: {}", e.getMessage());
+        }
+    }
+
+    private void acceptLine(ByteArrayOutputStream lineBytes, ReadConsumer<String> consumer) {
+        byte[] bytes = lineBytes.toByteArray();
+        lineBytes.reset();
+        int length = bytes.length > 0 && bytes[bytes.length - 1] == '\r' ? bytes.length - 1 : bytes.length;
+        String line = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        if ("".equals(line.trim())) return;
+        consumer.accept(line);
+    }
+
     public String readAll(File file, BooleanSupplier alive) {
         StringBuilder builder = new StringBuilder();
         readLineByLine(file, builder::append, alive);
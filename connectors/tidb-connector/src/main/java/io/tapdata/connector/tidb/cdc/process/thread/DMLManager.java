@@ -9,20 +9,40 @@ import org.apache.commons.io.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ScheduledFuture;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
 
+/**
+ * tail json files of TiCDC storage sink, ${basePath}/${database}/${table}/${tableVersion}/CDCnnn.json
+ * new and appended files are found by WatchService, and by scanning the directory tree from time to time in case events are lost
+ * tables are read in parallel by threadCount workers, files of one table are read in order by one worker at a time
+ */
 public class DMLManager implements Activity {
     public static final String DML_DATA_FILE_NAME_MATCH = "(CDC)([\\d]*)(\\.json)";
+    //scan the whole directory tree though watch events come, new table versions and lost events are found by it
+    protected static final long FULL_SCAN_INTERVAL_MS = 5000L;
+    //wait for watch events, or sleep between scans when WatchService is not available
+    protected static final long WATCH_POLL_MS = 1000L;
     final ProcessHandler handler;
     final int threadCount;
     private final String database;
@@ -31,7 +51,17 @@ public class DMLManager implements Activity {
     final AtomicReference<Throwable> throwableCollector;
     final BooleanSupplier alive;
     final NormalFileReader reader;
-    ScheduledFuture<?> scheduledFuture;
+    //table name -> reader of the table, one table is read by one worker at a time
+    final Map<String, TableReader> tableReaders = new ConcurrentHashMap<>();
+    //absolute path of a json file -> byte position read, files are deleted when they are read to the end
+    final Map<String, Long> filePositions = new ConcurrentHashMap<>();
+    //tables whose version is not found from ddl yet, they are read again when watch events are idle
+    final Set<String> tablesWithoutVersion = ConcurrentHashMap.newKeySet();
+    final Map<WatchKey, Path> watchDirs = new ConcurrentHashMap<>();
+    final Set<Path> registeredDirs = ConcurrentHashMap.newKeySet();
+    WatchService watchService;
+    ExecutorService watchExecutor;
+    ExecutorService readExecutor;
     Log log;
 
     protected DMLManager(ProcessHandler handler,
@@ -65,71 +95,164 @@ public class DMLManager implements Activity {
 
     @Override
     public void doActivity() {
-        cancelSchedule(scheduledFuture, log);
-        scheduledFuture = this.handler.getScheduledExecutorService().scheduleWithFixedDelay(() -> {
+        stopWatching();
+        watchService = newWatchService();
+        readExecutor = Executors.newFixedThreadPool(threadCount);
+        watchExecutor = Executors.newSingleThreadExecutor();
+        watchExecutor.submit(() -> {
+            Thread.currentThread().setName("TiCDC-DML-watcher-" + database);
             try {
-                readOnce();
+                watch();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ClosedWatchServiceException e) {
+                log.debug("Watch service of cdc data is closed, database: {}", database);
             } catch (Throwable t) {
                 synchronized (throwableCollector) {
                     throwableCollector.set(t);
                 }
             }
-        }, 1, 1, TimeUnit.SECONDS);
+        });
+    }
+
+    protected WatchService newWatchService() {
+        try {
+            return FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException e) {
+            log.warn("Can not watch cdc data files, scan them every {}ms instead, message: {}", WATCH_POLL_MS, e.getMessage());
+            return null;
+        }
     }
 
     protected String getFullBasePath() {
         return FileUtil.paths(basePath, database);
     }
 
-    protected void readOnce() {
-        //get all file
-        File path = new File(getFullBasePath());
-        if (!path.isDirectory()) {
+    protected void watch() throws InterruptedException {
+        long lastFullScan = 0L;
+        boolean fullScan = true;
+        while (alive.getAsBoolean() && !Thread.currentThread().isInterrupted()) {
+            if (fullScan || System.currentTimeMillis() - lastFullScan >= FULL_SCAN_INTERVAL_MS) {
+                scanOnce();
+                lastFullScan = System.currentTimeMillis();
+            }
+            if (null == watchService) {
+                TimeUnit.MILLISECONDS.sleep(WATCH_POLL_MS);
+                continue;
+            }
+            fullScan = false;
+            WatchKey watchKey = watchService.poll(WATCH_POLL_MS, TimeUnit.MILLISECONDS);
+            if (null == watchKey) {
+                tablesWithoutVersion.forEach(this::submitTable);
+                continue;
+            }
+            while (null != watchKey) {
+                fullScan |= handleWatchKey(watchKey);
+                watchKey = watchService.poll();
+            }
+        }
+    }
+
+    protected void scanOnce() {
+        File databaseDir = new File(getFullBasePath());
+        if (!databaseDir.isDirectory()) {
             return;
         }
-        LinkedBlockingQueue<File> jsonFilePath = new LinkedBlockingQueue<>(scanAllTableDir(path));
-        if (!alive.getAsBoolean() || jsonFilePath.isEmpty()) {
+        register(databaseDir.toPath());
+        for (File tableDir : scanAllTableDir(databaseDir)) {
+            register(tableDir.toPath());
+            submitTable(tableDir.getName());
+        }
+    }
+
+    /**
+     * @return true when events are lost, the directory tree should be scanned
+     */
+    protected boolean handleWatchKey(WatchKey watchKey) {
+        Path dir = watchDirs.get(watchKey);
+        boolean lost = false;
+        if (null != dir) {
+            Path databasePath = new File(getFullBasePath()).toPath().toAbsolutePath();
+            for (WatchEvent<?> event : watchKey.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    lost = true;
+                    continue;
+                }
+                Path child = dir.resolve((Path) event.context());
+                Path relative = databasePath.relativize(child);
+                String tableName = relative.getName(0).toString();
+                if (relative.getNameCount() == 1 && child.toFile().isDirectory() && (table.isEmpty() || table.contains(tableName))) {
+                    register(child);
+                }
+                submitTable(tableName);
+            }
+        }
+        if (!watchKey.reset()) {
+            watchDirs.remove(watchKey);
+            Optional.ofNullable(dir).ifPresent(registeredDirs::remove);
+        }
+        return lost;
+    }
+
+    protected void register(Path dir) {
+        if (null == watchService) {
             return;
         }
-        CompletableFuture<Void>[] all = new CompletableFuture[this.threadCount];
-        for (int index = 0; index < this.threadCount; index++) {
-            all[index] = CompletableFuture.runAsync(() -> doOnce(jsonFilePath));
+        dir = dir.toAbsolutePath();
+        if (registeredDirs.contains(dir)) {
+            return;
         }
-        CompletableFuture<Void> completableFuture = CompletableFuture.allOf(all);
         try {
-            completableFuture.get();
-        } catch (InterruptedException | ExecutionException interruptedException) {
-            throwableCollector.set(interruptedException);
+            watchDirs.put(dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY), dir);
+            registeredDirs.add(dir);
+        } catch (IOException | ClosedWatchServiceException e) {
+            log.debug("Can not watch cdc data dir {}, it is scanned every {}ms, message: {}", dir, FULL_SCAN_INTERVAL_MS, e.getMessage());
         }
     }
 
-    public void doOnce(LinkedBlockingQueue<File> jsonFilePath) {
-        while (alive.getAsBoolean() && !jsonFilePath.isEmpty()) {
-            File tableDir = jsonFilePath.poll();
-            if (null == tableDir) continue;
-            String tableNameFromDir = tableDir.getName();
-            String tableVersion = handler.judgeTableVersion(tableNameFromDir);
-            if (null == tableVersion) {
-                continue;
-            }
-            String tableVersionDMLDataPath = FileUtil.paths(tableDir.getAbsolutePath(), tableVersion);
-            File tableVersionDMLDataDir = new File(tableVersionDMLDataPath);
-            if (tableVersionDMLDataDir.exists() && tableVersionDMLDataDir.isDirectory()) {
-                File[] jsonFiles = tableVersionDMLDataDir.listFiles(f -> f.exists()
-                        && f.isFile()
-                        && f.getName().matches(DML_DATA_FILE_NAME_MATCH));
-                if (null != jsonFiles && jsonFiles.length > 0) {
-                    new ArrayList<>(Arrays.asList(jsonFiles))
-                            .stream()
-                            .sorted((j1, j2) -> j1.getName().compareToIgnoreCase(j2.getName()))
-                            .forEach(this::readJsonAndCommit);
-                }
-            }
+    protected void submitTable(String tableName) {
+        if (!table.isEmpty() && !table.contains(tableName)) {
+            return;
         }
+        tableReaders.computeIfAbsent(tableName, name -> new TableReader(new File(FileUtil.paths(getFullBasePath(), name)))).submit();
     }
 
-    protected void readJsonAndCommit(File file) {
-        this.reader.readLineByLine(file, line -> {
+    protected void readTableDir(File tableDir) {
+        String tableNameFromDir = tableDir.getName();
+        String tableVersion = handler.judgeTableVersion(tableNameFromDir);
+        if (null == tableVersion) {
+            tablesWithoutVersion.add(tableNameFromDir);
+            return;
+        }
+        tablesWithoutVersion.remove(tableNameFromDir);
+        File tableVersionDMLDataDir = new File(FileUtil.paths(tableDir.getAbsolutePath(), tableVersion));
+        //files of the former versions are not read anymore
+        String tablePath = tableDir.getAbsolutePath() + File.separator;
+        String versionPath = tableVersionDMLDataDir.getAbsolutePath() + File.separator;
+        filePositions.keySet().removeIf(path -> path.startsWith(tablePath) && !path.startsWith(versionPath));
+        if (!tableVersionDMLDataDir.exists() || !tableVersionDMLDataDir.isDirectory()) {
+            return;
+        }
+        //watch before listing, so that files created after listing are not missed
+        register(tableVersionDMLDataDir.toPath());
+        //judged before listing, the last file is complete too once a newer version exists, so it is deleted and ddl can move on
+        boolean newerVersion = handler.hasNewerTableVersion(tableDir, tableVersion);
+        File[] jsonFiles = tableVersionDMLDataDir.listFiles(f -> f.exists()
+                && f.isFile()
+                && f.getName().matches(DML_DATA_FILE_NAME_MATCH));
+        if (null == jsonFiles || jsonFiles.length == 0) {
+            return;
+        }
+        Arrays.sort(jsonFiles, (j1, j2) -> j1.getName().compareToIgnoreCase(j2.getName()));
+        for (int index = 0; index < jsonFiles.length && alive.getAsBoolean(); index++) {
+            //a file followed by newer ones will not be appended anymore
+            readJsonAndCommit(jsonFiles[index], newerVersion || index < jsonFiles.length - 1);
+        }
+    }
+
+    protected void readJsonAndCommit(File file, boolean complete) {
+        String path = file.getAbsolutePath();
+        long position = this.reader.readLineByLine(file, filePositions.getOrDefault(path, 0L), complete, line -> {
             DMLObject dmlObject = TapSimplify.fromJson(line, DMLObject.class);
             String table = dmlObject.getTable();
             DDLManager.VersionInfo versionInfo = handler.tableVersionMap.get(table);
@@ -140,6 +263,12 @@ public class DMLManager implements Activity {
             }
             handler.getTapEventManager().emit(dmlObject);
         }, alive);
+        if (!complete || position < file.length()) {
+            //the newest file may be still appended, even if it is read to the end now
+            filePositions.put(path, position);
+            return;
+        }
+        filePositions.remove(path);
         try {
             FileUtils.delete(file);
         } catch (IOException e) {
@@ -160,8 +289,63 @@ public class DMLManager implements Activity {
                 : new ArrayList<>();
     }
 
+    protected void stopWatching() {
+        Optional.ofNullable(watchExecutor).ifPresent(ExecutorService::shutdownNow);
+        Optional.ofNullable(readExecutor).ifPresent(ExecutorService::shutdownNow);
+        if (null != watchService) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.debug("Failed to close watch service of cdc data, message: {}", e.getMessage());
+            }
+        }
+        watchDirs.clear();
+        registeredDirs.clear();
+        tableReaders.clear();
+    }
+
     @Override
     public void close() throws Exception {
-        cancelSchedule(scheduledFuture, log);
+        stopWatching();
+    }
+
+    /**
+     * events of a table being read mark it dirty, and the worker reads it again after the current round
+     */
+    class TableReader implements Runnable {
+        final File tableDir;
+        final AtomicBoolean scheduled = new AtomicBoolean(false);
+        final AtomicBoolean dirty = new AtomicBoolean(false);
+
+        TableReader(File tableDir) {
+            this.tableDir = tableDir;
+        }
+
+        void submit() {
+            dirty.set(true);
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    readExecutor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                do {
+                    dirty.set(false);
+                    readTableDir(tableDir);
+                    scheduled.set(false);
+                } while (dirty.get() && alive.getAsBoolean() && scheduled.compareAndSet(false, true));
+            } catch (Throwable t) {
+                scheduled.set(false);
+                synchronized (throwableCollector) {
+                    throwableCollector.set(t);
+                }
+            }
+        }
     }
 }
@@ -107,6 +107,20 @@ public final class ProcessHandler implements Activity {
         return null != files && files.length > 0;
     }
 
+    //TiCDC writes dml into the directory of the new version after a ddl, so files of the older versions are not appended anymore
+    protected boolean hasNewerTableVersion(File tableDir, String version) {
+        File metaDir = new File(FileUtil.paths(tableDir.getAbsolutePath(), "meta"));
+        File[] files = metaDir.listFiles(f -> f.isFile() && f.getName().matches(DDLManager.TABLE_VERSION_FILE_NAME_MATCH));
+        if (null == files) return false;
+        long currentVersion = Long.parseLong(version);
+        for (File file : files) {
+            if (Long.parseLong(file.getName().split("_")[1]) > currentVersion) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public void close() throws Exception {
         closeOnce(this.ddlManager);
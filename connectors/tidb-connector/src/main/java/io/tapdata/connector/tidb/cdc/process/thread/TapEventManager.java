@@ -46,7 +46,8 @@ class TapEventManager {
         return new HashMap<>();
     }
 
-    public void emit(TiData tiData) {
+    //dml of tables are read by several threads, offset and consumer are shared by them
+    public synchronized void emit(TiData tiData) {
         if (tiData instanceof DMLObject) {
             handleDML((DMLObject) tiData);
         } else if (tiData instanceof DDLObject) {
@@ -12,6 +12,9 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.BooleanSupplier;
 
@@ -71,4 +74,23 @@ class NormalFileReaderTest {
         }
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void testReadFromPosition() throws IOException {
+        File temp = File.createTempFile("CDC", ".json");
+        try {
+            Files.write(temp.toPath(), "a\nb\r\n\nc".getBytes(StandardCharsets.UTF_8));
+            List<String> lines = new ArrayList<>();
+            long position = reader.readLineByLine(temp, 0L, false, lines::add, alive);
+            Assertions.assertEquals(6L, position);
+            Assertions.assertEquals(2, lines.size());
+            Assertions.assertEquals("b", lines.get(1));
+            position = reader.readLineByLine(temp, position, true, lines::add, alive);
+            Assertions.assertEquals(temp.length(), position);
+            Assertions.assertEquals(3, lines.size());
+            Assertions.assertEquals("c", lines.get(2));
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+}
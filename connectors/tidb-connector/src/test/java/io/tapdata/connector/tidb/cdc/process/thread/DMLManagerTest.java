@@ -0,0 +1,196 @@
+package io.tapdata.connector.tidb.cdc.process.thread;
+
+import io.tapdata.connector.tidb.cdc.process.analyse.NormalFileReader;
+import io.tapdata.entity.logger.Log;
+import io.tapdata.pdk.apis.context.TapConnectorContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DMLManagerTest {
+    DMLManager dmlManager;
+    ProcessHandler handler;
+    ProcessHandler.ProcessInfo processInfo;
+    NormalFileReader reader;
+    File tempDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        TapConnectorContext nodeContext = mock(TapConnectorContext.class);
+        when(nodeContext.getLog()).thenReturn(mock(Log.class));
+        processInfo = new ProcessHandler.ProcessInfo()
+                .withCdcTable(new ArrayList<>())
+                .withDatabase("db")
+                .withTapConnectorContext(nodeContext)
+                .withAlive(() -> true)
+                .withZone(TimeZone.getDefault())
+                .withThrowableCollector(new AtomicReference<>());
+        handler = mock(ProcessHandler.class);
+        ReflectionTestUtils.setField(handler, "processInfo", processInfo);
+        tempDir = Files.createTempDirectory("ticdc").toFile();
+        dmlManager = spy(new DMLManager(handler, tempDir.getAbsolutePath(), 3));
+        reader = mock(NormalFileReader.class);
+        ReflectionTestUtils.setField(dmlManager, "reader", reader);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        dmlManager.close();
+        org.apache.commons.io.FileUtils.deleteDirectory(tempDir);
+    }
+
+    File writeFile(File dir, String name, String content) throws IOException {
+        File file = new File(dir, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Nested
+    class ReadJsonAndCommitTest {
+        @Test
+        void testKeepPositionOfPartialLine() throws IOException {
+            File file = writeFile(tempDir, "CDC000001.json", "{}\n{");
+            when(reader.readLineByLine(eq(file), eq(0L), eq(false), any(), any())).thenReturn(3L);
+            dmlManager.readJsonAndCommit(file, false);
+            Assertions.assertTrue(file.exists());
+            Assertions.assertEquals(3L, dmlManager.filePositions.get(file.getAbsolutePath()));
+        }
+
+        @Test
+        void testKeepNewestFileReadToEnd() throws IOException {
+            File file = writeFile(tempDir, "CDC000001.json", "{}\n{}\n");
+            when(reader.readLineByLine(eq(file), eq(0L), eq(false), any(), any())).thenReturn(6L);
+            dmlManager.readJsonAndCommit(file, false);
+            Assertions.assertTrue(file.exists());
+            Assertions.assertEquals(6L, dmlManager.filePositions.get(file.getAbsolutePath()));
+        }
+
+        @Test
+        void testDeleteFileReadToEnd() throws IOException {
+            File file = writeFile(tempDir, "CDC000001.json", "{}\n{}\n");
+            dmlManager.filePositions.put(file.getAbsolutePath(), 3L);
+            when(reader.readLineByLine(eq(file), eq(3L), eq(true), any(), any())).thenReturn(6L);
+            dmlManager.readJsonAndCommit(file, true);
+            Assertions.assertFalse(file.exists());
+            Assertions.assertFalse(dmlManager.filePositions.containsKey(file.getAbsolutePath()));
+        }
+    }
+
+    @Nested
+    class ReadTableDirTest {
+        @Test
+        void testReadFilesInOrder() throws IOException {
+            File versionDir = new File(tempDir, "db/t1/100");
+            Assertions.assertTrue(versionDir.mkdirs());
+            File second = writeFile(versionDir, "CDC000002.json", "{}\n");
+            File first = writeFile(versionDir, "CDC000001.json", "{}\n");
+            writeFile(versionDir, "CDC.index", "CDC000002.json\n");
+            when(handler.judgeTableVersion("t1")).thenReturn("100");
+            List<String> names = new ArrayList<>();
+            doAnswer(a -> {
+                names.add(((File) a.getArgument(0)).getName() + ":" + a.getArgument(1));
+                return null;
+            }).when(dmlManager).readJsonAndCommit(any(File.class), anyBoolean());
+            dmlManager.readTableDir(new File(tempDir, "db/t1"));
+            Assertions.assertEquals(2, names.size());
+            Assertions.assertEquals(first.getName() + ":true", names.get(0));
+            Assertions.assertEquals(second.getName() + ":false", names.get(1));
+        }
+
+        @Test
+        void testTableVersionChanged() throws IOException {
+            File tableDir = new File(tempDir, "db/t1");
+            File oldVersionDir = new File(tableDir, "100");
+            File metaDir = new File(tableDir, "meta");
+            Assertions.assertTrue(oldVersionDir.mkdirs());
+            Assertions.assertTrue(metaDir.mkdirs());
+            writeFile(metaDir, "schema_000000000000000100_1234567890.json", "{}");
+            File oldFile = writeFile(oldVersionDir, "CDC000001.json", "{}\n");
+            AtomicReference<String> version = new AtomicReference<>("100");
+            when(handler.judgeTableVersion("t1")).thenAnswer(a -> version.get());
+            when(handler.hasNewerTableVersion(any(File.class), anyString())).thenCallRealMethod();
+            when(handler.judgeTableVersionHasDMlData(any(File.class), anyString())).thenCallRealMethod();
+            when(reader.readLineByLine(any(File.class), anyLong(), anyBoolean(), any(), any())).thenAnswer(a -> ((File) a.getArgument(0)).length());
+
+            //the newest file of the current version may be still appended
+            dmlManager.readTableDir(tableDir);
+            Assertions.assertTrue(oldFile.exists());
+            Assertions.assertTrue(handler.judgeTableVersionHasDMlData(tableDir, "100"));
+
+            //after a ddl, the last file of the old version is complete, it is deleted so that ddl moves to the new version
+            writeFile(metaDir, "schema_000000000000000200_1234567890.json", "{}");
+            dmlManager.readTableDir(tableDir);
+            Assertions.assertFalse(oldFile.exists());
+            Assertions.assertFalse(handler.judgeTableVersionHasDMlData(tableDir, "100"));
+
+            File newVersionDir = new File(tableDir, "200");
+            Assertions.assertTrue(newVersionDir.mkdirs());
+            File newFile = writeFile(newVersionDir, "CDC000001.json", "{}\n");
+            dmlManager.filePositions.put(new File(oldVersionDir, "CDC000002.json").getAbsolutePath(), 3L);
+            version.set("200");
+            dmlManager.readTableDir(tableDir);
+            Assertions.assertTrue(newFile.exists());
+            Assertions.assertEquals(1, dmlManager.filePositions.size());
+            Assertions.assertEquals(newFile.length(), dmlManager.filePositions.get(newFile.getAbsolutePath()));
+        }
+
+        @Test
+        void testTableWithoutVersion() {
+            when(handler.judgeTableVersion("t1")).thenReturn(null);
+            dmlManager.readTableDir(new File(tempDir, "db/t1"));
+            Assertions.assertTrue(dmlManager.tablesWithoutVersion.contains("t1"));
+            verify(dmlManager, times(0)).readJsonAndCommit(any(File.class), anyBoolean());
+        }
+    }
+
+    @Nested
+    class TableReaderTest {
+        @Test
+        void testReadAgainWhenSubmittedWhileReading() {
+            ExecutorService executor = mock(ExecutorService.class);
+            ReflectionTestUtils.setField(dmlManager, "readExecutor", executor);
+            DMLManager.TableReader tableReader = dmlManager.new TableReader(new File(tempDir, "db/t1"));
+            AtomicInteger reads = new AtomicInteger();
+            doAnswer(a -> {
+                if (reads.incrementAndGet() == 1) {
+                    tableReader.submit();
+                }
+                return null;
+            }).when(dmlManager).readTableDir(any(File.class));
+            doAnswer(a -> {
+                ((Runnable) a.getArgument(0)).run();
+                return null;
+            }).when(executor).execute(any(Runnable.class));
+            tableReader.submit();
+            Assertions.assertEquals(2, reads.get());
+            Assertions.assertFalse(tableReader.scheduled.get());
+            verify(executor, times(1)).execute(any(Runnable.class));
+        }
+    }
+}
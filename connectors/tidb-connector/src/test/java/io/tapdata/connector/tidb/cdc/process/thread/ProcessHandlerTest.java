@@ -4,12 +4,15 @@ import io.tapdata.connector.tidb.util.HttpUtil;
 import io.tapdata.connector.tidb.util.pojo.ChangeFeed;
 import io.tapdata.entity.error.CoreException;
 import io.tapdata.entity.logger.Log;
+import org.apache.commons.io.FileUtils;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -43,6 +46,24 @@ class ProcessHandlerTest {
     }
 
 
+    @Test
+    void testHasNewerTableVersion() throws IOException {
+        File tableDir = Files.createTempDirectory("ticdc").toFile();
+        try {
+            File metaDir = new File(tableDir, "meta");
+            Assertions.assertTrue(metaDir.mkdirs());
+            doCallRealMethod().when(processHandler).hasNewerTableVersion(tableDir, "100");
+            Assertions.assertFalse(processHandler.hasNewerTableVersion(tableDir, "100"));
+            Assertions.assertTrue(new File(metaDir, "schema_000000000000000100_1234567890.json").createNewFile());
+            Assertions.assertTrue(new File(metaDir, "schema.json").createNewFile());
+            Assertions.assertFalse(processHandler.hasNewerTableVersion(tableDir, "100"));
+            Assertions.assertTrue(new File(metaDir, "schema_000000000000000200_1234567890.json").createNewFile());
+            Assertions.assertTrue(processHandler.hasNewerTableVersion(tableDir, "100"));
+        } finally {
+            FileUtils.deleteDirectory(tableDir);
+        }
+    }
+
     @Test
     void testCreateChangeFeed() throws IOException {
         HttpUtil httpUtil = mock(HttpUtil.class);
@@ -0,0 +1,28 @@
+package io.tapdata.storage;
+
+import io.tapdata.file.TapFileStorage;
+
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * storage which can read a file from some byte position, by seek or range get, instead of downloading it from byte 0
+ */
+public interface RangeFileStorage extends TapFileStorage {
+
+    /**
+     * read the file from fromByte to the end
+     *
+     * @param path     path of the file
+     * @param fromByte byte position to read from, 0 means the whole file
+     * @param consumer consumer of the stream, it is closed after the consumer returns
+     */
+    void readFile(String path, long fromByte, Consumer<InputStream> consumer) throws Exception;
+
+    /**
+     * @return true when files can be read by several threads at the same time, false for storages on one session
+     */
+    default boolean supportConcurrentRead() {
+        return false;
+    }
+}
@@ -1,7 +1,7 @@
 package io.tapdata.storage.ftp;
 
 import io.tapdata.file.TapFile;
-import io.tapdata.file.TapFileStorage;
+import io.tapdata.storage.RangeFileStorage;
 import io.tapdata.storage.kit.EmptyKit;
 import io.tapdata.storage.kit.FileMatchKit;
 import org.apache.commons.net.ftp.FTP;
@@ -18,7 +18,7 @@ import java.util.*;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
-public class FtpFileStorage implements TapFileStorage {
+public class FtpFileStorage implements RangeFileStorage {
 
     private FtpConfig ftpConfig;
     private FTPClient ftpClient;
@@ -106,6 +106,23 @@ public class FtpFileStorage implements TapFileStorage {
         }
     }
 
+    @Override
+    public synchronized void readFile(String path, long fromByte, Consumer<InputStream> consumer) throws IOException {
+        if (!isFileExist(path)) {
+            return;
+        }
+        //REST before RETR, the offset is reset after the transfer
+        ftpClient.setRestartOffset(fromByte);
+        try (
+                InputStream is = ftpClient.retrieveFileStream(encodeISO(path))
+        ) {
+            consumer.accept(is);
+        } finally {
+            ftpClient.setRestartOffset(0);
+            ftpClient.completePendingCommand();
+        }
+    }
+
     @Override
     public boolean isFileExist(String path) throws IOException {
         return !isDirectoryExist(path) && ftpClient.listFiles(encodeISO(path)).length == 1;
@@ -1,17 +1,19 @@
 package io.tapdata.storage.local;
 
 import io.tapdata.file.TapFile;
-import io.tapdata.file.TapFileStorage;
+import io.tapdata.storage.RangeFileStorage;
 import io.tapdata.storage.kit.FileMatchKit;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
-public class LocalFileStorage implements TapFileStorage {
+public class LocalFileStorage implements RangeFileStorage {
 
     @Override
     public void init(Map<String, Object> params) {
@@ -55,6 +57,24 @@ public class LocalFileStorage implements TapFileStorage {
         }
     }
 
+    @Override
+    public void readFile(String path, long fromByte, Consumer<InputStream> consumer) throws IOException {
+        if (!isFileExist(path)) {
+            return;
+        }
+        try (
+                SeekableByteChannel channel = Files.newByteChannel(Paths.get(path));
+                InputStream is = Channels.newInputStream(channel.position(fromByte))
+        ) {
+            consumer.accept(is);
+        }
+    }
+
+    @Override
+    public boolean supportConcurrentRead() {
+        return true;
+    }
+
     @Override
     public boolean isFileExist(String path) {
         File file = new File(path);
@@ -6,11 +6,12 @@ import com.aliyun.oss.OSSClientBuilder;
 import com.aliyun.oss.OSSException;
 import com.aliyun.oss.common.comm.Protocol;
 import com.aliyun.oss.model.DeleteObjectsRequest;
+import com.aliyun.oss.model.GetObjectRequest;
 import com.aliyun.oss.model.OSSObject;
 import com.aliyun.oss.model.OSSObjectSummary;
 import com.aliyun.oss.model.ObjectMetadata;
 import io.tapdata.file.TapFile;
-import io.tapdata.file.TapFileStorage;
+import io.tapdata.storage.RangeFileStorage;
 import io.tapdata.storage.kit.EmptyKit;
 import io.tapdata.storage.kit.FileMatchKit;
 
@@ -29,7 +30,7 @@ import java.util.function.Consumer;
  * Author:Skeet
  * Date: 2023/1/3
  **/
-public class OssFileStorage implements TapFileStorage {
+public class OssFileStorage implements RangeFileStorage {
 
     private final static String TAG = OssFileStorage.class.getSimpleName();
     private OssConfig ossConfig;
@@ -88,6 +89,33 @@ public class OssFileStorage implements TapFileStorage {
         }
     }
 
+    @Override
+    public void readFile(String path, long fromByte, Consumer<InputStream> consumer) throws Exception {
+        long length;
+        try {
+            length = ossClient.getObjectMetadata(ossConfig.getBucket(), path).getContentLength();
+        } catch (OSSException e) {
+            return;
+        }
+        //a range from the end of the object is not satisfiable, and nothing is there to read
+        if (fromByte >= length) {
+            return;
+        }
+        GetObjectRequest getObjectRequest = new GetObjectRequest(ossConfig.getBucket(), path);
+        //-1 means to the end of the object
+        getObjectRequest.setRange(fromByte, -1);
+        try (
+                InputStream is = ossClient.getObject(getObjectRequest).getObjectContent()
+        ) {
+            consumer.accept(is);
+        }
+    }
+
+    @Override
+    public boolean supportConcurrentRead() {
+        return true;
+    }
+
     @Override
     public boolean isFileExist(String path) {
         try {
@@ -142,7 +170,7 @@ public class OssFileStorage implements TapFileStorage {
 
     @Override
     public boolean supportAppendData() {
-        return TapFileStorage.super.supportAppendData();
+        return RangeFileStorage.super.supportAppendData();
     }
 
     @Override
@@ -10,7 +10,7 @@ import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.amazonaws.services.s3.model.*;
 import io.tapdata.file.TapFile;
-import io.tapdata.file.TapFileStorage;
+import io.tapdata.storage.RangeFileStorage;
 import io.tapdata.storage.kit.EmptyKit;
 import io.tapdata.storage.kit.FileMatchKit;
 
@@ -25,7 +25,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
-public class S3fsFileStorage implements TapFileStorage {
+public class S3fsFileStorage implements RangeFileStorage {
 
     private S3fsConfig s3fsConfig;
     private AmazonS3 amazonS3Client;
@@ -97,6 +97,30 @@ public class S3fsFileStorage implements TapFileStorage {
         }
     }
 
+    @Override
+    public void readFile(String path, long fromByte, Consumer<InputStream> consumer) throws IOException {
+        long length;
+        try {
+            length = amazonS3Client.getObjectMetadata(s3fsConfig.getBucket(), path).getContentLength();
+        } catch (AmazonS3Exception e) {
+            return;
+        }
+        //a range from the end of the object is not satisfiable, and nothing is there to read
+        if (fromByte >= length) {
+            return;
+        }
+        try (
+                InputStream is = amazonS3Client.getObject(new GetObjectRequest(s3fsConfig.getBucket(), path).withRange(fromByte)).getObjectContent()
+        ) {
+            consumer.accept(is);
+        }
+    }
+
+    @Override
+    public boolean supportConcurrentRead() {
+        return true;
+    }
+
     @Override
     public boolean isFileExist(String path) {
         try {
@@ -2,7 +2,7 @@ package io.tapdata.storage.sftp;
 
 import com.jcraft.jsch.*;
 import io.tapdata.file.TapFile;
-import io.tapdata.file.TapFileStorage;
+import io.tapdata.storage.RangeFileStorage;
 import io.tapdata.storage.kit.EmptyKit;
 import io.tapdata.storage.kit.FileMatchKit;
 
@@ -12,7 +12,7 @@ import java.util.*;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
-public class SftpFileStorage implements TapFileStorage {
+public class SftpFileStorage implements RangeFileStorage {
 
     private SftpConfig sftpConfig;
     private Session session;
@@ -84,6 +84,18 @@ public class SftpFileStorage implements TapFileStorage {
         }
     }
 
+    @Override
+    public synchronized void readFile(String path, long fromByte, Consumer<InputStream> consumer) throws Exception {
+        if (!isFileExist(path)) {
+            return;
+        }
+        try (
+                InputStream is = channel.get(path, null, fromByte)
+        ) {
+            consumer.accept(is);
+        }
+    }
+
     @Override
     public boolean isFileExist(String path) {
         try {
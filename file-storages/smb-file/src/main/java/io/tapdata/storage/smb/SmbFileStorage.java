@@ -14,7 +14,7 @@ import com.hierynomus.smbj.share.DiskShare;
 import com.hierynomus.smbj.share.File;
 import io.tapdata.entity.logger.TapLogger;
 import io.tapdata.file.TapFile;
-import io.tapdata.file.TapFileStorage;
+import io.tapdata.storage.RangeFileStorage;
 import io.tapdata.storage.kit.EmptyKit;
 import io.tapdata.storage.kit.FileMatchKit;
 
@@ -26,7 +26,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
-public class SmbFileStorage implements TapFileStorage {
+public class SmbFileStorage implements RangeFileStorage {
 
     private SmbConfig smbConfig;
     private SMBClient smbClient;
@@ -123,6 +123,25 @@ public class SmbFileStorage implements TapFileStorage {
         }
     }
 
+    @Override
+    public void readFile(String path, long fromByte, Consumer<InputStream> consumer) throws IOException {
+        if (!isFileExist(path)) {
+            return;
+        }
+        try (
+                File file = share.openFile(path, EnumSet.of(AccessMask.GENERIC_READ), null,
+                        SMB2ShareAccess.ALL, SMB2CreateDisposition.FILE_OPEN, null)
+        ) {
+            InputStream is = file.getInputStream();
+            //skip of smbj only moves the read offset, the skipped bytes are not transferred
+            long skipped = is.skip(fromByte);
+            if (skipped < fromByte) {
+                throw new IOException("Skip " + fromByte + " bytes of " + path + " failed, only " + skipped + " skipped");
+            }
+            consumer.accept(is);
+        }
+    }
+
     @Override
     public boolean isFileExist(String path) {
         if (null != share) {